@@ -2,4 +2,6 @@ package Absyn;
 import Symbol.Symbol;
 abstract public class Absyn {
   public int pos;
+  public long hash;	/* structure, not position; set by Hasher, 0 if not */
+  public int id = -1;	/* from Numbering, once, to index side tables */
 }
@@ -0,0 +1,505 @@
+package Absyn;
+import Symbol.Symbol;
+
+// A syntax tree kept flat: node n is kind[n], pos[n], value[n] and links to
+// its first child and next sibling, all in int arrays, with the symbols and
+// string literals in side tables.  There are no per-node objects and no
+// list cells, so a big tree takes a fraction of the heap the Absyn classes
+// do.  Only the syntax is kept; Semant's types and entries are not.
+// Walk it with a Cursor, as Hasher.hash(Arena) does, or turn it back into
+// Absyn with toExp.
+//
+// What value holds, and the children in order, for each kind:
+//   SIMPLEVAR     symbol
+//   FIELDVAR      symbol         var
+//   SUBSCRIPTVAR                 var, index
+//   VAREXP                       var
+//   NILEXP, BREAKEXP
+//   INTEXP        the integer
+//   STRINGEXP     string index
+//   CALLEXP       symbol         args
+//   OPEXP         OpExp.oper     left, right
+//   RECORDEXP     symbol         FIELDEXPs
+//   FIELDEXP      symbol         init
+//   SEQEXP                       exps
+//   ASSIGNEXP                    var, exp
+//   IFEXP                        test, then, else if there is one
+//   WHILEEXP                     test, body
+//   FOREXP                       VARDEC, hi, body
+//   LETEXP                       decs, then the body if there is one
+//   ARRAYEXP      symbol         size, init
+//   VARDEC        symbol         NAMETY if given, init
+//   FUNCTIONDEC   symbol         FIELDs, NAMETY if given, body
+//   TYPEDEC       symbol         ty
+//   NAMETY        symbol
+//   RECORDTY                     FIELDs
+//   ARRAYTY       symbol
+//   FIELD         symbol         NAMETY
+// A group of functions or types is consecutive siblings, all but the last
+// flagged NEXT.
+public class Arena {
+   public final static int SIMPLEVAR=1, FIELDVAR=2, SUBSCRIPTVAR=3,
+      VAREXP=4, NILEXP=5, INTEXP=6, STRINGEXP=7, CALLEXP=8, OPEXP=9,
+      RECORDEXP=10, SEQEXP=11, ASSIGNEXP=12, IFEXP=13, WHILEEXP=14,
+      FOREXP=15, BREAKEXP=16, LETEXP=17, ARRAYEXP=18,
+      VARDEC=19, FUNCTIONDEC=20, TYPEDEC=21,
+      NAMETY=22, RECORDTY=23, ARRAYTY=24, FIELD=25, FIELDEXP=26;
+
+   // flags, kept above the kind
+   public final static int ESCAPE=0x100, LEAF=0x200, NEXT=0x400;
+
+   int[] kind, pos, value, first, next;	// -1 is no node
+   int size;
+   Symbol[] symbols = new Symbol[64];
+   int nsymbols;
+   private java.util.Hashtable<Symbol,Integer> symbolIndex =
+      new java.util.Hashtable<Symbol,Integer>();
+   public StringPool strings = new StringPool();
+   public int root;
+
+   public Arena(Exp prog) {
+      this(1024);
+      root = exp(prog);
+   }
+
+   public Arena(int capacity) {
+      kind = new int[capacity];
+      pos = new int[capacity];
+      value = new int[capacity];
+      first = new int[capacity];
+      next = new int[capacity];
+   }
+
+   public int size() {return size;}
+
+   public int kind(int n) {return kind[n] & 0xff;}
+   public boolean flag(int n, int f) {return (kind[n] & f) != 0;}
+   public int pos(int n) {return pos[n];}
+   public int value(int n) {return value[n];}
+   public Symbol symbol(int n) {return symbols[value[n]];}
+   public String string(int n) {return strings.get(value[n]);}
+   public int first(int n) {return first[n];}
+   public int next(int n) {return next[n];}
+
+   // the i'th child of n, or -1
+   public int child(int n, int i) {
+      int c = first[n];
+      for (; c >= 0 && i > 0; i--)
+         c = next[c];
+      return c;
+   }
+
+   // drop the spare room left at the end of the arrays
+   public void trim() {
+      grow(size);
+      Symbol[] s = new Symbol[nsymbols];
+      System.arraycopy(symbols, 0, s, 0, nsymbols);
+      symbols = s;
+   }
+
+   private void grow(int capacity) {
+      kind = copy(kind, capacity);
+      pos = copy(pos, capacity);
+      value = copy(value, capacity);
+      first = copy(first, capacity);
+      next = copy(next, capacity);
+   }
+
+   private static int[] copy(int[] a, int n) {
+      int[] b = new int[n];
+      System.arraycopy(a, 0, b, 0, Math.min(a.length, n));
+      return b;
+   }
+
+   // building
+
+   public int node(int k, int p, int v) {
+      if (size == kind.length)
+         grow(size * 2);
+      kind[size] = k;
+      pos[size] = p;
+      value[size] = v;
+      first[size] = -1;
+      next[size] = -1;
+      return size++;
+   }
+
+   public int symbolIndex(Symbol s) {
+      Integer i = symbolIndex.get(s);
+      if (i == null) {
+         if (nsymbols == symbols.length) {
+            Symbol[] b = new Symbol[nsymbols * 2];
+            System.arraycopy(symbols, 0, b, 0, nsymbols);
+            symbols = b;
+         }
+         i = Integer.valueOf(nsymbols);
+         symbols[nsymbols++] = s;
+         symbolIndex.put(s, i);
+      }
+      return i.intValue();
+   }
+
+   // make c the child of parent after last, and return the new last child
+   public int add(int parent, int last, int c) {
+      if (c < 0)
+         return last;
+      if (last < 0)
+         first[parent] = c;
+      else
+         next[last] = c;
+      return c;
+   }
+
+   int sym(int k, int p, Symbol s) {return node(k, p, symbolIndex(s));}
+
+   int var(Var v) {
+      if (v instanceof SimpleVar)
+         return sym(SIMPLEVAR, v.pos, ((SimpleVar)v).name);
+      if (v instanceof FieldVar) {
+         FieldVar f = (FieldVar)v;
+         int n = sym(FIELDVAR, f.pos, f.field);
+         add(n, -1, var(f.var));
+         return n;
+      }
+      if (v instanceof SubscriptVar) {
+         SubscriptVar s = (SubscriptVar)v;
+         int n = node(SUBSCRIPTVAR, s.pos, 0);
+         add(n, add(n, -1, var(s.var)), exp(s.index));
+         return n;
+      }
+      throw new Error("Arena.var");
+   }
+
+   int exps(int n, ExpList l) {
+      int last = -1;
+      for (; l != null; l = l.tail)
+         last = add(n, last, exp(l.head));
+      return last;
+   }
+
+   int exp(Exp e) {
+      if (e == null)
+         return -1;
+      int n;
+      if (e instanceof VarExp) {
+         n = node(VAREXP, e.pos, 0);
+         add(n, -1, var(((VarExp)e).var));
+      }
+      else if (e instanceof NilExp)
+         n = node(NILEXP, e.pos, 0);
+      else if (e instanceof IntExp)
+         n = node(INTEXP, e.pos, ((IntExp)e).value);
+      else if (e instanceof StringExp)
+         n = node(STRINGEXP, e.pos, strings.add(((StringExp)e).value));
+      else if (e instanceof CallExp) {
+         CallExp c = (CallExp)e;
+         n = sym(CALLEXP, c.pos, c.func);
+         exps(n, c.args);
+      }
+      else if (e instanceof OpExp) {
+         OpExp o = (OpExp)e;
+         n = node(OPEXP, o.pos, o.oper);
+         add(n, add(n, -1, exp(o.left)), exp(o.right));
+      }
+      else if (e instanceof RecordExp) {
+         RecordExp r = (RecordExp)e;
+         n = sym(RECORDEXP, r.pos, r.typ);
+         int last = -1;
+         for (FieldExpList f = r.fields; f != null; f = f.tail) {
+            int c = sym(FIELDEXP, f.pos, f.name);
+            add(c, -1, exp(f.init));
+            last = add(n, last, c);
+         }
+      }
+      else if (e instanceof SeqExp) {
+         n = node(SEQEXP, e.pos, 0);
+         exps(n, ((SeqExp)e).list);
+      }
+      else if (e instanceof AssignExp) {
+         AssignExp a = (AssignExp)e;
+         n = node(ASSIGNEXP, a.pos, 0);
+         add(n, add(n, -1, var(a.var)), exp(a.exp));
+      }
+      else if (e instanceof IfExp) {
+         IfExp i = (IfExp)e;
+         n = node(IFEXP, i.pos, 0);
+         add(n, add(n, add(n, -1, exp(i.test)), exp(i.thenclause)),
+             exp(i.elseclause));
+      }
+      else if (e instanceof WhileExp) {
+         WhileExp w = (WhileExp)e;
+         n = node(WHILEEXP, w.pos, 0);
+         add(n, add(n, -1, exp(w.test)), exp(w.body));
+      }
+      else if (e instanceof ForExp) {
+         ForExp f = (ForExp)e;
+         n = node(FOREXP, f.pos, 0);
+         add(n, add(n, add(n, -1, dec(f.var)), exp(f.hi)), exp(f.body));
+      }
+      else if (e instanceof BreakExp)
+         n = node(BREAKEXP, e.pos, 0);
+      else if (e instanceof LetExp) {
+         LetExp l = (LetExp)e;
+         n = node(LETEXP, l.pos, 0);
+         int last = -1;
+         for (DecList d = l.decs; d != null; d = d.tail) {
+            last = add(n, last, dec(d.head));
+            while (flag(last, NEXT))
+               last = next[last];
+         }
+         add(n, last, exp(l.body));
+      }
+      else if (e instanceof ArrayExp) {
+         ArrayExp a = (ArrayExp)e;
+         n = sym(ARRAYEXP, a.pos, a.typ);
+         add(n, add(n, -1, exp(a.size)), exp(a.init));
+      }
+      else throw new Error("Arena.exp");
+      return n;
+   }
+
+   // a group comes back as its first member, with the rest as its siblings
+   int dec(Dec d) {
+      if (d instanceof VarDec) {
+         VarDec v = (VarDec)d;
+         int n = sym(VARDEC, v.pos, v.name);
+         if (v.escape)
+            kind[n] |= ESCAPE;
+         add(n, add(n, -1, ty(v.typ)), exp(v.init));
+         return n;
+      }
+      int head = -1, last = -1;
+      if (d instanceof FunctionDec) {
+         for (FunctionDec f = (FunctionDec)d; f != null; f = f.next) {
+            int n = sym(FUNCTIONDEC, f.pos, f.name);
+            if (f.leaf)
+               kind[n] |= LEAF;
+            int c = fields(n, f.params);
+            add(n, add(n, c, ty(f.result)), exp(f.body));
+            if (last < 0)
+               head = n;
+            else {
+               kind[last] |= NEXT;
+               next[last] = n;
+            }
+            last = n;
+         }
+         return head;
+      }
+      if (d instanceof TypeDec) {
+         for (TypeDec t = (TypeDec)d; t != null; t = t.next) {
+            int n = sym(TYPEDEC, t.pos, t.name);
+            add(n, -1, ty(t.ty));
+            if (last < 0)
+               head = n;
+            else {
+               kind[last] |= NEXT;
+               next[last] = n;
+            }
+            last = n;
+         }
+         return head;
+      }
+      throw new Error("Arena.dec");
+   }
+
+   int ty(Ty t) {
+      if (t == null)
+         return -1;
+      if (t instanceof NameTy)
+         return sym(NAMETY, t.pos, ((NameTy)t).name);
+      if (t instanceof ArrayTy)
+         return sym(ARRAYTY, t.pos, ((ArrayTy)t).typ);
+      if (t instanceof RecordTy) {
+         int n = node(RECORDTY, t.pos, 0);
+         fields(n, ((RecordTy)t).fields);
+         return n;
+      }
+      throw new Error("Arena.ty");
+   }
+
+   int fields(int n, FieldList f) {
+      int last = -1;
+      for (; f != null; f = f.tail) {
+         int c = sym(FIELD, f.pos, f.name);
+         if (f.escape)
+            kind[c] |= ESCAPE;
+         add(c, -1, sym(NAMETY, f.pos, f.typ));
+         last = add(n, last, c);
+      }
+      return last;
+   }
+
+   // back to Absyn, for code that wants the classes
+
+   public Exp toExp() {return toExp(root);}
+
+   public Var toVar(int n) {
+      switch (kind(n)) {
+      case SIMPLEVAR:
+         return new SimpleVar(pos[n], symbol(n));
+      case FIELDVAR:
+         return new FieldVar(pos[n], toVar(first[n]), symbol(n));
+      case SUBSCRIPTVAR:
+         return new SubscriptVar(pos[n], toVar(first[n]), toExp(next[first[n]]));
+      }
+      throw new Error("Arena.toVar");
+   }
+
+   ExpList toExps(int c) {
+      ExpList head = null, last = null;
+      for (; c >= 0; c = next[c]) {
+         ExpList l = new ExpList(toExp(c), null);
+         if (last == null)
+            head = l;
+         else
+            last.tail = l;
+         last = l;
+      }
+      return head;
+   }
+
+   public Exp toExp(int n) {
+      if (n < 0)
+         return null;
+      int c = first[n];
+      switch (kind(n)) {
+      case VAREXP:
+         return new VarExp(pos[n], toVar(c));
+      case NILEXP:
+         return new NilExp(pos[n]);
+      case INTEXP:
+         return new IntExp(pos[n], value[n]);
+      case STRINGEXP:
+         return new StringExp(pos[n], string(n));
+      case CALLEXP:
+         return new CallExp(pos[n], symbol(n), toExps(c));
+      case OPEXP:
+         return new OpExp(pos[n], toExp(c), value[n], toExp(next[c]));
+      case RECORDEXP: {
+         FieldExpList head = null, last = null;
+         for (; c >= 0; c = next[c]) {
+            FieldExpList f = new FieldExpList(pos[c], symbol(c), toExp(first[c]), null);
+            if (last == null)
+               head = f;
+            else
+               last.tail = f;
+            last = f;
+         }
+         return new RecordExp(pos[n], symbol(n), head);
+      }
+      case SEQEXP:
+         return new SeqExp(pos[n], toExps(c));
+      case ASSIGNEXP:
+         return new AssignExp(pos[n], toVar(c), toExp(next[c]));
+      case IFEXP:
+         return new IfExp(pos[n], toExp(c), toExp(next[c]), toExp(next[next[c]]));
+      case WHILEEXP:
+         return new WhileExp(pos[n], toExp(c), toExp(next[c]));
+      case FOREXP:
+         return new ForExp(pos[n], (VarDec)toDec(c), toExp(next[c]),
+                           toExp(next[next[c]]));
+      case BREAKEXP:
+         return new BreakExp(pos[n]);
+      case LETEXP: {
+         DecList head = null, last = null;
+         for (; c >= 0 && kind(c) >= VARDEC; c = next[c]) {
+            DecList d = new DecList(toDec(c), null);
+            if (last == null)
+               head = d;
+            else
+               last.tail = d;
+            last = d;
+            //skip the rest of a group, which toDec has taken
+            while (flag(c, NEXT))
+               c = next[c];
+         }
+         return new LetExp(pos[n], head, toExp(c));
+      }
+      case ARRAYEXP:
+         return new ArrayExp(pos[n], symbol(n), toExp(c), toExp(next[c]));
+      }
+      throw new Error("Arena.toExp");
+   }
+
+   // a group is made whole from its first member
+   public Dec toDec(int n) {
+      int c = first[n];
+      switch (kind(n)) {
+      case VARDEC: {
+         NameTy typ = null;
+         if (kind(c) == NAMETY) {
+            typ = (NameTy)toTy(c);
+            c = next[c];
+         }
+         VarDec v = new VarDec(pos[n], symbol(n), typ, toExp(c));
+         v.escape = flag(n, ESCAPE);
+         return v;
+      }
+      case FUNCTIONDEC: {
+         FunctionDec head = null, last = null;
+         for (;; n = next[n]) {
+            c = first[n];
+            FieldList params = toFields(c);
+            while (c >= 0 && kind(c) == FIELD)
+               c = next[c];
+            NameTy result = null;
+            if (kind(c) == NAMETY) {
+               result = (NameTy)toTy(c);
+               c = next[c];
+            }
+            FunctionDec f = new FunctionDec(pos[n], symbol(n), params, result,
+                                            toExp(c), null);
+            f.leaf = flag(n, LEAF);
+            if (last == null)
+               head = f;
+            else
+               last.next = f;
+            last = f;
+            if (!flag(n, NEXT))
+               return head;
+         }
+      }
+      case TYPEDEC: {
+         TypeDec head = null, last = null;
+         for (;; n = next[n]) {
+            TypeDec t = new TypeDec(pos[n], symbol(n), toTy(first[n]), null);
+            if (last == null)
+               head = t;
+            else
+               last.next = t;
+            last = t;
+            if (!flag(n, NEXT))
+               return head;
+         }
+      }
+      }
+      throw new Error("Arena.toDec");
+   }
+
+   public Ty toTy(int n) {
+      switch (kind(n)) {
+      case NAMETY:
+         return new NameTy(pos[n], symbol(n));
+      case ARRAYTY:
+         return new ArrayTy(pos[n], symbol(n));
+      case RECORDTY:
+         return new RecordTy(pos[n], toFields(first[n]));
+      }
+      throw new Error("Arena.toTy");
+   }
+
+   FieldList toFields(int c) {
+      FieldList head = null, last = null;
+      for (; c >= 0 && kind(c) == FIELD; c = next[c]) {
+         FieldList f = new FieldList(pos[c], symbol(c), symbol(first[c]), null);
+         f.escape = flag(c, ESCAPE);
+         if (last == null)
+            head = f;
+         else
+            last.tail = f;
+         last = f;
+      }
+      return head;
+   }
+}
@@ -4,4 +4,6 @@ public class CallExp extends Exp {
    public Symbol func;
    public ExpList args;
    public CallExp(int p, Symbol f, ExpList a) {pos=p; func=f; args=a;}
+   /* set by Semant: depth of the callee's body, -1 for a library function */
+   public int depth = -1;
 }
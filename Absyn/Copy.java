@@ -0,0 +1,193 @@
+package Absyn;
+
+// A copy of a tree as the parser made it, every position moved by the same
+// amount, for a tree that is kept while its copies are changed or checked.
+// Only the syntax is copied; what Semant, FindEscape and Hasher add is left
+// for them to find again.
+//
+// dec copies a FunctionDec or TypeDec alone, with no next; the groups in a
+// LetExp are copied whole.
+public class Copy {
+   private int by;
+
+   public Copy(int b) {by=b;}
+
+   public Var var(Var v) {
+      if (v instanceof SimpleVar)
+         return new SimpleVar(v.pos + by, ((SimpleVar)v).name);
+      if (v instanceof FieldVar) {
+         FieldVar f = (FieldVar)v;
+         return new FieldVar(f.pos + by, var(f.var), f.field);
+      }
+      if (v instanceof SubscriptVar) {
+         SubscriptVar s = (SubscriptVar)v;
+         return new SubscriptVar(s.pos + by, var(s.var), exp(s.index));
+      }
+      throw new Error("Copy.var");
+   }
+
+   ExpList exps(ExpList l) {
+      ExpList head = null, last = null;
+      for (; l != null; l = l.tail) {
+         ExpList c = new ExpList(exp(l.head), null);
+         if (last == null)
+            head = c;
+         else
+            last.tail = c;
+         last = c;
+      }
+      return head;
+   }
+
+   public Exp exp(Exp e) {
+      if (e == null)
+         return null;
+      int p = e.pos + by;
+      Exp c;
+      if (e instanceof VarExp)
+         c = new VarExp(p, var(((VarExp)e).var));
+      else if (e instanceof NilExp)
+         c = new NilExp(p);
+      else if (e instanceof IntExp)
+         c = new IntExp(p, ((IntExp)e).value);
+      else if (e instanceof StringExp)
+         c = new StringExp(p, ((StringExp)e).value);
+      else if (e instanceof CallExp) {
+         CallExp call = (CallExp)e;
+         c = new CallExp(p, call.func, exps(call.args));
+      }
+      else if (e instanceof OpExp) {
+         OpExp o = (OpExp)e;
+         c = new OpExp(p, exp(o.left), o.oper, exp(o.right));
+      }
+      else if (e instanceof RecordExp) {
+         RecordExp r = (RecordExp)e;
+         FieldExpList head = null, last = null;
+         for (FieldExpList f = r.fields; f != null; f = f.tail) {
+            FieldExpList n = new FieldExpList(f.pos + by, f.name, exp(f.init), null);
+            if (last == null)
+               head = n;
+            else
+               last.tail = n;
+            last = n;
+         }
+         c = new RecordExp(p, r.typ, head);
+      }
+      else if (e instanceof SeqExp)
+         c = new SeqExp(p, exps(((SeqExp)e).list));
+      else if (e instanceof AssignExp) {
+         AssignExp a = (AssignExp)e;
+         c = new AssignExp(p, var(a.var), exp(a.exp));
+      }
+      else if (e instanceof IfExp) {
+         IfExp i = (IfExp)e;
+         c = new IfExp(p, exp(i.test), exp(i.thenclause), exp(i.elseclause));
+      }
+      else if (e instanceof WhileExp) {
+         WhileExp w = (WhileExp)e;
+         c = new WhileExp(p, exp(w.test), exp(w.body));
+      }
+      else if (e instanceof ForExp) {
+         ForExp f = (ForExp)e;
+         c = new ForExp(p, (VarDec)dec(f.var), exp(f.hi), exp(f.body));
+      }
+      else if (e instanceof BreakExp)
+         c = new BreakExp(p);
+      else if (e instanceof LetExp) {
+         LetExp l = (LetExp)e;
+         DecList head = null, last = null;
+         for (DecList d = l.decs; d != null; d = d.tail) {
+            DecList n = new DecList(group(d.head), null);
+            if (last == null)
+               head = n;
+            else
+               last.tail = n;
+            last = n;
+         }
+         c = new LetExp(p, head, exp(l.body));
+      }
+      else if (e instanceof ArrayExp) {
+         ArrayExp a = (ArrayExp)e;
+         c = new ArrayExp(p, a.typ, exp(a.size), exp(a.init));
+      }
+      else throw new Error("Copy.exp");
+      return c;
+   }
+
+   // a declaration with the rest of its group
+   Dec group(Dec d) {
+      if (d instanceof FunctionDec) {
+         FunctionDec head = null, last = null;
+         for (FunctionDec f = (FunctionDec)d; f != null; f = f.next) {
+            FunctionDec n = (FunctionDec)dec(f);
+            if (last == null)
+               head = n;
+            else
+               last.next = n;
+            last = n;
+         }
+         return head;
+      }
+      if (d instanceof TypeDec) {
+         TypeDec head = null, last = null;
+         for (TypeDec t = (TypeDec)d; t != null; t = t.next) {
+            TypeDec n = (TypeDec)dec(t);
+            if (last == null)
+               head = n;
+            else
+               last.next = n;
+            last = n;
+         }
+         return head;
+      }
+      return dec(d);
+   }
+
+   public Dec dec(Dec d) {
+      int p = d.pos + by;
+      Dec c;
+      if (d instanceof VarDec) {
+         VarDec v = (VarDec)d;
+         c = new VarDec(p, v.name, (NameTy)ty(v.typ), exp(v.init));
+      }
+      else if (d instanceof FunctionDec) {
+         FunctionDec f = (FunctionDec)d;
+         c = new FunctionDec(p, f.name, fields(f.params), (NameTy)ty(f.result),
+                             exp(f.body), null);
+      }
+      else if (d instanceof TypeDec) {
+         TypeDec t = (TypeDec)d;
+         c = new TypeDec(p, t.name, ty(t.ty), null);
+      }
+      else throw new Error("Copy.dec");
+      return c;
+   }
+
+   public Ty ty(Ty t) {
+      if (t == null)
+         return null;
+      int p = t.pos + by;
+      Ty c;
+      if (t instanceof NameTy)
+         c = new NameTy(p, ((NameTy)t).name);
+      else if (t instanceof ArrayTy)
+         c = new ArrayTy(p, ((ArrayTy)t).typ);
+      else if (t instanceof RecordTy)
+         c = new RecordTy(p, fields(((RecordTy)t).fields));
+      else throw new Error("Copy.ty");
+      return c;
+   }
+
+   FieldList fields(FieldList f) {
+      FieldList head = null, last = null;
+      for (; f != null; f = f.tail) {
+         FieldList n = new FieldList(f.pos + by, f.name, f.typ, null);
+         if (last == null)
+            head = n;
+         else
+            last.tail = n;
+         last = n;
+      }
+      return head;
+   }
+}
@@ -0,0 +1,55 @@
+package Absyn;
+import Symbol.Symbol;
+
+// A place in an Arena, moved about the tree without making any objects.
+// down() goes to the first child, next() to the next sibling, up() back
+// to where the last down() left from.
+public class Cursor {
+   private Arena arena;
+   private int node;
+   private int[] up = new int[32];	// the nodes down() left from
+   private int depth;
+
+   public Cursor(Arena a) {arena=a; node=a.root;}
+
+   public int node() {return node;}
+   public int kind() {return arena.kind(node);}
+   public boolean flag(int f) {return arena.flag(node, f);}
+   public int pos() {return arena.pos[node];}
+   public int value() {return arena.value[node];}
+   public Symbol symbol() {return arena.symbol(node);}
+   public String string() {return arena.string(node);}
+   public int depth() {return depth;}
+
+   public boolean down() {
+      int c = arena.first[node];
+      if (c < 0)
+         return false;
+      if (depth == up.length) {
+         int[] b = new int[depth * 2];
+         System.arraycopy(up, 0, b, 0, depth);
+         up = b;
+      }
+      up[depth++] = node;
+      node = c;
+      return true;
+   }
+
+   public boolean next() {
+      int s = arena.next[node];
+      if (s < 0)
+         return false;
+      node = s;
+      return true;
+   }
+
+   public boolean up() {
+      if (depth == 0)
+         return false;
+      node = up[--depth];
+      return true;
+   }
+
+   // start again from n, as if it were the root
+   public void moveTo(int n) {node=n; depth=0;}
+}
@@ -0,0 +1,337 @@
+package Absyn;
+import Symbol.Symbol;
+
+// Writes a tree for other programs to read, as JSON or as an S-expression,
+// on one line.  Every node is {"node":"OpExp","pos":12,...} or
+// (OpExp :pos 12 ...); lists are [...] or (...).  A checked expression
+// carries its type, and a declaration the type Semant gave it, written
+// as Tiger would: "int", "list", "array of int", "{first: int, rest: list}".
+// A function or type group is one FunctionDecs or TypeDecs node.
+public class Dump {
+  public final static int JSON=0, SEXP=1;
+
+  java.io.PrintWriter out;
+  int mode;
+
+  public Dump(java.io.PrintWriter o, int m) {
+    out=o;
+    mode=m;
+  }
+
+  void say(String s) {
+    out.print(s);
+  }
+
+  void open(String node, int pos) {
+    if (mode == JSON) {
+      say("{\"node\":\""); say(node); say("\",\"pos\":");
+    } else {
+      say("("); say(node); say(" :pos ");
+    }
+    out.print(pos);
+  }
+
+  void open(String node) {
+    if (mode == JSON) {
+      say("{\"node\":\""); say(node); say("\"");
+    } else {
+      say("("); say(node);
+    }
+  }
+
+  void close() {
+    say(mode == JSON ? "}" : ")");
+  }
+
+  void field(String name) {
+    if (mode == JSON) {
+      say(",\""); say(name); say("\":");
+    } else {
+      say(" :"); say(name); say(" ");
+    }
+  }
+
+  void beginList() {say(mode == JSON ? "[" : "(");}
+  void endList() {say(mode == JSON ? "]" : ")");}
+  void separate(boolean first) {
+    if (!first)
+      say(mode == JSON ? "," : " ");
+  }
+
+  void string(String s) {
+    if (s == null) {
+      nothing();
+      return;
+    }
+    out.write('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+	out.write('\\'); out.write(c);
+      } else if (c < ' ' && mode == JSON) {
+	String hex = Integer.toHexString(c);
+	say("\\u00"); if (hex.length() < 2) say("0"); say(hex);
+      } else
+	out.write(c);
+    }
+    out.write('"');
+  }
+
+  void symbol(Symbol s) {
+    string(s == null ? null : s.toString());
+  }
+
+  void nothing() {say(mode == JSON ? "null" : "nil");}
+
+  void bool(boolean b) {
+    if (mode == JSON)
+      say(b ? "true" : "false");
+    else
+      say(b ? "t" : "nil");
+  }
+
+  // a type as Tiger would write it; names stop the descent, so cycles end
+  static String typeName(Types.Type t) {
+    if (t == null) return "()";
+    if (t instanceof Types.INT) return "int";
+    if (t instanceof Types.STRING) return "string";
+    if (t instanceof Types.NIL) return "nil";
+    if (t instanceof Types.VOID) return "void";
+    if (t instanceof Types.NAME) return ((Types.NAME)t).name.toString();
+    if (t instanceof Types.ARRAY)
+      return "array of " + typeName(((Types.ARRAY)t).element);
+    if (t instanceof Types.RECORD) {
+      StringBuffer b = new StringBuffer("{");
+      for (Types.RECORD r = (Types.RECORD)t; r != null; r = r.tail) {
+	b.append(r.fieldName.toString()).append(": ").append(typeName(r.fieldType));
+	if (r.tail != null)
+	  b.append(", ");
+      }
+      return b.append("}").toString();
+    }
+    throw new Error("Dump.typeName");
+  }
+
+  void type(Types.Type t) {
+    if (t != null) {
+      field("type"); string(typeName(t));
+    }
+  }
+
+  public void dump(Exp e) {
+    prExp(e);
+    out.println();
+  }
+
+  void prVar(Var v) {
+    if (v instanceof SimpleVar) {
+      open("SimpleVar", v.pos);
+      field("name"); symbol(((SimpleVar)v).name);
+    }
+    else if (v instanceof FieldVar) {
+      FieldVar f = (FieldVar)v;
+      open("FieldVar", f.pos);
+      field("var"); prVar(f.var);
+      field("field"); symbol(f.field);
+    }
+    else if (v instanceof SubscriptVar) {
+      SubscriptVar s = (SubscriptVar)v;
+      open("SubscriptVar", s.pos);
+      field("var"); prVar(s.var);
+      field("index"); prExp(s.index);
+    }
+    else throw new Error("Dump.prVar");
+    close();
+  }
+
+  final static String[] opers = {"PLUS", "MINUS", "MUL", "DIV",
+				 "EQ", "NE", "LT", "LE", "GT", "GE"};
+
+  void prExp(Exp e) {
+    if (e == null) {
+      nothing();
+      return;
+    }
+    if (e instanceof VarExp) {
+      open("VarExp", e.pos);
+      field("var"); prVar(((VarExp)e).var);
+    }
+    else if (e instanceof NilExp)
+      open("NilExp", e.pos);
+    else if (e instanceof IntExp) {
+      open("IntExp", e.pos);
+      field("value"); out.print(((IntExp)e).value);
+    }
+    else if (e instanceof StringExp) {
+      open("StringExp", e.pos);
+      field("value"); string(((StringExp)e).value);
+    }
+    else if (e instanceof CallExp) {
+      CallExp c = (CallExp)e;
+      open("CallExp", c.pos);
+      field("func"); symbol(c.func);
+      field("args"); prExpList(c.args);
+    }
+    else if (e instanceof OpExp) {
+      OpExp o = (OpExp)e;
+      open("OpExp", o.pos);
+      field("oper"); say(mode == JSON ? "\"" + opers[o.oper] + "\"" : opers[o.oper]);
+      field("left"); prExp(o.left);
+      field("right"); prExp(o.right);
+    }
+    else if (e instanceof RecordExp) {
+      RecordExp r = (RecordExp)e;
+      open("RecordExp", r.pos);
+      field("typ"); symbol(r.typ);
+      field("fields"); beginList();
+      for (FieldExpList f = r.fields; f != null; f = f.tail) {
+	separate(f == r.fields);
+	open("FieldExp", f.pos);
+	field("name"); symbol(f.name);
+	field("init"); prExp(f.init);
+	close();
+      }
+      endList();
+    }
+    else if (e instanceof SeqExp) {
+      open("SeqExp", e.pos);
+      field("list"); prExpList(((SeqExp)e).list);
+    }
+    else if (e instanceof AssignExp) {
+      AssignExp a = (AssignExp)e;
+      open("AssignExp", a.pos);
+      field("var"); prVar(a.var);
+      field("exp"); prExp(a.exp);
+    }
+    else if (e instanceof IfExp) {
+      IfExp i = (IfExp)e;
+      open("IfExp", i.pos);
+      field("test"); prExp(i.test);
+      field("then"); prExp(i.thenclause);
+      field("else"); prExp(i.elseclause);
+    }
+    else if (e instanceof WhileExp) {
+      WhileExp w = (WhileExp)e;
+      open("WhileExp", w.pos);
+      field("test"); prExp(w.test);
+      field("body"); prExp(w.body);
+    }
+    else if (e instanceof ForExp) {
+      ForExp f = (ForExp)e;
+      open("ForExp", f.pos);
+      field("var"); prDec(f.var);
+      field("hi"); prExp(f.hi);
+      field("body"); prExp(f.body);
+    }
+    else if (e instanceof BreakExp)
+      open("BreakExp", e.pos);
+    else if (e instanceof LetExp) {
+      LetExp l = (LetExp)e;
+      open("LetExp", l.pos);
+      field("decs"); beginList();
+      for (DecList d = l.decs; d != null; d = d.tail) {
+	separate(d == l.decs);
+	prDec(d.head);
+      }
+      endList();
+      field("body"); prExp(l.body);
+    }
+    else if (e instanceof ArrayExp) {
+      ArrayExp a = (ArrayExp)e;
+      open("ArrayExp", a.pos);
+      field("typ"); symbol(a.typ);
+      field("size"); prExp(a.size);
+      field("init"); prExp(a.init);
+    }
+    else throw new Error("Dump.prExp");
+    type(e.type);
+    close();
+  }
+
+  void prExpList(ExpList l) {
+    beginList();
+    for (ExpList e = l; e != null; e = e.tail) {
+      separate(e == l);
+      prExp(e.head);
+    }
+    endList();
+  }
+
+  void prDec(Dec d) {
+    if (d instanceof VarDec) {
+      VarDec v = (VarDec)d;
+      open("VarDec", v.pos);
+      field("name"); symbol(v.name);
+      field("typ"); symbol(v.typ == null ? null : v.typ.name);
+      field("init"); prExp(v.init);
+      field("escape"); bool(v.escape);
+      if (v.entry != null)
+	type(v.entry.ty);
+      close();
+    }
+    else if (d instanceof FunctionDec) {
+      open("FunctionDecs");
+      field("decs"); beginList();
+      for (FunctionDec f = (FunctionDec)d; f != null; f = f.next) {
+	separate(f == d);
+	open("FunctionDec", f.pos);
+	field("name"); symbol(f.name);
+	field("params"); prFieldList(f.params);
+	field("result"); symbol(f.result == null ? null : f.result.name);
+	field("body"); prExp(f.body);
+	field("leaf"); bool(f.leaf);
+	if (f.entry != null)
+	  type(f.entry.result);
+	close();
+      }
+      endList();
+      close();
+    }
+    else if (d instanceof TypeDec) {
+      open("TypeDecs");
+      field("decs"); beginList();
+      for (TypeDec t = (TypeDec)d; t != null; t = t.next) {
+	separate(t == d);
+	open("TypeDec", t.pos);
+	field("name"); symbol(t.name);
+	field("ty"); prTy(t.ty);
+	if (t.entry != null)
+	  type(t.entry.binding);
+	close();
+      }
+      endList();
+      close();
+    }
+    else throw new Error("Dump.prDec");
+  }
+
+  void prTy(Ty t) {
+    if (t instanceof NameTy) {
+      open("NameTy", t.pos);
+      field("name"); symbol(((NameTy)t).name);
+    }
+    else if (t instanceof RecordTy) {
+      open("RecordTy", t.pos);
+      field("fields"); prFieldList(((RecordTy)t).fields);
+    }
+    else if (t instanceof ArrayTy) {
+      open("ArrayTy", t.pos);
+      field("typ"); symbol(((ArrayTy)t).typ);
+    }
+    else throw new Error("Dump.prTy");
+    close();
+  }
+
+  void prFieldList(FieldList l) {
+    beginList();
+    for (FieldList f = l; f != null; f = f.tail) {
+      separate(f == l);
+      open("Field", f.pos);
+      field("name"); symbol(f.name);
+      field("typ"); symbol(f.typ);
+      field("escape"); bool(f.escape);
+      close();
+    }
+    endList();
+  }
+}
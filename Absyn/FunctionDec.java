@@ -11,5 +11,6 @@ public class FunctionDec extends Dec {
     pos=p; name=n; params=a; result=r; body=b; next=x;
   }
   public boolean leaf = false;
+  public int slots;		/* formals and locals, set by Semant */
   public Semant.FunEntry entry;
 }
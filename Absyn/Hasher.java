@@ -0,0 +1,325 @@
+package Absyn;
+import Symbol.Symbol;
+
+// Gives every node of a tree a 64 bit hash of its structure: its kind,
+// names and literals, and the hashes of its children, in order.  Positions
+// are left out, and so is what Semant and FindEscape add, so two subtrees
+// with the same hash are the same program text, give or take layout.  It
+// is a Walker, hashing each node as Walk leaves it, children before
+// parents; parallel spreads that over a ForkJoinPool, each fork hashing
+// its own pieces of the tree.
+//
+// A FunctionDec or TypeDec hashes just its own declaration, not the rest
+// of its group, so one function can be matched on its own; the LetExp
+// folds in the whole group.
+//
+// hash(Arena) gives an Arena's nodes the same hashes, walking it with a
+// Cursor, so a big tree can be kept and hashed in its flat form alone.
+public class Hasher extends Walker {
+   private java.util.Hashtable<Symbol,Long> symbols =
+      new java.util.Hashtable<Symbol,Long>();
+   public int nodes;			// how many have been hashed
+   public long[] hashes;		// by Arena node, after hash(Arena)
+
+   // node kinds, to start each hash from
+   final static long SIMPLEVAR=1, FIELDVAR=2, SUBSCRIPTVAR=3,
+      VAREXP=4, NILEXP=5, INTEXP=6, STRINGEXP=7, CALLEXP=8, OPEXP=9,
+      RECORDEXP=10, SEQEXP=11, ASSIGNEXP=12, IFEXP=13, WHILEEXP=14,
+      FOREXP=15, BREAKEXP=16, LETEXP=17, ARRAYEXP=18,
+      VARDEC=19, FUNCTIONDEC=20, TYPEDEC=21,
+      NAMETY=22, RECORDTY=23, ARRAYTY=24, FIELD=25, FIELDEXP=26,
+      GROUP=27, NONE=28;
+
+   // the finishing step of SplitMix64
+   static long mix(long h) {
+      h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+      h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+      return h ^ (h >>> 31);
+   }
+
+   static long add(long h, long x) {return mix(h * 0x9e3779b97f4a7c15L + x);}
+
+   // never 0, which means not hashed
+   long done(Absyn n, long h) {
+      if (h == 0)
+         h = 1;
+      n.hash = h;
+      nodes++;
+      return h;
+   }
+
+   static long string(String s) {
+      long h = 0xcbf29ce484222325L;		// FNV-1a
+      for (int i = 0; i < s.length(); i++)
+         h = (h ^ s.charAt(i)) * 0x100000001b3L;
+      return mix(h);
+   }
+
+   // by name, so hashes stay the same from one run to the next
+   long symbol(Symbol s) {
+      if (s == null)
+         return NONE;
+      Long h = symbols.get(s);
+      if (h == null) {
+         h = Long.valueOf(string(s.toString()));
+         symbols.put(s, h);
+      }
+      return h.longValue();
+   }
+
+   public long hash(Exp e) {
+      Walk.walk(e, this);
+      return e.hash;
+   }
+
+   // the same, spread over the common ForkJoinPool
+   public long parallel(Exp e) {
+      Walk.parallel(e, this);
+      return e.hash;
+   }
+
+   public void visit(Absyn n) {}
+
+   public Walker fork() {return new Hasher();}
+
+   public void merge(Walker w) {nodes += ((Hasher)w).nodes;}
+
+   // n's hash, or NONE for a child that isn't there
+   static long of(Absyn n) {return n == null ? NONE : n.hash;}
+
+   // every child of n has its hash by now
+   public void leave(Absyn n) {
+      long h;
+      if (n instanceof SimpleVar)
+         h = add(SIMPLEVAR, symbol(((SimpleVar)n).name));
+      else if (n instanceof FieldVar) {
+         FieldVar f = (FieldVar)n;
+         h = add(add(FIELDVAR, f.var.hash), symbol(f.field));
+      }
+      else if (n instanceof SubscriptVar) {
+         SubscriptVar s = (SubscriptVar)n;
+         h = add(add(SUBSCRIPTVAR, s.var.hash), s.index.hash);
+      }
+      else if (n instanceof VarExp)
+         h = add(VAREXP, ((VarExp)n).var.hash);
+      else if (n instanceof NilExp)
+         h = mix(NILEXP);
+      else if (n instanceof IntExp)
+         h = add(INTEXP, ((IntExp)n).value);
+      else if (n instanceof StringExp)
+         h = add(STRINGEXP, string(((StringExp)n).value));
+      else if (n instanceof CallExp) {
+         CallExp c = (CallExp)n;
+         h = exps(add(CALLEXP, symbol(c.func)), c.args);
+      }
+      else if (n instanceof OpExp) {
+         OpExp o = (OpExp)n;
+         h = add(add(add(OPEXP, o.oper), o.left.hash), o.right.hash);
+      }
+      else if (n instanceof RecordExp) {
+         RecordExp r = (RecordExp)n;
+         h = add(RECORDEXP, symbol(r.typ));
+         for (FieldExpList f = r.fields; f != null; f = f.tail)
+            h = add(h, f.hash);
+      }
+      else if (n instanceof FieldExpList) {
+         FieldExpList f = (FieldExpList)n;
+         h = add(add(FIELDEXP, symbol(f.name)), f.init.hash);
+      }
+      else if (n instanceof SeqExp)
+         h = exps(mix(SEQEXP), ((SeqExp)n).list);
+      else if (n instanceof AssignExp) {
+         AssignExp a = (AssignExp)n;
+         h = add(add(ASSIGNEXP, a.var.hash), a.exp.hash);
+      }
+      else if (n instanceof IfExp) {
+         IfExp i = (IfExp)n;
+         h = add(add(add(IFEXP, i.test.hash), i.thenclause.hash),
+                 of(i.elseclause));
+      }
+      else if (n instanceof WhileExp) {
+         WhileExp w = (WhileExp)n;
+         h = add(add(WHILEEXP, w.test.hash), w.body.hash);
+      }
+      else if (n instanceof ForExp) {
+         ForExp f = (ForExp)n;
+         h = add(add(add(FOREXP, f.var.hash), f.hi.hash), f.body.hash);
+      }
+      else if (n instanceof BreakExp)
+         h = mix(BREAKEXP);
+      else if (n instanceof LetExp) {
+         LetExp l = (LetExp)n;
+         h = mix(LETEXP);
+         for (DecList d = l.decs; d != null; d = d.tail)
+            h = group(h, d.head);
+         h = add(h, of(l.body));
+      }
+      else if (n instanceof ArrayExp) {
+         ArrayExp a = (ArrayExp)n;
+         h = add(add(add(ARRAYEXP, symbol(a.typ)), a.size.hash), a.init.hash);
+      }
+      else if (n instanceof VarDec) {
+         VarDec v = (VarDec)n;
+         h = add(add(add(VARDEC, symbol(v.name)), of(v.typ)), v.init.hash);
+      }
+      else if (n instanceof FunctionDec) {
+         FunctionDec f = (FunctionDec)n;
+         h = add(FUNCTIONDEC, symbol(f.name));
+         for (FieldList p = f.params; p != null; p = p.tail)
+            h = add(h, p.hash);
+         h = add(add(h, of(f.result)), f.body.hash);
+      }
+      else if (n instanceof TypeDec) {
+         TypeDec t = (TypeDec)n;
+         h = add(add(TYPEDEC, symbol(t.name)), t.ty.hash);
+      }
+      else if (n instanceof NameTy)
+         h = add(NAMETY, symbol(((NameTy)n).name));
+      else if (n instanceof ArrayTy)
+         h = add(ARRAYTY, symbol(((ArrayTy)n).typ));
+      else if (n instanceof RecordTy) {
+         h = mix(RECORDTY);
+         for (FieldList f = ((RecordTy)n).fields; f != null; f = f.tail)
+            h = add(h, f.hash);
+      }
+      else if (n instanceof FieldList) {
+         FieldList f = (FieldList)n;
+         h = add(add(FIELD, symbol(f.name)), symbol(f.typ));
+      }
+      else throw new Error("Hasher.leave");
+      done(n, h);
+   }
+
+   static long exps(long h, ExpList l) {
+      for (; l != null; l = l.tail)
+         h = add(h, l.head.hash);
+      return h;
+   }
+
+   // folds a declaration, or each one of a group, into h
+   static long group(long h, Dec d) {
+      h = add(h, GROUP);
+      if (d instanceof FunctionDec) {
+         for (FunctionDec f = (FunctionDec)d; f != null; f = f.next)
+            h = add(h, f.hash);
+      }
+      else if (d instanceof TypeDec) {
+         for (TypeDec t = (TypeDec)d; t != null; t = t.next)
+            h = add(h, t.hash);
+      }
+      else
+         h = add(h, d.hash);
+      return h;
+   }
+
+   // an Arena
+
+   public long hash(Arena a) {
+      hashes = new long[a.size()];
+      return node(new Cursor(a));
+   }
+
+   long done(Cursor c, long h) {
+      if (h == 0)
+         h = 1;
+      hashes[c.node()] = h;
+      nodes++;
+      return h;
+   }
+
+   // folds c's node and the siblings after it into h, then goes up
+   long rest(long h, Cursor c) {
+      do
+         h = add(h, node(c));
+      while (c.next());
+      c.up();
+      return h;
+   }
+
+   long children(long h, Cursor c) {
+      return c.down() ? rest(h, c) : h;
+   }
+
+   // the node c is at, folded as exp, var, dec or ty would the Absyn one;
+   // c is left where it was
+   long node(Cursor c) {
+      int k = c.kind();
+      long h;
+      switch (k) {
+      case Arena.SIMPLEVAR: case Arena.NAMETY: case Arena.ARRAYTY:
+         return done(c, add(k, symbol(c.symbol())));
+      case Arena.INTEXP:
+         return done(c, add(INTEXP, c.value()));
+      case Arena.STRINGEXP:
+         return done(c, add(STRINGEXP, string(c.string())));
+      case Arena.NILEXP: case Arena.BREAKEXP:
+         return done(c, mix(k));
+      case Arena.FIELDVAR: {
+         Symbol field = c.symbol();
+         c.down();
+         h = add(FIELDVAR, node(c));
+         c.up();
+         return done(c, add(h, symbol(field)));
+      }
+      case Arena.FIELD:
+         //the type is a NAMETY below, but only its name counts
+         h = add(FIELD, symbol(c.symbol()));
+         c.down();
+         h = add(h, symbol(c.symbol()));
+         c.up();
+         return done(c, h);
+      case Arena.IFEXP:
+         c.down();
+         h = add(IFEXP, node(c));
+         c.next();
+         h = add(h, node(c));
+         h = add(h, c.next() ? node(c) : NONE);
+         c.up();
+         return done(c, h);
+      case Arena.LETEXP: {
+         h = mix(LETEXP);
+         long body = NONE;
+         if (c.down()) {
+            do {
+               if (c.kind() < Arena.VARDEC) {
+                  body = node(c);
+                  break;
+               }
+               h = add(add(h, GROUP), node(c));
+               while (c.flag(Arena.NEXT)) {
+                  c.next();
+                  h = add(h, node(c));
+               }
+            } while (c.next());
+            c.up();
+         }
+         return done(c, add(h, body));
+      }
+      case Arena.VARDEC:
+         h = add(VARDEC, symbol(c.symbol()));
+         c.down();
+         if (c.kind() != Arena.NAMETY)
+            h = add(h, NONE);
+         return done(c, rest(h, c));
+      case Arena.FUNCTIONDEC:
+         h = add(FUNCTIONDEC, symbol(c.symbol()));
+         c.down();
+         for (; c.kind() == Arena.FIELD; c.next())
+            h = add(h, node(c));
+         if (c.kind() != Arena.NAMETY)
+            h = add(h, NONE);
+         return done(c, rest(h, c));
+      case Arena.CALLEXP: case Arena.RECORDEXP: case Arena.ARRAYEXP:
+      case Arena.FIELDEXP: case Arena.TYPEDEC:
+         return done(c, children(add(k, symbol(c.symbol())), c));
+      case Arena.OPEXP:
+         return done(c, children(add(OPEXP, c.value()), c));
+      case Arena.SEQEXP: case Arena.RECORDTY:
+         return done(c, children(mix(k), c));
+      case Arena.SUBSCRIPTVAR: case Arena.VAREXP: case Arena.ASSIGNEXP:
+      case Arena.WHILEEXP: case Arena.FOREXP:
+         return done(c, children(k, c));
+      }
+      throw new Error("Hasher.node");
+   }
+}
@@ -0,0 +1,181 @@
+package Absyn;
+
+// Numbers the nodes of a tree 0, 1, 2... children before parents, so the
+// root has the last number and root.id + 1 is the size of the tree.  The
+// numbers index side tables (Semant.AnalysisResult) that hold what would
+// otherwise be written into the nodes.  The ids are the one thing written
+// into a tree after it is parsed: Parse.Source numbers what it parses, and
+// number numbers any other tree the first time it is asked for the size.
+// It is synchronized, so threads sharing a tree that has not been numbered
+// yet number it once, and each sees every id afterwards.
+public class Numbering {
+   private int next;
+
+   public static synchronized int number(Exp prog) {
+      if (prog.id < 0)
+         new Numbering().exp(prog);
+      return prog.id + 1;
+   }
+
+   void done(Absyn n) {n.id = next++;}
+
+   // the lowest number under n, so n's subtree is first(n) .. n.id; for a
+   // FunctionDec or TypeDec, just that member of its group
+   public static int first(Absyn n) {
+      for (;;) {
+         Absyn c = null;
+         if (n instanceof FieldVar)
+            c = ((FieldVar)n).var;
+         else if (n instanceof SubscriptVar)
+            c = ((SubscriptVar)n).var;
+         else if (n instanceof VarExp)
+            c = ((VarExp)n).var;
+         else if (n instanceof CallExp) {
+            if (((CallExp)n).args != null)
+               c = ((CallExp)n).args.head;
+         }
+         else if (n instanceof OpExp)
+            c = ((OpExp)n).left;
+         else if (n instanceof RecordExp) {
+            if (((RecordExp)n).fields != null)
+               c = ((RecordExp)n).fields;
+         }
+         else if (n instanceof FieldExpList)
+            c = ((FieldExpList)n).init;
+         else if (n instanceof SeqExp) {
+            if (((SeqExp)n).list != null)
+               c = ((SeqExp)n).list.head;
+         }
+         else if (n instanceof AssignExp)
+            c = ((AssignExp)n).var;
+         else if (n instanceof IfExp)
+            c = ((IfExp)n).test;
+         else if (n instanceof WhileExp)
+            c = ((WhileExp)n).test;
+         else if (n instanceof ForExp)
+            c = ((ForExp)n).var;
+         else if (n instanceof LetExp) {
+            LetExp l = (LetExp)n;
+            c = l.decs != null ? (Absyn)l.decs.head : l.body;
+         }
+         else if (n instanceof ArrayExp)
+            c = ((ArrayExp)n).size;
+         else if (n instanceof VarDec) {
+            VarDec v = (VarDec)n;
+            c = v.typ != null ? (Absyn)v.typ : v.init;
+         }
+         else if (n instanceof FunctionDec) {
+            FunctionDec f = (FunctionDec)n;
+            c = f.params != null ? (Absyn)f.params
+               : f.result != null ? (Absyn)f.result : f.body;
+         }
+         else if (n instanceof TypeDec)
+            c = ((TypeDec)n).ty;
+         else if (n instanceof RecordTy)
+            c = ((RecordTy)n).fields;
+         if (c == null)
+            return n.id;
+         n = c;
+      }
+   }
+
+   void var(Var v) {
+      if (v instanceof FieldVar)
+         var(((FieldVar)v).var);
+      else if (v instanceof SubscriptVar) {
+         var(((SubscriptVar)v).var);
+         exp(((SubscriptVar)v).index);
+      }
+      done(v);
+   }
+
+   void exps(ExpList l) {
+      for (; l != null; l = l.tail)
+         exp(l.head);
+   }
+
+   void exp(Exp e) {
+      if (e == null)
+         return;
+      if (e instanceof VarExp)
+         var(((VarExp)e).var);
+      else if (e instanceof CallExp)
+         exps(((CallExp)e).args);
+      else if (e instanceof OpExp) {
+         exp(((OpExp)e).left);
+         exp(((OpExp)e).right);
+      }
+      else if (e instanceof RecordExp) {
+         for (FieldExpList f = ((RecordExp)e).fields; f != null; f = f.tail) {
+            exp(f.init);
+            done(f);
+         }
+      }
+      else if (e instanceof SeqExp)
+         exps(((SeqExp)e).list);
+      else if (e instanceof AssignExp) {
+         var(((AssignExp)e).var);
+         exp(((AssignExp)e).exp);
+      }
+      else if (e instanceof IfExp) {
+         exp(((IfExp)e).test);
+         exp(((IfExp)e).thenclause);
+         exp(((IfExp)e).elseclause);
+      }
+      else if (e instanceof WhileExp) {
+         exp(((WhileExp)e).test);
+         exp(((WhileExp)e).body);
+      }
+      else if (e instanceof ForExp) {
+         dec(((ForExp)e).var);
+         exp(((ForExp)e).hi);
+         exp(((ForExp)e).body);
+      }
+      else if (e instanceof LetExp) {
+         for (DecList d = ((LetExp)e).decs; d != null; d = d.tail)
+            dec(d.head);
+         exp(((LetExp)e).body);
+      }
+      else if (e instanceof ArrayExp) {
+         exp(((ArrayExp)e).size);
+         exp(((ArrayExp)e).init);
+      }
+      done(e);
+   }
+
+   // a whole group, each member after its own children
+   void dec(Dec d) {
+      if (d instanceof VarDec) {
+         ty(((VarDec)d).typ);
+         exp(((VarDec)d).init);
+         done(d);
+      }
+      else if (d instanceof FunctionDec) {
+         for (FunctionDec f = (FunctionDec)d; f != null; f = f.next) {
+            fields(f.params);
+            ty(f.result);
+            exp(f.body);
+            done(f);
+         }
+      }
+      else if (d instanceof TypeDec) {
+         for (TypeDec t = (TypeDec)d; t != null; t = t.next) {
+            ty(t.ty);
+            done(t);
+         }
+      }
+   }
+
+   void ty(Ty t) {
+      if (t == null)
+         return;
+      if (t instanceof RecordTy)
+         fields(((RecordTy)t).fields);
+      done(t);
+   }
+
+   void fields(FieldList f) {
+      for (; f != null; f = f.tail)
+         done(f);
+   }
+}
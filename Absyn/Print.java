@@ -13,8 +13,7 @@ public class Print {
   }
 
   void indent(int d) {
-      for(int i=0; i<d; i++) 
-            out.print(' ');
+    Types.Print.indent(out, d);
   }
 
   void say(String s) {
@@ -182,20 +181,32 @@ public class Print {
     }
   }
 
+  // each function of a group is printed inside the one before, as if
+  // next were a child; a loop, and then the closing of each in turn, so
+  // long groups don't need a deep stack
   void prDec(FunctionDec d, int i) {
-    say("FunctionDec(");
-    if (d!=null) {
+    java.util.Vector<FunctionDec> group = new java.util.Vector<FunctionDec>();
+    for (;; d = d.next, i++) {
+      say("FunctionDec(");
+      if (d==null)
+	break;
       sayln(d.name.toString());
       prFieldlist(d.params, i+1); sayln(",");
       if (d.result!=null) {
 	indent(i+1); sayln(d.result.name.toString());
       }
       prExp(d.body, i+1); sayln(",");
-      indent(i+1); prDec(d.next, i+1);
+      indent(i+1);
+      group.addElement(d);
     }
     say(")");
-    if (d != null && d.entry != null) {
-      sayln(""); indent(i); semant.prEntry(d.entry, i);
+    for (int k = group.size()-1; k >= 0; k--) {
+      d = group.elementAt(k);
+      i--;
+      say(")");
+      if (d.entry != null) {
+	sayln(""); indent(i); semant.prEntry(d.entry, i);
+      }
     }
   }
 
@@ -211,13 +222,20 @@ public class Print {
     }
   }
 
+  // nested like a FunctionDec group
   void prDec(TypeDec d, int i) {
-    if (d!=null) {
+    java.util.Vector<TypeDec> group = new java.util.Vector<TypeDec>();
+    for (; d!=null; d = d.next, i++) {
       say("TypeDec("); say(d.name.toString()); sayln(",");
       prTy(d.ty, i+1); 
+      group.addElement(d);
       if (d.next!=null) {
-	sayln(","); indent(i+1); prDec(d.next, i+1);
+	sayln(","); indent(i+1);
       }
+    }
+    for (int k = group.size()-1; k >= 0; k--) {
+      d = group.elementAt(k);
+      i--;
       say(")");
       if (d.entry != null) {
 	sayln(""); indent(i); say("="); types.prType(d.entry, i+1);
@@ -256,53 +274,74 @@ public class Print {
     }
   }
 
+  // the lists print each tail inside the cell before it; they loop down
+  // the list and then close every cell at once
+
+  void close(int cells) {
+    for (; cells > 0; cells--)
+      say(")");
+  }
+
   void prFieldlist(FieldList f, int d) {
-    indent(d);
-    say("FieldList("); 
-    if (f!=null) {
+    int cells = 0;
+    for (;; f = f.tail, d++) {
+      indent(d);
+      say("FieldList("); 
+      cells++;
+      if (f==null)
+	break;
       sayln("");
       indent(d+1); say(f.name.toString()); sayln(",");
       indent(d+1); say(f.typ.toString()); sayln(",");
       indent(d+1); say(f.escape);
       sayln(",");
-      prFieldlist(f.tail, d+1);
     }
-    say(")");
+    close(cells);
   }
 
   void prExplist(ExpList e, int d) {
-    indent(d);
-    say("ExpList("); 
-    if (e!=null) {
+    int cells = 0;
+    for (;; e = e.tail, d++) {
+      indent(d);
+      say("ExpList("); 
+      cells++;
+      if (e==null)
+	break;
       sayln("");
       prExp(e.head, d+1); 
-      if (e.tail != null) {
-	sayln(","); prExplist(e.tail, d+1);
-      }
+      if (e.tail == null)
+	break;
+      sayln(",");
     }
-    say(")");
+    close(cells);
   }
 
   void prDecList(DecList v, int d) {
-    indent(d);
-    say("DecList("); 
-    if (v!=null) {
+    int cells = 0;
+    for (;; v = v.tail, d++) {
+      indent(d);
+      say("DecList("); 
+      cells++;
+      if (v==null)
+	break;
       sayln("");
       prDec(v.head, d+1); sayln(",");
-      prDecList(v.tail, d+1);
     }
-    say(")");
+    close(cells);
   }
 
   void prFieldExpList(FieldExpList f, int d) {
-    indent(d);
-    say("FieldExpList("); 
-    if (f!=null) {
+    int cells = 0;
+    for (;; f = f.tail, d++) {
+      indent(d);
+      say("FieldExpList("); 
+      cells++;
+      if (f==null)
+	break;
       sayln("");
       indent(d+1); say(f.name.toString()); sayln(",");
       prExp(f.init, d+1); sayln(",");
-      prFieldExpList(f.tail, d+1);
     }
-    say(")");
+    close(cells);
   }
 }
@@ -3,4 +3,6 @@ import Symbol.Symbol;
 public class SimpleVar extends Var {
    public Symbol name;
    public SimpleVar (int p, Symbol n) {pos=p; name=n;}
+   /* set by Semant: depth of the function holding the variable, and its slot there */
+   public int depth = -1, index = -1;
 }
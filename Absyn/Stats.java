@@ -0,0 +1,57 @@
+package Absyn;
+
+// Counts what a tree is made of; an example of a Walker, and a quick look
+// at a program's shape:
+//   Stats s = new Stats(); Walk.parallel(prog, s); System.out.println(s);
+public class Stats extends Walker {
+   public int nodes, vars, exps, decs, functions, types, calls, loops;
+   public int strings, chars;		// string literals, and their length
+   public int maxParams;
+
+   public void visit(Absyn n) {
+      nodes++;
+      if (n instanceof Var)
+         vars++;
+      else if (n instanceof Exp) {
+         exps++;
+         if (n instanceof CallExp)
+            calls++;
+         else if (n instanceof WhileExp || n instanceof ForExp)
+            loops++;
+         else if (n instanceof StringExp) {
+            strings++;
+            chars += ((StringExp)n).value.length();
+         }
+      }
+      else if (n instanceof Dec) {
+         decs++;
+         if (n instanceof FunctionDec) {
+            functions++;
+            int p = 0;
+            for (FieldList f = ((FunctionDec)n).params; f != null; f = f.tail)
+               p++;
+            maxParams = Math.max(maxParams, p);
+         }
+         else if (n instanceof TypeDec)
+            types++;
+      }
+   }
+
+   public Walker fork() {return new Stats();}
+
+   public void merge(Walker w) {
+      Stats s = (Stats)w;
+      nodes += s.nodes; vars += s.vars; exps += s.exps; decs += s.decs;
+      functions += s.functions; types += s.types; calls += s.calls;
+      loops += s.loops; strings += s.strings; chars += s.chars;
+      maxParams = Math.max(maxParams, s.maxParams);
+   }
+
+   public String toString() {
+      return nodes + " nodes: " + exps + " expressions, " + vars
+         + " variables, " + decs + " declarations (" + functions
+         + " functions, " + types + " types), " + calls + " calls, "
+         + loops + " loops, " + strings + " strings of " + chars
+         + " chars, at most " + maxParams + " parameters";
+   }
+}
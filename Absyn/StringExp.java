@@ -3,4 +3,5 @@ import Symbol.Symbol;
 public class StringExp extends Exp {
    public String value;
    public StringExp(int p, String v) {pos=p; value=v;}
+   public int index = -1;	/* in the compilation's StringPool, set by Semant */
 }
@@ -0,0 +1,23 @@
+package Absyn;
+
+// The string literals of one compilation, each kept once.  Semant enters
+// every StringExp here, and leaves it holding its index and the pooled
+// copy of its value, so the parser's duplicates can be collected.
+public class StringPool {
+   private java.util.Hashtable<String,Integer> index = new java.util.Hashtable<String,Integer>();
+   private java.util.Vector<String> strings = new java.util.Vector<String>();
+
+   public int add(String s) {
+      Integer i = index.get(s);
+      if (i == null) {
+         i = Integer.valueOf(strings.size());
+         index.put(s, i);
+         strings.addElement(s);
+      }
+      return i.intValue();
+   }
+
+   public String get(int i) {return strings.elementAt(i);}
+
+   public int size() {return strings.size();}
+}
@@ -0,0 +1,268 @@
+package Absyn;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Takes a Walker over a tree, by itself or spread over a ForkJoinPool.
+// A parallel walk splits where a node has many independent children: the
+// expressions of a SeqExp, the declarations of a LetExp, and the functions
+// of a group.  A run of them bigger than the threshold (in nodes, counted
+// from the Numbering ids) is cut in two halves of about the same size;
+// the left half keeps the walker it has, the right one gets a fork, and
+// it is merged back when both are done.  Anything smaller is walked where
+// it is.  Nodes are numbered first if they are not already.
+public class Walk {
+   public final static int THRESHOLD = 4096;
+
+   // what a run of pieces is
+   final static int EXPS=0, DECS=1, FUNCTIONS=2;
+
+   Walker walker;
+   int threshold;			// 0 for a walk with no splitting
+
+   Walk(Walker w, int t) {walker=w; threshold=t;}
+
+   public static void walk(Exp prog, Walker w) {
+      new Walk(w, 0).exp(prog);
+   }
+
+   // a declaration, and the rest of its group
+   public static void walk(Dec d, Walker w) {
+      new Walk(w, 0).dec(d);
+   }
+
+   public static void parallel(Exp prog, Walker w) {
+      parallel(prog, w, ForkJoinPool.commonPool(), THRESHOLD);
+   }
+
+   public static void parallel(final Exp prog, final Walker w,
+                               ForkJoinPool pool, final int threshold) {
+      Numbering.number(prog);
+      pool.invoke(new RecursiveAction() {
+         protected void compute() {
+            new Walk(w, Math.max(threshold, 1)).exp(prog);
+         }
+      });
+   }
+
+   // one run of pieces, from lo to hi, split while it is big; end[i] is
+   // the highest id in piece i, so end only grows along the run
+   static class Task extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+      Walk walk;
+      Absyn[] pieces;
+      int[] end;
+      int kind, lo, hi;
+
+      Task(Walk w, Absyn[] p, int[] e, int k, int l, int h) {
+         walk=w; pieces=p; end=e; kind=k; lo=l; hi=h;
+      }
+
+      protected void compute() {
+         int start = Numbering.first(pieces[lo]);
+         if (hi - lo < 2 || end[hi - 1] - start < walk.threshold) {
+            for (int i = lo; i < hi; i++)
+               walk.piece(kind, pieces[i]);
+            return;
+         }
+         // the left half is the pieces that end before the middle id
+         int middle = start + (end[hi - 1] - start) / 2;
+         int l = lo + 1, h = hi - 1;
+         while (l < h) {
+            int m = (l + h) >>> 1;
+            if (end[m - 1] < middle)
+               l = m + 1;
+            else
+               h = m;
+         }
+         Walk right = new Walk(walk.walker.fork(), walk.threshold);
+         invokeAll(new Task(walk, pieces, end, kind, lo, l),
+                   new Task(right, pieces, end, kind, l, hi));
+         walk.walker.merge(right.walker);
+      }
+   }
+
+   void piece(int kind, Absyn n) {
+      if (kind == EXPS)
+         exp((Exp)n);
+      else if (kind == DECS)
+         dec((Dec)n);
+      else
+         function((FunctionDec)n);
+   }
+
+   // splits a run worth it, and says whether it did
+   boolean split(int kind, Absyn[] pieces, int n) {
+      int[] end = new int[n];
+      for (int i = 0; i < n; i++) {
+         Absyn p = pieces[i];
+         if (kind == DECS) {		// a declaration stands for its group
+            if (p instanceof FunctionDec)
+               while (((FunctionDec)p).next != null)
+                  p = ((FunctionDec)p).next;
+            else if (p instanceof TypeDec)
+               while (((TypeDec)p).next != null)
+                  p = ((TypeDec)p).next;
+         }
+         end[i] = p.id;
+      }
+      if (end[n - 1] - Numbering.first(pieces[0]) < threshold)
+         return false;
+      new Task(this, pieces, end, kind, 0, n).invoke();
+      return true;
+   }
+
+   void var(Var v) {
+      walker.visit(v);
+      if (v instanceof FieldVar)
+         var(((FieldVar)v).var);
+      else if (v instanceof SubscriptVar) {
+         var(((SubscriptVar)v).var);
+         exp(((SubscriptVar)v).index);
+      }
+      walker.leave(v);
+   }
+
+   void exps(ExpList l) {
+      if (threshold > 0 && l != null && l.tail != null) {
+         int n = 0;
+         for (ExpList e = l; e != null; e = e.tail)
+            n++;
+         Absyn[] pieces = new Absyn[n];
+         n = 0;
+         for (ExpList e = l; e != null; e = e.tail)
+            pieces[n++] = e.head;
+         if (split(EXPS, pieces, n))
+            return;
+      }
+      for (; l != null; l = l.tail)
+         exp(l.head);
+   }
+
+   void exp(Exp e) {
+      if (e == null)
+         return;
+      walker.visit(e);
+      if (e instanceof VarExp)
+         var(((VarExp)e).var);
+      else if (e instanceof CallExp) {
+         for (ExpList l = ((CallExp)e).args; l != null; l = l.tail)
+            exp(l.head);
+      }
+      else if (e instanceof OpExp) {
+         exp(((OpExp)e).left);
+         exp(((OpExp)e).right);
+      }
+      else if (e instanceof RecordExp) {
+         for (FieldExpList f = ((RecordExp)e).fields; f != null; f = f.tail) {
+            walker.visit(f);
+            exp(f.init);
+            walker.leave(f);
+         }
+      }
+      else if (e instanceof SeqExp)
+         exps(((SeqExp)e).list);
+      else if (e instanceof AssignExp) {
+         var(((AssignExp)e).var);
+         exp(((AssignExp)e).exp);
+      }
+      else if (e instanceof IfExp) {
+         exp(((IfExp)e).test);
+         exp(((IfExp)e).thenclause);
+         exp(((IfExp)e).elseclause);
+      }
+      else if (e instanceof WhileExp) {
+         exp(((WhileExp)e).test);
+         exp(((WhileExp)e).body);
+      }
+      else if (e instanceof ForExp) {
+         dec(((ForExp)e).var);
+         exp(((ForExp)e).hi);
+         exp(((ForExp)e).body);
+      }
+      else if (e instanceof LetExp) {
+         decs(((LetExp)e).decs);
+         exp(((LetExp)e).body);
+      }
+      else if (e instanceof ArrayExp) {
+         exp(((ArrayExp)e).size);
+         exp(((ArrayExp)e).init);
+      }
+      walker.leave(e);
+   }
+
+   void decs(DecList l) {
+      if (threshold > 0 && l != null && l.tail != null) {
+         int n = 0;
+         for (DecList d = l; d != null; d = d.tail)
+            n++;
+         Absyn[] pieces = new Absyn[n];
+         n = 0;
+         for (DecList d = l; d != null; d = d.tail)
+            pieces[n++] = d.head;
+         if (split(DECS, pieces, n))
+            return;
+      }
+      for (; l != null; l = l.tail)
+         dec(l.head);
+   }
+
+   // a whole group
+   void dec(Dec d) {
+      if (d instanceof VarDec) {
+         VarDec v = (VarDec)d;
+         walker.visit(v);
+         ty(v.typ);
+         exp(v.init);
+         walker.leave(v);
+      }
+      else if (d instanceof FunctionDec) {
+         FunctionDec f = (FunctionDec)d;
+         if (threshold > 0 && f.next != null) {
+            int n = 0;
+            for (FunctionDec g = f; g != null; g = g.next)
+               n++;
+            Absyn[] pieces = new Absyn[n];
+            n = 0;
+            for (FunctionDec g = f; g != null; g = g.next)
+               pieces[n++] = g;
+            if (split(FUNCTIONS, pieces, n))
+               return;
+         }
+         for (; f != null; f = f.next)
+            function(f);
+      }
+      else if (d instanceof TypeDec) {
+         for (TypeDec t = (TypeDec)d; t != null; t = t.next) {
+            walker.visit(t);
+            ty(t.ty);
+            walker.leave(t);
+         }
+      }
+      else throw new Error("Walk.dec");
+   }
+
+   // one member of a group
+   void function(FunctionDec f) {
+      walker.visit(f);
+      fields(f.params);
+      ty(f.result);
+      exp(f.body);
+      walker.leave(f);
+   }
+
+   void ty(Ty t) {
+      if (t == null)
+         return;
+      walker.visit(t);
+      if (t instanceof RecordTy)
+         fields(((RecordTy)t).fields);
+      walker.leave(t);
+   }
+
+   void fields(FieldList f) {
+      for (; f != null; f = f.tail) {
+         walker.visit(f);
+         walker.leave(f);
+      }
+   }
+}
@@ -0,0 +1,18 @@
+package Absyn;
+
+// A pass over a tree, run by Walk: visit is called once for each node,
+// parents before children, in source order, and leave once its children
+// are done, so children before parents.  For Walk.parallel a walker also
+// says how to start an empty one for a piece of the tree (fork) and how to
+// take in what such a piece found (merge).  Pieces are merged back in
+// source order, so a walker that only appends gets the same answer either
+// way.  One walker is only ever used by one thread at a time; the tree
+// must not change underneath it, except that a walker may set a field of
+// the node it is at that only it reads, as Hasher does hash.
+public abstract class Walker {
+   public abstract void visit(Absyn n);
+   public void leave(Absyn n) {}
+
+   public Walker fork() {throw new Error("Walker.fork");}
+   public void merge(Walker w) {throw new Error("Walker.merge");}
+}
@@ -0,0 +1,7 @@
+package FindEscape;
+
+abstract class Escape {
+  int depth;			// function nesting depth of the declaration
+  // mark it as escaping, and say whether it wasn't already
+  abstract boolean setEscape();
+}
@@ -0,0 +1,151 @@
+package FindEscape;
+
+// Decides which variables and parameters escape (are used by a function
+// nested inside the one declaring them) and which functions are leaves
+// (make no calls).  Every entry in escEnv carries the depth it was declared
+// at, so one scoped table does for the whole program.
+public class FindEscape {
+  Symbol.Table escEnv = new Symbol.Table();	// escEnv maps Symbol to Escape
+  Absyn.FunctionDec fun;			// function whose body we're in
+  Semant.AnalysisResult result;		// where the flags go, or null for the tree
+
+  // what was found: variables and parameters, how many of them escape,
+  // functions, and how many of those are leaves
+  public int variables, escaping, functions, leaves;
+
+  public FindEscape(Absyn.Exp e) {
+    this(e, null);
+  }
+
+  public FindEscape(Absyn.Exp e, Semant.AnalysisResult r) {
+    result = r;
+    traverseExp(0, e);
+  }
+
+  void setLeaf(Absyn.FunctionDec f, boolean leaf) {
+    if (result != null)
+      result.setLeaf(f, leaf);
+    else
+      f.leaf = leaf;
+  }
+
+  void use(int depth, Symbol.Symbol name) {
+    Escape esc = (Escape)escEnv.get(name);
+    //only a use from a deeper function makes it escape
+    if (esc != null && esc.depth < depth && esc.setEscape())
+      escaping++;
+  }
+
+  void traverseVar(int depth, Absyn.Var v) {
+    if (v instanceof Absyn.SimpleVar)
+      use(depth, ((Absyn.SimpleVar)v).name);
+    else if (v instanceof Absyn.FieldVar)
+      traverseVar(depth, ((Absyn.FieldVar)v).var);
+    else if (v instanceof Absyn.SubscriptVar) {
+      traverseVar(depth, ((Absyn.SubscriptVar)v).var);
+      traverseExp(depth, ((Absyn.SubscriptVar)v).index);
+    }
+    else throw new Error("FindEscape.traverseVar");
+  }
+
+  void traverseExp(int depth, Absyn.Exp e) {
+    if (e == null)
+      return;
+    if (e instanceof Absyn.OpExp) {
+      traverseExp(depth, ((Absyn.OpExp)e).left);
+      traverseExp(depth, ((Absyn.OpExp)e).right);
+    }
+    else if (e instanceof Absyn.VarExp)
+      traverseVar(depth, ((Absyn.VarExp)e).var);
+    else if (e instanceof Absyn.CallExp) {
+      if (fun != null)
+	setLeaf(fun, false);
+      for (Absyn.ExpList a = ((Absyn.CallExp)e).args; a != null; a = a.tail)
+	traverseExp(depth, a.head);
+    }
+    else if (e instanceof Absyn.RecordExp) {
+      for (Absyn.FieldExpList f = ((Absyn.RecordExp)e).fields; f != null; f = f.tail)
+	traverseExp(depth, f.init);
+    }
+    else if (e instanceof Absyn.SeqExp) {
+      for (Absyn.ExpList l = ((Absyn.SeqExp)e).list; l != null; l = l.tail)
+	traverseExp(depth, l.head);
+    }
+    else if (e instanceof Absyn.AssignExp) {
+      traverseVar(depth, ((Absyn.AssignExp)e).var);
+      traverseExp(depth, ((Absyn.AssignExp)e).exp);
+    }
+    else if (e instanceof Absyn.IfExp) {
+      traverseExp(depth, ((Absyn.IfExp)e).test);
+      traverseExp(depth, ((Absyn.IfExp)e).thenclause);
+      traverseExp(depth, ((Absyn.IfExp)e).elseclause);
+    }
+    else if (e instanceof Absyn.WhileExp) {
+      traverseExp(depth, ((Absyn.WhileExp)e).test);
+      traverseExp(depth, ((Absyn.WhileExp)e).body);
+    }
+    else if (e instanceof Absyn.ForExp) {
+      Absyn.ForExp f = (Absyn.ForExp)e;
+      traverseExp(depth, f.var.init);
+      traverseExp(depth, f.hi);
+      escEnv.beginScope();
+      declare(f.var.name, new VarEscape(f.var, depth, result));
+      traverseExp(depth, f.body);
+      escEnv.endScope();
+    }
+    else if (e instanceof Absyn.LetExp) {
+      escEnv.beginScope();
+      for (Absyn.DecList d = ((Absyn.LetExp)e).decs; d != null; d = d.tail)
+	traverseDec(depth, d.head);
+      traverseExp(depth, ((Absyn.LetExp)e).body);
+      escEnv.endScope();
+    }
+    else if (e instanceof Absyn.ArrayExp) {
+      traverseExp(depth, ((Absyn.ArrayExp)e).size);
+      traverseExp(depth, ((Absyn.ArrayExp)e).init);
+    }
+    else if (e instanceof Absyn.NilExp || e instanceof Absyn.IntExp ||
+	     e instanceof Absyn.StringExp || e instanceof Absyn.BreakExp)
+      ;
+    else throw new Error("FindEscape.traverseExp");
+  }
+
+  void traverseDec(int depth, Absyn.Dec d) {
+    if (d instanceof Absyn.VarDec) {
+      Absyn.VarDec v = (Absyn.VarDec)d;
+      traverseExp(depth, v.init);
+      declare(v.name, new VarEscape(v, depth, result));
+    }
+    else if (d instanceof Absyn.FunctionDec) {
+      //all of the names first, since the bodies can call each other
+      for (Absyn.FunctionDec f = (Absyn.FunctionDec)d; f != null; f = f.next)
+	escEnv.put(f.name, new FunEscape(depth));
+      for (Absyn.FunctionDec f = (Absyn.FunctionDec)d; f != null; f = f.next)
+	traverseFunction(depth + 1, f);
+    }
+    else if (d instanceof Absyn.TypeDec)
+      ;
+    else throw new Error("FindEscape.traverseDec");
+  }
+
+  // the body of f, which runs at the given depth
+  void traverseFunction(int depth, Absyn.FunctionDec f) {
+    Absyn.FunctionDec outer = fun;
+    escEnv.beginScope();
+    for (Absyn.FieldList p = f.params; p != null; p = p.tail)
+      declare(p.name, new FormalEscape(p, depth, result));
+    fun = f;
+    setLeaf(f, true);
+    traverseExp(depth, f.body);
+    fun = outer;
+    escEnv.endScope();
+    functions++;
+    if (result != null ? result.leaf(f) : f.leaf)
+      leaves++;
+  }
+
+  void declare(Symbol.Symbol name, Escape esc) {
+    escEnv.put(name, esc);
+    variables++;
+  }
+}
@@ -0,0 +1,26 @@
+package FindEscape;
+
+class FormalEscape extends Escape {
+  Absyn.FieldList fl;
+  Semant.AnalysisResult result;
+  FormalEscape(Absyn.FieldList f, int d, Semant.AnalysisResult r) {
+    fl = f;
+    depth = d;
+    result = r;
+    set(false);
+  }
+
+  void set(boolean escape) {
+    if (result != null)
+      result.setEscape(fl, escape);
+    else
+      fl.escape = escape;
+  }
+
+  boolean setEscape() {
+    if (result != null ? result.escape(fl) : fl.escape)
+      return false;
+    set(true);
+    return true;
+  }
+}
@@ -0,0 +1,12 @@
+package FindEscape;
+
+// a function name, only here so that it hides variables of the same name
+class FunEscape extends Escape {
+  FunEscape(int d) {
+    depth = d;
+  }
+
+  boolean setEscape() {
+    return false;
+  }
+}
@@ -0,0 +1,26 @@
+package FindEscape;
+
+class VarEscape extends Escape {
+  Absyn.VarDec vd;
+  Semant.AnalysisResult result;
+  VarEscape(Absyn.VarDec v, int d, Semant.AnalysisResult r) {
+    vd = v;
+    depth = d;
+    result = r;
+    set(false);
+  }
+
+  void set(boolean escape) {
+    if (result != null)
+      result.setEscape(vd, escape);
+    else
+      vd.escape = escape;
+  }
+
+  boolean setEscape() {
+    if (result != null ? result.escape(vd) : vd.escape)
+      return false;
+    set(true);
+    return true;
+  }
+}
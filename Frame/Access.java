@@ -0,0 +1,6 @@
+package Frame;
+
+public abstract class Access {
+  /* the location of the variable, given the frame pointer of its frame */
+  public abstract Tree.Exp exp(Tree.Exp framePtr);
+}
@@ -0,0 +1,7 @@
+package Frame;
+
+public class AccessList {
+  public Access head;
+  public AccessList tail;
+  public AccessList(Access h, AccessList t) {head=h; tail=t;}
+}
@@ -0,0 +1,23 @@
+package Frame;
+import Temp.Temp;
+import Temp.Label;
+import Util.BoolList;
+
+public abstract class Frame {
+  public Label name;
+  public AccessList formals;
+
+  // a frame for a new function; formals says which parameters escape
+  public abstract Frame newFrame(Label name, BoolList formals);
+  public abstract Access allocLocal(boolean escape);
+
+  public abstract Temp FP();
+  public abstract Temp RV();
+  public abstract int wordSize();
+
+  // call to a runtime system function, which takes no static link
+  public abstract Tree.Exp externalCall(String func, Tree.ExpList args);
+
+  // move incoming parameters into place, save and restore registers
+  public abstract Tree.Stm procEntryExit1(Tree.Stm body);
+}
@@ -0,0 +1,11 @@
+package Interp;
+
+// thrown by break, caught by the innermost loop; there is only one
+final class Break extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+  static final Break BREAK = new Break();
+  private Break() {}
+  public Throwable fillInStackTrace() {
+    return this;
+  }
+}
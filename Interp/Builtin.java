@@ -0,0 +1,9 @@
+package Interp;
+
+// a library function from Semant.Env, run natively
+class Builtin {
+  String name;
+  Builtin(String n) {
+    name = n;
+  }
+}
@@ -0,0 +1,17 @@
+package Interp;
+
+// A node of the program, compiled once.  Int expressions compile to
+// IntCode and strings, records and arrays to RefCode, so an int is never
+// boxed on its way from one node to the next.
+abstract class Code {
+  abstract void exec(Frame f);
+
+  Object eval(Frame f) {
+    exec(f);
+    return null;
+  }
+
+  int evalInt(Frame f) {
+    throw new Error("Code.evalInt");
+  }
+}
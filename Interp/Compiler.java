@@ -0,0 +1,782 @@
+package Interp;
+import Absyn.*;
+
+// Turns a checked tree into Code.  Which of IntCode, RefCode or plain Code
+// a node becomes is decided by the type Semant left on it.
+class Compiler {
+  Interp rt;
+  Symbol.Table env = new Symbol.Table();  // env maps Symbol to Slot, Function or Builtin
+  int depth;			// depth of the function being compiled
+  int nints, nrefs;		// slots it uses so far
+  boolean breaks;		// the loop being compiled has a break
+
+  static final String[] library = {
+    "print", "flush", "getchar", "ord", "chr", "size", "substring",
+    "concat", "not", "exit"
+  };
+
+  Compiler(Interp r) {
+    rt = r;
+    for (int i = 0; i < library.length; i++)
+      env.put(Parse.Source.symbol(library[i]), new Builtin(library[i]));
+  }
+
+  void compileProg(Exp e) {
+    rt.main = compileExp(e);
+    rt.nints = nints;
+    rt.nrefs = nrefs;
+  }
+
+  static boolean isInt(Types.Type t) {
+    return t != null && t.actual() instanceof Types.INT;
+  }
+
+  static boolean isVoid(Types.Type t) {
+    return t == null || t.actual() instanceof Types.VOID;
+  }
+
+  Code compileExp(Exp e) {
+    if (e instanceof IntExp)
+      return compileExp((IntExp)e);
+    if (e instanceof StringExp)
+      return compileExp((StringExp)e);
+    if (e instanceof NilExp)
+      return compileExp((NilExp)e);
+    if (e instanceof VarExp)
+      return compileVar(((VarExp)e).var);
+    if (e instanceof OpExp)
+      return compileExp((OpExp)e);
+    if (e instanceof CallExp)
+      return compileExp((CallExp)e);
+    if (e instanceof RecordExp)
+      return compileExp((RecordExp)e);
+    if (e instanceof ArrayExp)
+      return compileExp((ArrayExp)e);
+    if (e instanceof SeqExp)
+      return compileExp((SeqExp)e);
+    if (e instanceof AssignExp)
+      return compileExp((AssignExp)e);
+    if (e instanceof IfExp)
+      return compileExp((IfExp)e);
+    if (e instanceof WhileExp)
+      return compileExp((WhileExp)e);
+    if (e instanceof ForExp)
+      return compileExp((ForExp)e);
+    if (e instanceof BreakExp)
+      return compileExp((BreakExp)e);
+    if (e instanceof LetExp)
+      return compileExp((LetExp)e);
+    throw new Error("Compiler.compileExp");
+  }
+
+  Code compileExp(IntExp e) {
+    final int value = e.value;
+    return new IntCode() {
+      int evalInt(Frame f) { return value; }
+    };
+  }
+
+  Code compileExp(StringExp e) {
+    final String value = e.value;
+    return new RefCode() {
+      Object eval(Frame f) { return value; }
+    };
+  }
+
+  Code compileExp(NilExp e) {
+    return new RefCode() {
+      Object eval(Frame f) { return null; }
+    };
+  }
+
+  // variables
+
+  Types.Type varType(Var v) {
+    if (v instanceof SimpleVar)
+      return ((Slot)env.get(((SimpleVar)v).name)).ty;
+    if (v instanceof FieldVar) {
+      FieldVar fv = (FieldVar)v;
+      Types.RECORD r = (Types.RECORD)varType(fv.var).actual();
+      for (; r != null && r.fieldName != fv.field; r = r.tail)
+	;
+      if (r == null)
+	throw new Error("Compiler.varType");
+      return r.fieldType;
+    }
+    if (v instanceof SubscriptVar)
+      return ((Types.ARRAY)varType(((SubscriptVar)v).var).actual()).element;
+    throw new Error("Compiler.varType");
+  }
+
+  static int fieldIndex(Types.RECORD r, Symbol.Symbol name) {
+    int i = 0;
+    for (; r != null && r.fieldName != name; r = r.tail)
+      i++;
+    if (r == null)
+      throw new Error("Compiler.fieldIndex");
+    return i;
+  }
+
+  // the checks the running program's errors come from; anything else
+  // thrown while it runs is a fault in the interpreter, not in the program
+
+  // the fields of record r
+  static Object[] fields(Object r) {
+    if (r == null)
+      throw new RuntimeError("nil record");
+    return (Object[])r;
+  }
+
+  // i, if it is an index into an array of length n
+  static int bound(int i, int n) {
+    if (i < 0 || i >= n)
+      throw new RuntimeError("array index out of bounds");
+    return i;
+  }
+
+  // n, if an array can have that many elements
+  static int length(int n) {
+    if (n < 0)
+      throw new RuntimeError("negative array size");
+    return n;
+  }
+
+  Code compileVar(Var v) {
+    if (v instanceof SimpleVar)
+      return compileVar((SimpleVar)v);
+    if (v instanceof FieldVar)
+      return compileVar((FieldVar)v);
+    if (v instanceof SubscriptVar)
+      return compileVar((SubscriptVar)v);
+    throw new Error("Compiler.compileVar");
+  }
+
+  Code compileVar(SimpleVar v) {
+    Slot s = (Slot)env.get(v.name);
+    final int n = depth - s.depth;
+    final int i = s.index;
+    //the common cases skip the loop in Frame.up
+    if (s.isInt) {
+      if (n == 0)
+	return new IntCode() {
+	  int evalInt(Frame f) { return f.ints[i]; }
+	};
+      if (n == 1)
+	return new IntCode() {
+	  int evalInt(Frame f) { return f.link.ints[i]; }
+	};
+      return new IntCode() {
+	int evalInt(Frame f) { return f.up(n).ints[i]; }
+      };
+    }
+    if (n == 0)
+      return new RefCode() {
+	Object eval(Frame f) { return f.refs[i]; }
+      };
+    if (n == 1)
+      return new RefCode() {
+	Object eval(Frame f) { return f.link.refs[i]; }
+      };
+    return new RefCode() {
+      Object eval(Frame f) { return f.up(n).refs[i]; }
+    };
+  }
+
+  // record fields are boxed, so one Object[] does for every record type
+  Code compileVar(FieldVar v) {
+    final Code record = compileVar(v.var);
+    Types.RECORD r = (Types.RECORD)varType(v.var).actual();
+    final int i = fieldIndex(r, v.field);
+    if (isInt(varType(v)))
+      return new IntCode() {
+	int evalInt(Frame f) {
+	  return ((Integer)fields(record.eval(f))[i]).intValue();
+	}
+      };
+    return new RefCode() {
+      Object eval(Frame f) { return fields(record.eval(f))[i]; }
+    };
+  }
+
+  // arrays of int are int[], anything else Object[]
+  Code compileVar(SubscriptVar v) {
+    final Code array = compileVar(v.var);
+    final Code index = compileExp(v.index);
+    if (isInt(varType(v)))
+      return new IntCode() {
+	int evalInt(Frame f) {
+	  int[] a = (int[])array.eval(f);
+	  return a[bound(index.evalInt(f), a.length)];
+	}
+      };
+    return new RefCode() {
+      Object eval(Frame f) {
+	Object[] a = (Object[])array.eval(f);
+	return a[bound(index.evalInt(f), a.length)];
+      }
+    };
+  }
+
+  // operators
+
+  Code compileExp(OpExp e) {
+    final Code l = compileExp(e.left);
+    final Code r = compileExp(e.right);
+    switch (e.oper) {
+    case OpExp.PLUS:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) + r.evalInt(f); }
+      };
+    case OpExp.MINUS:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) - r.evalInt(f); }
+      };
+    case OpExp.MUL:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) * r.evalInt(f); }
+      };
+    case OpExp.DIV:
+      return new IntCode() {
+	int evalInt(Frame f) {
+	  int a = l.evalInt(f), b = r.evalInt(f);
+	  if (b == 0)
+	    throw new RuntimeError("division by zero");
+	  return a / b;
+	}
+      };
+    }
+    if (isInt(e.left.type))
+      return compileIntCompare(e.oper, l, r);
+    if (e.left.type.actual() instanceof Types.STRING)
+      return compileStringCompare(e.oper, l, r);
+    //records and arrays: only = and <>, by identity
+    switch (e.oper) {
+    case OpExp.EQ:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.eval(f) == r.eval(f) ? 1 : 0; }
+      };
+    case OpExp.NE:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.eval(f) != r.eval(f) ? 1 : 0; }
+      };
+    }
+    throw new Error("Compiler.compileExp.OpExp");
+  }
+
+  static Code compileIntCompare(int oper, final Code l, final Code r) {
+    switch (oper) {
+    case OpExp.EQ:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) == r.evalInt(f) ? 1 : 0; }
+      };
+    case OpExp.NE:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) != r.evalInt(f) ? 1 : 0; }
+      };
+    case OpExp.LT:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) < r.evalInt(f) ? 1 : 0; }
+      };
+    case OpExp.LE:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) <= r.evalInt(f) ? 1 : 0; }
+      };
+    case OpExp.GT:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) > r.evalInt(f) ? 1 : 0; }
+      };
+    case OpExp.GE:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.evalInt(f) >= r.evalInt(f) ? 1 : 0; }
+      };
+    }
+    throw new Error("Compiler.compileIntCompare");
+  }
+
+  static Code compileStringCompare(int oper, final Code l, final Code r) {
+    switch (oper) {
+    case OpExp.EQ:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.eval(f).equals(r.eval(f)) ? 1 : 0; }
+      };
+    case OpExp.NE:
+      return new IntCode() {
+	int evalInt(Frame f) { return l.eval(f).equals(r.eval(f)) ? 0 : 1; }
+      };
+    }
+    final int op = oper;
+    return new IntCode() {
+      int evalInt(Frame f) {
+	int c = ((String)l.eval(f)).compareTo((String)r.eval(f));
+	switch (op) {
+	case OpExp.LT: return c < 0 ? 1 : 0;
+	case OpExp.LE: return c <= 0 ? 1 : 0;
+	case OpExp.GT: return c > 0 ? 1 : 0;
+	default:       return c >= 0 ? 1 : 0;
+	}
+      }
+    };
+  }
+
+  // calls
+
+  Code[] compileArgs(ExpList args) {
+    int n = 0;
+    for (ExpList a = args; a != null; a = a.tail)
+      n++;
+    Code[] code = new Code[n];
+    n = 0;
+    for (ExpList a = args; a != null; a = a.tail)
+      code[n++] = compileExp(a.head);
+    return code;
+  }
+
+  Code compileExp(CallExp e) {
+    Object entry = env.get(e.func);
+    final Code[] args = compileArgs(e.args);
+    if (entry instanceof Builtin)
+      return compileBuiltin(((Builtin)entry).name, args);
+    final Function fn = (Function)entry;
+    //the static link is the frame fn was declared in, n links out
+    final int n = depth - (fn.depth - 1);
+    if (isInt(e.type))
+      return new IntCode() {
+	int evalInt(Frame f) {
+	  return fn.body.evalInt(enter(fn, f.up(n), args, f));
+	}
+      };
+    if (isVoid(e.type))
+      return new Code() {
+	void exec(Frame f) {
+	  fn.body.exec(enter(fn, f.up(n), args, f));
+	}
+      };
+    return new RefCode() {
+      Object eval(Frame f) {
+	return fn.body.eval(enter(fn, f.up(n), args, f));
+      }
+    };
+  }
+
+  // a new frame for fn, with the arguments evaluated in the caller's frame
+  static Frame enter(Function fn, Frame link, Code[] args, Frame f) {
+    Frame callee = new Frame(link, fn.nints, fn.nrefs);
+    for (int i = 0; i < args.length; i++) {
+      if (fn.paramInt[i])
+	callee.ints[fn.paramSlot[i]] = args[i].evalInt(f);
+      else
+	callee.refs[fn.paramSlot[i]] = args[i].eval(f);
+    }
+    return callee;
+  }
+
+  Code compileBuiltin(String name, Code[] args) {
+    final Interp rt = this.rt;
+    final Code a = args.length > 0 ? args[0] : null;
+    final Code b = args.length > 1 ? args[1] : null;
+    final Code c = args.length > 2 ? args[2] : null;
+    if (name.equals("print"))
+      return new Code() {
+	void exec(Frame f) { rt.print((String)a.eval(f)); }
+      };
+    if (name.equals("flush"))
+      return new Code() {
+	void exec(Frame f) { rt.flush(); }
+      };
+    if (name.equals("getchar"))
+      return new RefCode() {
+	Object eval(Frame f) { return rt.getchar(); }
+      };
+    if (name.equals("ord"))
+      return new IntCode() {
+	int evalInt(Frame f) {
+	  String s = (String)a.eval(f);
+	  return s.length() == 0 ? -1 : s.charAt(0);
+	}
+      };
+    if (name.equals("chr"))
+      return new RefCode() {
+	Object eval(Frame f) {
+	  int i = a.evalInt(f);
+	  if (i < 0 || i > 255)
+	    throw new RuntimeError("chr(" + i + ") out of range");
+	  return Interp.chr(i);
+	}
+      };
+    if (name.equals("size"))
+      return new IntCode() {
+	int evalInt(Frame f) { return ((String)a.eval(f)).length(); }
+      };
+    if (name.equals("substring"))
+      return new RefCode() {
+	Object eval(Frame f) {
+	  String s = (String)a.eval(f);
+	  int first = b.evalInt(f);
+	  int n = c.evalInt(f);
+	  if (first < 0 || n < 0 || first > s.length() - n)
+	    throw new RuntimeError("substring(\"" + s + "\", " + first + ", "
+				   + n + ") out of range");
+	  return s.substring(first, first + n);
+	}
+      };
+    if (name.equals("concat"))
+      return new RefCode() {
+	Object eval(Frame f) {
+	  return ((String)a.eval(f)).concat((String)b.eval(f));
+	}
+      };
+    if (name.equals("not"))
+      return new IntCode() {
+	int evalInt(Frame f) { return a.evalInt(f) == 0 ? 1 : 0; }
+      };
+    if (name.equals("exit"))
+      return new Code() {
+	void exec(Frame f) { throw new Exit(a.evalInt(f)); }
+      };
+    throw new Error("Compiler.compileBuiltin");
+  }
+
+  // records and arrays
+
+  Code compileExp(RecordExp e) {
+    Types.RECORD r = (Types.RECORD)e.type.actual();
+    int size = 0;
+    for (Types.RECORD t = r; t != null; t = t.tail)
+      size++;
+    int n = 0;
+    for (FieldExpList l = e.fields; l != null; l = l.tail)
+      n++;
+    final Code[] inits = new Code[n];
+    final int[] index = new int[n];
+    n = 0;
+    for (FieldExpList l = e.fields; l != null; l = l.tail, n++) {
+      inits[n] = compileExp(l.init);
+      index[n] = fieldIndex(r, l.name);
+    }
+    final int fields = size;
+    return new RefCode() {
+      Object eval(Frame f) {
+	Object[] record = new Object[fields];
+	for (int i = 0; i < inits.length; i++)
+	  record[index[i]] = inits[i].eval(f);
+	return record;
+      }
+    };
+  }
+
+  Code compileExp(ArrayExp e) {
+    final Code size = compileExp(e.size);
+    final Code init = compileExp(e.init);
+    if (isInt(((Types.ARRAY)e.type.actual()).element))
+      return new RefCode() {
+	Object eval(Frame f) {
+	  int[] array = new int[length(size.evalInt(f))];
+	  int value = init.evalInt(f);
+	  if (value != 0)
+	    java.util.Arrays.fill(array, value);
+	  return array;
+	}
+      };
+    return new RefCode() {
+      Object eval(Frame f) {
+	Object[] array = new Object[length(size.evalInt(f))];
+	java.util.Arrays.fill(array, init.eval(f));
+	return array;
+      }
+    };
+  }
+
+  // sequences
+
+  // run first for effect, then last for the value, which has type t
+  static Code sequence(final Code[] first, final Code last, Types.Type t) {
+    if (first.length == 0)
+      return last;
+    if (isInt(t))
+      return new IntCode() {
+	int evalInt(Frame f) {
+	  for (int i = 0; i < first.length; i++)
+	    first[i].exec(f);
+	  return last.evalInt(f);
+	}
+      };
+    if (isVoid(t))
+      return new Code() {
+	void exec(Frame f) {
+	  for (int i = 0; i < first.length; i++)
+	    first[i].exec(f);
+	  last.exec(f);
+	}
+      };
+    return new RefCode() {
+      Object eval(Frame f) {
+	for (int i = 0; i < first.length; i++)
+	  first[i].exec(f);
+	return last.eval(f);
+      }
+    };
+  }
+
+  static final Code nothing = new Code() {
+    void exec(Frame f) {}
+  };
+
+  Code compileExp(SeqExp e) {
+    if (e.list == null)
+      return nothing;
+    Code[] code = compileArgs(e.list);
+    Code[] first = new Code[code.length - 1];
+    System.arraycopy(code, 0, first, 0, first.length);
+    return sequence(first, code[first.length], e.type);
+  }
+
+  Code compileExp(LetExp e) {
+    java.util.Vector<Code> decs = new java.util.Vector<Code>();
+    env.beginScope();
+    for (DecList d = e.decs; d != null; d = d.tail) {
+      Code c = compileDec(d.head);
+      if (c != null)
+	decs.addElement(c);
+    }
+    Code body = compileExp(e.body);
+    env.endScope();
+    Code[] first = new Code[decs.size()];
+    decs.copyInto(first);
+    return sequence(first, body, e.type);
+  }
+
+  // assignment
+
+  Code compileExp(AssignExp e) {
+    final Code value = compileExp(e.exp);
+    if (e.var instanceof SimpleVar) {
+      Slot s = (Slot)env.get(((SimpleVar)e.var).name);
+      final int n = depth - s.depth;
+      final int i = s.index;
+      if (s.isInt)
+	return new Code() {
+	  void exec(Frame f) { f.up(n).ints[i] = value.evalInt(f); }
+	};
+      return new Code() {
+	void exec(Frame f) { f.up(n).refs[i] = value.eval(f); }
+      };
+    }
+    if (e.var instanceof FieldVar) {
+      FieldVar v = (FieldVar)e.var;
+      final Code record = compileVar(v.var);
+      final int i = fieldIndex((Types.RECORD)varType(v.var).actual(), v.field);
+      //eval boxes an int value, which is how records hold them
+      return new Code() {
+	void exec(Frame f) {
+	  Object[] r = fields(record.eval(f));
+	  r[i] = value.eval(f);
+	}
+      };
+    }
+    if (e.var instanceof SubscriptVar) {
+      SubscriptVar v = (SubscriptVar)e.var;
+      final Code array = compileVar(v.var);
+      final Code index = compileExp(v.index);
+      if (isInt(varType(v)))
+	return new Code() {
+	  void exec(Frame f) {
+	    int[] a = (int[])array.eval(f);
+	    int i = bound(index.evalInt(f), a.length);
+	    a[i] = value.evalInt(f);
+	  }
+	};
+      return new Code() {
+	void exec(Frame f) {
+	  Object[] a = (Object[])array.eval(f);
+	  int i = bound(index.evalInt(f), a.length);
+	  a[i] = value.eval(f);
+	}
+      };
+    }
+    throw new Error("Compiler.compileExp.AssignExp");
+  }
+
+  // control
+
+  Code compileExp(IfExp e) {
+    final Code test = compileExp(e.test);
+    final Code a = compileExp(e.thenclause);
+    if (e.elseclause == null)
+      return new Code() {
+	void exec(Frame f) {
+	  if (test.evalInt(f) != 0)
+	    a.exec(f);
+	}
+      };
+    final Code b = compileExp(e.elseclause);
+    if (isInt(e.type))
+      return new IntCode() {
+	int evalInt(Frame f) {
+	  return test.evalInt(f) != 0 ? a.evalInt(f) : b.evalInt(f);
+	}
+      };
+    if (isVoid(e.type))
+      return new Code() {
+	void exec(Frame f) {
+	  if (test.evalInt(f) != 0)
+	    a.exec(f);
+	  else
+	    b.exec(f);
+	}
+      };
+    return new RefCode() {
+      Object eval(Frame f) {
+	return test.evalInt(f) != 0 ? a.eval(f) : b.eval(f);
+      }
+    };
+  }
+
+  Code compileExp(WhileExp e) {
+    final Code test = compileExp(e.test);
+    boolean outer = breaks;
+    breaks = false;
+    final Code body = compileExp(e.body);
+    boolean hasBreak = breaks;
+    breaks = outer;
+    //only pay for the handler when there is a break to catch
+    if (!hasBreak)
+      return new Code() {
+	void exec(Frame f) {
+	  while (test.evalInt(f) != 0)
+	    body.exec(f);
+	}
+      };
+    return new Code() {
+      void exec(Frame f) {
+	try {
+	  while (test.evalInt(f) != 0)
+	    body.exec(f);
+	} catch (Break b) {
+	}
+      }
+    };
+  }
+
+  Code compileExp(ForExp e) {
+    final Code lo = compileExp(e.var.init);
+    final Code hi = compileExp(e.hi);
+    env.beginScope();
+    final int i = nints++;
+    env.put(e.var.name, new Slot(depth, i, true, null));
+    boolean outer = breaks;
+    breaks = false;
+    final Code body = compileExp(e.body);
+    boolean hasBreak = breaks;
+    breaks = outer;
+    env.endScope();
+    //tests against the limit before the increment, so hi can be maxint
+    final Code loop = new Code() {
+      void exec(Frame f) {
+	int k = lo.evalInt(f);
+	int limit = hi.evalInt(f);
+	if (k > limit)
+	  return;
+	for (;;) {
+	  f.ints[i] = k;
+	  body.exec(f);
+	  if (k == limit)
+	    break;
+	  k++;
+	}
+      }
+    };
+    if (!hasBreak)
+      return loop;
+    return new Code() {
+      void exec(Frame f) {
+	try {
+	  loop.exec(f);
+	} catch (Break b) {
+	}
+      }
+    };
+  }
+
+  Code compileExp(BreakExp e) {
+    breaks = true;
+    return new Code() {
+      void exec(Frame f) { throw Break.BREAK; }
+    };
+  }
+
+  // declarations; null if there is nothing to run
+
+  Code compileDec(Dec d) {
+    if (d instanceof VarDec)
+      return compileDec((VarDec)d);
+    if (d instanceof FunctionDec) {
+      compileDec((FunctionDec)d);
+      return null;
+    }
+    if (d instanceof TypeDec)
+      return null;
+    throw new Error("Compiler.compileDec");
+  }
+
+  Code compileDec(VarDec d) {
+    final Code init = compileExp(d.init);
+    Types.Type ty = d.entry.ty;
+    Slot s;
+    if (isInt(ty))
+      s = new Slot(depth, nints++, true, ty);
+    else
+      s = new Slot(depth, nrefs++, false, ty);
+    env.put(d.name, s);
+    final int i = s.index;
+    if (s.isInt)
+      return new Code() {
+	void exec(Frame f) { f.ints[i] = init.evalInt(f); }
+      };
+    return new Code() {
+      void exec(Frame f) { f.refs[i] = init.eval(f); }
+    };
+  }
+
+  void compileDec(FunctionDec d) {
+    //all of the headers first, since the bodies can call each other
+    for (FunctionDec g = d; g != null; g = g.next) {
+      Function fn = new Function(g.name.toString(), depth + 1);
+      int n = 0;
+      for (FieldList p = g.params; p != null; p = p.tail)
+	n++;
+      fn.paramInt = new boolean[n];
+      fn.paramSlot = new int[n];
+      n = 0;
+      for (Types.RECORD t = g.entry.formals; t != null; t = t.tail, n++) {
+	fn.paramInt[n] = isInt(t.fieldType);
+	fn.paramSlot[n] = fn.paramInt[n] ? fn.nints++ : fn.nrefs++;
+      }
+      env.put(g.name, fn);
+    }
+    for (FunctionDec g = d; g != null; g = g.next)
+      compileFunction(g, (Function)env.get(g.name));
+  }
+
+  void compileFunction(FunctionDec d, Function fn) {
+    int outerDepth = depth, outerInts = nints, outerRefs = nrefs;
+    boolean outerBreaks = breaks;
+    depth = fn.depth;
+    nints = fn.nints;
+    nrefs = fn.nrefs;
+    breaks = false;
+    env.beginScope();
+    Types.RECORD t = d.entry.formals;
+    int n = 0;
+    for (FieldList p = d.params; p != null; p = p.tail, t = t.tail, n++)
+      env.put(p.name, new Slot(depth, fn.paramSlot[n], fn.paramInt[n],
+			       t.fieldType));
+    fn.body = compileExp(d.body);
+    env.endScope();
+    fn.nints = nints;
+    fn.nrefs = nrefs;
+    depth = outerDepth;
+    nints = outerInts;
+    nrefs = outerRefs;
+    breaks = outerBreaks;
+  }
+}
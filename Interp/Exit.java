@@ -0,0 +1,13 @@
+package Interp;
+
+// thrown by exit(i)
+final class Exit extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+  int status;
+  Exit(int s) {
+    status = s;
+  }
+  public Throwable fillInStackTrace() {
+    return this;
+  }
+}
@@ -0,0 +1,26 @@
+package Interp;
+
+// The variables of one call.  Ints and everything else are kept apart, and
+// each variable has a fixed slot in one of the two arrays.
+final class Frame {
+  private static final int[] NO_INTS = new int[0];
+  private static final Object[] NO_REFS = new Object[0];
+
+  final Frame link;		// frame of the function we're declared in
+  final int[] ints;
+  final Object[] refs;
+
+  Frame(Frame l, int nints, int nrefs) {
+    link = l;
+    ints = nints == 0 ? NO_INTS : new int[nints];
+    refs = nrefs == 0 ? NO_REFS : new Object[nrefs];
+  }
+
+  // the frame n static links out
+  Frame up(int n) {
+    Frame f = this;
+    while (n-- > 0)
+      f = f.link;
+    return f;
+  }
+}
@@ -0,0 +1,16 @@
+package Interp;
+
+// A compiled Tiger function.  Calls can be compiled before the body (for
+// recursion), so the body and frame size are filled in afterwards.
+final class Function {
+  String name;
+  int depth;			// depth of the body
+  int nints, nrefs;		// frame size
+  boolean[] paramInt;		// for each parameter: int or not,
+  int[] paramSlot;		// and its slot
+  Code body;
+  Function(String n, int d) {
+    name = n;
+    depth = d;
+  }
+}
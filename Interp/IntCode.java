@@ -0,0 +1,13 @@
+package Interp;
+
+abstract class IntCode extends Code {
+  abstract int evalInt(Frame f);
+
+  Object eval(Frame f) {
+    return Integer.valueOf(evalInt(f));
+  }
+
+  void exec(Frame f) {
+    evalInt(f);
+  }
+}
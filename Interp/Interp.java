@@ -0,0 +1,78 @@
+package Interp;
+import java.io.*;
+
+// Runs a Tiger program.  The tree is compiled once, up front, into Code
+// objects; variables are resolved to (depth, slot) then, so running it
+// never looks up a name.
+public class Interp {
+  public Writer out;
+  public Reader in;
+  Code main;
+  int nints, nrefs;		// size of the main program's frame
+
+  // prog must have been through Semant without errors
+  public Interp(Absyn.Exp prog) {
+    this(prog, new BufferedWriter(new OutputStreamWriter(System.out)),
+	 new BufferedReader(new InputStreamReader(System.in)));
+  }
+
+  public Interp(Absyn.Exp prog, Writer o, Reader i) {
+    out = o;
+    in = i;
+    new Compiler(this).compileProg(prog);
+  }
+
+  // run the program, and return its exit status
+  public int run() {
+    try {
+      main.exec(new Frame(null, nints, nrefs));
+      return 0;
+    } catch (Exit e) {
+      return e.status;
+    } catch (RuntimeError e) {
+      flush();
+      System.err.println("runtime error: " + e.getMessage());
+      return 1;
+    } finally {
+      flush();
+    }
+  }
+
+  // the library functions that do I/O
+
+  void print(String s) {
+    try {
+      out.write(s);
+    } catch (IOException e) {
+      throw new RuntimeError(e.toString());
+    }
+  }
+
+  void flush() {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw new RuntimeError(e.toString());
+    }
+  }
+
+  String getchar() {
+    int c;
+    try {
+      c = in.read();
+    } catch (IOException e) {
+      throw new RuntimeError(e.toString());
+    }
+    return c < 0 ? "" : chr(c);
+  }
+
+  private static final String[] chars = new String[256];
+
+  static String chr(int c) {
+    if (c < 0 || c >= chars.length)
+      return String.valueOf((char)c);
+    if (chars[c] == null)
+      chars[c] = String.valueOf((char)c);
+    return chars[c];
+  }
+}
@@ -0,0 +1,18 @@
+package Interp;
+import Parse.Parse;
+
+public class Main {
+
+  public static void main(String argv[]) {
+    if (argv.length != 1) {
+      System.err.println("usage: java Interp.Main file.tig");
+      System.exit(2);
+    }
+    Parse parse = new Parse(argv[0]);
+    new Semant.Semant(parse.errorMsg).transProg(parse.absyn);
+    //only a checked program can be run
+    if (parse.errorMsg.anyErrors)
+      System.exit(1);
+    System.exit(new Interp(parse.absyn).run());
+  }
+}
@@ -0,0 +1,9 @@
+package Interp;
+
+abstract class RefCode extends Code {
+  abstract Object eval(Frame f);
+
+  void exec(Frame f) {
+    eval(f);
+  }
+}
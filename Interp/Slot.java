@@ -0,0 +1,15 @@
+package Interp;
+
+// where a variable lives: depth of its function, and index in the frame
+class Slot {
+  int depth;
+  int index;
+  boolean isInt;
+  Types.Type ty;
+  Slot(int d, int i, boolean b, Types.Type t) {
+    depth = d;
+    index = i;
+    isInt = b;
+    ty = t;
+  }
+}
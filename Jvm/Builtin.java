@@ -0,0 +1,11 @@
+package Jvm;
+
+// a library function, a static method of Library
+class Builtin {
+  String name, descriptor;
+
+  Builtin(String n, String d) {
+    name = n;
+    descriptor = d;
+  }
+}
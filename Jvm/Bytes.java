@@ -0,0 +1,65 @@
+package Jvm;
+
+// A growing buffer of the big-endian bytes a class file is made of.
+final class Bytes {
+  private byte[] buf = new byte[64];
+  int length;
+
+  void u1(int b) {
+    if (length == buf.length) {
+      byte[] b2 = new byte[buf.length * 2];
+      System.arraycopy(buf, 0, b2, 0, length);
+      buf = b2;
+    }
+    buf[length++] = (byte)b;
+  }
+
+  void u2(int v) {
+    u1(v >> 8);
+    u1(v);
+  }
+
+  void u4(int v) {
+    u2(v >>> 16);
+    u2(v);
+  }
+
+  // overwrite the two bytes at pos, for a branch offset found later
+  void put2(int pos, int v) {
+    buf[pos] = (byte)(v >> 8);
+    buf[pos + 1] = (byte)v;
+  }
+
+  // a length and the modified UTF-8 the class file format uses
+  void utf(String s) {
+    Bytes b = new Bytes();
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c != 0 && c < 0x80)
+	b.u1(c);
+      else if (c < 0x800) {
+	b.u1(0xc0 | c >> 6);
+	b.u1(0x80 | c & 0x3f);
+      } else {
+	b.u1(0xe0 | c >> 12);
+	b.u1(0x80 | c >> 6 & 0x3f);
+	b.u1(0x80 | c & 0x3f);
+      }
+    }
+    if (b.length > 0xffff)
+      throw new Error("Jvm: constant too long");
+    u2(b.length);
+    append(b);
+  }
+
+  void append(Bytes b) {
+    for (int i = 0; i < b.length; i++)
+      u1(b.buf[i]);
+  }
+
+  byte[] toByteArray() {
+    byte[] b = new byte[length];
+    System.arraycopy(buf, 0, b, 0, length);
+    return b;
+  }
+}
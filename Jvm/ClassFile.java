@@ -0,0 +1,159 @@
+package Jvm;
+import java.util.Hashtable;
+import java.util.Vector;
+
+// A class being built.  Each constant goes into the pool once; methods
+// stay as Code until the class is written out.  Version 49 class files
+// are checked by the type-inferring verifier, so no stack maps are needed.
+final class ClassFile implements Opcodes {
+  String name;
+  private Bytes pool = new Bytes();
+  private int poolCount = 1;
+  private Hashtable<String,Integer> poolIndex = new Hashtable<String,Integer>();
+  private Bytes fields = new Bytes();
+  private int fieldCount;
+  private Hashtable<String,String> fieldNames = new Hashtable<String,String>();
+  private Vector<Code> methods = new Vector<Code>();
+
+  // a public class with a public no-argument constructor
+  ClassFile(String n) {
+    name = n;
+    Code init = method(ACC_PUBLIC, "<init>", "()V", 1);
+    init.local(ALOAD, 0);
+    init.invoke(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+    init.op(RETURN, 0);
+  }
+
+  // the key tells the kinds of constant apart
+  private int entered(String key) {
+    Integer i = poolIndex.get(key);
+    return i == null ? 0 : i.intValue();
+  }
+
+  private int enter(String key, int slots) {
+    int i = poolCount;
+    if (i + slots > 0xffff)
+      throw new Error("Jvm: constant pool full");
+    poolIndex.put(key, Integer.valueOf(i));
+    poolCount += slots;
+    return i;
+  }
+
+  int utf8(String s) {
+    int i = entered("U" + s);
+    if (i != 0)
+      return i;
+    pool.u1(1);
+    pool.utf(s);
+    return enter("U" + s, 1);
+  }
+
+  int integer(int v) {
+    int i = entered("I" + v);
+    if (i != 0)
+      return i;
+    pool.u1(3);
+    pool.u4(v);
+    return enter("I" + v, 1);
+  }
+
+  // a class by internal name (java/lang/String), or an array by descriptor
+  int classRef(String c) {
+    int u = utf8(c);
+    int i = entered("C" + c);
+    if (i != 0)
+      return i;
+    pool.u1(7);
+    pool.u2(u);
+    return enter("C" + c, 1);
+  }
+
+  int string(String s) {
+    int u = utf8(s);
+    int i = entered("S" + s);
+    if (i != 0)
+      return i;
+    pool.u1(8);
+    pool.u2(u);
+    return enter("S" + s, 1);
+  }
+
+  private int nameAndType(String n, String desc) {
+    int un = utf8(n), ud = utf8(desc);
+    String key = "N" + n + " " + desc;
+    int i = entered(key);
+    if (i != 0)
+      return i;
+    pool.u1(12);
+    pool.u2(un);
+    pool.u2(ud);
+    return enter(key, 1);
+  }
+
+  private int member(int tag, String owner, String n, String desc) {
+    int c = classRef(owner), nt = nameAndType(n, desc);
+    String key = tag + owner + "." + n + " " + desc;
+    int i = entered(key);
+    if (i != 0)
+      return i;
+    pool.u1(tag);
+    pool.u2(c);
+    pool.u2(nt);
+    return enter(key, 1);
+  }
+
+  int fieldRef(String owner, String n, String desc) {
+    return member(9, owner, n, desc);
+  }
+
+  int methodRef(String owner, String n, String desc) {
+    return member(10, owner, n, desc);
+  }
+
+  // add a public field, and return its name, which is n unless that was
+  // taken already
+  String field(String n, String desc) {
+    String unique = n;
+    for (int k = 1; fieldNames.get(unique) != null; k++)
+      unique = n + "$" + k;
+    fieldNames.put(unique, desc);
+    fields.u2(ACC_PUBLIC);
+    fields.u2(utf8(unique));
+    fields.u2(utf8(desc));
+    fields.u2(0);
+    fieldCount++;
+    return unique;
+  }
+
+  // locals is the number of local slots taken by the parameters
+  Code method(int access, String n, String desc, int locals) {
+    Code code = new Code(this, access, n, desc, locals);
+    methods.addElement(code);
+    return code;
+  }
+
+  byte[] toByteArray() {
+    //the methods first, since they can still add constants
+    int thisClass = classRef(name);
+    int superClass = classRef("java/lang/Object");
+    Bytes m = new Bytes();
+    for (int i = 0; i < methods.size(); i++)
+      methods.elementAt(i).write(m);
+    Bytes out = new Bytes();
+    out.u4(0xcafebabe);
+    out.u2(0);				// minor version
+    out.u2(49);				// major version
+    out.u2(poolCount);
+    out.append(pool);
+    out.u2(ACC_PUBLIC | ACC_SUPER);
+    out.u2(thisClass);
+    out.u2(superClass);
+    out.u2(0);				// interfaces
+    out.u2(fieldCount);
+    out.append(fields);
+    out.u2(methods.size());
+    out.append(m);
+    out.u2(0);				// attributes
+    return out.toByteArray();
+  }
+}
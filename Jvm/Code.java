@@ -0,0 +1,177 @@
+package Jvm;
+import java.util.Vector;
+
+// The instructions of one method.  The stack depth is followed as each
+// instruction is added, which gives max_stack; a branch records the depth
+// at its target, so the depth is right again after a goto.
+final class Code implements Opcodes {
+  ClassFile cls;
+  int access;
+  String name, descriptor;
+  Bytes bytes = new Bytes();
+  int stack, maxStack, maxLocals;
+  private Vector<Integer> branches = new Vector<Integer>(); // offsets of branch instructions
+  private Vector<Label> targets = new Vector<Label>();	// and their Labels
+
+  Code(ClassFile c, int a, String n, String d, int locals) {
+    cls = c;
+    access = a;
+    name = n;
+    descriptor = d;
+    maxLocals = locals;
+  }
+
+  int newLocal() {
+    return maxLocals++;
+  }
+
+  private void adjust(int delta) {
+    stack += delta;
+    if (stack > maxStack)
+      maxStack = stack;
+  }
+
+  void op(int opcode, int delta) {
+    bytes.u1(opcode);
+    adjust(delta);
+  }
+
+  void op1(int opcode, int operand, int delta) {
+    bytes.u1(opcode);
+    bytes.u1(operand);
+    adjust(delta);
+  }
+
+  void op2(int opcode, int operand, int delta) {
+    bytes.u1(opcode);
+    bytes.u2(operand);
+    adjust(delta);
+  }
+
+  void iconst(int v) {
+    if (v >= -1 && v <= 5)
+      op(ICONST_0 + v, 1);
+    else if (v >= -128 && v < 128)
+      op1(BIPUSH, v, 1);
+    else if (v >= -32768 && v < 32768)
+      op2(SIPUSH, v, 1);
+    else
+      ldc(cls.integer(v));
+  }
+
+  void ldc(String s) {
+    ldc(cls.string(s));
+  }
+
+  private void ldc(int index) {
+    if (index < 256)
+      op1(LDC, index, 1);
+    else
+      op2(LDC_W, index, 1);
+  }
+
+  // ILOAD, ALOAD, ISTORE or ASTORE of local n
+  void local(int opcode, int n) {
+    int delta = opcode == ILOAD || opcode == ALOAD ? 1 : -1;
+    if (n <= 3) {
+      int base;
+      switch (opcode) {
+      case ILOAD:  base = ILOAD_0; break;
+      case ALOAD:  base = ALOAD_0; break;
+      case ISTORE: base = ISTORE_0; break;
+      default:     base = ASTORE_0; break;
+      }
+      op(base + n, delta);
+    } else if (n < 256)
+      op1(opcode, n, delta);
+    else {
+      bytes.u1(WIDE);
+      op2(opcode, n, delta);
+    }
+  }
+
+  void iinc(int n, int by) {
+    if (n < 256 && by >= -128 && by < 128) {
+      bytes.u1(IINC);
+      bytes.u1(n);
+      bytes.u1(by);
+    } else {
+      bytes.u1(WIDE);
+      bytes.u1(IINC);
+      bytes.u2(n);
+      bytes.u2(by);
+    }
+  }
+
+  void type(int opcode, String c) {
+    op2(opcode, cls.classRef(c), opcode == NEW ? 1 : 0);
+  }
+
+  // every value Tiger has takes one slot
+  void field(int opcode, String owner, String n, String desc) {
+    op2(opcode, cls.fieldRef(owner, n, desc), opcode == GETFIELD ? 0 : -2);
+  }
+
+  void invoke(int opcode, String owner, String n, String desc) {
+    int delta = opcode == INVOKESTATIC ? 0 : -1;
+    int i = 1;
+    for (; desc.charAt(i) != ')'; i++) {
+      delta--;
+      while (desc.charAt(i) == '[')
+	i++;
+      if (desc.charAt(i) == 'L')
+	i = desc.indexOf(';', i);
+    }
+    if (desc.charAt(i + 1) != 'V')
+      delta++;
+    op2(opcode, cls.methodRef(owner, n, desc), delta);
+  }
+
+  void jump(int opcode, Label target) {
+    branches.addElement(Integer.valueOf(bytes.length));
+    targets.addElement(target);
+    int delta;
+    if (opcode == GOTO)
+      delta = 0;
+    else if (opcode >= IF_ICMPEQ && opcode <= IF_ACMPNE)
+      delta = -2;
+    else
+      delta = -1;
+    op2(opcode, 0, delta);
+    if (target.stack < 0)
+      target.stack = stack;
+  }
+
+  void mark(Label l) {
+    l.pos = bytes.length;
+    if (l.stack >= 0)
+      stack = l.stack;
+    else
+      l.stack = stack;
+  }
+
+  // the method_info, with the branch offsets filled in
+  void write(Bytes out) {
+    for (int i = 0; i < branches.size(); i++) {
+      int at = branches.elementAt(i).intValue();
+      int offset = targets.elementAt(i).pos - at;
+      if (offset < -32768 || offset > 32767)
+	throw new Error("Jvm: method " + name + " too large");
+      bytes.put2(at + 1, offset);
+    }
+    if (bytes.length >= 65536)
+      throw new Error("Jvm: method " + name + " too large");
+    out.u2(access);
+    out.u2(cls.utf8(name));
+    out.u2(cls.utf8(descriptor));
+    out.u2(1);
+    out.u2(cls.utf8("Code"));
+    out.u4(12 + bytes.length);
+    out.u2(maxStack);
+    out.u2(maxLocals);
+    out.u4(bytes.length);
+    out.append(bytes);
+    out.u2(0);				// exception table
+    out.u2(0);				// attributes
+  }
+}
@@ -0,0 +1,710 @@
+package Jvm;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+import Absyn.*;
+
+// Compiles a checked tree to class files: the program is class Tiger, with
+// a static method per function and tigermain for the main program.  Each
+// record type is a class with a field per record field, and each frame
+// object a class with a field per escaping variable.
+class Compiler implements Opcodes {
+  static final String MAIN = "Tiger";
+  static final String LIBRARY = "Jvm/Library";
+  static final String STRING = "Ljava/lang/String;";
+
+  ClassFile main = new ClassFile(MAIN);
+  Vector<ClassFile> files = new Vector<ClassFile>(); // every class made, main first
+  Hashtable<Types.RECORD,ClassFile> records = new Hashtable<Types.RECORD,ClassFile>();
+  Hashtable<String,Function> methods = new Hashtable<String,Function>(); // method names taken
+  Symbol.Table env = new Symbol.Table(); // env maps Symbol to Variable, Function or Builtin
+  Function fun;				// the method being compiled
+  Code code;				// and its code
+  Label breakLabel;			// where break goes, null outside loops
+  int breakStack;			// stack depth there
+
+  static final String[] library = {
+    "print", "(Ljava/lang/String;)V",
+    "flush", "()V",
+    "getchar", "()Ljava/lang/String;",
+    "ord", "(Ljava/lang/String;)I",
+    "chr", "(I)Ljava/lang/String;",
+    "size", "(Ljava/lang/String;)I",
+    "substring", "(Ljava/lang/String;II)Ljava/lang/String;",
+    "concat", "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;",
+    "not", "(I)I",
+    "exit", "(I)V"
+  };
+
+  Compiler() {
+    files.addElement(main);
+    for (int i = 0; i < library.length; i += 2)
+      env.put(Parse.Source.symbol(library[i]),
+	      new Builtin(library[i], library[i + 1]));
+  }
+
+  // maps class name to class file bytes
+  Hashtable<String,byte[]> compileProg(Exp e) {
+    Function f = new Function("tigermain");
+    f.descriptor = "()V";
+    methods.put(f.name, f);
+    if (escapes(e))
+      f.frame = newClass(MAIN + "$" + f.name + "$Frame");
+    fun = f;
+    code = f.code = main.method(ACC_PUBLIC | ACC_STATIC, f.name, f.descriptor, 0);
+    if (f.frame != null)
+      newFrame(f);
+    genStm(e);
+    code.op(RETURN, 0);
+    Hashtable<String,byte[]> classes = new Hashtable<String,byte[]>();
+    for (Enumeration<ClassFile> c = files.elements(); c.hasMoreElements(); ) {
+      ClassFile file = c.nextElement();
+      classes.put(file.name, file.toByteArray());
+    }
+    return classes;
+  }
+
+  ClassFile newClass(String name) {
+    ClassFile file = new ClassFile(name);
+    files.addElement(file);
+    return file;
+  }
+
+  // types
+
+  static boolean isInt(Types.Type t) {
+    return t != null && t.actual() instanceof Types.INT;
+  }
+
+  static boolean isVoid(Types.Type t) {
+    return t == null || t.actual() instanceof Types.VOID;
+  }
+
+  String descriptor(Types.Type t) {
+    t = t.actual();
+    if (t instanceof Types.INT)
+      return "I";
+    if (t instanceof Types.STRING)
+      return STRING;
+    if (t instanceof Types.VOID)
+      return "V";
+    if (t instanceof Types.RECORD)
+      return "L" + recordClass((Types.RECORD)t).name + ";";
+    if (t instanceof Types.ARRAY)
+      return "[" + descriptor(((Types.ARRAY)t).element);
+    return "Ljava/lang/Object;";
+  }
+
+  // the operand of NEW or ANEWARRAY for t
+  String className(Types.Type t) {
+    t = t.actual();
+    if (t instanceof Types.STRING)
+      return "java/lang/String";
+    if (t instanceof Types.RECORD)
+      return recordClass((Types.RECORD)t).name;
+    return descriptor(t);
+  }
+
+  // made the first time the record type is seen; it is entered before its
+  // fields, since their types can lead back to it
+  ClassFile recordClass(Types.RECORD r) {
+    ClassFile file = records.get(r);
+    if (file != null)
+      return file;
+    file = newClass(MAIN + "$R" + (records.size() + 1));
+    records.put(r, file);
+    for (Types.RECORD f = r; f != null; f = f.tail)
+      file.field(f.fieldName.toString(), descriptor(f.fieldType));
+    return file;
+  }
+
+  // a later field with the same name as an earlier one can never be
+  // selected, so only the first keeps its own name
+  static String fieldName(Types.RECORD r, Symbol.Symbol name) {
+    for (; r != null; r = r.tail)
+      if (r.fieldName == name)
+	return name.toString();
+    throw new Error("Compiler.fieldName");
+  }
+
+  static Types.Type fieldType(Types.RECORD r, Symbol.Symbol name) {
+    for (; r != null; r = r.tail)
+      if (r.fieldName == name)
+	return r.fieldType;
+    throw new Error("Compiler.fieldType");
+  }
+
+  Types.Type varType(Var v) {
+    if (v instanceof SimpleVar)
+      return ((Variable)env.get(((SimpleVar)v).name)).ty;
+    if (v instanceof FieldVar)
+      return fieldType((Types.RECORD)varType(((FieldVar)v).var).actual(),
+		       ((FieldVar)v).field);
+    if (v instanceof SubscriptVar)
+      return ((Types.ARRAY)varType(((SubscriptVar)v).var).actual()).element;
+    throw new Error("Compiler.varType");
+  }
+
+  // frames
+
+  // whether anything declared in this function's own body escapes; the
+  // bodies of nested functions are theirs
+  static boolean escapes(Exp e) {
+    if (e == null)
+      return false;
+    if (e instanceof OpExp)
+      return escapes(((OpExp)e).left) || escapes(((OpExp)e).right);
+    if (e instanceof VarExp)
+      return escapes(((VarExp)e).var);
+    if (e instanceof CallExp) {
+      for (ExpList a = ((CallExp)e).args; a != null; a = a.tail)
+	if (escapes(a.head))
+	  return true;
+      return false;
+    }
+    if (e instanceof RecordExp) {
+      for (FieldExpList f = ((RecordExp)e).fields; f != null; f = f.tail)
+	if (escapes(f.init))
+	  return true;
+      return false;
+    }
+    if (e instanceof SeqExp) {
+      for (ExpList l = ((SeqExp)e).list; l != null; l = l.tail)
+	if (escapes(l.head))
+	  return true;
+      return false;
+    }
+    if (e instanceof AssignExp)
+      return escapes(((AssignExp)e).var) || escapes(((AssignExp)e).exp);
+    if (e instanceof IfExp)
+      return escapes(((IfExp)e).test) || escapes(((IfExp)e).thenclause)
+	|| escapes(((IfExp)e).elseclause);
+    if (e instanceof WhileExp)
+      return escapes(((WhileExp)e).test) || escapes(((WhileExp)e).body);
+    if (e instanceof ForExp) {
+      ForExp f = (ForExp)e;
+      return f.var.escape || escapes(f.var.init) || escapes(f.hi)
+	|| escapes(f.body);
+    }
+    if (e instanceof LetExp) {
+      for (DecList d = ((LetExp)e).decs; d != null; d = d.tail)
+	if (d.head instanceof VarDec &&
+	    (((VarDec)d.head).escape || escapes(((VarDec)d.head).init)))
+	  return true;
+      return escapes(((LetExp)e).body);
+    }
+    if (e instanceof ArrayExp)
+      return escapes(((ArrayExp)e).size) || escapes(((ArrayExp)e).init);
+    return false;
+  }
+
+  static boolean escapes(Var v) {
+    if (v instanceof FieldVar)
+      return escapes(((FieldVar)v).var);
+    if (v instanceof SubscriptVar)
+      return escapes(((SubscriptVar)v).var)
+	|| escapes(((SubscriptVar)v).index);
+    return false;
+  }
+
+  // allocate f's frame object at entry, and link it to the static link
+  void newFrame(Function f) {
+    code.type(NEW, f.frame.name);
+    code.op(DUP, 1);
+    code.invoke(INVOKESPECIAL, f.frame.name, "<init>", "()V");
+    f.frameLocal = code.newLocal();
+    code.local(ASTORE, f.frameLocal);
+    if (f.link != null) {
+      code.local(ALOAD, f.frameLocal);
+      code.local(ALOAD, 0);
+      code.field(PUTFIELD, f.frame.name, "$link", "L" + f.link.frame.name + ";");
+    }
+  }
+
+  // push the frame object of target, which is fun or encloses it
+  void genFrame(Function target) {
+    if (target == fun) {
+      code.local(ALOAD, fun.frameLocal);
+      return;
+    }
+    code.local(ALOAD, 0);
+    for (Function f = fun.link; f != target; f = f.link)
+      code.field(GETFIELD, f.frame.name, "$link", "L" + f.link.frame.name + ";");
+  }
+
+  // expressions: gen leaves the value on the stack, if it has one
+
+  void genStm(Exp e) {
+    gen(e);
+    if (!isVoid(e.type))
+      code.op(POP, -1);
+  }
+
+  void gen(Exp e) {
+    if (e instanceof IntExp)
+      code.iconst(((IntExp)e).value);
+    else if (e instanceof StringExp)
+      code.ldc(((StringExp)e).value);
+    else if (e instanceof NilExp)
+      code.op(ACONST_NULL, 1);
+    else if (e instanceof VarExp)
+      genVar(((VarExp)e).var);
+    else if (e instanceof OpExp)
+      gen((OpExp)e);
+    else if (e instanceof CallExp)
+      gen((CallExp)e);
+    else if (e instanceof RecordExp)
+      gen((RecordExp)e);
+    else if (e instanceof ArrayExp)
+      gen((ArrayExp)e);
+    else if (e instanceof SeqExp)
+      gen((SeqExp)e);
+    else if (e instanceof AssignExp)
+      gen((AssignExp)e);
+    else if (e instanceof IfExp)
+      gen((IfExp)e);
+    else if (e instanceof WhileExp)
+      gen((WhileExp)e);
+    else if (e instanceof ForExp)
+      gen((ForExp)e);
+    else if (e instanceof BreakExp)
+      gen((BreakExp)e);
+    else if (e instanceof LetExp)
+      gen((LetExp)e);
+    else throw new Error("Compiler.gen");
+  }
+
+  // variables
+
+  void genVar(Var v) {
+    if (v instanceof SimpleVar) {
+      Variable var = (Variable)env.get(((SimpleVar)v).name);
+      if (var.escape) {
+	genFrame(var.home);
+	code.field(GETFIELD, var.home.frame.name, var.field, descriptor(var.ty));
+      } else
+	code.local(isInt(var.ty) ? ILOAD : ALOAD, var.local);
+    }
+    else if (v instanceof FieldVar) {
+      FieldVar f = (FieldVar)v;
+      Types.RECORD r = (Types.RECORD)varType(f.var).actual();
+      genVar(f.var);
+      code.field(GETFIELD, recordClass(r).name, fieldName(r, f.field),
+		 descriptor(fieldType(r, f.field)));
+    }
+    else if (v instanceof SubscriptVar) {
+      SubscriptVar s = (SubscriptVar)v;
+      genVar(s.var);
+      gen(s.index);
+      code.op(isInt(varType(s)) ? IALOAD : AALOAD, -1);
+    }
+    else throw new Error("Compiler.genVar");
+  }
+
+  // storing to a variable is split around the value, since a field needs
+  // the frame object under it
+  void startStore(Variable var) {
+    if (var.escape)
+      genFrame(var.home);
+  }
+
+  void finishStore(Variable var) {
+    if (var.escape)
+      code.field(PUTFIELD, var.home.frame.name, var.field, descriptor(var.ty));
+    else
+      code.local(isInt(var.ty) ? ISTORE : ASTORE, var.local);
+  }
+
+  void gen(AssignExp e) {
+    if (e.var instanceof SimpleVar) {
+      Variable var = (Variable)env.get(((SimpleVar)e.var).name);
+      startStore(var);
+      gen(e.exp);
+      finishStore(var);
+    }
+    else if (e.var instanceof FieldVar) {
+      FieldVar f = (FieldVar)e.var;
+      Types.RECORD r = (Types.RECORD)varType(f.var).actual();
+      genVar(f.var);
+      gen(e.exp);
+      code.field(PUTFIELD, recordClass(r).name, fieldName(r, f.field),
+		 descriptor(fieldType(r, f.field)));
+    }
+    else if (e.var instanceof SubscriptVar) {
+      SubscriptVar s = (SubscriptVar)e.var;
+      genVar(s.var);
+      gen(s.index);
+      gen(e.exp);
+      code.op(isInt(varType(s)) ? IASTORE : AASTORE, -3);
+    }
+    else throw new Error("Compiler.gen.AssignExp");
+  }
+
+  // operators and conditions
+
+  void gen(OpExp e) {
+    switch (e.oper) {
+    case OpExp.PLUS:  genArith(e, IADD); return;
+    case OpExp.MINUS: genArith(e, ISUB); return;
+    case OpExp.MUL:   genArith(e, IMUL); return;
+    case OpExp.DIV:   genArith(e, IDIV); return;
+    }
+    //a comparison as a value: 1 if it holds, else 0
+    Label yes = new Label(), done = new Label();
+    cond(e, true, yes);
+    code.iconst(0);
+    code.jump(GOTO, done);
+    code.mark(yes);
+    code.iconst(1);
+    code.mark(done);
+  }
+
+  void genArith(OpExp e, int opcode) {
+    gen(e.left);
+    gen(e.right);
+    code.op(opcode, -1);
+  }
+
+  static int negate(int oper) {
+    switch (oper) {
+    case OpExp.EQ: return OpExp.NE;
+    case OpExp.NE: return OpExp.EQ;
+    case OpExp.LT: return OpExp.GE;
+    case OpExp.GE: return OpExp.LT;
+    case OpExp.GT: return OpExp.LE;
+    case OpExp.LE: return OpExp.GT;
+    default: throw new Error("Compiler.negate");
+    }
+  }
+
+  // IFEQ..IFLE and IF_ICMPEQ..IF_ICMPLE are in the same order
+  static int compare(int oper) {
+    switch (oper) {
+    case OpExp.EQ: return 0;
+    case OpExp.NE: return 1;
+    case OpExp.LT: return 2;
+    case OpExp.GE: return 3;
+    case OpExp.GT: return 4;
+    case OpExp.LE: return 5;
+    default: throw new Error("Compiler.compare");
+    }
+  }
+
+  static boolean isConst(Exp e, int value) {
+    return e instanceof IntExp && ((IntExp)e).value == value;
+  }
+
+  // branch to target if e is nonzero and jumpIf is true, or e is zero and
+  // jumpIf is false; otherwise fall through.  & and | come from the parser
+  // as ifs, so those become plain branches too.
+  void cond(Exp e, boolean jumpIf, Label target) {
+    if (e instanceof OpExp && ((OpExp)e).oper >= OpExp.EQ) {
+      OpExp o = (OpExp)e;
+      int oper = jumpIf ? o.oper : negate(o.oper);
+      gen(o.left);
+      gen(o.right);
+      if (isInt(o.left.type))
+	code.jump(IF_ICMPEQ + compare(oper), target);
+      else if (o.left.type.actual() instanceof Types.STRING) {
+	if (oper == OpExp.EQ || oper == OpExp.NE) {
+	  code.invoke(INVOKEVIRTUAL, "java/lang/String", "equals",
+		      "(Ljava/lang/Object;)Z");
+	  code.jump(oper == OpExp.EQ ? IFNE : IFEQ, target);
+	} else {
+	  code.invoke(INVOKEVIRTUAL, "java/lang/String", "compareTo",
+		      "(Ljava/lang/String;)I");
+	  code.jump(IFEQ + compare(oper), target);
+	}
+      }
+      else
+	code.jump(oper == OpExp.EQ ? IF_ACMPEQ : IF_ACMPNE, target);
+    }
+    else if (e instanceof IntExp) {
+      if ((((IntExp)e).value != 0) == jumpIf)
+	code.jump(GOTO, target);
+    }
+    else if (e instanceof IfExp && isConst(((IfExp)e).elseclause, 0)) {
+      //a & b
+      IfExp i = (IfExp)e;
+      Label skip = new Label();
+      cond(i.test, false, jumpIf ? skip : target);
+      cond(i.thenclause, jumpIf, target);
+      code.mark(skip);
+    }
+    else if (e instanceof IfExp && isConst(((IfExp)e).thenclause, 1)) {
+      //a | b
+      IfExp i = (IfExp)e;
+      Label skip = new Label();
+      cond(i.test, true, jumpIf ? target : skip);
+      cond(i.elseclause, jumpIf, target);
+      code.mark(skip);
+    }
+    else if (e instanceof IfExp && ((IfExp)e).elseclause != null) {
+      IfExp i = (IfExp)e;
+      Label els = new Label(), done = new Label();
+      cond(i.test, false, els);
+      cond(i.thenclause, jumpIf, target);
+      code.jump(GOTO, done);
+      code.mark(els);
+      cond(i.elseclause, jumpIf, target);
+      code.mark(done);
+    }
+    else if (e instanceof CallExp && env.get(((CallExp)e).func) instanceof Builtin
+	     && ((CallExp)e).func.toString().equals("not"))
+      cond(((CallExp)e).args.head, !jumpIf, target);
+    else {
+      gen(e);
+      code.jump(jumpIf ? IFNE : IFEQ, target);
+    }
+  }
+
+  // calls
+
+  void gen(CallExp e) {
+    Object entry = env.get(e.func);
+    if (entry instanceof Builtin) {
+      for (ExpList a = e.args; a != null; a = a.tail)
+	gen(a.head);
+      Builtin b = (Builtin)entry;
+      code.invoke(INVOKESTATIC, LIBRARY, b.name, b.descriptor);
+      return;
+    }
+    Function f = (Function)entry;
+    if (f.link != null)
+      genFrame(f.link);
+    for (ExpList a = e.args; a != null; a = a.tail)
+      gen(a.head);
+    code.invoke(INVOKESTATIC, MAIN, f.name, f.descriptor);
+  }
+
+  // records and arrays
+
+  void gen(RecordExp e) {
+    Types.RECORD r = (Types.RECORD)e.type.actual();
+    String c = recordClass(r).name;
+    code.type(NEW, c);
+    code.op(DUP, 1);
+    code.invoke(INVOKESPECIAL, c, "<init>", "()V");
+    for (FieldExpList f = e.fields; f != null; f = f.tail) {
+      code.op(DUP, 1);
+      gen(f.init);
+      code.field(PUTFIELD, c, fieldName(r, f.name),
+		 descriptor(fieldType(r, f.name)));
+    }
+  }
+
+  void gen(ArrayExp e) {
+    Types.Type element = ((Types.ARRAY)e.type.actual()).element;
+    gen(e.size);
+    if (isInt(element)) {
+      code.op1(NEWARRAY, T_INT, 0);
+      code.op(DUP, 1);
+      gen(e.init);
+      code.invoke(INVOKESTATIC, "java/util/Arrays", "fill", "([II)V");
+    } else {
+      code.type(ANEWARRAY, className(element));
+      code.op(DUP, 1);
+      gen(e.init);
+      code.invoke(INVOKESTATIC, "java/util/Arrays", "fill",
+		  "([Ljava/lang/Object;Ljava/lang/Object;)V");
+    }
+  }
+
+  // sequences and control
+
+  void gen(SeqExp e) {
+    for (ExpList l = e.list; l != null; l = l.tail) {
+      if (l.tail == null)
+	gen(l.head);
+      else
+	genStm(l.head);
+    }
+  }
+
+  void gen(IfExp e) {
+    Label els = new Label(), done = new Label();
+    if (e.elseclause == null) {
+      cond(e.test, false, done);
+      genStm(e.thenclause);
+      code.mark(done);
+      return;
+    }
+    cond(e.test, false, els);
+    gen(e.thenclause);
+    code.jump(GOTO, done);
+    code.mark(els);
+    gen(e.elseclause);
+    code.mark(done);
+  }
+
+  void gen(WhileExp e) {
+    Label outerBreak = breakLabel;
+    int outerStack = breakStack;
+    Label test = new Label();
+    breakLabel = new Label();
+    breakStack = code.stack;
+    code.mark(test);
+    cond(e.test, false, breakLabel);
+    genStm(e.body);
+    code.jump(GOTO, test);
+    code.mark(breakLabel);
+    breakLabel = outerBreak;
+    breakStack = outerStack;
+  }
+
+  // tests against the limit before the increment, so hi can be maxint
+  void gen(ForExp e) {
+    Label outerBreak = breakLabel;
+    int outerStack = breakStack;
+    env.beginScope();
+    Variable i = newVariable(e.var.name, e.var.init.type, e.var.escape);
+    startStore(i);
+    gen(e.var.init);
+    finishStore(i);
+    int limit = code.newLocal();
+    gen(e.hi);
+    code.local(ISTORE, limit);
+    env.put(e.var.name, i);
+    Label loop = new Label();
+    breakLabel = new Label();
+    breakStack = code.stack;
+    genVar(new SimpleVar(e.pos, e.var.name));
+    code.local(ILOAD, limit);
+    code.jump(IF_ICMPGT, breakLabel);
+    code.mark(loop);
+    genStm(e.body);
+    genVar(new SimpleVar(e.pos, e.var.name));
+    code.local(ILOAD, limit);
+    code.jump(IF_ICMPGE, breakLabel);
+    if (i.escape) {
+      startStore(i);
+      genVar(new SimpleVar(e.pos, e.var.name));
+      code.iconst(1);
+      code.op(IADD, -1);
+      finishStore(i);
+    } else
+      code.iinc(i.local, 1);
+    code.jump(GOTO, loop);
+    code.mark(breakLabel);
+    env.endScope();
+    breakLabel = outerBreak;
+    breakStack = outerStack;
+  }
+
+  // anything an enclosing expression left on the stack is dropped, so
+  // the stack is the same at the loop's end however it is reached
+  void gen(BreakExp e) {
+    for (int n = code.stack; n > breakStack; n--)
+      code.op(POP, -1);
+    code.jump(GOTO, breakLabel);
+  }
+
+  void gen(LetExp e) {
+    env.beginScope();
+    for (DecList d = e.decs; d != null; d = d.tail)
+      genDec(d.head);
+    gen(e.body);
+    env.endScope();
+  }
+
+  // declarations
+
+  Variable newVariable(Symbol.Symbol name, Types.Type ty, boolean escape) {
+    Variable var = new Variable(fun, ty, escape);
+    if (escape)
+      var.field = fun.frame.field(name.toString(), descriptor(ty));
+    else
+      var.local = code.newLocal();
+    return var;
+  }
+
+  void genDec(Dec d) {
+    if (d instanceof VarDec) {
+      VarDec v = (VarDec)d;
+      Variable var = newVariable(v.name, v.entry.ty, v.escape);
+      startStore(var);
+      gen(v.init);
+      finishStore(var);
+      env.put(v.name, var);
+    }
+    else if (d instanceof FunctionDec) {
+      //all of the headers first, since the bodies can call each other
+      for (FunctionDec f = (FunctionDec)d; f != null; f = f.next)
+	env.put(f.name, newFunction(f));
+      for (FunctionDec f = (FunctionDec)d; f != null; f = f.next)
+	genFunction(f, (Function)env.get(f.name));
+    }
+    else if (d instanceof TypeDec)
+      ;
+    else throw new Error("Compiler.genDec");
+  }
+
+  Function newFunction(FunctionDec d) {
+    String name = d.name.toString();
+    for (int k = 1; methods.get(name) != null; k++)
+      name = d.name + "$" + k;
+    Function f = new Function(name);
+    methods.put(name, f);
+    f.result = d.entry.result;
+    f.link = fun.frame != null ? fun : fun.link;
+    boolean escape = escapes(d.body);
+    for (FieldList p = d.params; p != null; p = p.tail)
+      escape |= p.escape;
+    if (escape) {
+      f.frame = newClass(MAIN + "$" + name + "$Frame");
+      if (f.link != null)
+	f.frame.field("$link", "L" + f.link.frame.name + ";");
+    }
+    StringBuffer desc = new StringBuffer("(");
+    if (f.link != null)
+      desc.append("L" + f.link.frame.name + ";");
+    for (Types.RECORD t = d.entry.formals; t != null; t = t.tail)
+      desc.append(descriptor(t.fieldType));
+    desc.append(")" + descriptor(f.result));
+    f.descriptor = desc.toString();
+    return f;
+  }
+
+  void genFunction(FunctionDec d, Function f) {
+    Function outer = fun;
+    Code outerCode = code;
+    Label outerBreak = breakLabel;
+    int outerStack = breakStack;
+    int local = f.link != null ? 1 : 0;
+    int params = local;
+    for (FieldList p = d.params; p != null; p = p.tail)
+      params++;
+    fun = f;
+    code = f.code = main.method(ACC_PUBLIC | ACC_STATIC, f.name, f.descriptor,
+				params);
+    breakLabel = null;
+    env.beginScope();
+    if (f.frame != null)
+      newFrame(f);
+    Types.RECORD t = d.entry.formals;
+    for (FieldList p = d.params; p != null; p = p.tail, t = t.tail, local++) {
+      Variable var = new Variable(f, t.fieldType, p.escape);
+      int load = isInt(t.fieldType) ? ILOAD : ALOAD;
+      if (p.escape) {
+	var.field = f.frame.field(p.name.toString(), descriptor(t.fieldType));
+	startStore(var);
+	code.local(load, local);
+	finishStore(var);
+      } else
+	var.local = local;
+      env.put(p.name, var);
+    }
+    gen(d.body);
+    if (isVoid(f.result)) {
+      if (!isVoid(d.body.type))
+	code.op(POP, -1);
+      code.op(RETURN, 0);
+    } else
+      code.op(isInt(f.result) ? IRETURN : ARETURN, -1);
+    env.endScope();
+    fun = outer;
+    code = outerCode;
+    breakLabel = outerBreak;
+    breakStack = outerStack;
+  }
+}
@@ -0,0 +1,17 @@
+package Jvm;
+
+// A Tiger function, or the main program, as a static method.  Only a
+// function with escaping variables gets a frame object; the static link
+// passed in is the frame of the nearest enclosing function that has one.
+final class Function {
+  String name, descriptor;
+  Types.Type result;
+  Function link;		// whose frame is the static link, or null
+  ClassFile frame;		// class of our frame object, or null
+  int frameLocal;		// local holding it
+  Code code;
+
+  Function(String n) {
+    name = n;
+  }
+}
@@ -0,0 +1,85 @@
+package Jvm;
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Enumeration;
+import java.util.Hashtable;
+
+// Runs a Tiger program as JVM bytecode.  The classes are made and loaded
+// once, so a program can be run again without compiling or loading it.
+public class Jvm {
+  public Writer out;
+  public Reader in;
+  Hashtable<String,byte[]> classes;	// maps class name to bytes
+  java.lang.reflect.Method main;
+
+  // prog must have been through Semant without errors
+  public Jvm(Absyn.Exp prog) {
+    this(prog, new BufferedWriter(new OutputStreamWriter(System.out)),
+	 new BufferedReader(new InputStreamReader(System.in)));
+  }
+
+  public Jvm(Absyn.Exp prog, Writer o, Reader i) {
+    out = o;
+    in = i;
+    classes = new Compiler().compileProg(prog);
+    try {
+      Class<?> c = new Loader(classes).loadClass(Compiler.MAIN);
+      main = c.getMethod("tigermain");
+    } catch (ClassNotFoundException e) {
+      throw new Error(e.toString());
+    } catch (NoSuchMethodException e) {
+      throw new Error(e.toString());
+    }
+  }
+
+  // write each class to dir, for javap
+  public void dump(File dir) throws IOException {
+    for (Enumeration<String> e = classes.keys(); e.hasMoreElements(); ) {
+      String name = e.nextElement();
+      OutputStream s = new FileOutputStream(new File(dir, name + ".class"));
+      s.write(classes.get(name));
+      s.close();
+    }
+  }
+
+  // run the program, and return its exit status
+  public int run() {
+    Library.out = out;
+    Library.in = in;
+    try {
+      main.invoke(null, new Object[0]);
+      return 0;
+    } catch (InvocationTargetException e) {
+      return failed(e.getTargetException());
+    } catch (IllegalAccessException e) {
+      throw new Error(e.toString());
+    } finally {
+      Library.flush();
+    }
+  }
+
+  int failed(Throwable t) {
+    if (t instanceof Exit)
+      return ((Exit)t).status;
+    String msg;
+    if (t instanceof RuntimeError)
+      msg = t.getMessage();
+    else if (t instanceof ArrayIndexOutOfBoundsException)
+      msg = "array index out of bounds";
+    else if (t instanceof NegativeArraySizeException)
+      msg = "negative array size";
+    else if (t instanceof NullPointerException)
+      msg = "nil record";
+    else if (t instanceof ArithmeticException)
+      msg = "division by zero";
+    else if (t instanceof RuntimeException)
+      throw (RuntimeException)t;
+    else if (t instanceof Error)
+      throw (Error)t;
+    else
+      throw new Error(t.toString());
+    Library.flush();
+    System.err.println("runtime error: " + msg);
+    return 1;
+  }
+}
@@ -0,0 +1,7 @@
+package Jvm;
+
+// A place in a method's code that branches can go to.
+final class Label {
+  int pos = -1;			// offset in the code, once marked
+  int stack = -1;		// stack depth there, once known
+}
@@ -0,0 +1,72 @@
+package Jvm;
+import java.io.*;
+
+// The library functions from Semant.Env, called by the generated code.
+// It has to be public for that, and out and in are set by Jvm.run.
+public class Library {
+  public static Writer out;
+  public static Reader in;
+
+  public static void print(String s) {
+    try {
+      out.write(s);
+    } catch (IOException e) {
+      throw new RuntimeError(e.toString());
+    }
+  }
+
+  public static void flush() {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw new RuntimeError(e.toString());
+    }
+  }
+
+  public static String getchar() {
+    int c;
+    try {
+      c = in.read();
+    } catch (IOException e) {
+      throw new RuntimeError(e.toString());
+    }
+    return c < 0 ? "" : String.valueOf((char)c);
+  }
+
+  public static int ord(String s) {
+    return s.length() == 0 ? -1 : s.charAt(0);
+  }
+
+  private static final String[] chars = new String[256];
+
+  public static String chr(int i) {
+    if (i < 0 || i >= chars.length)
+      throw new RuntimeError("chr(" + i + ") out of range");
+    if (chars[i] == null)
+      chars[i] = String.valueOf((char)i);
+    return chars[i];
+  }
+
+  public static int size(String s) {
+    return s.length();
+  }
+
+  public static String substring(String s, int first, int n) {
+    if (first < 0 || n < 0 || first > s.length() - n)
+      throw new RuntimeError("substring(\"" + s + "\", " + first + ", " + n
+			     + ") out of range");
+    return s.substring(first, first + n);
+  }
+
+  public static String concat(String a, String b) {
+    return a.concat(b);
+  }
+
+  public static int not(int i) {
+    return i == 0 ? 1 : 0;
+  }
+
+  public static void exit(int i) {
+    throw new Exit(i);
+  }
+}
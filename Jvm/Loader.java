@@ -0,0 +1,20 @@
+package Jvm;
+import java.util.Hashtable;
+
+// Defines the classes of one compiled program from their bytes.  Its
+// parent is the loader Library came from, so generated code can call it.
+class Loader extends ClassLoader {
+  private Hashtable<String,byte[]> classes;
+
+  Loader(Hashtable<String,byte[]> c) {
+    super(Loader.class.getClassLoader());
+    classes = c;
+  }
+
+  protected Class<?> findClass(String name) throws ClassNotFoundException {
+    byte[] b = classes.get(name);
+    if (b == null)
+      throw new ClassNotFoundException(name);
+    return defineClass(name, b, 0, b.length);
+  }
+}
@@ -0,0 +1,29 @@
+package Jvm;
+import java.io.File;
+import Parse.Parse;
+
+public class Main {
+
+  public static void main(String argv[]) throws java.io.IOException {
+    //-d dir writes the class files there as well
+    File dir = null;
+    int first = 0;
+    if (argv.length > 2 && argv[0].equals("-d")) {
+      dir = new File(argv[1]);
+      first = 2;
+    }
+    if (argv.length != first + 1) {
+      System.err.println("usage: java Jvm.Main [-d dir] file.tig");
+      System.exit(2);
+    }
+    Parse parse = new Parse(argv[first]);
+    new Semant.Semant(parse.errorMsg).transProg(parse.absyn);
+    //only a checked program can be run
+    if (parse.errorMsg.anyErrors)
+      System.exit(1);
+    Jvm jvm = new Jvm(parse.absyn);
+    if (dir != null)
+      jvm.dump(dir);
+    System.exit(jvm.run());
+  }
+}
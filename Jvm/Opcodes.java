@@ -0,0 +1,27 @@
+package Jvm;
+
+// The JVM instructions Compiler uses, and the access flags for classes,
+// fields and methods.
+interface Opcodes {
+  int ACC_PUBLIC = 0x0001, ACC_STATIC = 0x0008, ACC_SUPER = 0x0020;
+
+  int ACONST_NULL = 1, ICONST_0 = 3, BIPUSH = 16, SIPUSH = 17,
+      LDC = 18, LDC_W = 19,
+      ILOAD = 21, ALOAD = 25, ILOAD_0 = 26, ALOAD_0 = 42,
+      IALOAD = 46, AALOAD = 50,
+      ISTORE = 54, ASTORE = 58, ISTORE_0 = 59, ASTORE_0 = 75,
+      IASTORE = 79, AASTORE = 83,
+      POP = 87, DUP = 89,
+      IADD = 96, ISUB = 100, IMUL = 104, IDIV = 108, IXOR = 130, IINC = 132,
+      IFEQ = 153, IFNE = 154, IFLT = 155, IFGE = 156, IFGT = 157, IFLE = 158,
+      IF_ICMPEQ = 159, IF_ICMPNE = 160, IF_ICMPLT = 161, IF_ICMPGE = 162,
+      IF_ICMPGT = 163, IF_ICMPLE = 164, IF_ACMPEQ = 165, IF_ACMPNE = 166,
+      GOTO = 167,
+      IRETURN = 172, ARETURN = 176, RETURN = 177,
+      GETFIELD = 180, PUTFIELD = 181,
+      INVOKEVIRTUAL = 182, INVOKESPECIAL = 183, INVOKESTATIC = 184,
+      NEW = 187, NEWARRAY = 188, ANEWARRAY = 189,
+      WIDE = 196;
+
+  int T_INT = 10;			// NEWARRAY operand
+}
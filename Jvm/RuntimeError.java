@@ -0,0 +1,9 @@
+package Jvm;
+
+// an error in the running program, such as chr(300)
+class RuntimeError extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+  RuntimeError(String msg) {
+    super(msg);
+  }
+}
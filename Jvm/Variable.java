@@ -0,0 +1,17 @@
+package Jvm;
+
+// A variable or parameter.  One that escapes is a field of its function's
+// frame object; any other is a local of the method.
+class Variable {
+  Function home;
+  Types.Type ty;
+  boolean escape;
+  int local;
+  String field;
+
+  Variable(Function h, Types.Type t, boolean e) {
+    home = h;
+    ty = t;
+    escape = e;
+  }
+}
@@ -0,0 +1,59 @@
+package Mips;
+import Temp.Temp;
+import Temp.Label;
+import Util.BoolList;
+import Frame.Frame;
+import Frame.Access;
+import Frame.AccessList;
+
+public class MipsFrame extends Frame {
+  private static final int wordSize = 4;
+  private static final Temp fp = new Temp();
+  private static final Temp v0 = new Temp();
+
+  // next free slot below the frame pointer
+  private int offset = 0;
+
+  public MipsFrame() {}
+
+  private MipsFrame(Label n, BoolList f) {
+    name = n;
+    formals = allocFormals(0, f);
+  }
+
+  public Frame newFrame(Label name, BoolList formals) {
+    return new MipsFrame(name, formals);
+  }
+
+  // incoming arguments live above the frame pointer, one word each
+  private AccessList allocFormals(int off, BoolList f) {
+    if (f == null)
+      return null;
+    Access a;
+    if (f.head)
+      a = new InFrame(off);
+    else
+      a = new InReg(new Temp());
+    return new AccessList(a, allocFormals(off + wordSize, f.tail));
+  }
+
+  public Access allocLocal(boolean escape) {
+    if (escape) {
+      offset -= wordSize;
+      return new InFrame(offset);
+    }
+    return new InReg(new Temp());
+  }
+
+  public Temp FP() {return fp;}
+  public Temp RV() {return v0;}
+  public int wordSize() {return wordSize;}
+
+  public Tree.Exp externalCall(String func, Tree.ExpList args) {
+    return new Tree.CALL(new Tree.NAME(new Label(func)), args);
+  }
+
+  public Tree.Stm procEntryExit1(Tree.Stm body) {
+    return body;
+  }
+}
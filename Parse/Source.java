@@ -0,0 +1,42 @@
+package Parse;
+
+// Parses a program from any stream, reporting to an ErrorMsg the caller
+// made, where Parse reads a named file and makes its own.  The syntax
+// errors go to the ErrorMsg; the parser's own "Couldn't repair" line is
+// dropped rather than printed.  Returns null if the parse gave up.  The
+// tree comes back numbered (Absyn.Numbering), so it can be shared as it is.
+//
+// Symbol.symbol makes a name's Symbol the first time it is asked, with
+// nothing between looking the name up and adding it, so two threads
+// making the same new name can each get their own, and Symbol.Table would
+// take them for two names.  So parses, which make the Symbols for every
+// name in a program, run one at a time, and anything else that can make
+// Symbols while another thread parses gets them from symbol below.
+public class Source {
+  private static final Object symbols = new Object();
+
+  public static Absyn.Exp parse(java.io.InputStream in, ErrorMsg.ErrorMsg errorMsg) {
+    Absyn.Exp prog;
+    try {
+      synchronized (symbols) {
+	Grm parser = new Grm(new Yylex(in, errorMsg), errorMsg) {
+	  public void report_error(String message, Object info) {}
+	};
+	prog = (Absyn.Exp)parser.parse().value;
+      }
+    } catch (Exception e) {
+      if (!errorMsg.anyErrors)
+	errorMsg.error(0, e.toString());
+      return null;
+    }
+    if (prog != null)
+      Absyn.Numbering.number(prog);
+    return prog;
+  }
+
+  public static Symbol.Symbol symbol(String name) {
+    synchronized (symbols) {
+      return Symbol.Symbol.symbol(name);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package Semant;
+import Absyn.*;
+
+// What Semant (and FindEscape for it) finds out about a tree, kept beside
+// the tree instead of in it: arrays indexed by the numbers that
+// Absyn.Numbering gives the nodes.  A Semant made with one of these leaves
+// the tree as it is, so any number of checks can run over one tree at
+// once, each with its own result, and a tree can be kept and checked
+// again.  The ids are the exception: a tree from Parse.Source has them
+// already, and any other gets them, once, from the first result made for
+// it.
+public class AnalysisResult {
+  public final int size;		// nodes in the tree
+  public int slots;			// as Semant.slots
+  public StringPool strings = new StringPool();
+  private Types.Type[] types;		// of an Exp, or a TypeDec's NAME
+  private Entry[] entries;		// of a VarDec or FunctionDec
+  private int[] depth, index;		// see the accessors
+  private byte[] flags;
+  static final byte ESCAPE = 1, LEAF = 2;
+
+  public AnalysisResult(Exp prog) {
+    size = Numbering.number(prog);
+    types = new Types.Type[size];
+    entries = new Entry[size];
+    depth = new int[size];
+    index = new int[size];
+    flags = new byte[size];
+    java.util.Arrays.fill(depth, -1);
+    java.util.Arrays.fill(index, -1);
+    java.util.Arrays.fill(flags, ESCAPE);	// as the tree: escape until found not to
+  }
+
+  public Types.Type type(Exp e) {return types[e.id];}
+  public Types.NAME entry(TypeDec d) {return (Types.NAME)types[d.id];}
+  public VarEntry entry(VarDec d) {return (VarEntry)entries[d.id];}
+  public FunEntry entry(FunctionDec d) {return (FunEntry)entries[d.id];}
+
+  // as SimpleVar.depth and index, and CallExp.depth
+  public int depth(SimpleVar v) {return depth[v.id];}
+  public int index(SimpleVar v) {return index[v.id];}
+  public int depth(CallExp c) {return depth[c.id];}
+
+  // as StringExp.index and FunctionDec.slots
+  public int index(StringExp s) {return index[s.id];}
+  public int slots(FunctionDec d) {return index[d.id];}
+
+  public boolean escape(VarDec d) {return (flags[d.id] & ESCAPE) != 0;}
+  public boolean escape(FieldList f) {return (flags[f.id] & ESCAPE) != 0;}
+  public boolean leaf(FunctionDec d) {return (flags[d.id] & LEAF) != 0;}
+
+  // recording, from Semant
+
+  void setType(Absyn n, Types.Type t) {types[n.id] = t;}
+  void setEntry(Absyn n, Entry e) {entries[n.id] = e;}
+  void setDepth(Absyn n, int d) {depth[n.id] = d;}
+  void setIndex(Absyn n, int i) {index[n.id] = i;}
+
+  // and from FindEscape
+  public void setEscape(Absyn n, boolean b) {flag(n, ESCAPE, b);}
+  public void setLeaf(FunctionDec d, boolean b) {flag(d, LEAF, b);}
+
+  private void flag(Absyn n, byte f, boolean b) {
+    if (b)
+      flags[n.id] |= f;
+    else
+      flags[n.id] &= ~f;
+  }
+}
@@ -0,0 +1,439 @@
+package Semant;
+import java.io.*;
+import Absyn.*;
+
+// Loads a tree saved by BinaryWriter, with its types and entries, ready
+// for anything that runs after Semant.  The types are rebuilt as one
+// graph, so they compare with == just as Semant's own do.  A file that is
+// cut short or corrupt gives an IOException, not a broken tree.
+public class BinaryReader {
+  public Exp prog;
+  public int slots;			// as Semant.slots
+  public StringPool strings = new StringPool();
+  private byte[] buf;
+  private int at;
+  private int lastPos;
+  private Symbol.Symbol[] symbols;
+  private Types.Type[] types;		// from 1; 0 is no type
+
+  public BinaryReader(InputStream in) throws IOException {
+    buf = readAll(in);
+    if (u4() != BinaryWriter.MAGIC)
+      throw new IOException("not a saved Tiger tree");
+    if (varint() != BinaryWriter.VERSION)
+      throw new IOException("saved by another version");
+    symbols = new Symbol.Symbol[count()];
+    for (int i = 0; i < symbols.length; i++)
+      symbols[i] = Parse.Source.symbol(string());
+    int n = count();
+    for (int i = 0; i < n; i++)
+      strings.add(string());
+    readTypes();
+    slots = varint();
+    prog = readExp();
+  }
+
+  static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream b = new ByteArrayOutputStream();
+    byte[] chunk = new byte[8192];
+    for (int n; (n = in.read(chunk)) > 0; )
+      b.write(chunk, 0, n);
+    return b.toByteArray();
+  }
+
+  private int u1() throws IOException {
+    if (at >= buf.length)
+      throw new EOFException("saved tree cut short");
+    return buf[at++] & 0xff;
+  }
+
+  private int u4() throws IOException {
+    return u1() << 24 | u1() << 16 | u1() << 8 | u1();
+  }
+
+  private int varint() throws IOException {
+    int v = 0;
+    for (int shift = 0; ; shift += 7) {
+      int b = u1();
+      v |= (b & 0x7f) << shift;
+      if (b < 0x80)
+	return v;
+      if (shift == 28)
+	throw new IOException("bad number in saved tree");
+    }
+  }
+
+  // how many of something follow; each takes a byte at least
+  private int count() throws IOException {
+    int n = varint();
+    if (n < 0 || n > buf.length - at)
+      throw new IOException("bad count in saved tree");
+    return n;
+  }
+
+  private int signed() throws IOException {
+    int v = varint();
+    return v >>> 1 ^ -(v & 1);
+  }
+
+  private String string() throws IOException {
+    int n = varint();
+    if (n < 0)
+      throw new IOException("bad string in saved tree");
+    if (n > buf.length - at)
+      throw new EOFException("saved tree cut short");
+    String s = new String(buf, at, n, "UTF8");
+    at += n;
+    return s;
+  }
+
+  private Symbol.Symbol symbol() throws IOException {
+    int i = varint();
+    if (i < 0 || i > symbols.length)
+      throw new IOException("bad symbol in saved tree");
+    return i == 0 ? null : symbols[i - 1];
+  }
+
+  private Types.Type type() throws IOException {
+    return type(varint());
+  }
+
+  private Types.Type type(int i) throws IOException {
+    if (i < 0 || i >= types.length)
+      throw new IOException("bad type number in saved tree");
+    return types[i];
+  }
+
+  // t, which must be a RECORD or none
+  private static Types.RECORD record(Types.Type t) throws IOException {
+    if (t != null && !(t instanceof Types.RECORD))
+      throw new IOException("bad record type in saved tree");
+    return (Types.RECORD)t;
+  }
+
+  // every type is made before any is linked, since they refer to each
+  // other in any order
+  private void readTypes() throws IOException {
+    int n = count();
+    types = new Types.Type[n + 1];
+    int[] a = new int[n + 1], b = new int[n + 1];
+    for (int i = 1; i <= n; i++) {
+      switch (u1()) {
+      case BinaryWriter.INT:    types[i] = Semant.INT; break;
+      case BinaryWriter.STRING: types[i] = Semant.STRING; break;
+      case BinaryWriter.NIL:    types[i] = Semant.NIL; break;
+      case BinaryWriter.VOID:   types[i] = Semant.VOID; break;
+      case BinaryWriter.NAME:
+	types[i] = new Types.NAME(symbol());
+	a[i] = varint();
+	break;
+      case BinaryWriter.RECORD:
+	types[i] = new Types.RECORD(symbol(), null, null);
+	a[i] = varint();
+	b[i] = varint();
+	break;
+      case BinaryWriter.ARRAY:
+	types[i] = new Types.ARRAY(null);
+	a[i] = varint();
+	break;
+      default:
+	throw new IOException("bad type in saved tree");
+      }
+    }
+    for (int i = 1; i <= n; i++) {
+      if (types[i] instanceof Types.NAME)
+	((Types.NAME)types[i]).bind(type(a[i]));
+      else if (types[i] instanceof Types.RECORD) {
+	((Types.RECORD)types[i]).fieldType = type(a[i]);
+	((Types.RECORD)types[i]).tail = record(type(b[i]));
+      }
+      else if (types[i] instanceof Types.ARRAY)
+	((Types.ARRAY)types[i]).element = type(a[i]);
+    }
+    //every NAME must come to a type that isn't one, or actual() would
+    //never return; as in Semant, each walk marks the NAMEs it goes through
+    int[] walk = new int[n + 1];
+    for (int i = 1; i <= n; i++) {
+      int j = i;
+      while (types[j] instanceof Types.NAME && walk[j] == 0) {
+	walk[j] = i;
+	Types.Type t = ((Types.NAME)types[j]).binding;
+	if (t == null || t instanceof Types.NAME && walk[a[j]] == i)
+	  throw new IOException("bad type name in saved tree");
+	j = a[j];
+      }
+    }
+  }
+
+  // the tree, in the order BinaryWriter wrote it
+
+  private int pos() throws IOException {
+    lastPos += signed();
+    return lastPos;
+  }
+
+  private Var readVar() throws IOException {
+    int kind = u1();
+    int pos = pos();
+    switch (kind) {
+    case BinaryWriter.SIMPLEVAR: {
+      SimpleVar v = new SimpleVar(pos, symbol());
+      v.depth = signed();
+      v.index = signed();
+      return v;
+    }
+    case BinaryWriter.FIELDVAR: {
+      Var v = readVar();
+      return new FieldVar(pos, v, symbol());
+    }
+    case BinaryWriter.SUBSCRIPTVAR: {
+      Var v = readVar();
+      return new SubscriptVar(pos, v, readExp());
+    }
+    default:
+      throw new IOException("bad variable in saved tree");
+    }
+  }
+
+  private ExpList readExps() throws IOException {
+    int n = count();
+    ExpList first = null, last = null;
+    for (int i = 0; i < n; i++) {
+      ExpList l = new ExpList(readExp(), null);
+      if (last == null)
+	first = l;
+      else
+	last.tail = l;
+      last = l;
+    }
+    return first;
+  }
+
+  private Exp readExp() throws IOException {
+    int kind = u1();
+    if (kind == 0)
+      return null;
+    int pos = pos();
+    Exp e;
+    switch (kind) {
+    case BinaryWriter.VAREXP:
+      e = new VarExp(pos, readVar());
+      break;
+    case BinaryWriter.NILEXP:
+      e = new NilExp(pos);
+      break;
+    case BinaryWriter.INTEXP:
+      e = new IntExp(pos, signed());
+      break;
+    case BinaryWriter.STRINGEXP: {
+      int i = varint();
+      if (i < 0 || i >= strings.size())
+	throw new IOException("bad string in saved tree");
+      StringExp s = new StringExp(pos, strings.get(i));
+      s.index = i;
+      e = s;
+      break;
+    }
+    case BinaryWriter.CALLEXP: {
+      Symbol.Symbol func = symbol();
+      int depth = signed();
+      CallExp c = new CallExp(pos, func, readExps());
+      c.depth = depth;
+      e = c;
+      break;
+    }
+    case BinaryWriter.OPEXP: {
+      int oper = u1();
+      if (oper > OpExp.GE)
+	throw new IOException("bad operator in saved tree");
+      Exp left = readExp();
+      e = new OpExp(pos, left, oper, readExp());
+      break;
+    }
+    case BinaryWriter.RECORDEXP: {
+      Symbol.Symbol typ = symbol();
+      int n = count();
+      FieldExpList first = null, last = null;
+      for (int i = 0; i < n; i++) {
+	int p = pos();
+	Symbol.Symbol name = symbol();
+	FieldExpList f = new FieldExpList(p, name, readExp(), null);
+	if (last == null)
+	  first = f;
+	else
+	  last.tail = f;
+	last = f;
+      }
+      e = new RecordExp(pos, typ, first);
+      break;
+    }
+    case BinaryWriter.SEQEXP:
+      e = new SeqExp(pos, readExps());
+      break;
+    case BinaryWriter.ASSIGNEXP: {
+      Var v = readVar();
+      e = new AssignExp(pos, v, readExp());
+      break;
+    }
+    case BinaryWriter.IFEXP: {
+      Exp test = readExp();
+      Exp then = readExp();
+      e = new IfExp(pos, test, then, readExp());
+      break;
+    }
+    case BinaryWriter.WHILEEXP: {
+      Exp test = readExp();
+      e = new WhileExp(pos, test, readExp());
+      break;
+    }
+    case BinaryWriter.FOREXP: {
+      Dec d = readDec();
+      if (!(d instanceof VarDec))
+	throw new IOException("bad for loop in saved tree");
+      VarDec v = (VarDec)d;
+      Exp hi = readExp();
+      e = new ForExp(pos, v, hi, readExp());
+      break;
+    }
+    case BinaryWriter.BREAKEXP:
+      e = new BreakExp(pos);
+      break;
+    case BinaryWriter.LETEXP: {
+      int n = count();
+      DecList first = null, last = null;
+      for (int i = 0; i < n; i++) {
+	DecList d = new DecList(readDec(), null);
+	if (last == null)
+	  first = d;
+	else
+	  last.tail = d;
+	last = d;
+      }
+      e = new LetExp(pos, first, readExp());
+      break;
+    }
+    case BinaryWriter.ARRAYEXP: {
+      Symbol.Symbol typ = symbol();
+      Exp size = readExp();
+      e = new ArrayExp(pos, typ, size, readExp());
+      break;
+    }
+    default:
+      throw new IOException("bad expression in saved tree");
+    }
+    e.type = type();
+    return e;
+  }
+
+  private Dec readDec() throws IOException {
+    int kind = u1();
+    int pos = pos();
+    switch (kind) {
+    case BinaryWriter.VARDEC: {
+      Symbol.Symbol name = symbol();
+      boolean escape = u1() != 0;
+      NameTy typ = readNameTy();
+      VarDec v = new VarDec(pos, name, typ, readExp());
+      v.escape = escape;
+      Types.Type ty = type();
+      if (ty != null)
+	v.entry = new VarEntry(ty, null);
+      return v;
+    }
+    case BinaryWriter.FUNCTIONDEC: {
+      //each function of the group has its own position after this one
+      int n = group();
+      FunctionDec first = null, last = null;
+      for (int i = 0; i < n; i++) {
+	int p = pos();
+	Symbol.Symbol name = symbol();
+	FieldList params = readFields();
+	NameTy result = readNameTy();
+	FunctionDec f = new FunctionDec(p, name, params, result, readExp(), null);
+	f.leaf = u1() != 0;
+	f.slots = varint();
+	Types.Type formals = type();
+	Types.Type res = type();
+	if (res != null)
+	  f.entry = new FunEntry(record(formals), res);
+	if (last == null)
+	  first = f;
+	else
+	  last.next = f;
+	last = f;
+      }
+      return first;
+    }
+    case BinaryWriter.TYPEDEC: {
+      int n = group();
+      TypeDec first = null, last = null;
+      for (int i = 0; i < n; i++) {
+	int p = pos();
+	Symbol.Symbol name = symbol();
+	TypeDec t = new TypeDec(p, name, readTy(), null);
+	Types.Type entry = type();
+	if (entry != null && !(entry instanceof Types.NAME))
+	  throw new IOException("bad type name in saved tree");
+	t.entry = (Types.NAME)entry;
+	if (last == null)
+	  first = t;
+	else
+	  last.next = t;
+	last = t;
+      }
+      return first;
+    }
+    default:
+      throw new IOException("bad declaration in saved tree");
+    }
+  }
+
+  // the members of a group, of which there is one at least
+  private int group() throws IOException {
+    int n = count();
+    if (n == 0)
+      throw new IOException("bad declaration in saved tree");
+    return n;
+  }
+
+  private NameTy readNameTy() throws IOException {
+    Ty t = readTy();
+    if (t != null && !(t instanceof NameTy))
+      throw new IOException("bad type expression in saved tree");
+    return (NameTy)t;
+  }
+
+  private Ty readTy() throws IOException {
+    int kind = u1();
+    if (kind == 0)
+      return null;
+    int pos = pos();
+    switch (kind) {
+    case BinaryWriter.NAMETY:
+      return new NameTy(pos, symbol());
+    case BinaryWriter.RECORDTY:
+      return new RecordTy(pos, readFields());
+    case BinaryWriter.ARRAYTY:
+      return new ArrayTy(pos, symbol());
+    default:
+      throw new IOException("bad type expression in saved tree");
+    }
+  }
+
+  private FieldList readFields() throws IOException {
+    int n = count();
+    FieldList first = null, last = null;
+    for (int i = 0; i < n; i++) {
+      int p = pos();
+      Symbol.Symbol name = symbol();
+      FieldList f = new FieldList(p, name, symbol(), null);
+      f.escape = u1() != 0;
+      if (last == null)
+	first = f;
+      else
+	last.tail = f;
+      last = f;
+    }
+    return first;
+  }
+}
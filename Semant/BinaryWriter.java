@@ -0,0 +1,389 @@
+package Semant;
+import java.io.*;
+import java.util.Hashtable;
+import java.util.Vector;
+import Absyn.*;
+
+// Saves a checked tree, with its types and entries, so BinaryReader can
+// load it without parsing or checking again.  After a header come four
+// tables: symbols, string literals, types, and the tree itself.  Every
+// number is a varint, and a position is stored as the change from the one
+// before.  Types are numbered, so a NAME can refer round to itself.
+// Frame positions (VarEntry.access, FunEntry.level) are not saved; the
+// (depth, index) Semant leaves on SimpleVar is.
+public class BinaryWriter {
+  static final int MAGIC = 0x54494741;	// "TIGA"
+  static final int VERSION = 1;
+
+  // node kinds; 0 is a missing node
+  static final int SIMPLEVAR = 1, FIELDVAR = 2, SUBSCRIPTVAR = 3,
+    VAREXP = 4, NILEXP = 5, INTEXP = 6, STRINGEXP = 7, CALLEXP = 8,
+    OPEXP = 9, RECORDEXP = 10, SEQEXP = 11, ASSIGNEXP = 12, IFEXP = 13,
+    WHILEEXP = 14, FOREXP = 15, BREAKEXP = 16, LETEXP = 17, ARRAYEXP = 18,
+    VARDEC = 19, FUNCTIONDEC = 20, TYPEDEC = 21,
+    NAMETY = 22, RECORDTY = 23, ARRAYTY = 24;
+
+  // type kinds
+  static final int INT = 1, STRING = 2, NIL = 3, VOID = 4, NAME = 5,
+    RECORD = 6, ARRAY = 7;
+
+  private OutputStream out;
+  private Buffer tree = new Buffer();
+  private int lastPos;
+  private Hashtable<Symbol.Symbol,Integer> symbols = new Hashtable<Symbol.Symbol,Integer>();
+  private Vector<Symbol.Symbol> symbolList = new Vector<Symbol.Symbol>();
+  private StringPool strings = new StringPool();
+  private Hashtable<Types.Type,Integer> types = new Hashtable<Types.Type,Integer>();
+  private Vector<Types.Type> typeList = new Vector<Types.Type>();
+
+  public BinaryWriter(OutputStream o) {
+    out = o;
+  }
+
+  // slots is Semant.slots, the size of the main program's frame
+  public void write(Exp prog, int slots) throws IOException {
+    writeExp(prog);
+    Buffer head = new Buffer();
+    head.u4(MAGIC);
+    head.varint(VERSION);
+    //types name symbols, so they go first
+    Buffer typeTable = writeTypes();
+    head.varint(symbolList.size());
+    for (int i = 0; i < symbolList.size(); i++)
+      head.string(symbolList.elementAt(i).toString());
+    head.varint(strings.size());
+    for (int i = 0; i < strings.size(); i++)
+      head.string(strings.get(i));
+    head.append(typeTable);
+    head.varint(slots);
+    head.writeTo(out);
+    tree.writeTo(out);
+    out.flush();
+  }
+
+  // a growing byte array with varints
+  static final class Buffer extends ByteArrayOutputStream {
+    void varint(int v) {
+      while ((v & ~0x7f) != 0) {
+	write(v & 0x7f | 0x80);
+	v >>>= 7;
+      }
+      write(v);
+    }
+
+    // small negative numbers stay small
+    void signed(int v) {
+      varint(v << 1 ^ v >> 31);
+    }
+
+    void u4(int v) {
+      write(v >>> 24);
+      write(v >>> 16);
+      write(v >>> 8);
+      write(v);
+    }
+
+    void string(String s) {
+      byte[] b;
+      try {
+	b = s.getBytes("UTF8");
+      } catch (UnsupportedEncodingException e) {
+	throw new Error(e.toString());
+      }
+      varint(b.length);
+      write(b, 0, b.length);
+    }
+
+    void append(Buffer b) {
+      write(b.buf, 0, b.count);
+    }
+  }
+
+  private int symbol(Symbol.Symbol s) {
+    Integer i = symbols.get(s);
+    if (i == null) {
+      i = Integer.valueOf(symbolList.size());
+      symbols.put(s, i);
+      symbolList.addElement(s);
+    }
+    return i.intValue();
+  }
+
+  private void symbol(Symbol.Symbol s, Buffer b) {
+    b.varint(s == null ? 0 : symbol(s) + 1);
+  }
+
+  // 0 for no type; a type is numbered before what it refers to, so a
+  // cycle through a NAME ends at the number already given
+  private int type(Types.Type t) {
+    if (t == null)
+      return 0;
+    Integer i = types.get(t);
+    if (i != null)
+      return i.intValue();
+    i = Integer.valueOf(typeList.size() + 1);
+    types.put(t, i);
+    typeList.addElement(t);
+    if (t instanceof Types.NAME)
+      type(((Types.NAME)t).binding);
+    else if (t instanceof Types.RECORD) {
+      type(((Types.RECORD)t).fieldType);
+      type(((Types.RECORD)t).tail);
+    }
+    else if (t instanceof Types.ARRAY)
+      type(((Types.ARRAY)t).element);
+    return i.intValue();
+  }
+
+  private Buffer writeTypes() {
+    Buffer b = new Buffer();
+    b.varint(typeList.size());
+    for (int i = 0; i < typeList.size(); i++) {
+      Types.Type t = typeList.elementAt(i);
+      if (t instanceof Types.INT)
+	b.write(INT);
+      else if (t instanceof Types.STRING)
+	b.write(STRING);
+      else if (t instanceof Types.NIL)
+	b.write(NIL);
+      else if (t instanceof Types.VOID)
+	b.write(VOID);
+      else if (t instanceof Types.NAME) {
+	b.write(NAME);
+	symbol(((Types.NAME)t).name, b);
+	b.varint(type(((Types.NAME)t).binding));
+      }
+      else if (t instanceof Types.RECORD) {
+	Types.RECORD r = (Types.RECORD)t;
+	b.write(RECORD);
+	symbol(r.fieldName, b);
+	b.varint(type(r.fieldType));
+	b.varint(type(r.tail));
+      }
+      else if (t instanceof Types.ARRAY) {
+	b.write(ARRAY);
+	b.varint(type(((Types.ARRAY)t).element));
+      }
+      else throw new Error("BinaryWriter.writeTypes");
+    }
+    return b;
+  }
+
+  // the tree
+
+  private void node(int kind, int pos) {
+    tree.write(kind);
+    tree.signed(pos - lastPos);
+    lastPos = pos;
+  }
+
+  private void writeVar(Var v) {
+    if (v instanceof SimpleVar) {
+      SimpleVar s = (SimpleVar)v;
+      node(SIMPLEVAR, s.pos);
+      symbol(s.name, tree);
+      tree.signed(s.depth);
+      tree.signed(s.index);
+    }
+    else if (v instanceof FieldVar) {
+      node(FIELDVAR, v.pos);
+      writeVar(((FieldVar)v).var);
+      symbol(((FieldVar)v).field, tree);
+    }
+    else if (v instanceof SubscriptVar) {
+      node(SUBSCRIPTVAR, v.pos);
+      writeVar(((SubscriptVar)v).var);
+      writeExp(((SubscriptVar)v).index);
+    }
+    else throw new Error("BinaryWriter.writeVar");
+  }
+
+  private void writeExps(ExpList l) {
+    int n = 0;
+    for (ExpList e = l; e != null; e = e.tail)
+      n++;
+    tree.varint(n);
+    for (; l != null; l = l.tail)
+      writeExp(l.head);
+  }
+
+  private void writeExp(Exp e) {
+    if (e == null) {
+      tree.write(0);
+      return;
+    }
+    if (e instanceof VarExp) {
+      node(VAREXP, e.pos);
+      writeVar(((VarExp)e).var);
+    }
+    else if (e instanceof NilExp)
+      node(NILEXP, e.pos);
+    else if (e instanceof IntExp) {
+      node(INTEXP, e.pos);
+      tree.signed(((IntExp)e).value);
+    }
+    else if (e instanceof StringExp) {
+      node(STRINGEXP, e.pos);
+      tree.varint(strings.add(((StringExp)e).value));
+    }
+    else if (e instanceof CallExp) {
+      CallExp c = (CallExp)e;
+      node(CALLEXP, c.pos);
+      symbol(c.func, tree);
+      tree.signed(c.depth);
+      writeExps(c.args);
+    }
+    else if (e instanceof OpExp) {
+      OpExp o = (OpExp)e;
+      node(OPEXP, o.pos);
+      tree.write(o.oper);
+      writeExp(o.left);
+      writeExp(o.right);
+    }
+    else if (e instanceof RecordExp) {
+      RecordExp r = (RecordExp)e;
+      node(RECORDEXP, r.pos);
+      symbol(r.typ, tree);
+      int n = 0;
+      for (FieldExpList f = r.fields; f != null; f = f.tail)
+	n++;
+      tree.varint(n);
+      for (FieldExpList f = r.fields; f != null; f = f.tail) {
+	tree.signed(f.pos - lastPos);
+	lastPos = f.pos;
+	symbol(f.name, tree);
+	writeExp(f.init);
+      }
+    }
+    else if (e instanceof SeqExp) {
+      node(SEQEXP, e.pos);
+      writeExps(((SeqExp)e).list);
+    }
+    else if (e instanceof AssignExp) {
+      node(ASSIGNEXP, e.pos);
+      writeVar(((AssignExp)e).var);
+      writeExp(((AssignExp)e).exp);
+    }
+    else if (e instanceof IfExp) {
+      IfExp i = (IfExp)e;
+      node(IFEXP, i.pos);
+      writeExp(i.test);
+      writeExp(i.thenclause);
+      writeExp(i.elseclause);
+    }
+    else if (e instanceof WhileExp) {
+      node(WHILEEXP, e.pos);
+      writeExp(((WhileExp)e).test);
+      writeExp(((WhileExp)e).body);
+    }
+    else if (e instanceof ForExp) {
+      ForExp f = (ForExp)e;
+      node(FOREXP, f.pos);
+      writeDec(f.var);
+      writeExp(f.hi);
+      writeExp(f.body);
+    }
+    else if (e instanceof BreakExp)
+      node(BREAKEXP, e.pos);
+    else if (e instanceof LetExp) {
+      LetExp l = (LetExp)e;
+      node(LETEXP, l.pos);
+      int n = 0;
+      for (DecList d = l.decs; d != null; d = d.tail)
+	n++;
+      tree.varint(n);
+      for (DecList d = l.decs; d != null; d = d.tail)
+	writeDec(d.head);
+      writeExp(l.body);
+    }
+    else if (e instanceof ArrayExp) {
+      ArrayExp a = (ArrayExp)e;
+      node(ARRAYEXP, a.pos);
+      symbol(a.typ, tree);
+      writeExp(a.size);
+      writeExp(a.init);
+    }
+    else throw new Error("BinaryWriter.writeExp");
+    tree.varint(type(e.type));
+  }
+
+  private void writeDec(Dec d) {
+    if (d instanceof VarDec) {
+      VarDec v = (VarDec)d;
+      node(VARDEC, v.pos);
+      symbol(v.name, tree);
+      tree.write(v.escape ? 1 : 0);
+      writeTy(v.typ);
+      writeExp(v.init);
+      tree.varint(v.entry == null ? 0 : type(v.entry.ty));
+    }
+    else if (d instanceof FunctionDec) {
+      FunctionDec f = (FunctionDec)d;
+      node(FUNCTIONDEC, f.pos);
+      int n = 0;
+      for (FunctionDec g = f; g != null; g = g.next)
+	n++;
+      tree.varint(n);
+      for (; f != null; f = f.next) {
+	tree.signed(f.pos - lastPos);
+	lastPos = f.pos;
+	symbol(f.name, tree);
+	writeFields(f.params);
+	writeTy(f.result);
+	writeExp(f.body);
+	tree.write(f.leaf ? 1 : 0);
+	tree.varint(f.slots);
+	tree.varint(f.entry == null ? 0 : type(f.entry.formals));
+	tree.varint(f.entry == null ? 0 : type(f.entry.result));
+      }
+    }
+    else if (d instanceof TypeDec) {
+      TypeDec t = (TypeDec)d;
+      node(TYPEDEC, t.pos);
+      int n = 0;
+      for (TypeDec u = t; u != null; u = u.next)
+	n++;
+      tree.varint(n);
+      for (; t != null; t = t.next) {
+	tree.signed(t.pos - lastPos);
+	lastPos = t.pos;
+	symbol(t.name, tree);
+	writeTy(t.ty);
+	tree.varint(type(t.entry));
+      }
+    }
+    else throw new Error("BinaryWriter.writeDec");
+  }
+
+  private void writeTy(Ty t) {
+    if (t == null)
+      tree.write(0);
+    else if (t instanceof NameTy) {
+      node(NAMETY, t.pos);
+      symbol(((NameTy)t).name, tree);
+    }
+    else if (t instanceof RecordTy) {
+      node(RECORDTY, t.pos);
+      writeFields(((RecordTy)t).fields);
+    }
+    else if (t instanceof ArrayTy) {
+      node(ARRAYTY, t.pos);
+      symbol(((ArrayTy)t).typ, tree);
+    }
+    else throw new Error("BinaryWriter.writeTy");
+  }
+
+  private void writeFields(FieldList f) {
+    int n = 0;
+    for (FieldList g = f; g != null; g = g.tail)
+      n++;
+    tree.varint(n);
+    for (; f != null; f = f.tail) {
+      tree.signed(f.pos - lastPos);
+      lastPos = f.pos;
+      symbol(f.name, tree);
+      symbol(f.typ, tree);
+      tree.write(f.escape ? 1 : 0);
+    }
+  }
+}
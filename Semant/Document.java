@@ -0,0 +1,392 @@
+package Semant;
+import java.util.Hashtable;
+import java.util.Vector;
+
+// A file open in the language server, and what was last found out about
+// it.  Parsing is most of the work of checking, and a big generated
+// program is mostly the declarations of one let, so the text is cut at
+// those declarations by reading tokens, not parsing, and each piece is
+// parsed by itself as "let " + piece + " in end".  A piece whose text was
+// parsed last time keeps its tree.  Copies of the trees, moved to where the
+// pieces now are, are put together as the parser would have and the whole
+// program is checked, which is quick next to parsing it.  A text that
+// doesn't cut cleanly is parsed whole.
+//
+// The kept trees are only ever copied, never checked or changed, so a
+// check that is given up leaves the last one's program and pieces as they
+// were.
+//
+// Everything here runs on the server's one worker thread, except for
+// latest and running, which the reader thread sets to cancel a check.
+class Document {
+  String uri;
+  volatile int latest;			// the newest version asked for
+  volatile Semant running;		// the check under way, if any
+
+  // the last check that finished
+  String text;
+  int version;
+  Absyn.Exp prog;			// null if it didn't parse
+  boolean checked;			// whether Semant went over it
+  Errors errors;
+  private int[] lines;			// where each line starts
+  private Locator locator;		// made when first wanted
+
+  // the trees of the last text's pieces, by their text
+  private Hashtable<String,Piece> pieces = new Hashtable<String,Piece>();
+  int reused, parsed;			// pieces, in the last check
+
+  static class Piece {
+    Absyn.Absyn tree;			// a Dec, or the let's body
+    int start;				// where the tree's positions put it
+    Errors errors;			// from its start
+  }
+
+  Document(String u) {uri=u;}
+
+  // the positions and messages of the errors found
+  static class Errors extends ErrorMsg.ErrorMsg {
+    int[] pos = new int[8];
+    Vector<String> messages = new Vector<String>();
+
+    Errors() {super(null);}
+
+    public void newline(int p) {}
+
+    public void error(int p, String msg) {
+      anyErrors = true;
+      add(p, msg);
+    }
+
+    int size() {return messages.size();}
+
+    void add(int p, String msg) {
+      int n = messages.size();
+      if (n == pos.length) {
+	int[] b = new int[n * 2];
+	System.arraycopy(pos, 0, b, 0, n);
+	pos = b;
+      }
+      pos[n] = p;
+      messages.addElement(msg);
+    }
+  }
+
+  // checks text as version v; false if a newer version came first
+  boolean analyse(String t, int v) {
+    if (latest != v)
+      return false;
+    Errors found = new Errors();
+    Hashtable<String,Piece> now = new Hashtable<String,Piece>();
+    reused = parsed = 0;
+    int[] cuts = cuts(t);
+    Absyn.Exp p = cuts == null ? null : cut(t, cuts, v, found, now);
+    if (p == null && found.size() == 0 && latest == v) {
+      //too little to reuse, or it didn't cut cleanly: parse it whole, and
+      //keep its declarations for next time
+      now.clear();
+      p = Parse.Source.parse(bytes(t), found);
+      if (p != null && !found.anyErrors && cuts != null)
+	keep(t, cuts, p, now);
+    }
+    if (latest != v)
+      return false;
+    //the checker's errors mean little in a program that didn't parse
+    boolean check = p != null && !found.anyErrors;
+    if (check) {
+      Semant semant = new Semant(found);
+      running = semant;
+      if (latest != v)
+	semant.cancelled = true;
+      try {
+	semant.transProg(p);
+      } catch (java.util.concurrent.CancellationException e) {
+	return false;
+      } finally {
+	running = null;
+      }
+    }
+    text = t;
+    version = v;
+    prog = p;
+    checked = check;
+    errors = found;
+    pieces = now;
+    lines = null;
+    locator = null;
+    return true;
+  }
+
+  static java.io.InputStream bytes(String s) {
+    //one byte a character, so positions are offsets into the string
+    return new java.io.ByteArrayInputStream(s.getBytes(java.nio.charset.StandardCharsets.ISO_8859_1));
+  }
+
+  // where the program's let starts, then each of its declarations, then
+  // its in; null if it isn't a let or the brackets don't match
+  static int[] cuts(String t) {
+    Tokens tokens = new Tokens(t);
+    int let = tokens.next();
+    if (let < 0 || !tokens.is(let, "let"))
+      return null;
+    int[] cuts = new int[64];
+    int n = 0;
+    cuts[n++] = let;
+    int depth = 1, in = -1;
+    for (int at; in < 0 && (at = tokens.next()) >= 0;) {
+      char c = t.charAt(at);
+      if (c == '(' || c == '[' || c == '{' || tokens.is(at, "let"))
+	depth++;
+      else if (c == ')' || c == ']' || c == '}' || tokens.is(at, "end"))
+	depth--;
+      else if (depth == 1 && tokens.is(at, "in"))
+	in = at;
+      else if (depth == 1 && (tokens.is(at, "type") || tokens.is(at, "var")
+			      || tokens.is(at, "function"))) {
+	if (n + 1 == cuts.length) {
+	  int[] b = new int[n * 2];
+	  System.arraycopy(cuts, 0, b, 0, n);
+	  cuts = b;
+	}
+	cuts[n++] = at;
+      }
+      if (depth < 1)
+	return null;
+    }
+    if (in < 0)
+      return null;
+    cuts[n++] = in;
+    int[] b = new int[n];
+    System.arraycopy(cuts, 0, b, 0, n);
+    return b;
+  }
+
+  // the program, from the pieces of a let, or null if it has syntax errors,
+  // which are in found, or if less than half of it was parsed before
+  private Absyn.Exp cut(String t, int[] cuts, int v, Errors found,
+			Hashtable<String,Piece> now) {
+    int n = cuts.length - 1;		// the declarations, then the body
+    String[] texts = new String[n];
+    int known = 0;
+    for (int i = 0; i < n; i++) {
+      texts[i] = t.substring(cuts[i + 1], i + 2 < cuts.length ? cuts[i + 2] : t.length());
+      if (pieces.get(texts[i]) != null)
+	known++;
+    }
+    //a piece at a time is slower than all at once, so only for a few
+    if (known * 2 < n)
+      return null;
+    Absyn.DecList decs = null, last = null;
+    Absyn.Dec previous = null;
+    boolean broken = false;
+    for (int i = 0; i < n - 1; i++) {
+      if (latest != v)
+	return null;
+      Piece piece = piece(texts[i], cuts[i + 1], false, found, now);
+      if (piece == null)
+	return null;
+      if (piece.tree == null) {
+	broken = true;
+	continue;
+      }
+      Absyn.Dec d = new Absyn.Copy(cuts[i + 1] - piece.start).dec((Absyn.Dec)piece.tree);
+      //a run of functions or of types is one group
+      if (d instanceof Absyn.FunctionDec && previous instanceof Absyn.FunctionDec)
+	((Absyn.FunctionDec)previous).next = (Absyn.FunctionDec)d;
+      else if (d instanceof Absyn.TypeDec && previous instanceof Absyn.TypeDec)
+	((Absyn.TypeDec)previous).next = (Absyn.TypeDec)d;
+      else {
+	Absyn.DecList l = new Absyn.DecList(d, null);
+	if (last == null)
+	  decs = l;
+	else
+	  last.tail = l;
+	last = l;
+      }
+      previous = d;
+    }
+    Piece body = piece(texts[n - 1], cuts[n], true, found, now);
+    if (body == null || body.tree == null || broken || found.anyErrors)
+      return null;
+    return new Absyn.LetExp(cuts[0], decs,
+      new Absyn.Copy(cuts[n] - body.start).exp((Absyn.Exp)body.tree));
+  }
+
+  // the pieces of a program parsed whole, for the next time; p is checked,
+  // but only its syntax will be copied
+  private void keep(String t, int[] cuts, Absyn.Exp p, Hashtable<String,Piece> now) {
+    if (!(p instanceof Absyn.LetExp))
+      return;
+    Absyn.LetExp let = (Absyn.LetExp)p;
+    Vector<Absyn.Dec> decs = new Vector<Absyn.Dec>();
+    for (Absyn.DecList l = let.decs; l != null; l = l.tail)
+      if (l.head instanceof Absyn.FunctionDec)
+	for (Absyn.FunctionDec f = (Absyn.FunctionDec)l.head; f != null; f = f.next)
+	  decs.addElement(f);
+      else if (l.head instanceof Absyn.TypeDec)
+	for (Absyn.TypeDec d = (Absyn.TypeDec)l.head; d != null; d = d.next)
+	  decs.addElement(d);
+      else
+	decs.addElement(l.head);
+    int n = cuts.length - 1;
+    if (decs.size() != n - 1)
+      return;
+    for (int i = 0; i < n; i++) {
+      Piece piece = new Piece();
+      piece.tree = i < n - 1 ? decs.elementAt(i) : let.body;
+      piece.start = cuts[i + 1];
+      piece.errors = new Errors();
+      now.put(t.substring(cuts[i + 1], i + 2 < cuts.length ? cuts[i + 2] : t.length()), piece);
+    }
+  }
+
+  // the piece s of the text, at from, parsed now or before; its tree is
+  // null if it has syntax errors, and it is null if s isn't one piece
+  private Piece piece(String s, int from, boolean body, Errors found,
+		      Hashtable<String,Piece> now) {
+    Piece piece = pieces.get(s);
+    if (piece == null)
+      piece = now.get(s);	// the same text twice
+    if (piece == null) {
+      piece = new Piece();
+      Errors e = new Errors();
+      //"in" starts the body's piece, so it needs no " in end"
+      Absyn.Exp p = Parse.Source.parse(bytes(body ? "let " + s : "let " + s + " in end"), e);
+      if (p instanceof Absyn.LetExp) {
+	Absyn.LetExp l = (Absyn.LetExp)p;
+	if (body)
+	  piece.tree = l.body;
+	else if (l.decs != null && l.decs.tail == null)
+	  piece.tree = l.decs.head;
+      }
+      //the errors from the start of the piece, which is 4 in
+      for (int i = 0; i < e.size(); i++)
+	e.pos[i] -= 4;
+      piece.errors = e;
+      piece.start = 4;
+      if (piece.tree == null && e.size() == 0)
+	return null;
+      parsed++;
+    } else
+      reused++;
+    now.put(s, piece);
+    for (int i = 0; i < piece.errors.size(); i++)
+      found.add(from + piece.errors.pos[i], piece.errors.messages.elementAt(i));
+    if (piece.errors.anyErrors)
+      found.anyErrors = true;
+    return piece;
+  }
+
+  // the tokens of a text, or enough of them: names and keywords, and
+  // single characters, with blanks, comments and strings passed over
+  static class Tokens {
+    String s;
+    int at;
+
+    Tokens(String text) {s=text;}
+
+    // where the next one starts, or -1 at the end
+    int next() {
+      for (;;) {
+	while (at < s.length() && s.charAt(at) <= ' ')
+	  at++;
+	if (at >= s.length())
+	  return -1;
+	char c = s.charAt(at);
+	if (c == '/' && s.startsWith("/*", at)) {
+	  //comments nest
+	  int depth = 0;
+	  do {
+	    if (s.startsWith("/*", at)) {
+	      depth++;
+	      at += 2;
+	    } else if (s.startsWith("*/", at)) {
+	      depth--;
+	      at += 2;
+	    } else
+	      at++;
+	  } while (depth > 0 && at < s.length());
+	  continue;
+	}
+	int start = at;
+	if (c == '"') {
+	  for (at++; at < s.length() && s.charAt(at) != '"'; at++)
+	    if (s.charAt(at) == '\\')
+	      at++;
+	  at++;
+	} else if (Character.isLetterOrDigit(c)) {
+	  while (at < s.length() && (Character.isLetterOrDigit(s.charAt(at))
+				     || s.charAt(at) == '_'))
+	    at++;
+	} else
+	  at++;
+	return start;
+      }
+    }
+
+    // whether the token at start is word
+    boolean is(int start, String word) {
+      return at - start == word.length() && s.startsWith(word, start);
+    }
+  }
+
+  // the offset of a line and character, and back
+
+  int offset(int line, int character) {
+    lines();
+    if (line < 0)
+      return 0;
+    if (line >= lines.length)
+      return text.length();
+    return Math.min(lines[line] + character, text.length());
+  }
+
+  int line(int offset) {
+    lines();
+    int lo = 0, hi = lines.length - 1;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (lines[mid] <= offset)
+	lo = mid;
+      else
+	hi = mid - 1;
+    }
+    return lo;
+  }
+
+  int character(int offset) {return offset - lines[line(offset)];}
+
+  private void lines() {
+    if (lines != null)
+      return;
+    int n = 1;
+    for (int i = 0; i < text.length(); i++)
+      if (text.charAt(i) == '\n')
+	n++;
+    lines = new int[n];
+    n = 1;
+    for (int i = 0; i < text.length(); i++)
+      if (text.charAt(i) == '\n')
+	lines[n++] = i + 1;
+  }
+
+  // the end of the word at offset, for the range of an error there
+  int wordEnd(int offset) {
+    int end = offset;
+    while (end < text.length() && (Character.isLetterOrDigit(text.charAt(end))
+				   || text.charAt(end) == '_'))
+      end++;
+    return Math.max(end, Math.min(offset + 1, text.length()));
+  }
+
+  // the innermost node at offset, or -1
+  int nodeAt(int offset) {
+    if (!checked)
+      return -1;
+    if (locator == null)
+      locator = new Locator(prog, text);
+    return locator.at(offset);
+  }
+
+  Locator locator() {return locator;}
+}
@@ -11,7 +11,7 @@ class Env {
   ErrorMsg.ErrorMsg errorMsg;
 
   private static Symbol sym(String s) {
-    return Symbol.symbol(s);
+    return Parse.Source.symbol(s);
   }
 
   private static final Types.VOID VOID = Semant.VOID;
@@ -0,0 +1,127 @@
+package Semant;
+import Absyn.*;
+
+// Rewrites a type checked tree: operators on integer constants become
+// constants, and an if with a constant test becomes the arm that runs.
+// It has to wait until after checking, since Tiger requires the dead arm
+// to be well typed too; the new nodes keep the types Semant gave.
+class Fold {
+  Exp foldExp(Exp e) {
+    if (e == null)
+      return null;
+    if (e instanceof OpExp)
+      return foldExp((OpExp)e);
+    if (e instanceof IfExp)
+      return foldExp((IfExp)e);
+    if (e instanceof VarExp)
+      foldVar(((VarExp)e).var);
+    else if (e instanceof CallExp) {
+      for (ExpList a = ((CallExp)e).args; a != null; a = a.tail)
+	a.head = foldExp(a.head);
+    }
+    else if (e instanceof RecordExp) {
+      for (FieldExpList f = ((RecordExp)e).fields; f != null; f = f.tail)
+	f.init = foldExp(f.init);
+    }
+    else if (e instanceof SeqExp) {
+      for (ExpList l = ((SeqExp)e).list; l != null; l = l.tail)
+	l.head = foldExp(l.head);
+    }
+    else if (e instanceof AssignExp) {
+      AssignExp a = (AssignExp)e;
+      foldVar(a.var);
+      a.exp = foldExp(a.exp);
+    }
+    else if (e instanceof WhileExp) {
+      WhileExp w = (WhileExp)e;
+      w.test = foldExp(w.test);
+      w.body = foldExp(w.body);
+    }
+    else if (e instanceof ForExp) {
+      ForExp f = (ForExp)e;
+      f.var.init = foldExp(f.var.init);
+      f.hi = foldExp(f.hi);
+      f.body = foldExp(f.body);
+    }
+    else if (e instanceof LetExp) {
+      LetExp l = (LetExp)e;
+      for (DecList d = l.decs; d != null; d = d.tail)
+	foldDec(d.head);
+      l.body = foldExp(l.body);
+    }
+    else if (e instanceof ArrayExp) {
+      ArrayExp a = (ArrayExp)e;
+      a.size = foldExp(a.size);
+      a.init = foldExp(a.init);
+    }
+    return e;
+  }
+
+  Exp foldExp(OpExp e) {
+    e.left = foldExp(e.left);
+    e.right = foldExp(e.right);
+    if (!(e.left instanceof IntExp && e.right instanceof IntExp))
+      return e;
+    int a = ((IntExp)e.left).value;
+    int b = ((IntExp)e.right).value;
+    int value;
+    switch (e.oper) {
+    case OpExp.PLUS:  value = a + b; break;
+    case OpExp.MINUS: value = a - b; break;
+    case OpExp.MUL:   value = a * b; break;
+    case OpExp.DIV:
+      //leave division by zero for run time
+      if (b == 0)
+	return e;
+      value = a / b;
+      break;
+    case OpExp.EQ:    value = a == b ? 1 : 0; break;
+    case OpExp.NE:    value = a != b ? 1 : 0; break;
+    case OpExp.LT:    value = a < b ? 1 : 0; break;
+    case OpExp.LE:    value = a <= b ? 1 : 0; break;
+    case OpExp.GT:    value = a > b ? 1 : 0; break;
+    case OpExp.GE:    value = a >= b ? 1 : 0; break;
+    default:
+      throw new Error("Fold.foldExp.OpExp");
+    }
+    Exp result = new IntExp(e.pos, value);
+    result.type = e.type;
+    return result;
+  }
+
+  Exp foldExp(IfExp e) {
+    e.test = foldExp(e.test);
+    if (!(e.test instanceof IntExp)) {
+      e.thenclause = foldExp(e.thenclause);
+      e.elseclause = foldExp(e.elseclause);
+      return e;
+    }
+    if (((IntExp)e.test).value != 0)
+      return foldExp(e.thenclause);
+    if (e.elseclause != null)
+      return foldExp(e.elseclause);
+    //if-then that never runs: nothing left but ()
+    Exp result = new SeqExp(e.pos, null);
+    result.type = e.type;
+    return result;
+  }
+
+  void foldVar(Var v) {
+    if (v instanceof FieldVar)
+      foldVar(((FieldVar)v).var);
+    else if (v instanceof SubscriptVar) {
+      SubscriptVar s = (SubscriptVar)v;
+      foldVar(s.var);
+      s.index = foldExp(s.index);
+    }
+  }
+
+  void foldDec(Dec d) {
+    if (d instanceof VarDec)
+      ((VarDec)d).init = foldExp(((VarDec)d).init);
+    else if (d instanceof FunctionDec) {
+      for (FunctionDec f = (FunctionDec)d; f != null; f = f.next)
+	f.body = foldExp(f.body);
+    }
+  }
+}
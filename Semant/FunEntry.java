@@ -1,9 +1,14 @@
 package Semant;
 
 public class FunEntry extends Entry {
+  public Translate.Level level;	// null for the library functions
   public Types.RECORD formals;
   public Types.Type result;
   FunEntry(Types.RECORD f, Types.Type r) {
+    this(null, f, r);
+  }
+  FunEntry(Translate.Level l, Types.RECORD f, Types.Type r) {
+    level = l;
     formals = f;
     result = r;
   }
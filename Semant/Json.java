@@ -0,0 +1,234 @@
+package Semant;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Vector;
+
+// Just enough JSON for the language server.  An object reads as a
+// Hashtable, an array as a Vector, a number as a Double, true and false as
+// Booleans and null as NULL, since a Hashtable can't hold null; write
+// takes the same, and Integers and Longs as well.
+class Json {
+  static final Object NULL = new Object();
+
+  private String s;
+  private int at;
+
+  private Json(String text) {s = text;}
+
+  static Object parse(String text) {
+    Json j = new Json(text);
+    Object v = j.value();
+    j.blanks();
+    if (j.at != text.length())
+      throw j.bad();
+    return v;
+  }
+
+  private RuntimeException bad() {
+    return new IllegalArgumentException("bad JSON at " + at);
+  }
+
+  private void blanks() {
+    while (at < s.length() && s.charAt(at) <= ' ')
+      at++;
+  }
+
+  private boolean next(char c) {
+    blanks();
+    if (at < s.length() && s.charAt(at) == c) {
+      at++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expect(char c) {
+    if (!next(c))
+      throw bad();
+  }
+
+  private Object value() {
+    blanks();
+    if (at >= s.length())
+      throw bad();
+    char c = s.charAt(at);
+    if (c == '{') {
+      at++;
+      Hashtable<String,Object> o = new Hashtable<String,Object>();
+      if (next('}'))
+	return o;
+      do {
+	blanks();
+	String name = string();
+	expect(':');
+	o.put(name, value());
+      } while (next(','));
+      expect('}');
+      return o;
+    }
+    if (c == '[') {
+      at++;
+      Vector<Object> a = new Vector<Object>();
+      if (next(']'))
+	return a;
+      do
+	a.addElement(value());
+      while (next(','));
+      expect(']');
+      return a;
+    }
+    if (c == '"')
+      return string();
+    if (s.startsWith("true", at)) {
+      at += 4;
+      return Boolean.TRUE;
+    }
+    if (s.startsWith("false", at)) {
+      at += 5;
+      return Boolean.FALSE;
+    }
+    if (s.startsWith("null", at)) {
+      at += 4;
+      return NULL;
+    }
+    int from = at;
+    while (at < s.length() && "+-0123456789.eE".indexOf(s.charAt(at)) >= 0)
+      at++;
+    try {
+      return Double.valueOf(s.substring(from, at));
+    } catch (NumberFormatException e) {
+      throw bad();
+    }
+  }
+
+  private String string() {
+    if (at >= s.length() || s.charAt(at) != '"')
+      throw bad();
+    StringBuffer b = new StringBuffer();
+    for (at++; at < s.length(); at++) {
+      char c = s.charAt(at);
+      if (c == '"') {
+	at++;
+	return b.toString();
+      }
+      if (c != '\\') {
+	b.append(c);
+	continue;
+      }
+      if (++at >= s.length())
+	break;
+      c = s.charAt(at);
+      switch (c) {
+      case 'n': b.append('\n'); break;
+      case 't': b.append('\t'); break;
+      case 'r': b.append('\r'); break;
+      case 'b': b.append('\b'); break;
+      case 'f': b.append('\f'); break;
+      case 'u':
+	if (at + 5 > s.length())
+	  throw bad();
+	b.append((char)Integer.parseInt(s.substring(at + 1, at + 5), 16));
+	at += 4;
+	break;
+      default: b.append(c);
+      }
+    }
+    throw bad();
+  }
+
+  static String write(Object v) {
+    StringBuffer b = new StringBuffer();
+    write(b, v);
+    return b.toString();
+  }
+
+  static void write(StringBuffer b, Object v) {
+    if (v == null || v == NULL)
+      b.append("null");
+    else if (v instanceof String)
+      quote(b, (String)v);
+    else if (v instanceof Double) {
+      double d = ((Double)v).doubleValue();
+      if (d == Math.rint(d) && Math.abs(d) < 1e15)
+	b.append((long)d);
+      else
+	b.append(d);
+    }
+    else if (v instanceof Number || v instanceof Boolean)
+      b.append(v);
+    else if (v instanceof Hashtable) {
+      Hashtable<?,?> o = (Hashtable<?,?>)v;
+      b.append('{');
+      for (Enumeration<?> e = o.keys(); e.hasMoreElements();) {
+	String name = (String)e.nextElement();
+	quote(b, name);
+	b.append(':');
+	write(b, o.get(name));
+	if (e.hasMoreElements())
+	  b.append(',');
+      }
+      b.append('}');
+    }
+    else if (v instanceof Vector) {
+      Vector<?> a = (Vector<?>)v;
+      b.append('[');
+      for (int i = 0; i < a.size(); i++) {
+	if (i > 0)
+	  b.append(',');
+	write(b, a.elementAt(i));
+      }
+      b.append(']');
+    }
+    else throw new Error("Json.write");
+  }
+
+  static void quote(StringBuffer b, String s) {
+    b.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\')
+	b.append('\\').append(c);
+      else if (c == '\n')
+	b.append("\\n");
+      else if (c < ' ') {
+	String hex = Integer.toHexString(c);
+	b.append("\\u00");
+	if (hex.length() < 2)
+	  b.append('0');
+	b.append(hex);
+      } else
+	b.append(c);
+    }
+    b.append('"');
+  }
+
+  // o.a.b..., or null if any of it is missing
+  static Object get(Object o, String path) {
+    java.util.StringTokenizer names = new java.util.StringTokenizer(path, ".");
+    while (names.hasMoreTokens()) {
+      if (!(o instanceof Hashtable))
+	return null;
+      o = ((Hashtable<?,?>)o).get(names.nextToken());
+    }
+    return o;
+  }
+
+  static int getInt(Object o, String path) {
+    Object v = get(o, path);
+    return v instanceof Number ? ((Number)v).intValue() : -1;
+  }
+
+  static String getString(Object o, String path) {
+    Object v = get(o, path);
+    return v instanceof String ? (String)v : null;
+  }
+
+  // an object from names and values in turn
+  static Hashtable<String,Object> object(Object[] namesAndValues) {
+    Hashtable<String,Object> o = new Hashtable<String,Object>();
+    for (int i = 0; i + 1 < namesAndValues.length; i += 2)
+      o.put((String)namesAndValues[i], namesAndValues[i + 1] == null ? NULL
+	    : namesAndValues[i + 1]);
+    return o;
+  }
+}
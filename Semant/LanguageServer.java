@@ -0,0 +1,240 @@
+package Semant;
+import java.io.*;
+import java.util.Hashtable;
+import java.util.Vector;
+import java.util.concurrent.*;
+
+// A language server for editors, speaking LSP (JSON-RPC with
+// Content-Length headers) on stdin and stdout:
+//   java Semant.LanguageServer
+// It keeps the open files whole (didOpen, didChange, didClose), publishes
+// the parser's and Semant's errors for each, and answers hover with the
+// type Types.Print shows for the innermost expression or declaration at
+// the cursor.
+//
+// A change is checked DELAY ms after it comes, unless another comes
+// first; a check already running for an older text is cancelled.  All
+// checks and hovers run in turn on one worker thread, so a Document is
+// only ever used by one thread; see Document for what is reused from one
+// check to the next.
+public class LanguageServer {
+  final static int DELAY = 200;		// ms to wait for more typing
+
+  InputStream in;
+  OutputStream out;
+  // by uri, each document and its next check
+  Hashtable<String,Document> documents = new Hashtable<String,Document>();
+  Hashtable<String,Future<?>> waiting = new Hashtable<String,Future<?>>();
+  ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+  boolean shutdown;
+
+  LanguageServer(InputStream i, OutputStream o) {
+    in = new BufferedInputStream(i, 1 << 16);
+    out = new BufferedOutputStream(o, 1 << 16);
+  }
+
+  public static void main(String argv[]) throws IOException {
+    LanguageServer server = new LanguageServer(System.in,
+      new FileOutputStream(FileDescriptor.out));
+    int code = server.serve();
+    server.worker.shutdownNow();
+    System.exit(code);
+  }
+
+  // reads messages until exit or the end of the input
+  int serve() throws IOException {
+    String message;
+    while ((message = read()) != null) {
+      Object m;
+      try {
+	m = Json.parse(message);
+      } catch (IllegalArgumentException e) {
+	send(Json.object(new Object[] {"jsonrpc", "2.0", "id", null,
+	  "error", error(-32700, e.getMessage())}));
+	continue;
+      }
+      String method = Json.getString(m, "method");
+      if ("exit".equals(method))
+	return shutdown ? 0 : 1;
+      if (method != null)
+	handle(method, ((Hashtable<?,?>)m).get("id"), Json.get(m, "params"));
+    }
+    return 1;
+  }
+
+  // the body of the next message, or null at the end
+  String read() throws IOException {
+    int length = -1;
+    for (;;) {
+      String header = line();
+      if (header == null)
+	return null;
+      if (header.length() == 0)
+	break;
+      if (header.toLowerCase().startsWith("content-length:"))
+	length = Integer.parseInt(header.substring(15).trim());
+    }
+    if (length < 0)
+      throw new IOException("LanguageServer.read: no Content-Length");
+    byte[] body = new byte[length];
+    for (int got = 0, r; got < length; got += r)
+      if ((r = in.read(body, got, length - got)) < 0)
+	return null;
+    return new String(body, "UTF-8");
+  }
+
+  String line() throws IOException {
+    StringBuffer b = new StringBuffer();
+    int c;
+    while ((c = in.read()) >= 0 && c != '\n')
+      if (c != '\r')
+	b.append((char)c);
+    return c < 0 && b.length() == 0 ? null : b.toString();
+  }
+
+  synchronized void send(Hashtable<String,Object> message) {
+    try {
+      byte[] body = Json.write(message).getBytes("UTF-8");
+      out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes("US-ASCII"));
+      out.write(body);
+      out.flush();
+    } catch (IOException e) {
+      //the editor has gone; exit will come, or the end of the input
+    }
+  }
+
+  void respond(Object id, Object result) {
+    send(Json.object(new Object[] {"jsonrpc", "2.0", "id", id, "result", result}));
+  }
+
+  static Hashtable<String,Object> error(int code, String message) {
+    return Json.object(new Object[] {"code", Integer.valueOf(code), "message", message});
+  }
+
+  void handle(String method, final Object id, Object params) {
+    final String uri = Json.getString(params, "textDocument.uri");
+    if (method.equals("initialize")) {
+      Hashtable<String,Object> sync = Json.object(new Object[] {"openClose", Boolean.TRUE,
+	"change", Integer.valueOf(1)});		// the whole text each time
+      respond(id, Json.object(new Object[] {
+	"capabilities", Json.object(new Object[] {"textDocumentSync", sync,
+	  "hoverProvider", Boolean.TRUE}),
+	"serverInfo", Json.object(new Object[] {"name", "tiger"})}));
+    }
+    else if (method.equals("shutdown")) {
+      shutdown = true;
+      respond(id, null);
+    }
+    else if (method.equals("textDocument/didOpen") && uri != null) {
+      Document d = new Document(uri);
+      documents.put(uri, d);
+      change(d, Json.getString(params, "textDocument.text"),
+	     Json.getInt(params, "textDocument.version"), 0);
+    }
+    else if (method.equals("textDocument/didChange") && uri != null) {
+      Document d = documents.get(uri);
+      Object changes = Json.get(params, "contentChanges");
+      if (d != null && changes instanceof Vector && ((Vector<?>)changes).size() > 0) {
+	Vector<?> c = (Vector<?>)changes;
+	change(d, Json.getString(c.elementAt(c.size() - 1), "text"),
+	       Json.getInt(params, "textDocument.version"), DELAY);
+      }
+    }
+    else if (method.equals("textDocument/didClose") && uri != null) {
+      Document d = documents.remove(uri);
+      if (d != null) {
+	cancel(d, d.latest + 1);
+	worker.execute(new Runnable() {
+	  public void run() {
+	    publish(uri, -1, new Vector<Object>());
+	  }
+	});
+      }
+    }
+    else if (method.equals("textDocument/hover")) {
+      final Document d = uri == null ? null : documents.get(uri);
+      final int line = Json.getInt(params, "position.line");
+      final int character = Json.getInt(params, "position.character");
+      worker.execute(new Runnable() {
+	public void run() {
+	  respond(id, d == null || d.text == null ? null : hover(d, line, character));
+	}
+      });
+    }
+    else if (id != null)
+      send(Json.object(new Object[] {"jsonrpc", "2.0", "id", id,
+	"error", error(-32601, "no method " + method)}));
+  }
+
+  // stops any check of d before version, and forgets one still waiting
+  void cancel(Document d, int version) {
+    d.latest = version;
+    Semant s = d.running;
+    if (s != null)
+      s.cancelled = true;
+    Future<?> f = waiting.remove(d.uri);
+    if (f != null)
+      f.cancel(false);
+  }
+
+  void change(final Document d, final String text, int v, long delay) {
+    if (text == null)
+      return;
+    //versions should go up, but don't count on it
+    final int version = Math.max(v, d.latest + 1);
+    cancel(d, version);
+    waiting.put(d.uri, worker.schedule(new Runnable() {
+      public void run() {
+	if (d.analyse(text, version))
+	  publish(d);
+      }
+    }, delay, TimeUnit.MILLISECONDS));
+  }
+
+  void publish(Document d) {
+    Vector<Object> diagnostics = new Vector<Object>();
+    Document.Errors e = d.errors;
+    for (int i = 0; i < e.size(); i++)
+      diagnostics.addElement(Json.object(new Object[] {
+	"range", range(d, e.pos[i], d.wordEnd(e.pos[i])),
+	"severity", Integer.valueOf(1),
+	"source", "tiger",
+	"message", e.messages.elementAt(i)}));
+    publish(d.uri, d.version, diagnostics);
+  }
+
+  void publish(String uri, int version, Vector<Object> diagnostics) {
+    Hashtable<String,Object> params = Json.object(new Object[] {"uri", uri, "diagnostics", diagnostics});
+    if (version >= 0)
+      params.put("version", Integer.valueOf(version));
+    send(Json.object(new Object[] {"jsonrpc", "2.0",
+      "method", "textDocument/publishDiagnostics", "params", params}));
+  }
+
+  static Hashtable<String,Object> position(Document d, int offset) {
+    return Json.object(new Object[] {"line", Integer.valueOf(d.line(offset)),
+      "character", Integer.valueOf(d.character(offset))});
+  }
+
+  static Hashtable<String,Object> range(Document d, int start, int end) {
+    return Json.object(new Object[] {"start", position(d, start), "end", position(d, end)});
+  }
+
+  // the type at a place, as Types.Print shows it, or null
+  static Hashtable<String,Object> hover(Document d, int line, int character) {
+    int id = d.nodeAt(d.offset(line, character));
+    if (id < 0)
+      return null;
+    Locator l = d.locator();
+    Types.Type t = l.type(id);
+    if (t == null)
+      return null;
+    StringWriter s = new StringWriter();
+    PrintWriter w = new PrintWriter(s);
+    new Types.Print(w).prType(t, 0);
+    w.flush();
+    return Json.object(new Object[] {
+      "contents", Json.object(new Object[] {"kind", "plaintext", "value", s.toString()}),
+      "range", range(d, l.start(id), l.end(id))});
+  }
+}
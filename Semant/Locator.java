@@ -0,0 +1,455 @@
+package Semant;
+import Absyn.*;
+
+// Finds the syntax at a place in the source, for an editor: the innermost
+// node at an offset, its type, its entry, and the declaration a name there
+// refers to.  Built once after Semant, it answers with a binary search.
+//
+// The parser keeps only one position per node, and not always its first
+// one (an OpExp has its operator's), so each node's span is worked out
+// here: from the start of its first token to the end of its last,
+// including its children and closing ), ], } or end, read from the source.
+// Spans nest, so the source divides into segments with one innermost node
+// each; at() looks the offset up among them.
+public class Locator {
+  private String src;
+  private AnalysisResult result;	// where Semant's findings are, or null
+  private Absyn[] nodes = new Absyn[256];
+  private int[] start = new int[256], end = new int[256];
+  private int[] parent = new int[256], decl = new int[256];
+  private int count;
+  private int[] segStart, segNode;	// segment k runs to segStart[k+1]
+  private int segments;
+  private Symbol.Table venv = new Symbol.Table(), tenv = new Symbol.Table();
+
+  // prog must have been through Semant; source is the text it was parsed from
+  public Locator(Exp prog, String source) {
+    this(prog, source, null);
+  }
+
+  // for a tree checked by a Semant made with r
+  public Locator(Exp prog, String source, AnalysisResult r) {
+    src = source;
+    result = r;
+    exp(prog, -1);
+    venv = tenv = null;
+    spans();
+    segment();
+  }
+
+  public int size() {return count;}
+
+  // the innermost node whose span holds offset, or -1
+  public int at(int offset) {
+    int lo = 0, hi = segments - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (segStart[mid] <= offset)
+	lo = mid + 1;
+      else
+	hi = mid - 1;
+    }
+    return hi < 0 ? -1 : segNode[hi];
+  }
+
+  public Absyn node(int id) {return nodes[id];}
+  public int start(int id) {return start[id];}
+  public int end(int id) {return end[id];}
+  public int parent(int id) {return parent[id];}
+
+  // the VarDec, parameter Field, FunctionDec or TypeDec a name refers to,
+  // or -1 for the library and the built in types
+  public int declaration(int id) {return decl[id];}
+
+  public Types.Type type(int id) {
+    Absyn n = nodes[id];
+    if (n instanceof Exp)
+      return type((Exp)n);
+    if (n instanceof VarDec) {
+      VarEntry e = (VarEntry)entry(id);
+      return e == null ? null : e.ty;
+    }
+    if (n instanceof FunctionDec) {
+      FunEntry e = (FunEntry)entry(id);
+      return e == null ? null : e.result;
+    }
+    if (n instanceof TypeDec)
+      return result != null ? result.entry((TypeDec)n) : ((TypeDec)n).entry;
+    //a variable has the type of the expression it makes, or of its declaration
+    if (n instanceof Var && parent[id] >= 0 && nodes[parent[id]] instanceof VarExp)
+      return type((Exp)nodes[parent[id]]);
+    if (decl[id] >= 0 && decl[id] != id)
+      return type(decl[id]);
+    return null;
+  }
+
+  private Types.Type type(Exp e) {
+    return result != null ? result.type(e) : e.type;
+  }
+
+  public Entry entry(int id) {
+    Absyn n = nodes[id];
+    if (n instanceof VarDec)
+      return result != null ? result.entry((VarDec)n) : ((VarDec)n).entry;
+    if (n instanceof FunctionDec)
+      return result != null ? result.entry((FunctionDec)n) : ((FunctionDec)n).entry;
+    if (decl[id] >= 0 && decl[id] != id)
+      return entry(decl[id]);
+    return null;
+  }
+
+  // numbering the nodes; a node is numbered before its children
+
+  private int add(Absyn n, int up) {
+    if (count == nodes.length) {
+      int size = count * 2;
+      Absyn[] b = new Absyn[size];
+      System.arraycopy(nodes, 0, b, 0, count);
+      nodes = b;
+      start = grow(start, size);
+      end = grow(end, size);
+      parent = grow(parent, size);
+      decl = grow(decl, size);
+    }
+    nodes[count] = n;
+    parent[count] = up;
+    decl[count] = -1;
+    start[count] = n.pos;
+    end[count] = token(n.pos);
+    return count++;
+  }
+
+  private static int[] grow(int[] a, int size) {
+    int[] b = new int[size];
+    System.arraycopy(a, 0, b, 0, a.length);
+    return b;
+  }
+
+  private int lookup(Symbol.Table t, Symbol.Symbol s) {
+    Integer i = s == null ? null : (Integer)t.get(s);
+    return i == null ? -1 : i.intValue();
+  }
+
+  private void var(Var v, int up) {
+    int id = add(v, up);
+    if (v instanceof SimpleVar)
+      decl[id] = lookup(venv, ((SimpleVar)v).name);
+    else if (v instanceof FieldVar)
+      var(((FieldVar)v).var, id);
+    else if (v instanceof SubscriptVar) {
+      var(((SubscriptVar)v).var, id);
+      exp(((SubscriptVar)v).index, id);
+    }
+  }
+
+  private void exps(ExpList l, int up) {
+    for (; l != null; l = l.tail)
+      exp(l.head, up);
+  }
+
+  private void exp(Exp e, int up) {
+    if (e == null)
+      return;
+    int id = add(e, up);
+    if (e instanceof VarExp)
+      var(((VarExp)e).var, id);
+    else if (e instanceof CallExp) {
+      decl[id] = lookup(venv, ((CallExp)e).func);
+      exps(((CallExp)e).args, id);
+    }
+    else if (e instanceof OpExp) {
+      exp(((OpExp)e).left, id);
+      exp(((OpExp)e).right, id);
+    }
+    else if (e instanceof RecordExp) {
+      decl[id] = lookup(tenv, ((RecordExp)e).typ);
+      for (FieldExpList f = ((RecordExp)e).fields; f != null; f = f.tail)
+	exp(f.init, add(f, id));
+    }
+    else if (e instanceof SeqExp)
+      exps(((SeqExp)e).list, id);
+    else if (e instanceof AssignExp) {
+      var(((AssignExp)e).var, id);
+      exp(((AssignExp)e).exp, id);
+    }
+    else if (e instanceof IfExp) {
+      exp(((IfExp)e).test, id);
+      exp(((IfExp)e).thenclause, id);
+      exp(((IfExp)e).elseclause, id);
+    }
+    else if (e instanceof WhileExp) {
+      exp(((WhileExp)e).test, id);
+      exp(((WhileExp)e).body, id);
+    }
+    else if (e instanceof ForExp) {
+      //the index is only in scope in the body
+      ForExp f = (ForExp)e;
+      int v = add(f.var, id);
+      exp(f.var.init, v);
+      exp(f.hi, id);
+      venv.beginScope();
+      venv.put(f.var.name, Integer.valueOf(v));
+      exp(f.body, id);
+      venv.endScope();
+    }
+    else if (e instanceof LetExp) {
+      venv.beginScope();
+      tenv.beginScope();
+      for (DecList d = ((LetExp)e).decs; d != null; d = d.tail)
+	dec(d.head, id);
+      exp(((LetExp)e).body, id);
+      venv.endScope();
+      tenv.endScope();
+    }
+    else if (e instanceof ArrayExp) {
+      decl[id] = lookup(tenv, ((ArrayExp)e).typ);
+      exp(((ArrayExp)e).size, id);
+      exp(((ArrayExp)e).init, id);
+    }
+  }
+
+  private void dec(Dec d, int up) {
+    if (d instanceof VarDec) {
+      VarDec v = (VarDec)d;
+      int id = add(v, up);
+      ty(v.typ, id);
+      exp(v.init, id);
+      venv.put(v.name, Integer.valueOf(id));
+    }
+    else if (d instanceof FunctionDec) {
+      //the whole group is in scope in each body
+      int first = count;
+      for (FunctionDec f = (FunctionDec)d; f != null; f = f.next)
+	venv.put(f.name, Integer.valueOf(add(f, up)));
+      int id = first;
+      for (FunctionDec f = (FunctionDec)d; f != null; f = f.next, id++) {
+	venv.beginScope();
+	fields(f.params, id, true);
+	ty(f.result, id);
+	exp(f.body, id);
+	venv.endScope();
+      }
+    }
+    else if (d instanceof TypeDec) {
+      int first = count;
+      for (TypeDec t = (TypeDec)d; t != null; t = t.next)
+	tenv.put(t.name, Integer.valueOf(add(t, up)));
+      int id = first;
+      for (TypeDec t = (TypeDec)d; t != null; t = t.next, id++)
+	ty(t.ty, id);
+    }
+  }
+
+  private void ty(Ty t, int up) {
+    if (t == null)
+      return;
+    int id = add(t, up);
+    if (t instanceof NameTy)
+      decl[id] = lookup(tenv, ((NameTy)t).name);
+    else if (t instanceof ArrayTy)
+      decl[id] = lookup(tenv, ((ArrayTy)t).typ);
+    else if (t instanceof RecordTy)
+      fields(((RecordTy)t).fields, id, false);
+  }
+
+  private void fields(FieldList f, int up, boolean params) {
+    for (; f != null; f = f.tail) {
+      int id = add(f, up);
+      decl[id] = lookup(tenv, f.typ);
+      if (params)
+	venv.put(f.name, Integer.valueOf(id));
+    }
+  }
+
+  // spans, from the source
+
+  private static boolean letter(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  // past any blanks and comments from at
+  private int skip(int at) {
+    int n = src.length();
+    while (at < n) {
+      char c = src.charAt(at);
+      if (Character.isWhitespace(c))
+	at++;
+      else if (src.startsWith("/*", at)) {
+	int depth = 0;
+	do {
+	  if (src.startsWith("/*", at)) {
+	    depth++;
+	    at += 2;
+	  } else if (src.startsWith("*/", at)) {
+	    depth--;
+	    at += 2;
+	  } else
+	    at++;
+	} while (depth > 0 && at < n);
+      }
+      else
+	break;
+    }
+    return at;
+  }
+
+  // the end of the token starting at at
+  private int token(int at) {
+    int n = src.length();
+    if (at < 0 || at >= n)
+      return at;
+    char c = src.charAt(at);
+    if (letter(c)) {
+      while (at < n && letter(src.charAt(at)))
+	at++;
+      return at;
+    }
+    if (c == '"') {
+      for (at++; at < n && src.charAt(at) != '"'; at++)
+	if (src.charAt(at) == '\\')
+	  at++;
+      return Math.min(at + 1, n);
+    }
+    if (src.startsWith(":=", at) || src.startsWith("<=", at)
+	|| src.startsWith(">=", at) || src.startsWith("<>", at))
+      return at + 2;
+    return at + 1;
+  }
+
+  // past the token tok after at, if that is what comes next
+  private int closer(int at, String tok) {
+    int t = skip(at);
+    if (!src.startsWith(tok, t))
+      return at;
+    if (letter(tok.charAt(0)) && t + tok.length() < src.length()
+	&& letter(src.charAt(t + tok.length())))
+      return at;
+    return t + tok.length();
+  }
+
+  // back to the token tok before at, if that is what comes before
+  private int opener(int at, String tok) {
+    int t = at;
+    while (t > 0 && Character.isWhitespace(src.charAt(t-1)))
+      t--;
+    t -= tok.length();
+    if (t < 0 || !src.startsWith(tok, t))
+      return at;
+    if (letter(tok.charAt(0)) && t > 0 && letter(src.charAt(t-1)))
+      return at;
+    return t;
+  }
+
+  // children are numbered after their parents, so going down the numbers
+  // finishes every node before its parent takes its span in
+  private void spans() {
+    for (int id = count - 1; id >= 0; id--) {
+      Absyn n = nodes[id];
+      int e = end[id];
+      if (n instanceof CallExp) {
+	if (((CallExp)n).args == null)
+	  e = closer(e, "(");
+	e = closer(e, ")");
+      }
+      else if (n instanceof RecordExp) {
+	if (((RecordExp)n).fields == null)
+	  e = closer(e, "{");
+	e = closer(e, "}");
+      }
+      else if (n instanceof RecordTy)
+	e = closer(e, "}");
+      else if (n instanceof SubscriptVar)
+	e = closer(e, "]");
+      else if (n instanceof SeqExp) {
+	start[id] = opener(start[id], "(");
+	e = closer(e, ")");
+      }
+      else if (n instanceof LetExp)
+	e = closer(e, "end");
+      else if (n instanceof VarDec)
+	start[id] = opener(start[id], "var");
+      else if (n instanceof FunctionDec)
+	start[id] = opener(start[id], "function");
+      else if (n instanceof TypeDec)
+	start[id] = opener(start[id], "type");
+      end[id] = e;
+      int p = parent[id];
+      if (p >= 0) {
+	if (start[id] < start[p])
+	  start[p] = start[id];
+	if (end[id] > end[p])
+	  end[p] = end[id];
+      }
+    }
+  }
+
+  // order the nodes by start, outermost first, and sweep them with a stack
+  // of the spans still open, cutting the source into segments
+  private void segment() {
+    int[] order = new int[count];
+    for (int i = 0; i < count; i++)
+      order[i] = i;
+    sort(order, new int[count], 0, count);
+    segStart = new int[2 * count + 1];
+    segNode = new int[2 * count + 1];
+    int[] open = new int[16];
+    int depth = 0;
+    int at = 0;
+    for (int k = 0; k <= count; k++) {
+      int id = k < count ? order[k] : -1;
+      int s = id < 0 ? Integer.MAX_VALUE : start[id];
+      //close the spans that end before this one starts
+      while (depth > 0 && end[open[depth-1]] <= s) {
+	int top = open[--depth];
+	if (at < end[top]) {
+	  cut(at, top);
+	  at = end[top];
+	}
+      }
+      if (id < 0)
+	break;
+      if (at < s) {
+	cut(at, depth > 0 ? open[depth-1] : -1);
+	at = s;
+      }
+      if (depth == open.length)
+	open = grow(open, depth * 2);
+      open[depth++] = id;
+    }
+    cut(at, -1);
+  }
+
+  private void cut(int at, int id) {
+    if (segments > 0 && segStart[segments-1] == at)
+      segments--;
+    if (segments > 0 && segNode[segments-1] == id)
+      return;
+    segStart[segments] = at;
+    segNode[segments++] = id;
+  }
+
+  // by start, then by end from the last, then parents first
+  private boolean before(int a, int b) {
+    if (start[a] != start[b])
+      return start[a] < start[b];
+    if (end[a] != end[b])
+      return end[a] > end[b];
+    return a < b;
+  }
+
+  private void sort(int[] a, int[] tmp, int lo, int hi) {
+    if (hi - lo < 2)
+      return;
+    int mid = (lo + hi) >>> 1;
+    sort(a, tmp, lo, mid);
+    sort(a, tmp, mid, hi);
+    int i = lo, j = mid, k = lo;
+    while (i < mid && j < hi)
+      tmp[k++] = before(a[j], a[i]) ? a[j++] : a[i++];
+    while (i < mid)
+      tmp[k++] = a[i++];
+    while (j < hi)
+      tmp[k++] = a[j++];
+    System.arraycopy(tmp, lo, a, lo, hi - lo);
+  }
+}
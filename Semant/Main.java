@@ -1,22 +1,110 @@
 package Semant;
-import java.io.PrintWriter;
+import java.io.*;
 import Parse.Parse;
 
 public class Main {
 
-  public static void main(String argv[])  {
-    for (int i = 0; i < argv.length; ++i) {
+  public static void main(String argv[]) throws IOException {
+    //-ir prints the tree code for each function instead of the syntax tree
+    //-fold folds constants and prunes dead if arms
+    //-save writes the checked tree of file.tig to file.tig.ast as well
+    //a file.ast given instead of a file.tig is loaded, not checked again
+    //-json or -sexp prints the checked tree for other programs to read
+    //-check prints only the errors
+    int first = 0;
+    boolean ir = false, fold = false, save = false, check = false;
+    int dump = -1;
+    for (; first < argv.length && argv[first].startsWith("-"); first++) {
+      if (argv[first].equals("-ir"))
+	ir = true;
+      else if (argv[first].equals("-fold"))
+	fold = true;
+      else if (argv[first].equals("-save"))
+	save = true;
+      else if (argv[first].equals("-json"))
+	dump = Absyn.Dump.JSON;
+      else if (argv[first].equals("-sexp"))
+	dump = Absyn.Dump.SEXP;
+      else if (argv[first].equals("-check"))
+	check = true;
+      else
+	break;
+    }
+    for (int i = first; i < argv.length; ++i) {
       String filename = argv[i];
-      if (argv.length > 1)
+      if (argv.length - first > 1)
 	System.out.println("***Processing: " + filename);
+      if (filename.endsWith(".ast")) {
+	InputStream in = new FileInputStream(filename);
+	Absyn.Exp loaded = new BinaryReader(in).prog;
+	in.close();
+	print(out(), loaded, dump);
+	out().flush();
+	continue;
+      }
       Parse parse = new Parse(filename);
+      if (ir) {
+	Semant semant = new Semant(parse.errorMsg, new Mips.MipsFrame(),
+				   new Translate.FragConsumer() {
+	  public void consume(Translate.Frag frag) {
+	    prFrag(out(), frag);
+	  }
+	});
+	semant.fold = fold;
+	semant.transProg(parse.absyn);
+	out().flush();
+	continue;
+      }
       Semant semant = new Semant(parse.errorMsg);
-      semant.transProg(parse.absyn);
-      PrintWriter writer = new PrintWriter(System.out);
-      Absyn.Print printer = new Absyn.Print(writer);
-      printer.prExp(parse.absyn, 0);
-      writer.println();
-      writer.flush();
+      semant.fold = fold;
+      Absyn.Exp absyn = semant.transProg(parse.absyn);
+      if (save && !parse.errorMsg.anyErrors) {
+	OutputStream out = new BufferedOutputStream(new FileOutputStream(filename + ".ast"));
+	new BinaryWriter(out).write(absyn, semant.slots);
+	out.close();
+      }
+      if (check)
+	continue;
+      print(out(), absyn, dump);
+      out().flush();
     }
   }
+
+  //a big buffer straight onto standard output's channel, flushed after
+  //each file; made when first wanted, so a run that prints nothing (or
+  //only errors) never loads the charset and channel classes it needs
+  private static PrintWriter writer;
+
+  static PrintWriter out() {
+    if (writer == null)
+      writer = new PrintWriter(new BufferedWriter(
+	java.nio.channels.Channels.newWriter(
+	  new FileOutputStream(FileDescriptor.out).getChannel(),
+	  java.nio.charset.Charset.defaultCharset().name()),
+	1 << 16));
+    return writer;
+  }
+
+  static void print(PrintWriter out, Absyn.Exp absyn, int dump) {
+    if (dump >= 0)
+      new Absyn.Dump(out, dump).dump(absyn);
+    else {
+      new Absyn.Print(out).prExp(absyn, 0);
+      out.println();
+    }
+  }
+
+  static void prFrag(PrintWriter out, Translate.Frag frag) {
+    if (frag instanceof Translate.ProcFrag) {
+      Translate.ProcFrag proc = (Translate.ProcFrag)frag;
+      out.println("PROCEDURE " + proc.frame.name);
+      new Tree.Print(out).prStm(proc.body, 0);
+      out.println();
+      out.println("END " + proc.frame.name);
+    } else if (frag instanceof Translate.DataFrag) {
+      Translate.DataFrag data = (Translate.DataFrag)frag;
+      out.println("STRING " + data.label + " \"" + data.data + "\"");
+    } else throw new Error("Main.prFrag");
+    out.flush();
+  }
 }
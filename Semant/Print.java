@@ -10,8 +10,7 @@ public class Print {
   }
 
   void indent(int d) {
-    for(int i=0; i<d; i++) 
-      out.print(' ');
+    Types.Print.indent(out, d);
   }
 
   void say(String s) {
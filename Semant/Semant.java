@@ -4,43 +4,111 @@ import Types.Type;
 
 public class Semant {
   Env env;
+  Translate.Translate translate;
+  Translate.Level level;	// function whose body is being checked
+  Temp.Label breakLabel;	// exit of the innermost loop, or null
+  public boolean fold;		// fold constants and prune dead if arms
+  public int slots;		// formals and locals of the main program
+  public Absyn.StringPool strings = new Absyn.StringPool(); // literals, each once
+  AnalysisResult analysis;	// where to record what's found, or null for the tree
+  public volatile boolean cancelled; // set from another thread to stop a check early
+  //only checks: no tree code, and no frames
   public Semant(ErrorMsg.ErrorMsg err) {
-    this(new Env(err));
+    this(new Env(err), new Translate.Check(), new Translate.Level(null));
   }
-  Semant(Env e) {
+  //records into r instead of the tree, which is left untouched
+  public Semant(ErrorMsg.ErrorMsg err, AnalysisResult r) {
+    this(err);
+    analysis = r;
+    strings = r.strings;
+  }
+  //each function is handed to frags as soon as its body is translated
+  public Semant(ErrorMsg.ErrorMsg err, Frame.Frame frame, Translate.FragConsumer frags) {
+    this(new Env(err), new Translate.Translate(frame, frags), new Translate.Level(frame));
+  }
+  Semant(Env e, Translate.Translate t, Translate.Level l) {
     env = e;
+    translate = t;
+    level = l;
   }
 
-  public void transProg(Absyn.Exp exp) {
-    transExp(exp);
+  //returns the program, which is smaller when folding
+  public Absyn.Exp transProg(Absyn.Exp exp) {
+    //decide what escapes before any variable is given a place
+    new FindEscape.FindEscape(exp, analysis);
+    translate.fold = fold;
+    //the main program is the body of a function of its own
+    Translate.Level outer = level;
+    level = new Translate.Level(outer, translate.label("tigermain"), null);
+    ExpTy body = transExp(exp);
+    translate.procEntryExit(level, body.exp, body.ty != VOID);
+    slots = level.slots;
+    level = outer;
+    if (analysis != null)
+      analysis.slots = slots;
+    //folding rewrites the syntax tree, so for an AnalysisResult only the
+    //tree code is folded
+    if (!fold || analysis != null)
+      return exp;
+    return new Fold().foldExp(exp);
   }
 
   private void error(int pos, String msg) {
     env.errorMsg.error(pos, msg);
   }
 
+  //what's found goes into the tree, or into the result if there is one
+
+  private void setType(Absyn.Exp e, Type t) {
+    if (analysis != null)
+      analysis.setType(e, t);
+    else
+      e.type = t;
+  }
+
+  private boolean escape(Absyn.VarDec d) {
+    return analysis != null ? analysis.escape(d) : d.escape;
+  }
+
+  private boolean escape(Absyn.FieldList f) {
+    return analysis != null ? analysis.escape(f) : f.escape;
+  }
+
+  private void setEntry(Absyn.VarDec d, VarEntry e) {
+    if (analysis != null)
+      analysis.setEntry(d, e);
+    else
+      d.entry = e;
+  }
+
   static final Types.VOID   VOID   = new Types.VOID();
   static final Types.INT    INT    = new Types.INT();
   static final Types.STRING STRING = new Types.STRING();
   static final Types.NIL    NIL    = new Types.NIL();
 
   private Exp checkInt(ExpTy et, int pos) {
-    if (!INT.coerceTo(et.ty))
+    if (!INT.coerceTo(et.ty)) {
       error(pos, "integer required");
+      return translate.noExp();
+    }
     return et.exp;
   }
 
   private Exp checkComparable(ExpTy et, int pos) {
-    if(!(INT.coerceTo(et.ty) || STRING.coerceTo(et.ty)))
+    if(!(INT.coerceTo(et.ty) || STRING.coerceTo(et.ty))) {
       error(pos, "integer or string required");
+      return translate.noExp();
+    }
     return et.exp;
   }
 
   private Exp checkEquable(ExpTy et, int pos) {
     //need to avoid making a record/array
     Type type = et.ty.actual();
-    if(!(type instanceof Types.INT || type instanceof Types.STRING || type instanceof Types.RECORD || type instanceof Types.ARRAY))
+    if(!(type instanceof Types.INT || type instanceof Types.STRING || type instanceof Types.RECORD || type instanceof Types.ARRAY)) {
       error(pos, "integer, string, record, or array required");
+      return translate.noExp();
+    }
     return et.exp;
   }
   
@@ -64,7 +132,7 @@ public class Semant {
     ExpTy result;
 
     if (e == null)
-      return new ExpTy(null, VOID);
+      return new ExpTy(translate.noExp(), VOID);
     else if (e instanceof Absyn.OpExp)
       result = transExp((Absyn.OpExp)e);
     else if (e instanceof Absyn.LetExp)
@@ -72,11 +140,21 @@ public class Semant {
     else if (e instanceof Absyn.IfExp)
       result = transExp((Absyn.IfExp)e);
     else if (e instanceof Absyn.IntExp)
-      result = new ExpTy(null, INT);
-    else if (e instanceof Absyn.StringExp)
-      result = new ExpTy(null, STRING);
+      result = new ExpTy(translate.intExp(((Absyn.IntExp)e).value), INT);
+    else if (e instanceof Absyn.StringExp) {
+      Absyn.StringExp s = (Absyn.StringExp)e;
+      //keep only the pooled copy of a literal seen before
+      int index = strings.add(s.value);
+      if (analysis != null)
+        analysis.setIndex(s, index);
+      else {
+        s.index = index;
+        s.value = strings.get(index);
+      }
+      result = new ExpTy(translate.stringExp(index, strings.get(index)), STRING);
+    }
     else if (e instanceof Absyn.NilExp)
-      result = new ExpTy(null, NIL);
+      result = new ExpTy(translate.nilExp(), NIL);
     else if (e instanceof Absyn.ArrayExp)
       result = transExp((Absyn.ArrayExp)e);
     else if (e instanceof Absyn.VarExp)
@@ -93,8 +171,10 @@ public class Semant {
       result = transExp((Absyn.WhileExp)e);
     else if (e instanceof Absyn.ForExp)
       result = transExp((Absyn.ForExp)e);
+    else if (e instanceof Absyn.BreakExp)
+      result = transExp((Absyn.BreakExp)e);
     else throw new Error("Failed for "+e.getClass().getName());
-    e.type = result.ty;
+    setType(e, result.ty);
     return result;
   }
   
@@ -111,6 +191,9 @@ public class Semant {
     env.venv.beginScope();
     //set up the variable in that scope
     transDec(e.var);
+    VarEntry index = (VarEntry)env.venv.get(e.var.name);
+    Temp.Label outerBreak = breakLabel;
+    breakLabel = translate.label();
     //traverse the body, but can't do this recursively because we have to check for assignment to loop variable
     ExpTy body = transExp(e.body);
     if (e.body instanceof Absyn.AssignExp) {
@@ -138,19 +221,33 @@ public class Semant {
     //result must be void
     if(!body.ty.coerceTo(VOID))
       error(e.body.pos, "body must be void type");
-    return new ExpTy(null,VOID);
+    Exp loop = translate.forExp(index.access, init.exp, hi.exp, body.exp, breakLabel);
+    breakLabel = outerBreak;
+    return new ExpTy(loop,VOID);
   }
   
   ExpTy transExp(Absyn.WhileExp e) {
     ExpTy test = transExp(e.test);
     if(!test.ty.coerceTo(INT)) {
       error(e.pos, "test must be int type");
-      return null;
+      return new ExpTy(translate.noExp(), VOID);
     }
+    Temp.Label outerBreak = breakLabel;
+    breakLabel = translate.label();
     ExpTy body = transExp(e.body);
     if(!body.ty.coerceTo(VOID))
       error(e.body.pos, "result type mismatch");
-    return new ExpTy(null, VOID);
+    Exp loop = translate.whileExp(test.exp, body.exp, breakLabel);
+    breakLabel = outerBreak;
+    return new ExpTy(loop, VOID);
+  }
+
+  ExpTy transExp(Absyn.BreakExp e) {
+    if(breakLabel==null) {
+      error(e.pos, "break outside loop");
+      return new ExpTy(translate.noExp(), VOID);
+    }
+    return new ExpTy(translate.breakExp(breakLabel), VOID);
   }
   
   ExpTy transExp(Absyn.CallExp e) {
@@ -159,16 +256,24 @@ public class Semant {
     //If the function isn't known, we've got a problem
     if(function==null) {
         error(e.pos, "undeclared function: "+e.func);
-        return new ExpTy(null, VOID);
+        return new ExpTy(translate.noExp(), VOID);
     }
     //Traverse callExp's parameters, typecheck them against the function's parameters
     Absyn.ExpList callList = e.args;
     Types.RECORD paramList = function.formals;
+    Translate.ExpList args = null, lastArg = null;
     while(callList!=null && paramList!=null) {
       ExpTy callType = transExp(callList.head);
       Types.NAME paramType = (Types.NAME)paramList.fieldType;
       if(!callType.ty.actual().coerceTo(paramType.actual()))
           error(callList.head.pos, "argument type mismatch");
+      //keep the arguments in order
+      Translate.ExpList arg = new Translate.ExpList(callType.exp, null);
+      if(lastArg==null)
+        args = arg;
+      else
+        lastArg.tail = arg;
+      lastArg = arg;
       paramList = paramList.tail;
       callList = callList.tail;
     }
@@ -176,7 +281,14 @@ public class Semant {
       error(e.pos, "missing argument for "+paramList.fieldName);
     if(callList!=null)
       error(callList.head.pos, "too many arguments");
-    return new ExpTy(null, function.result);
+    //library functions have no level, and take no static link
+    if(function.level==null)
+      return new ExpTy(translate.externalCall(e.func.toString(), args), function.result);
+    if (analysis != null)
+      analysis.setDepth(e, function.level.depth);
+    else
+      e.depth = function.level.depth;
+    return new ExpTy(translate.callExp(function.level, level, args), function.result);
   }
 
   ExpTy transExp(Absyn.AssignExp e) {
@@ -184,32 +296,32 @@ public class Semant {
     ExpTy lValue = transVar(e.var);
     if(!rValue.ty.coerceTo(lValue.ty))
       error(e.pos, "assignment type mismatch");
-    return new ExpTy(null, VOID);
+    return new ExpTy(translate.assignExp(lValue.exp, rValue.exp), VOID);
   }
   
   ExpTy transExp(Absyn.RecordExp e) {
     Types.NAME lookup = (Types.NAME)env.tenv.get(e.typ);
     if(lookup==null) {
         error(e.pos, "undeclared type: "+e.typ);
-        return new ExpTy(null, VOID);
+        return new ExpTy(translate.noExp(), VOID);
     }
     //transexp through all the initializations of the record
-    transField(e.fields);
-    return new ExpTy(null, lookup);
+    Translate.ExpList fields = transField(e.fields);
+    return new ExpTy(translate.recordExp(fields), lookup);
   }
   
   //recursively visit nodes in list
   //TODO: actually typecheck
-  void transField(Absyn.FieldExpList fe) {
-      if(fe==null) return;
-      transExp(fe.init);
-      transField(fe.tail);
+  Translate.ExpList transField(Absyn.FieldExpList fe) {
+      if(fe==null) return null;
+      ExpTy init = transExp(fe.init);
+      return new Translate.ExpList(init.exp, transField(fe.tail));
   }
   
   ExpTy transExp(Absyn.SeqExp e) {
     //if this is an empty seqexp, return void type
     if(e.list == null)
-      return new ExpTy(null,VOID);
+      return new ExpTy(translate.noExp(),VOID);
     //returns the type of the last expression in the list
     return transExpList(e.list);
   }
@@ -218,7 +330,8 @@ public class Semant {
     ExpTy headType = transExp(el.head);
     if(el.tail==null) 
       return headType;
-    return transExpList(el.tail);
+    ExpTy tailType = transExpList(el.tail);
+    return new ExpTy(translate.seqExp(headType.exp, tailType.exp, tailType.ty != VOID), tailType.ty);
   }
   
   ExpTy transExp(Absyn.ArrayExp e) {
@@ -233,7 +346,7 @@ public class Semant {
         if(!array.element.coerceTo(init.ty))
             error(e.init.pos, "element type mismatch");
     }
-    return new ExpTy(null, type);
+    return new ExpTy(translate.arrayExp(size.exp, init.exp), type);
   }
 
   ExpTy transExp(Absyn.VarExp e) {
@@ -257,23 +370,25 @@ public class Semant {
     ExpTy index = transExp(v.index);
     if(!(var.ty.actual() instanceof Types.ARRAY)) {
         error(v.pos, "array required");
-        return new ExpTy(null, VOID);
+        return new ExpTy(translate.noExp(), VOID);
     }
     if(!index.ty.actual().coerceTo(INT))
         error(v.pos, "index not integer");
-    return new ExpTy(null, ((Types.ARRAY)var.ty.actual()).element);
+    return new ExpTy(translate.subscriptVar(var.exp, index.exp), ((Types.ARRAY)var.ty.actual()).element);
   }
   
   ExpTy transVar(Absyn.FieldVar v) {
     //must be record type
-    Types.Type var = transVar(v.var).ty.actual();
+    ExpTy record = transVar(v.var);
+    Types.Type var = record.ty.actual();
     if(!(var instanceof Types.RECORD)) {
         error(v.var.pos, "record required");
-        return new ExpTy(null, VOID);
+        return new ExpTy(translate.noExp(), VOID);
     }
     Symbol.Symbol compare = v.field;
-    //find record entry we need
+    //find record entry we need, counting the fields before it
     Types.RECORD it = (Types.RECORD)var;
+    int index = 0;
     while(it!=null) {
         Symbol.Symbol compare2 = it.fieldName;
         if(compare==compare2) {
@@ -281,27 +396,37 @@ public class Semant {
             break;
         }
         it=it.tail;
+        index++;
     }
     if(it==null) {
       error(v.pos, "undeclared field: "+compare);
-      return new ExpTy(null, VOID);
+      return new ExpTy(translate.noExp(), VOID);
     }
-    return new ExpTy(null, it.fieldType.actual());
+    return new ExpTy(translate.fieldVar(record.exp, index), it.fieldType.actual());
   }
   
   ExpTy transVar(Absyn.SimpleVar v) {
       Entry entry = (Entry)env.venv.get(v.name);
       if(entry==null) {
           error(v.pos, "undeclared variable: "+v.name);
-          return new ExpTy(null, VOID);
+          return new ExpTy(translate.noExp(), VOID);
+      }
+      VarEntry var = (VarEntry)entry;
+      //so later passes needn't look the name up again
+      if (analysis != null) {
+        analysis.setDepth(v, var.access.depth);
+        analysis.setIndex(v, var.access.index);
+      } else {
+        v.depth = var.access.depth;
+        v.index = var.access.index;
       }
-      return new ExpTy(null, ((VarEntry)entry).ty);
+      return new ExpTy(translate.simpleVar(var.access, level), var.ty);
   }
   
   ExpTy transExp(Absyn.IfExp e) {
     ExpTy test = transExp(e.test);
     //check for int
-    checkInt(test, e.test.pos);
+    Exp cond = checkInt(test, e.test.pos);
     //the test is an integer, get type of then clause
     ExpTy then = transExp(e.thenclause);
     //check if we have an else clause
@@ -310,66 +435,75 @@ public class Semant {
       //need to be same type
       if(!(els.ty.coerceTo(then.ty)))
         error(e.pos, "result type mismatch");
-      return els;
+      return new ExpTy(translate.ifExp(cond, then.exp, els.exp), els.ty);
     }
     if(then.ty!=VOID) {
       error(e.pos, "result type mismatch");
       //returning proper type
-      return new ExpTy(null, VOID);
+      return new ExpTy(translate.noExp(), VOID);
     }
-    return then;
+    return new ExpTy(translate.ifExp(cond, then.exp, null), then.ty);
   }
 
   ExpTy transExp(Absyn.OpExp e) {
     ExpTy left = transExp(e.left);
     ExpTy right = transExp(e.right);
+    Exp l, r;
 
     switch (e.oper) {
     case Absyn.OpExp.PLUS:
-      checkInt(left, e.left.pos);
-      checkInt(right, e.right.pos);
-      return new ExpTy(null, INT);
+      return new ExpTy(translate.opExp(e.oper, checkInt(left, e.left.pos), checkInt(right, e.right.pos)), INT);
     case Absyn.OpExp.MINUS:
-      checkInt(left, e.left.pos);
-      checkInt(right, e.right.pos);
-      return new ExpTy(null, INT);
+      return new ExpTy(translate.opExp(e.oper, checkInt(left, e.left.pos), checkInt(right, e.right.pos)), INT);
     case Absyn.OpExp.MUL:
-      checkInt(left, e.left.pos);
-      checkInt(right, e.right.pos);
-      return new ExpTy(null, INT);
+      return new ExpTy(translate.opExp(e.oper, checkInt(left, e.left.pos), checkInt(right, e.right.pos)), INT);
     case Absyn.OpExp.DIV:
-      checkInt(left, e.left.pos);
-      checkInt(right, e.right.pos);
-      return new ExpTy(null, INT);
+      return new ExpTy(translate.opExp(e.oper, checkInt(left, e.left.pos), checkInt(right, e.right.pos)), INT);
     case Absyn.OpExp.GT:
     case Absyn.OpExp.LT:
     case Absyn.OpExp.GE:
     case Absyn.OpExp.LE:
-      checkComparable(left, e.left.pos);
-      checkComparable(right, e.right.pos);
+      l = checkComparable(left, e.left.pos);
+      r = checkComparable(right, e.right.pos);
       checkIdentical(left, right, e.pos);
-      return new ExpTy(null, INT);
+      break;
     case Absyn.OpExp.EQ:
     case Absyn.OpExp.NE:
       checkEquable(left, e.left.pos);
       checkEquable(left, e.left.pos);
       checkIdenticalE(left, right, e.pos);
-      return new ExpTy(null, INT);
+      l = left.exp;
+      r = right.exp;
+      break;
     default:
       throw new Error("unknown operator");
     }
+    //strings are compared by the runtime system
+    if(STRING.coerceTo(left.ty))
+      return new ExpTy(translate.stringOpExp(e.oper, l, r), INT);
+    return new ExpTy(translate.opExp(e.oper, l, r), INT);
   }
 
   ExpTy transExp(Absyn.LetExp e) {
     env.venv.beginScope();
     env.tenv.beginScope();
+    //the initializations, latest first
+    Translate.ExpList decs = null;
     for (Absyn.DecList d = e.decs; d != null; d = d.tail) {
-      transDec(d.head);
+      //the answer may be wanted no longer, say for an editor's old text
+      if (cancelled)
+        throw new java.util.concurrent.CancellationException();
+      Exp dec = transDec(d.head);
+      if (dec != null)
+        decs = new Translate.ExpList(dec, decs);
     }
     ExpTy body = transExp(e.body);
     env.venv.endScope();
     env.tenv.endScope();
-    return new ExpTy(null, body.ty);
+    Exp result = body.exp;
+    for (; decs != null; decs = decs.tail)
+      result = translate.seqExp(decs.head, result, body.ty != VOID);
+    return new ExpTy(result, body.ty);
   }
 
   Exp transDec(Absyn.Dec d) {
@@ -390,8 +524,15 @@ public class Semant {
     Types.Type returnType = VOID;
     if(d.result != null)
         returnType = transTy(d.result);
-    d.entry = new FunEntry(formals, returnType);
-    env.venv.put(d.name, d.entry);
+    //the function gets its own level, nested in the one it's declared in
+    boolean leaf = analysis != null ? analysis.leaf(d) : d.leaf;
+    Translate.Level funLevel = new Translate.Level(level, translate.label(), escapes(d.params), leaf);
+    FunEntry entry = new FunEntry(funLevel, formals, returnType);
+    if (analysis != null)
+      analysis.setEntry(d, entry);
+    else
+      d.entry = entry;
+    env.venv.put(d.name, entry);
     //go through the chain of function declarations here, put the names in the environment before parsing the body (for recursion)
     //but don't do it recursively becuase we have to check that the names don't match
     Absyn.FunctionDec chain = d.next;
@@ -407,42 +548,91 @@ public class Semant {
     //inside the body, create a new environment
     env.venv.beginScope();
     //add parameters to this scope
+    Translate.AccessList access = funLevel.formals;
     while(formals!=null) {
-      env.venv.put(formals.fieldName, new VarEntry(formals.fieldType));
+      env.venv.put(formals.fieldName, new VarEntry(formals.fieldType, access.head));
       formals = formals.tail;
+      access = access.tail;
     }
+    //the body runs in the function's level, and can't break out of loops around the declaration
+    Translate.Level outerLevel = level;
+    Temp.Label outerBreak = breakLabel;
+    level = funLevel;
+    breakLabel = null;
     //traverse the function body
     ExpTy resultType = transExp(d.body);
     //I bet .actual() isn't required here...
     if(!returnType.actual().coerceTo(resultType.ty))
       //I guess the error marker should be at the body of the function? w/e
       error(d.body.pos, "result type mismatch");
+    //the body is done, so hand it on
+    translate.procEntryExit(funLevel, resultType.exp, d.result != null);
+    if (analysis != null)
+      analysis.setIndex(d, funLevel.slots);
+    else
+      d.slots = funLevel.slots;
+    level = outerLevel;
+    breakLabel = outerBreak;
     //end scope
     env.venv.endScope();
     return null;
   }
 
+  //which parameters escape, for the function's frame
+  Util.BoolList escapes(Absyn.FieldList fl) {
+    if(fl==null)
+      return null;
+    return new Util.BoolList(escape(fl), escapes(fl.tail));
+  }
+
   Exp transDec(Absyn.TypeDec d) {
-    //Make a NAME for this type
-    Types.NAME name = new Types.NAME(d.name);
-    //first, define the name in the environment (handles recursive types)
-    env.tenv.put(d.name, name);
-    d.entry = name;
-    //check that this type isn't duplicated
-    Absyn.TypeDec chain = d.next;
-    while(chain!=null) {
-        if(chain.name == d.name)
-            error(chain.pos, "type redeclared");
-        chain = chain.next;
+    //one pass over the group for each step, so big groups check in linear time
+    int n = 0;
+    for (Absyn.TypeDec t = d; t != null; t = t.next)
+      n++;
+    Absyn.TypeDec[] decs = new Absyn.TypeDec[n];
+    Types.NAME[] names = new Types.NAME[n];
+    java.util.Hashtable<Symbol.Symbol,Absyn.TypeDec> seen =
+      new java.util.Hashtable<Symbol.Symbol,Absyn.TypeDec>();	//names declared so far
+    java.util.Hashtable<Types.NAME,Integer> index =
+      new java.util.Hashtable<Types.NAME,Integer>();	//NAME -> its place in decs
+    //first, define all the names in the environment (handles recursive types)
+    n = 0;
+    for (Absyn.TypeDec t = d; t != null; t = t.next) {
+      if (seen.put(t.name, t) != null)
+        error(t.pos, "type redeclared");
+      Types.NAME name = new Types.NAME(t.name);
+      if (analysis != null)
+        analysis.setType(t, name);
+      else
+        t.entry = name;
+      env.tenv.put(t.name, name);
+      index.put(name, Integer.valueOf(n));
+      names[n] = name;
+      decs[n++] = t;
+    }
+    //then typecheck the bodies, not necessarily records, and bind the names
+    for (int i = 0; i < n; i++)
+      names[i].bind(transTy(decs[i].ty));
+    //a cycle of names that never goes through a record or array has no type
+    //each name is an alias of at most one other, so follow the aliases from
+    //each name in turn, marking names with the walk that reached them; a walk
+    //that comes back to its own mark has found a cycle
+    int[] walk = new int[n];
+    for (int i = 0; i < n; i++) {
+      int j = i;
+      while (j >= 0 && walk[j] == 0) {
+        walk[j] = i + 1;
+        Types.Type b = names[j].binding;
+        Integer next = b == null ? null : index.get(b);
+        j = next == null ? -1 : next.intValue();
+      }
+      if (j >= 0 && walk[j] == i + 1) {
+        error(decs[j].pos, "illegal type cycle");
+        //break it, so actual() can't go round forever
+        names[j].bind(VOID);
+      }
     }
-    //Go through the names of the types in the typedec chain before processing the types (to handle for recursive types)
-    if(d.next != null)
-      transDec(d.next);
-    //typecheck the body, not necessarily a record
-    Types.Type bodyType = transTy(d.ty);
-    //Bind the name to the type that is declared
-    name.bind(bodyType);
-    //TODO: ERROR
     return null;
   }
 
@@ -512,8 +702,9 @@ public class Semant {
       //it didn't declare a type, better just grab the init type...
       varType = init.ty;
     }
-    d.entry = new VarEntry(varType);
-    env.venv.put(d.name, d.entry);
-    return null;
+    VarEntry entry = new VarEntry(varType, level.allocLocal(escape(d)));
+    setEntry(d, entry);
+    env.venv.put(d.name, entry);
+    return translate.varDec(entry.access, init.exp);
   }
 }
@@ -0,0 +1,297 @@
+package Semant;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Checks programs for as long as it runs, so the JVM, the parser's tables
+// and the compiled code stay warm from one file to the next:
+//   java Semant.Server                 requests on stdin, replies on stdout
+//   java Semant.Server -socket path    the same over a UNIX domain socket,
+//                                      one conversation per connection
+// A request is a line:
+//   check id [-print|-json|-sexp] file      checks a file
+//   source id [-print|-json|-sexp] name n   checks the n bytes after the line
+//   quit
+// Each reply is a line that starts with the request's id, sent as soon as
+// it is known; replies to requests running at once may interleave:
+//   id error file::3.14: undefined variable: x
+//   id out ...                 a line of the checked tree, if asked for
+//   id done errors micros      the last one
+// Requests run on a pool of threads, one for each processor.
+public class Server {
+  final static int QUIET = -2, PRINT = -1;	// or Absyn.Dump's modes
+
+  static ExecutorService pool;
+
+  InputStream in;
+  Writer out;
+  int pending;				// requests not done yet
+
+  Server(InputStream i, OutputStream o) {
+    in = new BufferedInputStream(i, 1 << 16);
+    out = new BufferedWriter(new OutputStreamWriter(o), 1 << 16);
+  }
+
+  public static void main(String argv[]) throws IOException {
+    pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    if (argv.length == 2 && argv[0].equals("-socket"))
+      listen(argv[1]);
+    else if (argv.length == 0)
+      new Server(System.in, new FileOutputStream(FileDescriptor.out)).serve();
+    else {
+      System.err.println("usage: java Semant.Server [-socket path]");
+      System.exit(2);
+    }
+    pool.shutdown();
+  }
+
+  static void listen(String path) throws IOException {
+    java.nio.file.Path file = java.nio.file.Paths.get(path);
+    java.nio.file.Files.deleteIfExists(file);
+    ServerSocketChannel server =
+      ServerSocketChannel.open(java.net.StandardProtocolFamily.UNIX);
+    server.bind(java.net.UnixDomainSocketAddress.of(file));
+    file.toFile().deleteOnExit();
+    for (;;) {
+      final SocketChannel c = server.accept();
+      new Thread() {
+	public void run() {
+	  try {
+	    new Server(input(c), output(c)).serve();
+	  } catch (IOException e) {
+	  } finally {
+	    try {c.close();} catch (IOException e) {}
+	  }
+	}
+      }.start();
+    }
+  }
+
+  // Channels.newInputStream and newOutputStream share the channel's
+  // blocking lock, so a write would wait for a read in progress; these
+  // call the channel directly
+  static InputStream input(final SocketChannel c) {
+    return new InputStream() {
+      public int read() throws IOException {
+	byte[] b = new byte[1];
+	return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+      }
+      public int read(byte[] b, int off, int len) throws IOException {
+	return c.read(ByteBuffer.wrap(b, off, len));
+      }
+    };
+  }
+
+  static OutputStream output(final SocketChannel c) {
+    return new OutputStream() {
+      public void write(int b) throws IOException {
+	write(new byte[] {(byte)b}, 0, 1);
+      }
+      public void write(byte[] b, int off, int len) throws IOException {
+	ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+	while (buf.hasRemaining())
+	  c.write(buf);
+      }
+    };
+  }
+
+  // reads requests until quit or the end of the input, then waits for the
+  // ones still running
+  void serve() throws IOException {
+    String line;
+    while ((line = readLine()) != null) {
+      if (line.equals("quit"))
+	break;
+      if (line.length() > 0)
+	request(line);
+    }
+    synchronized (this) {
+      while (pending > 0)
+	try {wait();} catch (InterruptedException e) {break;}
+    }
+    out.flush();
+  }
+
+  String readLine() throws IOException {
+    ByteArrayOutputStream b = new ByteArrayOutputStream(128);
+    int c;
+    while ((c = in.read()) >= 0 && c != '\n')
+      b.write(c);
+    if (c < 0 && b.size() == 0)
+      return null;
+    String s = b.toString();
+    return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+  }
+
+  void request(String line) throws IOException {
+    java.util.StringTokenizer words = new java.util.StringTokenizer(line, " ");
+    String command = words.nextToken();
+    if (!words.hasMoreTokens()) {
+      bad("?", line);
+      return;
+    }
+    final String id = words.nextToken();
+    int m = QUIET;
+    String rest = words.hasMoreTokens() ? words.nextToken("").trim() : "";
+    if (rest.startsWith("-")) {
+      int space = rest.indexOf(' ');
+      String option = space < 0 ? rest : rest.substring(0, space);
+      if (option.equals("-print"))
+	m = PRINT;
+      else if (option.equals("-json"))
+	m = Absyn.Dump.JSON;
+      else if (option.equals("-sexp"))
+	m = Absyn.Dump.SEXP;
+      else {
+	bad(id, line);
+	return;
+      }
+      rest = space < 0 ? "" : rest.substring(space + 1).trim();
+    }
+    final int mode = m;
+    final String name;
+    final byte[] text;
+    if (command.equals("check") && rest.length() > 0) {
+      name = rest;
+      text = null;
+    } else if (command.equals("source") && rest.lastIndexOf(' ') > 0) {
+      int space = rest.lastIndexOf(' ');
+      name = rest.substring(0, space);
+      int n;
+      try {
+	n = Integer.parseInt(rest.substring(space + 1));
+      } catch (NumberFormatException e) {
+	n = -1;
+      }
+      if (n < 0) {
+	bad(id, line);
+	return;
+      }
+      text = new byte[n];
+      for (int got = 0, r; got < n; got += r)
+	if ((r = in.read(text, got, n - got)) < 0)
+	  throw new EOFException("Server.request");
+    } else {
+      bad(id, line);
+      return;
+    }
+    synchronized (this) {
+      pending++;
+    }
+    pool.execute(new Runnable() {
+      public void run() {
+	try {
+	  check(id, mode, name, text);
+	} finally {
+	  synchronized (Server.this) {
+	    pending--;
+	    Server.this.notifyAll();
+	  }
+	}
+      }
+    });
+  }
+
+  void bad(String id, String line) throws IOException {
+    reply(id, "error bad request: " + line);
+    reply(id, "done 1 0");
+  }
+
+  // text is the program, or null to read the file called name
+  void check(String id, int mode, String name, byte[] text) {
+    long start = System.nanoTime();
+    Messages errors = new Messages(this, id, name);
+    try {
+      InputStream source = text != null ? new ByteArrayInputStream(text)
+	: (InputStream)new BufferedInputStream(new FileInputStream(name));
+      Absyn.Exp prog;
+      try {
+	prog = Parse.Source.parse(source, errors);
+      } finally {
+	source.close();
+      }
+      if (prog != null) {
+	Absyn.Exp checked = new Semant(errors).transProg(prog);
+	if (mode != QUIET) {
+	  StringWriter s = new StringWriter();
+	  PrintWriter w = new PrintWriter(s);
+	  Main.print(w, checked, mode);
+	  w.flush();
+	  output(id, s.toString());
+	}
+      }
+    } catch (FileNotFoundException e) {
+      errors.count++;
+      reply(id, "error " + name + ": file not found");
+    } catch (Throwable e) {
+      errors.count++;
+      reply(id, "error " + name + ": " + e);
+    }
+    reply(id, "done " + errors.count + " " + (System.nanoTime() - start) / 1000);
+  }
+
+  // the lines of text as "id out ..." replies, written together
+  synchronized void output(String id, String text) {
+    try {
+      int from = 0, to;
+      while ((to = text.indexOf('\n', from)) >= 0) {
+	out.write(id); out.write(" out "); out.write(text, from, to - from);
+	out.write('\n');
+	from = to + 1;
+      }
+    } catch (IOException e) {
+    }
+  }
+
+  // a reply, sent straight away
+  synchronized void reply(String id, String text) {
+    try {
+      out.write(id); out.write(' '); out.write(text); out.write('\n');
+      out.flush();
+    } catch (IOException e) {
+    }
+  }
+
+  // an ErrorMsg that replies with each error, in ErrorMsg's form, instead
+  // of printing it
+  static class Messages extends ErrorMsg.ErrorMsg {
+    Server server;
+    String id, filename;
+    int[] lines = new int[64];		// where each line starts, less one
+    int nlines;
+    int count;
+
+    Messages(Server s, String i, String f) {
+      super(f);
+      server=s; id=i; filename=f;
+      lines[nlines++] = -1;
+    }
+
+    public void newline(int pos) {
+      if (nlines == lines.length) {
+	int[] l = new int[nlines * 2];
+	System.arraycopy(lines, 0, l, 0, nlines);
+	lines = l;
+      }
+      lines[nlines++] = pos;
+    }
+
+    public void error(int pos, String msg) {
+      anyErrors = true;
+      count++;
+      // the last line that starts before pos
+      int lo = 0, hi = nlines;
+      while (lo < hi) {
+	int m = (lo + hi) >>> 1;
+	if (lines[m] < pos)
+	  lo = m + 1;
+	else
+	  hi = m;
+      }
+      String where = lo == 0 ? "0.0" : ":" + lo + "." + (pos - lines[lo - 1]);
+      server.reply(id, "error " + filename + ":" + where + ": " + msg);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package Semant;
+import java.io.*;
+
+// Times a whole run of the checker from outside, as a shell would see it:
+//   java Semant.Startup [file.tig]
+// Starts Semant.Main on the file (testcases/test1.tig by default) RUNS
+// times, first on this JVM's class path and then through ./tiger, if there
+// is one with its tiger.jar, and reports the best and the median time to
+// the first line out (an error, or the checked tree when there are none)
+// and to exit.
+public class Startup {
+  static final int RUNS = 20;
+
+  public static void main(String argv[]) throws IOException, InterruptedException {
+    String filename = argv.length > 0 ? argv[0] : "testcases/test1.tig";
+    String java = System.getProperty("java.home") + File.separator + "bin"
+      + File.separator + "java";
+    time("java -cp", new String[] {java, "-cp",
+      System.getProperty("java.class.path"), "Semant.Main", filename});
+    if (new File("tiger").canExecute() && new File("tiger.jar").exists())
+      time("./tiger" + (new File("tiger.jsa").exists() ? "" : " (no tiger.jsa)"),
+	   new String[] {"./tiger", filename});
+  }
+
+  static void time(String name, String[] command)
+    throws IOException, InterruptedException {
+    long[] first = new long[RUNS], exit = new long[RUNS];
+    run(command, new long[2]);		// the disk cache, not the JVM
+    for (int r = 0; r < RUNS; r++) {
+      long[] t = new long[2];
+      run(command, t);
+      first[r] = t[0];
+      exit[r] = t[1];
+    }
+    java.util.Arrays.sort(first);
+    java.util.Arrays.sort(exit);
+    System.out.println(name + ": first line " + first[0] / 1000000 + "ms best, "
+		       + first[RUNS / 2] / 1000000 + "ms median; exit "
+		       + exit[0] / 1000000 + "ms best, "
+		       + exit[RUNS / 2] / 1000000 + "ms median");
+  }
+
+  // t gets the ns from starting command to its first line and to its exit
+  static void run(String[] command, long[] t)
+    throws IOException, InterruptedException {
+    ProcessBuilder b = new ProcessBuilder(command);
+    b.redirectErrorStream(true);
+    long start = System.nanoTime();
+    Process p = b.start();
+    InputStream in = p.getInputStream();
+    int c;
+    while ((c = in.read()) >= 0 && c != '\n')
+      ;
+    t[0] = System.nanoTime() - start;
+    byte[] rest = new byte[1 << 12];
+    while (in.read(rest) >= 0)
+      ;
+    if (p.waitFor() != 0 && c < 0)
+      throw new Error("Startup.run: " + command[0] + " failed");
+    t[1] = System.nanoTime() - start;
+  }
+}
@@ -2,7 +2,9 @@ package Semant;
 
 public class VarEntry extends Entry {
   public Types.Type ty;
-  VarEntry(Types.Type t) {
+  public Translate.Access access;
+  VarEntry(Types.Type t, Translate.Access a) {
     ty = t;
+    access = a;
   }
 }
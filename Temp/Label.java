@@ -0,0 +1,24 @@
+package Temp;
+import Symbol.Symbol;
+
+/**
+ * A Label represents an address in assembly language.
+ */
+public class Label {
+   private String name;
+   private static java.util.concurrent.atomic.AtomicInteger count =
+      new java.util.concurrent.atomic.AtomicInteger();	// shared by threads
+
+   /** a printable representation of the label, for use in assembly
+     * language output. */
+   public String toString() {return name;}
+
+   /** Makes a new label with the given name. */
+   public Label(String n) {name=n;}
+
+   /** Makes a new label with an arbitrary name. */
+   public Label() {this("L" + count.getAndIncrement());}
+
+   /** Makes a new label whose name is the same as a symbol. */
+   public Label(Symbol s) {this(s.toString());}
+}
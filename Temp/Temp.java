@@ -0,0 +1,10 @@
+package Temp;
+
+public class Temp {
+   //Semant runs on several threads at once (Server, AnalysisResult)
+   private static java.util.concurrent.atomic.AtomicInteger count =
+      new java.util.concurrent.atomic.AtomicInteger();
+   private int num;
+   public String toString() {return "t" + num;}
+   public Temp() {num=count.getAndIncrement();}
+}
@@ -0,0 +1,7 @@
+package Temp;
+
+public class TempList {
+   public Temp head;
+   public TempList tail;
+   public TempList(Temp h, TempList t) {head=h; tail=t;}
+}
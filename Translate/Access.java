@@ -0,0 +1,14 @@
+package Translate;
+
+public class Access {
+  Level home;
+  Frame.Access acc;
+  public int depth;		// depth of home
+  public int index;		// slot in home, formals first
+  Access(Level h, Frame.Access a) {
+    home = h;
+    acc = a;
+    depth = h.depth;
+    index = h.slots++;
+  }
+}
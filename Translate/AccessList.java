@@ -0,0 +1,7 @@
+package Translate;
+
+public class AccessList {
+  public Access head;
+  public AccessList tail;
+  public AccessList(Access h, AccessList t) {head=h; tail=t;}
+}
@@ -0,0 +1,41 @@
+package Translate;
+import Temp.Label;
+
+// A Translate that makes no code, for when Semant is only checking: every
+// expression is the same empty one, nothing is emitted, and every label is
+// the same label.  Its levels have no frames, but still number their
+// formals and locals, so the depths and slots Semant records are as with
+// code.
+public class Check extends Translate {
+  private static final Exp NONE = new Ex(new Tree.CONST(0));
+  private static final Label LABEL = new Label("none");
+
+  public Check() {
+    super(null, null);
+  }
+
+  public Label label() {return LABEL;}
+  public Label label(String name) {return LABEL;}
+
+  public void procEntryExit(Level level, Exp body, boolean value) {}
+  public Exp noExp() {return NONE;}
+  public Exp simpleVar(Access access, Level level) {return NONE;}
+  public Exp fieldVar(Exp record, int index) {return NONE;}
+  public Exp subscriptVar(Exp array, Exp index) {return NONE;}
+  public Exp nilExp() {return NONE;}
+  public Exp intExp(int value) {return NONE;}
+  public Exp stringExp(int index, String value) {return NONE;}
+  public Exp callExp(Level callee, Level caller, ExpList args) {return NONE;}
+  public Exp externalCall(String func, ExpList args) {return NONE;}
+  public Exp opExp(int oper, Exp left, Exp right) {return NONE;}
+  public Exp stringOpExp(int oper, Exp left, Exp right) {return NONE;}
+  public Exp ifExp(Exp test, Exp thenclause, Exp elseclause) {return NONE;}
+  public Exp assignExp(Exp lhs, Exp rhs) {return NONE;}
+  public Exp seqExp(Exp first, Exp rest, boolean value) {return NONE;}
+  public Exp varDec(Access access, Exp init) {return NONE;}
+  public Exp recordExp(ExpList fields) {return NONE;}
+  public Exp arrayExp(Exp size, Exp init) {return NONE;}
+  public Exp whileExp(Exp test, Exp body, Label done) {return NONE;}
+  public Exp forExp(Access var, Exp lo, Exp hi, Exp body, Label done) {return NONE;}
+  public Exp breakExp(Label done) {return NONE;}
+}
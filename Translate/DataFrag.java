@@ -0,0 +1,11 @@
+package Translate;
+import Temp.Label;
+
+public class DataFrag extends Frag {
+  public Label label;
+  public String data;
+  public DataFrag(Label l, String d) {
+    label = l;
+    data = d;
+  }
+}
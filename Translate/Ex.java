@@ -0,0 +1,27 @@
+package Translate;
+import Temp.Label;
+
+class Ex extends Exp {
+  Tree.Exp exp;
+  Ex(Tree.Exp e) {
+    exp = e;
+  }
+
+  Tree.Exp unEx() {
+    return exp;
+  }
+
+  Tree.Stm unNx() {
+    return new Tree.EXP(exp);
+  }
+
+  Tree.Stm unCx(Label t, Label f) {
+    //a constant condition is just a jump
+    if (exp instanceof Tree.CONST) {
+      if (((Tree.CONST)exp).value == 0)
+        return new Tree.JUMP(f);
+      return new Tree.JUMP(t);
+    }
+    return new Tree.CJUMP(Tree.CJUMP.NE, exp, new Tree.CONST(0), t, f);
+  }
+}
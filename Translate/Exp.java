@@ -1,4 +1,8 @@
 package Translate;
+import Temp.Label;
 
 public abstract class Exp {
+  abstract Tree.Exp unEx();
+  abstract Tree.Stm unNx();
+  abstract Tree.Stm unCx(Label t, Label f);
 }
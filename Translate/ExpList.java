@@ -0,0 +1,7 @@
+package Translate;
+
+public class ExpList {
+  public Exp head;
+  public ExpList tail;
+  public ExpList(Exp h, ExpList t) {head=h; tail=t;}
+}
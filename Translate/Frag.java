@@ -0,0 +1,3 @@
+package Translate;
+
+public abstract class Frag {}
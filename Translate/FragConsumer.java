@@ -0,0 +1,8 @@
+package Translate;
+
+// Receives each fragment as soon as it has been translated.  Nothing keeps
+// a fragment after it has been handed over, so the IR in memory at any time
+// is only that of the functions still being translated.
+public interface FragConsumer {
+  void consume(Frag frag);
+}
@@ -0,0 +1,51 @@
+package Translate;
+import Temp.Temp;
+import Temp.Label;
+
+class IfThenElseExp extends Exp {
+  Exp cond, a, b;       // b is null when there is no else
+  Label t = new Label();
+  Label f = new Label();
+  Label join = new Label();
+
+  IfThenElseExp(Exp cc, Exp aa, Exp bb) {
+    cond = cc;
+    a = aa;
+    b = bb;
+  }
+
+  Tree.Stm unCx(Label tt, Label ff) {
+    //used by & and |, so each arm jumps straight to the targets
+    Tree.Stm bStm = b == null ? new Tree.JUMP(ff) : b.unCx(tt, ff);
+    return new Tree.SEQ(cond.unCx(t, f),
+	   new Tree.SEQ(new Tree.LABEL(t),
+	   new Tree.SEQ(a.unCx(tt, ff),
+	   new Tree.SEQ(new Tree.LABEL(f), bStm))));
+  }
+
+  Tree.Exp unEx() {
+    Temp r = new Temp();
+    return new Tree.ESEQ(
+      new Tree.SEQ(cond.unCx(t, f),
+      new Tree.SEQ(new Tree.LABEL(t),
+      new Tree.SEQ(new Tree.MOVE(new Tree.TEMP(r), a.unEx()),
+      new Tree.SEQ(new Tree.JUMP(join),
+      new Tree.SEQ(new Tree.LABEL(f),
+      new Tree.SEQ(new Tree.MOVE(new Tree.TEMP(r), b.unEx()),
+		   new Tree.LABEL(join))))))),
+      new Tree.TEMP(r));
+  }
+
+  Tree.Stm unNx() {
+    if (b == null)
+      return new Tree.SEQ(cond.unCx(t, join),
+	     new Tree.SEQ(new Tree.LABEL(t),
+	     new Tree.SEQ(a.unNx(), new Tree.LABEL(join))));
+    return new Tree.SEQ(cond.unCx(t, f),
+	   new Tree.SEQ(new Tree.LABEL(t),
+	   new Tree.SEQ(a.unNx(),
+	   new Tree.SEQ(new Tree.JUMP(join),
+	   new Tree.SEQ(new Tree.LABEL(f),
+	   new Tree.SEQ(b.unNx(), new Tree.LABEL(join)))))));
+  }
+}
@@ -0,0 +1,61 @@
+package Translate;
+import Temp.Label;
+import Util.BoolList;
+
+public class Level {
+  Level parent;
+  Frame.Frame frame;
+  public AccessList formals;    // not including the static link
+  public int depth;		// 0 for the main program
+  public int slots;		// formals and locals so far
+
+  // the level outside of every function (where the library lives)
+  public Level(Frame.Frame f) {
+    frame = f;
+    depth = -1;
+  }
+
+  // a function nested in p; the static link is passed as an extra first formal
+  public Level(Level p, Label name, BoolList fmls) {
+    this(p, name, fmls, false);
+  }
+
+  // a leaf calls nothing, so no nested function ever follows its static
+  // link and it needn't be kept in the frame.  With no frame outside (see
+  // Check), there is none here either.
+  public Level(Level p, Label name, BoolList fmls, boolean leaf) {
+    parent = p;
+    depth = p.depth + 1;
+    if (p.frame == null) {
+      formals = allocFormals(fmls);
+      return;
+    }
+    frame = p.frame.newFrame(name, new BoolList(!leaf, fmls));
+    formals = allocFormals(frame.formals.tail);
+  }
+
+  private AccessList allocFormals(Frame.AccessList f) {
+    if (f == null)
+      return null;
+    return new AccessList(new Access(this, f.head), allocFormals(f.tail));
+  }
+
+  private AccessList allocFormals(BoolList f) {
+    if (f == null)
+      return null;
+    return new AccessList(new Access(this, null), allocFormals(f.tail));
+  }
+
+  public Access allocLocal(boolean escape) {
+    return new Access(this, frame == null ? null : frame.allocLocal(escape));
+  }
+
+  public Label name() {
+    return frame.name;
+  }
+
+  // the static link, found in the first formal of the frame
+  Frame.Access staticLink() {
+    return frame.formals.head;
+  }
+}
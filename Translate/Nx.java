@@ -0,0 +1,21 @@
+package Translate;
+import Temp.Label;
+
+class Nx extends Exp {
+  Tree.Stm stm;
+  Nx(Tree.Stm s) {
+    stm = s;
+  }
+
+  Tree.Exp unEx() {
+    return new Tree.ESEQ(stm, new Tree.CONST(0));
+  }
+
+  Tree.Stm unNx() {
+    return stm;
+  }
+
+  Tree.Stm unCx(Label t, Label f) {
+    throw new Error("Nx.unCx");
+  }
+}
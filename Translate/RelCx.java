@@ -0,0 +1,16 @@
+package Translate;
+import Temp.Label;
+
+class RelCx extends Cx {
+  int relop;
+  Tree.Exp left, right;
+  RelCx(int op, Tree.Exp l, Tree.Exp r) {
+    relop = op;
+    left = l;
+    right = r;
+  }
+
+  Tree.Stm unCx(Label t, Label f) {
+    return new Tree.CJUMP(relop, left, right, t, f);
+  }
+}
@@ -0,0 +1,285 @@
+package Translate;
+import Temp.Temp;
+import Temp.Label;
+
+public class Translate {
+  public Frame.Frame frame;
+  public boolean fold;		// fold constants and drop dead arms
+  private FragConsumer frags;
+  // the Label of each pooled literal, by its index
+  private java.util.Vector<Label> strings = new java.util.Vector<Label>();
+
+  public Translate(Frame.Frame f, FragConsumer c) {
+    frame = f;
+    frags = c;
+  }
+
+  // hand a finished fragment on; with no consumer it is simply dropped
+  private void emit(Frag frag) {
+    if (frags != null)
+      frags.consume(frag);
+  }
+
+  private static Tree.Exp CONST(int value) {
+    return new Tree.CONST(value);
+  }
+  private static Tree.Exp NAME(Label label) {
+    return new Tree.NAME(label);
+  }
+  private static Tree.Exp TEMP(Temp temp) {
+    return new Tree.TEMP(temp);
+  }
+  private static Tree.Exp BINOP(int binop, Tree.Exp left, Tree.Exp right) {
+    return new Tree.BINOP(binop, left, right);
+  }
+  private static Tree.Exp MEM(Tree.Exp exp) {
+    return new Tree.MEM(exp);
+  }
+  private static Tree.Exp CALL(Tree.Exp func, Tree.ExpList args) {
+    return new Tree.CALL(func, args);
+  }
+  private static Tree.Exp ESEQ(Tree.Stm stm, Tree.Exp exp) {
+    return new Tree.ESEQ(stm, exp);
+  }
+  private static Tree.Stm MOVE(Tree.Exp dst, Tree.Exp src) {
+    return new Tree.MOVE(dst, src);
+  }
+  private static Tree.Stm JUMP(Label target) {
+    return new Tree.JUMP(target);
+  }
+  private static Tree.Stm CJUMP(int relop, Tree.Exp l, Tree.Exp r, Label t,
+				Label f) {
+    return new Tree.CJUMP(relop, l, r, t, f);
+  }
+  private static Tree.Stm SEQ(Tree.Stm left, Tree.Stm right) {
+    return new Tree.SEQ(left, right);
+  }
+  private static Tree.Stm LABEL(Label label) {
+    return new Tree.LABEL(label);
+  }
+  private static Tree.ExpList ExpList(Tree.Exp head, Tree.ExpList tail) {
+    return new Tree.ExpList(head, tail);
+  }
+
+  private static Tree.ExpList unEx(ExpList list) {
+    if (list == null)
+      return null;
+    return ExpList(list.head.unEx(), unEx(list.tail));
+  }
+
+  // finish off a function body and pass it on as a fragment
+  public void procEntryExit(Level level, Exp body, boolean value) {
+    Tree.Stm stm;
+    if (value)
+      stm = MOVE(TEMP(level.frame.RV()), body.unEx());
+    else
+      stm = body.unNx();
+    emit(new ProcFrag(level.frame.procEntryExit1(stm), level.frame));
+  }
+
+  // a new label, for a function or the end of a loop
+  public Label label() {
+    return new Label();
+  }
+
+  public Label label(String name) {
+    return new Label(name);
+  }
+
+  // stands in for anything that has no code, or had an error
+  public Exp noExp() {
+    return new Ex(CONST(0));
+  }
+
+  // frame pointer of level to, from code running in level from
+  private Tree.Exp framePtr(Level from, Level to) {
+    Tree.Exp fp = TEMP(from.frame.FP());
+    for (; from != to; from = from.parent) {
+      if (from.parent == null)
+	throw new Error("Translate.framePtr");
+      fp = from.staticLink().exp(fp);
+    }
+    return fp;
+  }
+
+  public Exp simpleVar(Access access, Level level) {
+    return new Ex(access.acc.exp(framePtr(level, access.home)));
+  }
+
+  public Exp fieldVar(Exp record, int index) {
+    return new Ex(MEM(BINOP(Tree.BINOP.PLUS, record.unEx(),
+			    CONST(index * frame.wordSize()))));
+  }
+
+  public Exp subscriptVar(Exp array, Exp index) {
+    return new Ex(MEM(BINOP(Tree.BINOP.PLUS, array.unEx(),
+			    BINOP(Tree.BINOP.MUL, index.unEx(),
+				  CONST(frame.wordSize())))));
+  }
+
+  public Exp nilExp() {
+    return new Ex(CONST(0));
+  }
+
+  public Exp intExp(int value) {
+    return new Ex(CONST(value));
+  }
+
+  // index is the literal's place in the string pool; each literal is
+  // emitted once, however often it appears
+  public Exp stringExp(int index, String value) {
+    if (index >= strings.size())
+      strings.setSize(index + 1);
+    Label label = strings.elementAt(index);
+    if (label == null) {
+      label = new Label();
+      strings.setElementAt(label, index);
+      emit(new DataFrag(label, value));
+    }
+    return new Ex(NAME(label));
+  }
+
+  // call a Tiger function, passing the frame it was declared in as static link
+  public Exp callExp(Level callee, Level caller, ExpList args) {
+    return new Ex(CALL(NAME(callee.name()),
+		       ExpList(framePtr(caller, callee.parent), unEx(args))));
+  }
+
+  public Exp externalCall(String func, ExpList args) {
+    return new Ex(frame.externalCall(func, unEx(args)));
+  }
+
+  public Exp opExp(int oper, Exp left, Exp right) {
+    Tree.Exp l = left.unEx();
+    Tree.Exp r = right.unEx();
+    if (fold && l instanceof Tree.CONST && r instanceof Tree.CONST) {
+      int a = ((Tree.CONST)l).value;
+      int b = ((Tree.CONST)r).value;
+      switch (oper) {
+      case Absyn.OpExp.PLUS:  return intExp(a + b);
+      case Absyn.OpExp.MINUS: return intExp(a - b);
+      case Absyn.OpExp.MUL:   return intExp(a * b);
+      case Absyn.OpExp.DIV:   if (b != 0) return intExp(a / b); break;
+      case Absyn.OpExp.EQ:    return intExp(a == b ? 1 : 0);
+      case Absyn.OpExp.NE:    return intExp(a != b ? 1 : 0);
+      case Absyn.OpExp.LT:    return intExp(a < b ? 1 : 0);
+      case Absyn.OpExp.LE:    return intExp(a <= b ? 1 : 0);
+      case Absyn.OpExp.GT:    return intExp(a > b ? 1 : 0);
+      case Absyn.OpExp.GE:    return intExp(a >= b ? 1 : 0);
+      }
+    }
+    switch (oper) {
+    case Absyn.OpExp.PLUS:  return new Ex(BINOP(Tree.BINOP.PLUS, l, r));
+    case Absyn.OpExp.MINUS: return new Ex(BINOP(Tree.BINOP.MINUS, l, r));
+    case Absyn.OpExp.MUL:   return new Ex(BINOP(Tree.BINOP.MUL, l, r));
+    case Absyn.OpExp.DIV:   return new Ex(BINOP(Tree.BINOP.DIV, l, r));
+    default:                return new RelCx(relop(oper), l, r);
+    }
+  }
+
+  // string comparisons go through the runtime system
+  public Exp stringOpExp(int oper, Exp left, Exp right) {
+    Tree.ExpList args = ExpList(left.unEx(), ExpList(right.unEx(), null));
+    switch (oper) {
+    case Absyn.OpExp.EQ:
+      return new RelCx(Tree.CJUMP.NE, frame.externalCall("stringEqual", args),
+		       CONST(0));
+    case Absyn.OpExp.NE:
+      return new RelCx(Tree.CJUMP.EQ, frame.externalCall("stringEqual", args),
+		       CONST(0));
+    default:
+      return new RelCx(relop(oper), frame.externalCall("stringCompare", args),
+		       CONST(0));
+    }
+  }
+
+  private static int relop(int oper) {
+    switch (oper) {
+    case Absyn.OpExp.EQ: return Tree.CJUMP.EQ;
+    case Absyn.OpExp.NE: return Tree.CJUMP.NE;
+    case Absyn.OpExp.LT: return Tree.CJUMP.LT;
+    case Absyn.OpExp.LE: return Tree.CJUMP.LE;
+    case Absyn.OpExp.GT: return Tree.CJUMP.GT;
+    case Absyn.OpExp.GE: return Tree.CJUMP.GE;
+    default: throw new Error("Translate.relop");
+    }
+  }
+
+  // elseclause is null for if-then
+  public Exp ifExp(Exp test, Exp thenclause, Exp elseclause) {
+    //with a constant test only one arm can run
+    if (fold && test instanceof Ex && ((Ex)test).exp instanceof Tree.CONST) {
+      if (((Tree.CONST)((Ex)test).exp).value != 0)
+	return thenclause;
+      return elseclause == null ? noExp() : elseclause;
+    }
+    return new IfThenElseExp(test, thenclause, elseclause);
+  }
+
+  public Exp assignExp(Exp lhs, Exp rhs) {
+    return new Nx(MOVE(lhs.unEx(), rhs.unEx()));
+  }
+
+  // first is only run for its effect, the value (if any) comes from rest
+  public Exp seqExp(Exp first, Exp rest, boolean value) {
+    if (value)
+      return new Ex(ESEQ(first.unNx(), rest.unEx()));
+    return new Nx(SEQ(first.unNx(), rest.unNx()));
+  }
+
+  public Exp varDec(Access access, Exp init) {
+    return new Nx(MOVE(access.acc.exp(TEMP(access.home.frame.FP())),
+		       init.unEx()));
+  }
+
+  public Exp recordExp(ExpList fields) {
+    int size = 0;
+    for (ExpList f = fields; f != null; f = f.tail)
+      size++;
+    Temp r = new Temp();
+    Tree.Stm init = MOVE(TEMP(r), frame.externalCall("allocRecord",
+			 ExpList(CONST(size * frame.wordSize()), null)));
+    int i = 0;
+    for (ExpList f = fields; f != null; f = f.tail, i++)
+      init = SEQ(init, MOVE(MEM(BINOP(Tree.BINOP.PLUS, TEMP(r),
+				      CONST(i * frame.wordSize()))),
+			    f.head.unEx()));
+    return new Ex(ESEQ(init, TEMP(r)));
+  }
+
+  public Exp arrayExp(Exp size, Exp init) {
+    return new Ex(frame.externalCall("initArray",
+	     ExpList(size.unEx(), ExpList(init.unEx(), null))));
+  }
+
+  public Exp whileExp(Exp test, Exp body, Label done) {
+    Label start = new Label();
+    Label loop = new Label();
+    return new Nx(SEQ(LABEL(start),
+		  SEQ(test.unCx(loop, done),
+		  SEQ(LABEL(loop),
+		  SEQ(body.unNx(),
+		  SEQ(JUMP(start), LABEL(done)))))));
+  }
+
+  // tests against the limit before the increment, so hi can be maxint
+  public Exp forExp(Access var, Exp lo, Exp hi, Exp body, Label done) {
+    Label loop = new Label();
+    Label next = new Label();
+    Tree.Exp i = var.acc.exp(TEMP(var.home.frame.FP()));
+    Tree.Exp limit = TEMP(new Temp());
+    return new Nx(SEQ(MOVE(i, lo.unEx()),
+		  SEQ(MOVE(limit, hi.unEx()),
+		  SEQ(CJUMP(Tree.CJUMP.LE, i, limit, loop, done),
+		  SEQ(LABEL(loop),
+		  SEQ(body.unNx(),
+		  SEQ(CJUMP(Tree.CJUMP.LT, i, limit, next, done),
+		  SEQ(LABEL(next),
+		  SEQ(MOVE(i, BINOP(Tree.BINOP.PLUS, i, CONST(1))),
+		  SEQ(JUMP(loop), LABEL(done)))))))))));
+  }
+
+  public Exp breakExp(Label done) {
+    return new Nx(JUMP(done));
+  }
+}
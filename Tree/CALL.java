@@ -0,0 +1,6 @@
+package Tree;
+public class CALL extends Exp {
+   public Exp func;
+   public ExpList args;
+   public CALL(Exp f, ExpList a) {func=f; args=a;}
+}
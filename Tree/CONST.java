@@ -0,0 +1,5 @@
+package Tree;
+public class CONST extends Exp {
+   public int value;
+   public CONST(int v) {value=v;}
+}
@@ -0,0 +1,6 @@
+package Tree;
+public class ESEQ extends Exp {
+   public Stm stm;
+   public Exp exp;
+   public ESEQ(Stm s, Exp e) {stm=s; exp=e;}
+}
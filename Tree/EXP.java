@@ -0,0 +1,5 @@
+package Tree;
+public class EXP extends Stm {
+   public Exp exp;
+   public EXP(Exp e) {exp=e;}
+}
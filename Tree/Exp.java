@@ -0,0 +1,2 @@
+package Tree;
+abstract public class Exp {}
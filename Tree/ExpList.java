@@ -0,0 +1,6 @@
+package Tree;
+public class ExpList {
+   public Exp head;
+   public ExpList tail;
+   public ExpList(Exp h, ExpList t) {head=h; tail=t;}
+}
@@ -0,0 +1,11 @@
+package Tree;
+import Temp.Label;
+import Temp.LabelList;
+public class JUMP extends Stm {
+   public Exp exp;
+   public LabelList targets;
+   public JUMP(Exp e, LabelList t) {exp=e; targets=t;}
+   public JUMP(Label target) {
+      this(new NAME(target), new LabelList(target, null));
+   }
+}
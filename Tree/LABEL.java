@@ -0,0 +1,6 @@
+package Tree;
+import Temp.Label;
+public class LABEL extends Stm {
+   public Label label;
+   public LABEL(Label l) {label=l;}
+}
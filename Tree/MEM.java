@@ -0,0 +1,5 @@
+package Tree;
+public class MEM extends Exp {
+   public Exp exp;
+   public MEM(Exp e) {exp=e;}
+}
@@ -0,0 +1,5 @@
+package Tree;
+public class MOVE extends Stm {
+   public Exp dst, src;
+   public MOVE(Exp d, Exp s) {dst=d; src=s;}
+}
@@ -0,0 +1,6 @@
+package Tree;
+import Temp.Label;
+public class NAME extends Exp {
+   public Label label;
+   public NAME(Label l) {label=l;}
+}
@@ -0,0 +1,6 @@
+package Tree;
+import Temp.Temp;
+public class TEMP extends Exp {
+   public Temp temp;
+   public TEMP(Temp t) {temp=t;}
+}
@@ -1,13 +1,29 @@
 package Types;
 
+// Each call of prType shows every NAME it reaches expanded once, the
+// first time; after that (and inside its own expansion) it is just
+// NAME(x), which refers back to it.  So shared types are printed once and
+// cyclic ones end, without touching the types themselves.
 public class Print {
   java.io.PrintWriter out;
+  private java.util.Hashtable<NAME,NAME> shown;	// NAMEs expanded in this call
 
   public Print(java.io.PrintWriter o) { out = o; }
 
+  private static final char[] spaces = new char[64];
+  static {
+    java.util.Arrays.fill(spaces, ' ');
+  }
+
   void indent(int d) {
-    for(int i=0; i<d; i++) 
-      out.print(' ');
+    indent(out, d);
+  }
+
+  // d spaces, a block at a time; the other printers use this too
+  public static void indent(java.io.PrintWriter out, int d) {
+    for (; d > spaces.length; d -= spaces.length)
+      out.write(spaces);
+    out.write(spaces, 0, d);
   }
 
   void say(String s) {
@@ -27,6 +43,15 @@ public class Print {
   }
 
   public void prType(Type t, int d) {
+    if (shown == null) {
+      shown = new java.util.Hashtable<NAME,NAME>();
+      try {
+	prType(t, d);
+      } finally {
+	shown = null;
+      }
+      return;
+    }
     if (t == null) {
       say("()");
       return;
@@ -49,14 +74,19 @@ public class Print {
     say("STRING");
   }
 
+  // each field is a RECORD nested in the one before; a loop rather than
+  // recursion, so long records don't need a deep stack
   void prType(RECORD t, int d) {
-    say("RECORD(");
-    if (t != null) {
+    int open = 0;
+    for (; t != null; t = t.tail, d++, open++) {
+      say("RECORD(");
       sayln(""); indent(d+1); sayln(t.fieldName.toString());
       indent(d+1); say(":"); prType(t.fieldType, d+2); sayln(",");
-      indent(d+1); prType(t.tail, d+1);
+      indent(d+1);
     }
-    say(")");
+    say("RECORD()");
+    for (; open > 0; open--)
+      say(")");
   }
 
   void prType(ARRAY t, int d) {
@@ -72,12 +102,9 @@ public class Print {
   }
 
   void prType(NAME t, int d) {
-    Type b = t.binding;
     say("NAME("); say(t.name.toString()); say(")");
-    if (b == null)
+    if (t.binding == null || shown.put(t, t) != null)
       return;
-    t.binding = null;
-    sayln(""); indent(d); say("="); prType(b, d+1);
-    t.binding = b;
+    sayln(""); indent(d); say("="); prType(t.binding, d+1);
   }
 }
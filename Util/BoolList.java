@@ -0,0 +1,7 @@
+package Util;
+
+public class BoolList {
+   public boolean head;
+   public BoolList tail;
+   public BoolList(boolean h, BoolList t) {head=h; tail=t;}
+}
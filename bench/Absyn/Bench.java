@@ -0,0 +1,100 @@
+package Absyn;
+import Parse.Parse;
+
+// Times Hasher over whole trees, as Absyn (by itself and in parallel) and
+// as an Arena, and Stats walked by itself and in parallel.  Kept out of the
+// main sources, in Absyn's package; from the top:
+//   make bench
+//   java -cp .:bench Absyn.Bench file.tig...
+// Each file is parsed once and hashed RUNS times; the best run counts.
+public class Bench {
+  static final int RUNS = 10;
+
+  public static void main(String argv[]) {
+    if (argv.length == 0)
+      argv = new String[] {"testcases/queens.tig"};
+    for (int i = 0; i < argv.length; i++)
+      bench(argv[i]);
+  }
+
+  static void bench(String filename) {
+    Exp prog = new Parse(filename).absyn;
+    long best = Long.MAX_VALUE;
+    int nodes = 0;
+    long root = 0;
+    for (int r = 0; r < RUNS; r++) {
+      Hasher h = new Hasher();
+      long t0 = System.nanoTime();
+      root = h.hash(prog);
+      long t1 = System.nanoTime();
+      best = Math.min(best, t1 - t0);
+      nodes = h.nodes;
+    }
+    System.out.println(filename + ": " + nodes + " nodes in " + best / 1000
+		       + "us, " + best / Math.max(nodes, 1) + "ns a node (best of "
+		       + RUNS + "), root " + Long.toHexString(root));
+    parallel(filename, prog, root, nodes);
+    arena(filename, prog, root, nodes);
+    walk(filename, prog);
+  }
+
+  static void parallel(String filename, Exp prog, long root, int nodes) {
+    long best = Long.MAX_VALUE;
+    Hasher h = null;
+    long r = 0;
+    for (int i = 0; i < RUNS; i++) {
+      h = new Hasher();
+      long t0 = System.nanoTime();
+      r = h.parallel(prog);
+      best = Math.min(best, System.nanoTime() - t0);
+    }
+    if (r != root || h.nodes != nodes)
+      throw new Error("Bench.parallel: " + h.nodes + " nodes, root "
+		      + Long.toHexString(r));
+    System.out.println(filename + ": hashed in parallel in " + best / 1000
+		       + "us on "
+		       + java.util.concurrent.ForkJoinPool.getCommonPoolParallelism()
+		       + " threads");
+  }
+
+  static void arena(String filename, Exp prog, long root, int nodes) {
+    Arena a = new Arena(prog);
+    a.trim();
+    long best = Long.MAX_VALUE;
+    Hasher h = null;
+    long r = 0;
+    for (int i = 0; i < RUNS; i++) {
+      h = new Hasher();
+      long t0 = System.nanoTime();
+      r = h.hash(a);
+      best = Math.min(best, System.nanoTime() - t0);
+    }
+    if (r != root || h.nodes != nodes)
+      throw new Error("Bench.arena: " + h.nodes + " nodes, root "
+		      + Long.toHexString(r));
+    System.out.println(filename + ": hashed as an Arena of " + a.size()
+		       + " nodes in " + best / 1000 + "us");
+  }
+
+  static void walk(String filename, Exp prog) {
+    long serial = Long.MAX_VALUE, parallel = Long.MAX_VALUE;
+    Stats s = null, p = null;
+    for (int r = 0; r < RUNS; r++) {
+      s = new Stats();
+      long t0 = System.nanoTime();
+      Walk.walk(prog, s);
+      long t1 = System.nanoTime();
+      p = new Stats();
+      Walk.parallel(prog, p);
+      long t2 = System.nanoTime();
+      serial = Math.min(serial, t1 - t0);
+      parallel = Math.min(parallel, t2 - t1);
+    }
+    if (!s.toString().equals(p.toString()))
+      throw new Error("Bench.walk: " + s + " but " + p);
+    System.out.println(filename + ": walked in " + serial / 1000 + "us, "
+		       + parallel / 1000 + "us on "
+		       + java.util.concurrent.ForkJoinPool.getCommonPoolParallelism()
+		       + " threads; " + s);
+  }
+}
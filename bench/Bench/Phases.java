@@ -0,0 +1,233 @@
+package Bench;
+import java.io.*;
+import java.util.Vector;
+
+// Times each phase of checking by itself, in the manner of JMH: warm-up
+// iterations that are thrown away, then measured ones, each running the
+// phase as many times as fits in its time, results kept so none of the
+// work can be dropped.  Kept out of the main sources; from the top:
+//   make bench
+//   java -cp .:bench Bench.Phases [-scale n] [-time ms] [file.tig...]
+// The phases, each on every file at once (testcases/*.tig by default, less
+// any that don't parse), and again on each file's program repeated n times
+// in one sequence (64 by default):
+//   lex      Yylex, to the end of the file
+//   parse    Grm, with its own Yylex
+//   semant   Semant.transProg on a parsed tree, left unchanged, with a
+//            fresh AnalysisResult each time
+//   print    Absyn.Print of a parsed tree, to a Writer that only counts
+// For each it gives the time an operation takes (mean, and the best and
+// worst iteration), the source bytes (or characters printed) a second, and,
+// like JMH's gc profiler, the bytes allocated an operation and a second,
+// from the thread's allocation counter.
+public class Phases {
+  static int WARMUP = 5, MEASURE = 10;	// iterations
+  static long TIME = 200;		// ms an iteration
+
+  static Object sink;			// every operation's result goes here
+  static com.sun.management.ThreadMXBean threads =
+    (com.sun.management.ThreadMXBean)java.lang.management.ManagementFactory.getThreadMXBean();
+
+  public static void main(String argv[]) throws IOException {
+    int scale = 64, first = 0;
+    for (; first + 1 < argv.length && argv[first].startsWith("-"); first += 2) {
+      if (argv[first].equals("-scale"))
+	scale = Integer.parseInt(argv[first + 1]);
+      else if (argv[first].equals("-time"))
+	TIME = Long.parseLong(argv[first + 1]);
+      else
+	break;
+    }
+    String[] files = new String[argv.length - first];
+    System.arraycopy(argv, first, files, 0, files.length);
+    if (files.length == 0)
+      files = testcases();
+
+    Vector<byte[]> texts = new Vector<byte[]>();
+    for (int i = 0; i < files.length; i++) {
+      byte[] text = read(files[i]);
+      if (Parse.Source.parse(new ByteArrayInputStream(text), new Quiet()) != null)
+	texts.addElement(text);
+    }
+    String name = files.length == 1 ? files[0] : texts.size() + " files";
+    bench(name, texts);
+    if (scale > 1)
+      bench(name + " x" + scale, scaled(texts, scale));
+  }
+
+  static String[] testcases() {
+    String[] names = new File("testcases").list();
+    Vector<String> files = new Vector<String>();
+    for (int i = 0; names != null && i < names.length; i++)
+      if (names[i].endsWith(".tig"))
+	files.addElement("testcases" + File.separator + names[i]);
+    String[] f = new String[files.size()];
+    files.copyInto(f);
+    java.util.Arrays.sort(f);
+    return f;
+  }
+
+  static byte[] read(String filename) throws IOException {
+    InputStream in = new FileInputStream(filename);
+    ByteArrayOutputStream b = new ByteArrayOutputStream();
+    byte[] buf = new byte[1 << 12];
+    for (int n; (n = in.read(buf)) > 0;)
+      b.write(buf, 0, n);
+    in.close();
+    return b.toByteArray();
+  }
+
+  // each program n times over, as one sequence
+  static Vector<byte[]> scaled(Vector<byte[]> texts, int n) {
+    Vector<byte[]> s = new Vector<byte[]>();
+    for (int i = 0; i < texts.size(); i++) {
+      byte[] text = texts.elementAt(i);
+      ByteArrayOutputStream b = new ByteArrayOutputStream(n * (text.length + 2) + 2);
+      b.write('(');
+      for (int k = 0; k < n; k++) {
+	if (k > 0)
+	  b.write(';');
+	b.write(text, 0, text.length);
+	b.write('\n');
+      }
+      b.write(')');
+      s.addElement(b.toByteArray());
+    }
+    return s;
+  }
+
+  static void bench(String name, final Vector<byte[]> texts) {
+    final int n = texts.size();
+    long bytes = 0;
+    for (int i = 0; i < n; i++)
+      bytes += texts.elementAt(i).length;
+    final Absyn.Exp[] trees = new Absyn.Exp[n];
+    for (int i = 0; i < n; i++)
+      trees[i] = Parse.Source.parse(input(texts, i), new Quiet());
+    final Counter counter = new Counter();
+    final PrintWriter printer = new PrintWriter(counter);
+
+    System.out.println(name + ", " + bytes + " bytes:");
+    run("lex", bytes, "B", new Phase() {
+      int op() {
+	int tokens = 0;
+	for (int i = 0; i < n; i++)
+	  tokens += Parse.Lex.tokens(input(texts, i), new Quiet());
+	return tokens;
+      }
+    });
+    run("parse", bytes, "B", new Phase() {
+      int op() {
+	int done = 0;
+	for (int i = 0; i < n; i++)
+	  if ((sink = Parse.Source.parse(input(texts, i), new Quiet())) != null)
+	    done++;
+	return done;
+      }
+    });
+    run("semant", bytes, "B", new Phase() {
+      int op() {
+	int errors = 0;
+	for (int i = 0; i < n; i++) {
+	  Quiet q = new Quiet();
+	  Semant.AnalysisResult r = new Semant.AnalysisResult(trees[i]);
+	  sink = new Semant.Semant(q, r).transProg(trees[i]);
+	  errors += q.count;
+	}
+	return errors;
+      }
+    });
+    Phase print = new Phase() {
+      int op() {
+	for (int i = 0; i < n; i++)
+	  new Absyn.Print(printer).prExp(trees[i], 0);
+	printer.flush();
+	return (int)counter.chars;
+      }
+    };
+    print.op();				// to see how much it prints
+    run("print", counter.chars, "chars", print);
+  }
+
+  static InputStream input(Vector<byte[]> texts, int i) {
+    return new ByteArrayInputStream(texts.elementAt(i));
+  }
+
+  static abstract class Phase {
+    abstract int op();
+  }
+
+  // warms up, measures, and prints a line; size is what an operation goes
+  // through, in units
+  static void run(String name, long size, String units, Phase phase) {
+    long thread = Thread.currentThread().getId();
+    double[] nsPerOp = new double[MEASURE];
+    long ops = 0, allocated = 0, time = 0;
+    int check = 0;
+    for (int it = -WARMUP; it < MEASURE; it++) {
+      long a0 = threads.getThreadAllocatedBytes(thread);
+      long t0 = System.nanoTime(), t, end = t0 + TIME * 1000000;
+      int n = 0;
+      do {
+	check += phase.op();
+	n++;
+      } while ((t = System.nanoTime()) < end);
+      long a1 = threads.getThreadAllocatedBytes(thread);
+      if (it < 0)
+	continue;
+      nsPerOp[it] = (double)(t - t0) / n;
+      ops += n;
+      time += t - t0;
+      allocated += a1 - a0;
+    }
+    sink = Integer.valueOf(check);
+    java.util.Arrays.sort(nsPerOp);
+    double mean = (double)time / ops;
+    double seconds = mean / 1e9;
+    System.out.println("  " + pad(name, 7)
+		       + pad(ms(mean) + " ms/op", 14) + "("
+		       + ms(nsPerOp[0]) + ".." + ms(nsPerOp[MEASURE - 1]) + ")  "
+		       + pad(round(size / seconds / 1e6) + " M" + units + "/s", 14)
+		       + pad(round((double)allocated / ops / 1e6) + " MB/op", 14)
+		       + round((double)allocated / ops / seconds / 1e6) + " MB/s allocated");
+  }
+
+  static String ms(double ns) {
+    return round(ns / 1e6);
+  }
+
+  // three figures or so
+  static String round(double x) {
+    if (x >= 100)
+      return Long.toString(Math.round(x));
+    if (x >= 10)
+      return Double.toString(Math.round(x * 10) / 10.0);
+    return Double.toString(Math.round(x * 1000) / 1000.0);
+  }
+
+  static String pad(String s, int n) {
+    StringBuffer b = new StringBuffer(s);
+    while (b.length() < n)
+      b.append(' ');
+    return b.append(' ').toString();
+  }
+
+  // errors counted, not printed
+  static class Quiet extends ErrorMsg.ErrorMsg {
+    int count;
+    Quiet() {super("");}
+    public void error(int pos, String msg) {
+      anyErrors = true;
+      count++;
+    }
+  }
+
+  // a Writer that keeps nothing
+  static class Counter extends Writer {
+    long chars;
+    public void write(char[] c, int off, int len) {chars += len;}
+    public void write(String s, int off, int len) {chars += len;}
+    public void flush() {}
+    public void close() {}
+  }
+}
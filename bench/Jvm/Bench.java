@@ -0,0 +1,83 @@
+package Jvm;
+import java.io.*;
+import Parse.Parse;
+
+// Times queens.tig on larger boards, run as bytecode and by Interp.  Kept
+// out of the main sources, in Jvm's package; from the top:
+//   make bench
+//   java -cp .:bench Jvm.Bench [testcases/queens.tig] [N...]
+// As in Interp.Bench the board size is made a variable, and the boards
+// printed are counted and thrown away.
+public class Bench {
+  static final int RUNS = 5;
+
+  static class Counter extends Writer {
+    long chars;
+    public void write(char[] buf, int off, int len) { chars += len; }
+    public void write(String s) { chars += s.length(); }
+    public void flush() {}
+    public void close() {}
+  }
+
+  public static void main(String argv[]) throws IOException {
+    String queens = argv.length > 0 ? argv[0] : "testcases/queens.tig";
+    int[] sizes = {8, 10, 12};
+    if (argv.length > 1) {
+      sizes = new int[argv.length - 1];
+      for (int i = 1; i < argv.length; i++)
+	sizes[i - 1] = Integer.parseInt(argv[i]);
+    }
+    String source = read(queens);
+    for (int i = 0; i < sizes.length; i++)
+      bench(source, sizes[i]);
+  }
+
+  static void bench(String source, int n) throws IOException {
+    File file = File.createTempFile("queens", ".tig");
+    file.deleteOnExit();
+    Writer w = new FileWriter(file);
+    w.write(source.replaceFirst("var N := 8", "var N := " + n)
+		  .replaceAll("r\\+7-c", "r+N-1-c"));
+    w.close();
+    Parse parse = new Parse(file.getPath());
+    new Semant.Semant(parse.errorMsg).transProg(parse.absyn);
+    if (parse.errorMsg.anyErrors)
+      throw new Error("Bench.bench");
+    long jvmCompile = Long.MAX_VALUE, jvmRun = Long.MAX_VALUE;
+    long interpCompile = Long.MAX_VALUE, interpRun = Long.MAX_VALUE;
+    long boards = 0;
+    for (int r = 0; r < RUNS; r++) {
+      Counter out = new Counter();
+      long t0 = System.nanoTime();
+      Jvm jvm = new Jvm(parse.absyn, out, new StringReader(""));
+      long t1 = System.nanoTime();
+      jvm.run();
+      long t2 = System.nanoTime();
+      Interp.Interp interp = new Interp.Interp(parse.absyn, new Counter(),
+					       new StringReader(""));
+      long t3 = System.nanoTime();
+      interp.run();
+      long t4 = System.nanoTime();
+      jvmCompile = Math.min(jvmCompile, t1 - t0);
+      jvmRun = Math.min(jvmRun, t2 - t1);
+      interpCompile = Math.min(interpCompile, t3 - t2);
+      interpRun = Math.min(interpRun, t4 - t3);
+      boards = out.chars / (n * (2 * n + 1) + 1);
+    }
+    System.out.println("queens " + n + ": " + boards + " solutions");
+    System.out.println("  jvm:    compile " + jvmCompile / 1000 + "us, run "
+		       + jvmRun / 1000000 + "ms");
+    System.out.println("  interp: compile " + interpCompile / 1000
+		       + "us, run " + interpRun / 1000000 + "ms");
+  }
+
+  static String read(String name) throws IOException {
+    Reader r = new FileReader(name);
+    StringBuffer s = new StringBuffer();
+    char[] buf = new char[4096];
+    for (int n; (n = r.read(buf)) > 0; )
+      s.append(buf, 0, n);
+    r.close();
+    return s.toString();
+  }
+}
@@ -0,0 +1,18 @@
+package Parse;
+
+// The lexer by itself, for Bench.Phases; Yylex and sym are this package's
+// own.
+public class Lex {
+  // the tokens up to the end, or -1 if the lexer failed
+  public static int tokens(java.io.InputStream in, ErrorMsg.ErrorMsg errorMsg) {
+    Lexer lexer = new Yylex(in, errorMsg);
+    int n = 0;
+    try {
+      while (lexer.nextToken().sym != sym.EOF)
+	n++;
+    } catch (java.io.IOException e) {
+      return -1;
+    }
+    return n;
+  }
+}
@@ -0,0 +1,1199 @@
+package java_cup;
+
+import java.util.Hashtable;
+import java.util.Enumeration;
+import java.io.*;
+
+/** This class holds the complete state of one run of the parser generator.
+ *  Everything that a run accumulates -- user options, timing data, the open
+ *  files, the tables of terminals, non terminals, productions and states,
+ *  the scanner and the code emitter -- is kept in an instance of this class
+ *  rather than in static variables.  As a result one JVM can process any
+ *  number of specifications, one after another or on several threads at
+ *  once, simply by creating a new Generator for each of them.<p>
+ *
+ *  The classes that make up the system still find their tables through
+ *  static access methods (e.g., terminal.all() or lalr_state.number()).
+ *  These consult the generator bound to the current thread (see current()).
+ *  A generator binds itself to the calling thread for the duration of
+ *  generate(), so those methods may only be used from inside a run.<p>
+ *
+ *  The overall flow of control in generate() is:
+ *  <ul>
+ *    <li> If a cache directory was given, look for output from an earlier
+ *         run on the same specification and options, and just copy that
+ *         if there is some (see spec_cache).
+ *    <li> Open output files.
+ *    <li> Parse the specification from the input stream.
+ *    <li> Check for unused terminals, non-terminals, and productions.
+ *    <li> Build the state machine, tables, etc.
+ *    <li> Output the generated code.
+ *    <li> Close output files.
+ *    <li> Print a summary if requested.
+ *  </ul>
+ *  Places that used to terminate the JVM with System.exit() now throw a
+ *  Generator.exit carrying the same status, which java_cup.Main turns
+ *  back into a process exit code.
+ *
+ * @see     java_cup.Main
+ */
+
+public class Generator {
+
+  /*-----------------------------------------------------------*/
+  /*--- Constructor(s) ----------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Constructor for a generator that reads its specification from standard
+   *  input and writes into the current directory.
+   */
+  public Generator()
+    {
+      this(System.in, null);
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Full constructor.
+   * @param in       stream the specification is read from.
+   * @param dest_dir directory the generated classes go into (null for the
+   *                 current directory).
+   */
+  public Generator(InputStream in, File dest_dir)
+    {
+      Generator prev;
+
+      input     = in;
+      output_dir = dest_dir;
+      emitter   = new emit();
+      scanner   = new lexer(this);
+
+      /* the special symbols are entered into this generator's tables */
+      prev = bind(this);
+      try {
+	EOF      = new terminal("EOF");
+	error    = new terminal("error");
+	START_nt = new non_terminal("$START");
+      } finally {
+	bind(prev);
+      }
+    }
+
+  /*-----------------------------------------------------------*/
+  /*--- Binding to Threads ------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Generator each thread is currently working for. */
+  protected static ThreadLocal _current = new ThreadLocal();
+
+  /** The generator running on the current thread.  This is what the static
+   *  access methods of the other classes use to find their tables.
+   */
+  public static Generator current()
+    {
+      Generator result = (Generator)_current.get();
+
+      if (result == null)
+	throw new IllegalStateException(
+	  "No java_cup.Generator is running on this thread");
+      return result;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Make a generator the current one for this thread.
+   * @param  gen the generator to bind (or null to unbind).
+   * @return the generator that was bound before.
+   */
+  protected static Generator bind(Generator gen)
+    {
+      Generator prev = (Generator)_current.get();
+
+      if (gen == null)
+	_current.remove();
+      else
+	_current.set(gen);
+      return prev;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Unchecked exception used in place of System.exit() so that a failed
+   *  run only ends that run, and not the whole JVM.
+   */
+  public static class exit extends RuntimeException {
+    /** Exit status the command line driver should report. */
+    public final int status;
+
+    /** Constructor with the exit status. */
+    public exit(int s)
+      {
+	super("java_cup exit with status " + s);
+	status = s;
+      }
+  }
+
+  /*-----------------------------------------------------------*/
+  /*--- Options set by the user -------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** User option -- do we print progress messages. */
+  protected boolean print_progress   = true;
+  /** User option -- do we produce a dump of the state machine */
+  protected boolean opt_dump_states  = false;
+  /** User option -- do we produce a dump of the parse tables */
+  protected boolean opt_dump_tables  = false;
+  /** User option -- do we produce a dump of the grammar */
+  protected boolean opt_dump_grammar = false;
+  /** User option -- do we show timing information as a part of the summary */
+  protected boolean opt_show_timing  = false;
+  /** User option -- do we run produce extra debugging messages */
+  protected boolean opt_do_debug     = false;
+  /** User option -- do we compact tables by making most common reduce the
+      default action */
+  protected boolean opt_compact_red  = false;
+  /** User option -- should we include non terminal symbol numbers in the
+      symbol constant class. */
+  protected boolean include_non_terms = false;
+  /** User option -- do not print a summary. */
+  protected boolean no_summary = false;
+  /** User option -- number of conflicts to expect */
+  protected int expect_conflicts = 0;
+
+  /* frankf added this 6/18/96 */
+  /** User option -- should generator generate code for left/right values? */
+  protected boolean lr_values = true;
+
+  /** User option -- should symbols be put in a class or an interface? */
+  protected boolean sym_interface = false;
+
+  /** User option -- directory to cache generated output in, keyed by a
+      hash of the specification and options (null for no caching). */
+  protected File cache_dir = null;
+
+  /** User option -- most threads to use for filling in and checking the
+      parse tables. */
+  protected int num_threads = Runtime.getRuntime().availableProcessors();
+
+  /** User option -- file to write a JSON profile of the run to (null for
+      none). */
+  protected File profile_file = null;
+
+  /** User option -- should the parse tables be packed into strings (and
+      unpacked when the parser first needs them) instead of being compiled
+      into the parser class as array initializers? */
+  protected boolean compact_tables = false;
+
+  /*----------------------------------------------------------------------*/
+  /* Timing data (not all of these time intervals are mutually exclusive) */
+  /*----------------------------------------------------------------------*/
+  /** Timing data -- when did we start */
+  protected long start_time       = 0;
+  /** Timing data -- when did we end preliminaries */
+  protected long prelim_end       = 0;
+  /** Timing data -- when did we end parsing */
+  protected long parse_end        = 0;
+  /** Timing data -- when did we end checking */
+  protected long check_end        = 0;
+  /** Timing data -- when did we end dumping */
+  protected long dump_end         = 0;
+  /** Timing data -- when did we end state and table building */
+  protected long build_end        = 0;
+  /** Timing data -- when did we end nullability calculation */
+  protected long nullability_end  = 0;
+  /** Timing data -- when did we end first set calculation */
+  protected long first_end        = 0;
+  /** Timing data -- when did we end state machine construction */
+  protected long machine_end      = 0;
+  /** Timing data -- when did we end table construction */
+  protected long table_end        = 0;
+  /** Timing data -- when did we end checking for non-reduced productions */
+  protected long reduce_check_end = 0;
+  /** Timing data -- when did we finish emitting code */
+  protected long emit_end         = 0;
+  /** Timing data -- when were we completely done */
+  protected long final_time       = 0;
+
+  /* Additional timing information is also collected in emit */
+
+  /*-----------------------------------------------------------*/
+  /*--- Collaborators -----------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Stream the specification is read from. */
+  protected InputStream input;
+
+  /** Directory output files are placed in (null for the current one). */
+  protected File output_dir;
+
+  /** Stream used for all messages, warnings and summaries. */
+  public PrintStream err = System.err;
+
+  /** Scanner for the specification. */
+  public lexer scanner;
+
+  /** Code emitter, along with the user code strings and counters it keeps. */
+  public emit emitter;
+
+  /** Phase timings and work counters for -profile. */
+  public profiler prof = new profiler();
+
+  /*-----------------------------------------------------------*/
+  /*--- Grammar Symbols and Productions -----------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Table of all terminals, keyed by name (see terminal). */
+  protected Hashtable terminals = new Hashtable();
+
+  /** Table of all terminals, keyed by index (see terminal). */
+  protected Hashtable terminals_by_index = new Hashtable();
+
+  /** Counter to assign unique terminal indexes. */
+  protected int next_terminal_index = 0;
+
+  /** Special terminal for end of input. */
+  protected terminal EOF;
+
+  /** Special terminal used for error recovery. */
+  protected terminal error;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Table of all non terminals, keyed by name (see non_terminal). */
+  protected Hashtable non_terminals = new Hashtable();
+
+  /** Counter to assign unique non terminal indexes. */
+  protected int next_non_terminal_index = 0;
+
+  /** Counter for creating unique non terminal names. */
+  protected int next_nt = 0;
+
+  /** Special non terminal for the start symbol. */
+  protected non_terminal START_nt;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Table of all productions, keyed by index (see production). */
+  protected Hashtable productions = new Hashtable();
+
+  /** Counter for assigning unique production indexes. */
+  protected int next_production_index = 0;
+
+  /*-----------------------------------------------------------*/
+  /*--- Machine and Tables ------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Collection of all states, keyed by item set (see lalr_state). */
+  protected Hashtable states = new Hashtable();
+
+  /** Collection of all states, keyed by kernel (see lalr_state). */
+  protected Hashtable state_kernels = new Hashtable();
+
+  /** Counter for assigning unique state indexes. */
+  protected int next_state_index = 0;
+
+  /** Number of columns (terminals) in every action row. */
+  protected int action_row_size = 0;
+
+  /** Table of reduction counts (reused by parse_action_row). */
+  protected int reduction_count[] = null;
+
+  /** Number of columns (non terminals) in every reduce-goto row. */
+  protected int reduce_row_size = 0;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Start state in the overall state machine. */
+  protected lalr_state start_state;
+
+  /** Resulting parse action table. */
+  protected parse_action_table action_table;
+
+  /** Resulting reduce-goto table. */
+  protected parse_reduce_table reduce_table;
+
+  /*-----------------------------------------------------------*/
+  /*--- Main Driver -------------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Run the generator over its input.  The generator is bound to the
+   *  calling thread while this runs.  A generator is meant to be run once;
+   *  create a new one for every specification.
+   */
+  public void generate()
+    throws internal_error, java.io.IOException, java.lang.Exception
+    {
+      Generator prev = bind(this);
+      try {
+	run();
+      } finally {
+	bind(prev);
+      }
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** The body of generate().  If a cache directory was given this first
+   *  looks for output from an earlier run over the same specification;
+   *  otherwise (or on a miss) it runs the generator proper.
+   */
+  protected void run()
+    throws internal_error, java.io.IOException, java.lang.Exception
+    {
+      start_time = System.currentTimeMillis();
+
+      /* dumps, timings, profiles and debugging output can't come from
+	 the cache */
+      if (cache_dir == null || opt_dump_grammar || opt_dump_states ||
+	  opt_dump_tables || opt_show_timing || opt_do_debug ||
+	  profile_file != null)
+	{
+	  if (profile_file != null) prof.enable();
+	  try {
+	    run_generator();
+	  } finally {
+	    if (profile_file != null) write_profile();
+	  }
+	  return;
+	}
+
+      /* we need all of the spec to hash it, then parse from our copy */
+      byte[] spec = spec_cache.read_all(input);
+      input = new ByteArrayInputStream(spec);
+      spec_cache cache = new spec_cache(cache_dir, spec, cache_options());
+
+      if (cache.replay(output_dir, output_names(), err))
+	{
+	  if (print_progress)
+	    err.println("Reused cached output " + cache.key());
+	  return;
+	}
+
+      /* a miss: generate, recording the messages, and keep the result */
+      PrintStream real_err = err;
+      err = cache.record(real_err);
+      try {
+	if (run_generator())
+	  {
+	    try {
+	      cache.store(output_dir, output_names());
+	    } catch (IOException e) {
+	      real_err.println("Warning: can't store output in cache \"" +
+			       cache_dir + "\": " + e.getMessage());
+	    }
+	  }
+      } finally {
+	err = real_err;
+      }
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Write the profile collected by prof to the -profile file. */
+  protected void write_profile()
+    {
+      try {
+	PrintWriter out = new PrintWriter(
+	  new BufferedOutputStream(new FileOutputStream(profile_file), 4096));
+	prof.write(out);
+	out.close();
+      } catch (IOException e) {
+	err.println("Can't write profile to \"" + profile_file + "\": " +
+		    e.getMessage());
+      }
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Names of the files the generator writes into the output directory. */
+  protected String[] output_names()
+    {
+      return new String[] {
+	emitter.parser_class_name + ".java",
+	emitter.symbol_const_class_name + ".java"};
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Description of every option that changes the generated code or the
+   *  messages printed, for the cache key.
+   */
+  protected String cache_options()
+    {
+      return "package=" + emitter.package_name +
+	" parser=" + emitter.parser_class_name +
+	" symbols=" + emitter.symbol_const_class_name +
+	" interface=" + sym_interface +
+	" nonterms=" + include_non_terms +
+	" expect=" + expect_conflicts +
+	" compact_red=" + opt_compact_red +
+	" compact_tables=" + compact_tables +
+	" positions=" + lr_values +
+	" nowarn=" + emitter.nowarn +
+	" nosummary=" + no_summary +
+	" progress=" + print_progress;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Run the generator proper over the input.
+   * @return true if code was produced.
+   */
+  protected boolean run_generator()
+    throws internal_error, java.io.IOException, java.lang.Exception
+    {
+      boolean did_output = false;
+
+      /* open output files */
+      if (print_progress) err.println("Opening files...");
+      open_files();
+
+      prelim_end = System.currentTimeMillis();
+
+      /* parse spec into internal data structures */
+      if (print_progress)
+	err.println("Parsing specification from standard input...");
+      prof.start("parse_spec");
+      parse_grammar_spec();
+
+      parse_end = System.currentTimeMillis();
+
+      /* don't proceed unless we are error free */
+      if (scanner.error_count == 0)
+	{
+	  /* check for unused bits */
+          if (print_progress) err.println("Checking specification...");
+          prof.start("check_spec");
+          check_unused();
+
+          check_end = System.currentTimeMillis();
+
+	  /* build the state machine and parse tables */
+          if (print_progress) err.println("Building parse tables...");
+          build_parser();
+
+          build_end = System.currentTimeMillis();
+
+	  /* output the generated code */
+          if (print_progress) err.println("Writing parser...");
+          prof.start("emit");
+          emit_parser();
+	  did_output = true;
+
+          emit_end = System.currentTimeMillis();
+	}
+      else
+	{
+	  /* fix up the times to make the summary easier */
+	  emit_end = parse_end;
+	}
+
+      prof.stop();
+
+      /* do requested dumps */
+      if (opt_dump_grammar) dump_grammar();
+      if (opt_dump_states)  dump_machine();
+      if (opt_dump_tables)  dump_tables();
+
+      dump_end = System.currentTimeMillis();
+
+      /* close output files */
+      if (print_progress) err.println("Closing files...");
+      close_files();
+
+      /* produce a summary if desired */
+      if (!no_summary) emit_summary(did_output);
+
+      return did_output;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Print a "usage message" that described possible command line options,
+   *  then exit.
+   * @param message a specific error message to preface the usage message by.
+   */
+  protected void usage(String message)
+    {
+      err.println();
+      err.println(message);
+      err.println();
+      err.println(
+"Usage: " + version.program_name + " [options]\n" +
+"  and expects a specification file on standard input.\n" +
+"  Legal options include:\n" +
+"    -package name  specify package generated classes go in [default none]\n" +
+"    -parser name   specify parser class name [default \"parser\"]\n" +
+"    -symbols name  specify name for symbol constant class [default \"sym\"]\n"+
+"    -interface     put symbols in an interface, rather than a class\n" +
+"    -nonterms      put non terminals in symbol constant class\n" +
+"    -expect #      number of conflicts expected/allowed [default 0]\n" +
+"    -compact_red   compact tables by defaulting to most frequent reduce\n" +
+"    -nowarn        don't warn about useless productions, etc.\n" +
+"    -nosummary     don't print the usual summary of parse states, etc.\n" +
+"    -nopositions   don't propagate the left and right token position values\n" +
+"    -compact_tables  pack parse tables into strings, unpacked on first use\n" +
+"    -cache dir     reuse output cached in dir for an unchanged spec\n" +
+"    -progress      print messages to indicate progress of the system\n" +
+"    -time          print time usage summary\n" +
+"    -profile file  write phase timings, memory use and counts as JSON\n" +
+"    -threads #     most threads for filling in tables [default: # cpus]\n" +
+"    -dump_grammar  produce a human readable dump of the symbols and grammar\n"+
+"    -dump_states   produce a dump of parse state machine\n"+
+"    -dump_tables   produce a dump of the parse tables\n"+
+"    -dump          produce a dump of all of the above\n"
+      );
+      throw new exit(1);
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Parse command line options and arguments to set various user-option
+   *  flags and variables.
+   * @param argv the command line arguments to be parsed.
+   */
+  public void parse_args(String argv[])
+    {
+      int len = argv.length;
+      int i;
+
+      /* parse the options */
+      for (i=0; i<len; i++)
+	{
+	  /* try to get the various options */
+	  if (argv[i].equals("-package"))
+	    {
+	      /* must have an arg */
+	      if (++i >= len || argv[i].startsWith("-") ||
+				argv[i].endsWith(".cup"))
+		usage("-package must have a name argument");
+
+	      /* record the name */
+	      emitter.package_name = argv[i];
+	    }
+	  else if (argv[i].equals("-parser"))
+	    {
+	      /* must have an arg */
+	      if (++i >= len || argv[i].startsWith("-") ||
+				argv[i].endsWith(".cup"))
+		usage("-parser must have a name argument");
+
+	      /* record the name */
+	      emitter.parser_class_name = argv[i];
+	    }
+	  else if (argv[i].equals("-symbols"))
+	    {
+	      /* must have an arg */
+	      if (++i >= len || argv[i].startsWith("-") ||
+				argv[i].endsWith(".cup"))
+		usage("-symbols must have a name argument");
+
+	      /* record the name */
+	      emitter.symbol_const_class_name = argv[i];
+	    }
+	  else if (argv[i].equals("-nonterms"))
+	    {
+	      include_non_terms = true;
+	    }
+	  else if (argv[i].equals("-expect"))
+	    {
+	      /* must have an arg */
+	      if (++i >= len || argv[i].startsWith("-") ||
+				argv[i].endsWith(".cup"))
+		usage("-expect must have a name argument");
+
+	      /* record the number */
+	      try {
+	        expect_conflicts = Integer.parseInt(argv[i]);
+	      } catch (NumberFormatException e) {
+		usage("-expect must be followed by a decimal integer");
+	      }
+	    }
+	  else if (argv[i].equals("-compact_red"))  opt_compact_red = true;
+	  else if (argv[i].equals("-nosummary"))    no_summary = true;
+	  else if (argv[i].equals("-nowarn"))       emitter.nowarn = true;
+	  else if (argv[i].equals("-dump_states"))  opt_dump_states = true;
+	  else if (argv[i].equals("-dump_tables"))  opt_dump_tables = true;
+	  else if (argv[i].equals("-progress"))     print_progress = true;
+	  else if (argv[i].equals("-dump_grammar")) opt_dump_grammar = true;
+	  else if (argv[i].equals("-dump"))
+	        opt_dump_states = opt_dump_tables = opt_dump_grammar = true;
+	  else if (argv[i].equals("-time"))         opt_show_timing = true;
+	  else if (argv[i].equals("-debug"))        opt_do_debug = true;
+	  /* frankf 6/18/96 */
+	  else if (argv[i].equals("-nopositions"))  lr_values = false;
+	  /* CSA 12/21/97 */
+	  else if (argv[i].equals("-interface"))    sym_interface = true;
+	  else if (argv[i].equals("-compact_tables")) compact_tables = true;
+	  else if (argv[i].equals("-threads"))
+	    {
+	      /* must have an arg */
+	      if (++i >= len || argv[i].startsWith("-") ||
+				argv[i].endsWith(".cup"))
+		usage("-threads must have a number argument");
+
+	      /* record the number */
+	      try {
+	        num_threads = Integer.parseInt(argv[i]);
+	      } catch (NumberFormatException e) {
+		usage("-threads must be followed by a decimal integer");
+	      }
+	      if (num_threads < 1)
+		usage("-threads must be at least 1");
+	    }
+	  else if (argv[i].equals("-profile"))
+	    {
+	      /* must have an arg */
+	      if (++i >= len || argv[i].startsWith("-") ||
+				argv[i].endsWith(".cup"))
+		usage("-profile must have a file name argument");
+
+	      /* record the file */
+	      profile_file = new File(argv[i]);
+	    }
+	  else if (argv[i].equals("-cache"))
+	    {
+	      /* must have an arg */
+	      if (++i >= len || argv[i].startsWith("-") ||
+				argv[i].endsWith(".cup"))
+		usage("-cache must have a directory argument");
+
+	      /* record the directory */
+	      cache_dir = new File(argv[i]);
+	    }
+	  else
+	    {
+	      usage("Unrecognized option \"" + argv[i] + "\"");
+	    }
+	}
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /*-------*/
+  /* Files */
+  /*-------*/
+
+  /** Input file.  This is a buffered version of the input stream. */
+  protected BufferedInputStream input_file;
+
+  /** Output file for the parser class. */
+  protected PrintWriter parser_class_file;
+
+  /** Output file for the symbol constant class. */
+  protected PrintWriter symbol_class_file;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Open various files used by the system. */
+  protected void open_files()
+    {
+      File fil;
+      String out_name;
+
+      /* use a buffered version of the input */
+      input_file = new BufferedInputStream(input);
+
+      /* open each of the output files */
+
+      /* parser class */
+      out_name = emitter.parser_class_name + ".java";
+      fil = new File(output_dir, out_name);
+      try {
+        parser_class_file = new PrintWriter(
+		 new BufferedOutputStream(new FileOutputStream(fil), 4096));
+      } catch(Exception e) {
+	err.println("Can't open \"" + out_name + "\" for output");
+	throw new exit(3);
+      }
+
+      /* symbol constants class */
+      out_name = emitter.symbol_const_class_name + ".java";
+      fil = new File(output_dir, out_name);
+      try {
+        symbol_class_file = new PrintWriter(
+		 new BufferedOutputStream(new FileOutputStream(fil), 4096));
+      } catch(Exception e) {
+	err.println("Can't open \"" + out_name + "\" for output");
+	throw new exit(4);
+      }
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Close various files used by the system. */
+  protected void close_files() throws java.io.IOException
+    {
+      if (input_file != null) input_file.close();
+      if (parser_class_file != null) parser_class_file.close();
+      if (symbol_class_file != null) symbol_class_file.close();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Parse the grammar specification from the input stream.  This produces
+   *  sets of terminal, non-terminals, and productions which can be accessed
+   *  via the static access methods of the respective classes, as well as
+   *  the setting of various variables (mostly in the emitter) for small user
+   *  supplied items such as the code to scan with.
+   */
+  protected void parse_grammar_spec() throws java.lang.Exception
+    {
+      parser parser_obj;
+
+      /* create a parser and parse with it */
+      parser_obj = new parser();
+      try {
+	if (opt_do_debug)
+          parser_obj.debug_parse();
+	else
+          parser_obj.parse();
+      } catch (exit e) {
+	throw e;
+      } catch (Exception e)
+      {
+	/* something threw an exception.  catch it and emit a message so we
+	   have a line number to work with, then re-throw it */
+	scanner.emit_error("Internal error: Unexpected exception");
+	throw e;
+      }
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Check for unused symbols.  Unreduced productions get checked when
+   *  tables are created.
+   */
+  protected void check_unused()
+    {
+      terminal term;
+      non_terminal nt;
+
+      /* check for unused terminals */
+      for (Enumeration t = terminal.all(); t.hasMoreElements(); )
+	{
+	  term = (terminal)t.nextElement();
+
+	  /* don't issue a message for EOF */
+	  if (term == EOF) continue;
+
+	  /* or error */
+	  if (term == error) continue;
+
+	  /* is this one unused */
+	  if (term.use_count() == 0)
+	    {
+	      /* count it and warn if we are doing warnings */
+	      emitter.unused_term++;
+	      if (!emitter.nowarn)
+		{
+		  err.println("Warning: Terminal \"" + term.name() +
+				     "\" was declared but never used");
+		  scanner.warning_count++;
+		}
+	    }
+	}
+
+      /* check for unused non terminals */
+      for (Enumeration n = non_terminal.all(); n.hasMoreElements(); )
+	{
+	  nt = (non_terminal)n.nextElement();
+
+	  /* is this one unused */
+	  if (nt.use_count() == 0)
+	    {
+	      /* count and warn if we are doing warnings */
+	      emitter.unused_term++;
+	      if (!emitter.nowarn)
+		{
+		  err.println("Warning: Non terminal \"" + nt.name() +
+				     "\" was declared but never used");
+		  scanner.warning_count++;
+		}
+	    }
+	}
+
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Build the (internal) parser from the previously parsed specification.
+   *  This includes:<ul>
+   *    <li> Computing nullability of non-terminals.
+   *    <li> Computing first sets of non-terminals and productions.
+   *    <li> Building the viable prefix recognizer machine.
+   *    <li> Filling in the (internal) parse tables.
+   *    <li> Checking for unreduced productions.
+   *  </ul>
+   */
+  protected void build_parser() throws internal_error
+    {
+      /* compute nullability of all non terminals */
+      if (opt_do_debug || print_progress)
+	err.println("  Computing non-terminal nullability...");
+      prof.start("nullability");
+      non_terminal.compute_nullability();
+
+      nullability_end = System.currentTimeMillis();
+
+      /* compute first sets of all non terminals */
+      if (opt_do_debug || print_progress)
+	err.println("  Computing first sets...");
+      prof.start("first_sets");
+      non_terminal.compute_first_sets();
+
+      first_end = System.currentTimeMillis();
+
+      /* build the LR viable prefix recognition machine */
+      if (opt_do_debug || print_progress)
+	err.println("  Building state machine...");
+      prof.start("build_machine");
+      start_state = lalr_state.build_machine(emitter.start_production);
+
+      machine_end = System.currentTimeMillis();
+
+      /* build the LR parser action and reduce-goto tables */
+      if (opt_do_debug || print_progress)
+	err.println("  Filling in tables...");
+      prof.start("build_tables");
+      build_table_entries();
+
+      table_end = System.currentTimeMillis();
+
+      /* check and warn for non-reduced productions */
+      if (opt_do_debug || print_progress)
+	err.println("  Checking for non-reduced productions...");
+      prof.start("check_reductions");
+      action_table.check_reductions();
+
+      prof.stop();
+
+      reduce_check_end = System.currentTimeMillis();
+
+      /* if we have more conflicts than we expected issue a message and die */
+      if (emitter.num_conflicts > expect_conflicts)
+	{
+	  err.println("*** More conflicts encountered than expected " +
+			     "-- parser generation aborted");
+	  scanner.error_count++;
+	  build_end = System.currentTimeMillis();
+
+	  /* do dumps and summary as needed */
+          if (opt_dump_grammar) dump_grammar();
+          if (opt_dump_states)  dump_machine();
+	  if (!no_summary) emit_summary(false);
+
+	  try {
+	    close_files();
+	  } catch (IOException e) {
+	    /* we are aborting anyway */
+	  }
+	  throw new exit(100);
+	}
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Create the action and reduce-goto tables and fill in every state's
+   *  rows.  The rows are independent, so they are filled on several
+   *  threads (see state_task); any conflicts are then reported in the
+   *  order the states are enumerated, exactly as if the states had been
+   *  done one at a time.
+   */
+  protected void build_table_entries() throws internal_error
+    {
+      action_table = new parse_action_table();
+      reduce_table = new parse_reduce_table();
+
+      final lalr_state[]   in_order  = new lalr_state[lalr_state.number()];
+      final terminal_set[] conflicts = new terminal_set[in_order.length];
+
+      int i = 0;
+      for (Enumeration st = lalr_state.all(); st.hasMoreElements(); )
+	in_order[i++] = (lalr_state)st.nextElement();
+
+      new state_task() {
+	public void run(int st, int worker) throws internal_error
+	  {
+	    conflicts[st] = 
+	      in_order[st].compute_table_entries(action_table, reduce_table);
+	  }
+      }.run_all(this, in_order.length, num_threads);
+
+      for (i = 0; i < in_order.length; i++)
+	if (!conflicts[i].empty())
+	  in_order[i].report_conflicts(conflicts[i]);
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Call the emit routines necessary to write out the generated parser. */
+  protected void emit_parser() throws internal_error
+    {
+      emitter.symbols(symbol_class_file, include_non_terms, sym_interface);
+      emitter.parser(parser_class_file, action_table, reduce_table,
+		  start_state.index(), emitter.start_production,
+		  opt_compact_red, compact_tables);
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Helper routine to optionally return a plural or non-plural ending.
+   * @param val the numerical value determining plurality.
+   */
+  protected static String plural(int val)
+    {
+      if (val == 1)
+	return "";
+      else
+	return "s";
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit a long summary message to the message stream which summarizes
+   *  what was found in the specification, how many states were produced,
+   *  how many conflicts were found, etc.  A detailed timing summary is also
+   *  produced if it was requested by the user.
+   * @param output_produced did the system get far enough to generate code.
+   */
+  protected void emit_summary(boolean output_produced)
+    {
+      final_time = System.currentTimeMillis();
+
+      if (no_summary) return;
+
+      err.println("------- " + version.title_str +
+			 " Parser Generation Summary -------");
+
+      /* error and warning count */
+      err.println("  " + scanner.error_count + " error" +
+	 plural(scanner.error_count) + " and " + scanner.warning_count +
+	 " warning" + plural(scanner.warning_count));
+
+      /* basic stats */
+      err.print("  " + terminal.number() + " terminal" +
+			 plural(terminal.number()) + ", ");
+      err.print(non_terminal.number() + " non terminal" +
+			 plural(non_terminal.number()) + ", and ");
+      err.println(production.number() + " production" +
+			 plural(production.number()) + " declared, ");
+      err.println("  producing " + lalr_state.number() +
+			 " unique parse states.");
+
+      /* unused symbols */
+      err.println("  " + emitter.unused_term + " terminal" +
+			 plural(emitter.unused_term) + " declared but not used.");
+      err.println("  " + emitter.unused_non_term + " non terminal" +
+			 plural(emitter.unused_term) + " declared but not used.");
+
+      /* productions that didn't reduce */
+      err.println("  " + emitter.not_reduced + " production" +
+			 plural(emitter.not_reduced) + " never reduced.");
+
+      /* conflicts */
+      err.println("  " + emitter.num_conflicts + " conflict" +
+			 plural(emitter.num_conflicts) + " detected" +
+	                 " (" + expect_conflicts + " expected).");
+
+      /* code location */
+      if (output_produced)
+	err.println("  Code written to \"" + emitter.parser_class_name +
+	        ".java\", and \"" + emitter.symbol_const_class_name + ".java\".");
+      else
+	err.println("  No code produced.");
+
+      if (opt_show_timing) show_times();
+
+      err.println(
+	"---------------------------------------------------- (" +
+	 version.version_str + ")");
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Produce the optional timing summary as part of an overall summary. */
+  protected void show_times()
+    {
+      long total_time = final_time - start_time;
+
+      err.println(". . . . . . . . . . . . . . . . . . . . . . . . . ");
+      err.println("  Timing Summary");
+      err.println("    Total time       "
+        + timestr(final_time-start_time, total_time));
+      err.println("      Startup        "
+	+ timestr(prelim_end-start_time, total_time));
+      err.println("      Parse          "
+	+ timestr(parse_end-prelim_end, total_time) );
+      if (check_end != 0)
+        err.println("      Checking       "
+	    + timestr(check_end-parse_end, total_time));
+      if (check_end != 0 && build_end != 0)
+        err.println("      Parser Build   "
+	    + timestr(build_end-check_end, total_time));
+      if (nullability_end != 0 && check_end != 0)
+        err.println("        Nullability  "
+	    + timestr(nullability_end-check_end, total_time));
+      if (first_end != 0 && nullability_end != 0)
+        err.println("        First sets   "
+            + timestr(first_end-nullability_end, total_time));
+      if (machine_end != 0 && first_end != 0)
+        err.println("        State build  "
+	    + timestr(machine_end-first_end, total_time));
+      if (table_end != 0 && machine_end != 0)
+        err.println("        Table build  "
+	    + timestr(table_end-machine_end, total_time));
+      if (reduce_check_end != 0 && table_end != 0)
+        err.println("        Checking     "
+	    + timestr(reduce_check_end-table_end, total_time));
+      if (emit_end != 0 && build_end != 0)
+        err.println("      Code Output    "
+	    + timestr(emit_end-build_end, total_time));
+      if (emitter.symbols_time != 0)
+	err.println("        Symbols      "
+	    + timestr(emitter.symbols_time, total_time));
+      if (emitter.parser_time != 0)
+	err.println("        Parser class "
+	    + timestr(emitter.parser_time, total_time));
+      if (emitter.action_code_time != 0)
+	err.println("          Actions    "
+	    + timestr(emitter.action_code_time, total_time));
+      if (emitter.production_table_time != 0)
+	err.println("          Prod table "
+	    + timestr(emitter.production_table_time, total_time));
+      if (emitter.action_table_time != 0)
+	err.println("          Action tab "
+	    + timestr(emitter.action_table_time, total_time));
+      if (emitter.goto_table_time != 0)
+	err.println("          Reduce tab "
+	    + timestr(emitter.goto_table_time, total_time));
+
+      err.println("      Dump Output    "
+	+ timestr(dump_end-emit_end, total_time));
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Helper routine to format a decimal based display of seconds and
+   *  percentage of total time given counts of milliseconds.   Note: this
+   *  is broken for use with some instances of negative time (since we don't
+   *  use any negative time here, we let if be for now).
+   * @param time_val   the value being formatted (in ms).
+   * @param total_time total time percentages are calculated against (in ms).
+   */
+  protected static String timestr(long time_val, long total_time)
+    {
+      boolean neg;
+      long    ms = 0;
+      long    sec = 0;
+      long    percent10;
+      String  pad;
+
+      /* work with positives only */
+      neg = time_val < 0;
+      if (neg) time_val = -time_val;
+
+      /* pull out seconds and ms */
+      ms = time_val % 1000;
+      sec = time_val / 1000;
+
+      /* construct a pad to blank fill seconds out to 4 places */
+      if (sec < 10)
+	pad = "   ";
+      else if (sec < 100)
+	pad = "  ";
+      else if (sec < 1000)
+	pad = " ";
+      else
+	pad = "";
+
+      /* calculate 10 times the percentage of total */
+      percent10 = (time_val*1000)/total_time;
+
+      /* build and return the output string */
+      return (neg ? "-" : "") + pad + sec + "." +
+	     ((ms%1000)/100) + ((ms%100)/10) + (ms%10) + "sec" +
+	     " (" + percent10/10 + "." + percent10%10 + "%)";
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Produce a human readable dump of the grammar. */
+  public void dump_grammar() throws internal_error
+    {
+      int cnt;
+      Enumeration t, n, p;
+      production prod;
+
+      err.println("===== Terminals =====");
+      for (t = terminal.all(), cnt=0; t.hasMoreElements(); cnt++)
+	{
+	  err.print(((terminal)t.nextElement()).name() + " ");
+	  if ((cnt+1) % 5 == 0) err.println();
+	}
+      err.println();
+      err.println();
+
+      err.println("===== Non terminals =====");
+      for (n=non_terminal.all(), cnt=0; n.hasMoreElements(); cnt++)
+	{
+	  err.print(((non_terminal)n.nextElement()).name() + " ");
+	  if ((cnt+1) % 5 == 0) err.println();
+	}
+      err.println();
+      err.println();
+
+
+      err.println("===== Productions =====");
+      for (p=production.all(); p.hasMoreElements(); )
+	{
+	  prod = (production)p.nextElement();
+	  err.print(prod.lhs().the_symbol().name() + " ::= ");
+	  for (int i=0; i<prod.rhs_length(); i++)
+	    if (prod.rhs(i).is_action())
+	      err.print("{action} ");
+	    else
+	      err.print(
+			 ((symbol_part)prod.rhs(i)).the_symbol().name() + " ");
+	  err.println();
+	}
+      err.println();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Produce a (semi-) human readable dump of the complete viable prefix
+   *  recognition state machine.
+   */
+  public void dump_machine()
+    {
+      lalr_state ordered[] = new lalr_state[lalr_state.number()];
+
+      /* put the states in sorted order for a nicer display */
+      for (Enumeration s = lalr_state.all(); s.hasMoreElements(); )
+	{
+	  lalr_state st = (lalr_state)s.nextElement();
+	  ordered[st.index()] = st;
+	}
+
+      err.println("===== Viable Prefix Recognizer =====");
+      for (int i = 0; i<lalr_state.number(); i++)
+	{
+	  if (ordered[i] == start_state) err.print("START ");
+          err.println(ordered[i]);
+	  err.println("-------------------");
+	}
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Produce a (semi-) human readable dumps of the parse tables */
+  public void dump_tables()
+    {
+      err.println(action_table);
+      err.println(reduce_table);
+    }
+
+  /*-----------------------------------------------------------*/
+
+}
@@ -47,7 +47,9 @@ import java.util.Date;
  * conflicts detected (see the source code and public variables below for
  * more details).<p> 
  *
- * This class is "static" (contains only static data and methods).<p> 
+ * One instance of this class belongs to each Generator (see 
+ * Generator.emitter); it carries the user code strings and counters for that
+ * run only.<p> 
  *
  * @see java_cup.main
  * @version last update: 11/25/95
@@ -64,6 +66,11 @@ import java.util.Date;
      emit_production_table - emit declaration and init for the production table
      do_action_table       - emit declaration and init for the action table
      do_reduce_table       - emit declaration and init for the reduce-goto table
+     emit_packed_tables    - emit all three tables packed into strings, with
+                             accessors that unpack them lazily
+
+   The tables themselves are built (as short[][]) by production_rows,
+   action_rows and reduce_rows before being emitted either way.
 
    Finally, this class uses a number of public instance variables to communicate
    optional parameters and flags used to control how code is generated,
@@ -101,114 +108,111 @@ public class emit {
   /*--- Constructor(s) ----------------------------------------*/
   /*-----------------------------------------------------------*/
 
-  /** Only constructor is private so no instances can be created. */
-  private emit() { }
+  /** Simple constructor; each Generator creates its own emitter. */
+  protected emit() { }
 
   /*-----------------------------------------------------------*/
-  /*--- Static (Class) Variables ------------------------------*/
+  /*--- (Access to) Instance Variables ------------------------*/
   /*-----------------------------------------------------------*/
 
   /** The prefix placed on names that pollute someone else's name space. */
-  public static String prefix = "CUP$";
+  public String prefix = "CUP$";
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Package that the resulting code goes into (null is used for unnamed). */
-  public static String package_name = null;
+  public String package_name = null;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Name of the generated class for symbol constants. */
-  public static String symbol_const_class_name = "sym";
+  public String symbol_const_class_name = "sym";
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Name of the generated parser class. */
-  public static String parser_class_name = "parser";
+  public String parser_class_name = "parser";
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** User declarations for direct inclusion in user action class. */
-  public static String action_code = null;
+  public String action_code = null;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** User declarations for direct inclusion in parser class. */
-  public static String parser_code = null;
+  public String parser_code = null;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** User code for user_init() which is called during parser initialization. */
-  public static String init_code = null;
+  public String init_code = null;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** User code for scan() which is called to get the next Symbol. */
-  public static String scan_code = null;
+  public String scan_code = null;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** The start production of the grammar. */
-  public static production start_production = null;
+  public production start_production = null;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** List of imports (Strings containing class names) to go with actions. */
-  public static Stack import_list = new Stack();
+  public Stack import_list = new Stack();
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Number of conflict found while building tables. */
-  public static int num_conflicts = 0;
+  public int num_conflicts = 0;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Do we skip warnings? */
-  public static boolean nowarn = false;
+  public boolean nowarn = false;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Count of the number on non-reduced productions found. */
-  public static int not_reduced = 0;
+  public int not_reduced = 0;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Count of unused terminals. */
-  public static int unused_term = 0;
+  public int unused_term = 0;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Count of unused non terminals. */
-  public static int unused_non_term = 0;
+  public int unused_non_term = 0;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /* Timing values used to produce timing report in main.*/
 
   /** Time to produce symbol constant class. */
-  public static long symbols_time          = 0;
+  public long symbols_time          = 0;
 
   /** Time to produce parser class. */
-  public static long parser_time           = 0;
+  public long parser_time           = 0;
 
   /** Time to produce action code class. */
-  public static long action_code_time      = 0;
+  public long action_code_time      = 0;
 
   /** Time to produce the production table. */
-  public static long production_table_time = 0;
+  public long production_table_time = 0;
 
   /** Time to produce the action table. */
-  public static long action_table_time     = 0;
+  public long action_table_time     = 0;
 
   /** Time to produce the reduce-goto table. */
-  public static long goto_table_time       = 0;
+  public long goto_table_time       = 0;
 
   /* frankf 6/18/96 */
-  protected static boolean _lr_values;
-
   /** whether or not to emit code for left and right values */
-  public static boolean lr_values() {return _lr_values;}
-  protected static void set_lr_values(boolean b) { _lr_values = b;}
+  public boolean lr_values() {return Generator.current().lr_values;}
 
   /*-----------------------------------------------------------*/
   /*--- General Methods ---------------------------------------*/
@@ -217,7 +221,7 @@ public class emit {
   /** Build a string with the standard prefix. 
    * @param str string to prefix.
    */
-  protected static String pre(String str) {
+  protected String pre(String str) {
     return prefix + parser_class_name + "$" + str;
   }
 
@@ -226,7 +230,7 @@ public class emit {
   /** Emit a package spec if the user wants one. 
    * @param out stream to produce output on.
    */
-  protected static void emit_package(PrintWriter out)
+  protected void emit_package(PrintWriter out)
     {
       /* generate a package spec if we have a name for one */
       if (package_name != null) 
@@ -242,7 +246,7 @@ public class emit {
    * @param emit_non_terms do we emit constants for non terminals?
    * @param sym_interface  should we emit an interface, rather than a class?
    */
-  public static void symbols(PrintWriter out, 
+  public void symbols(PrintWriter out, 
 			     boolean emit_non_terms, boolean sym_interface)
     {
       terminal term;
@@ -307,7 +311,7 @@ public class emit {
    * @param out        stream to produce output on.
    * @param start_prod the start production of the grammar.
    */
-  protected static void emit_action_code(PrintWriter out, production start_prod)
+  protected void emit_action_code(PrintWriter out, production start_prod)
     throws internal_error
     {
       production prod;
@@ -394,12 +398,12 @@ public class emit {
 	    out.println("              " + "// propagate RESULT from " +
 			s.name());
 	    out.println("              " + "if ( " +
-	      "((java_cup.runtime.Symbol) " + emit.pre("stack") + ".elementAt("
-              + emit.pre("top") + "-" + index + ")).value != null )");
+	      "((java_cup.runtime.Symbol) " + pre("stack") + ".elementAt("
+              + pre("top") + "-" + index + ")).value != null )");
 	    out.println("                " + "RESULT = " +
 	      "(" + prod.lhs().the_symbol().stack_type() + ") " +
-	      "((java_cup.runtime.Symbol) " + emit.pre("stack") + ".elementAt("
-              + emit.pre("top") + "-" + index + ")).value;");
+	      "((java_cup.runtime.Symbol) " + pre("stack") + ".elementAt("
+              + pre("top") + "-" + index + ")).value;");
 	  }
 
         /* if there is an action string, emit it */
@@ -413,18 +417,18 @@ public class emit {
 
          /* Create the code that assigns the left and right values of
             the new Symbol that the production is reducing to */
-	  if (emit.lr_values()) {	    
+	  if (lr_values()) {	    
 	    int loffset;
 	    String leftstring, rightstring;
 	    int roffset = 0;
-	    rightstring = "((java_cup.runtime.Symbol)" + emit.pre("stack") + ".elementAt(" + 
-	      emit.pre("top") + "-" + roffset + ")).right";	  
+	    rightstring = "((java_cup.runtime.Symbol)" + pre("stack") + ".elementAt(" + 
+	      pre("top") + "-" + roffset + ")).right";	  
 	    if (prod.rhs_length() == 0) 
 	      leftstring = rightstring;
 	    else {
 	      loffset = prod.rhs_length() - 1;
-	      leftstring = "((java_cup.runtime.Symbol)" + emit.pre("stack") + ".elementAt(" + 
-		emit.pre("top") + "-" + loffset + ")).left";	  
+	      leftstring = "((java_cup.runtime.Symbol)" + pre("stack") + ".elementAt(" + 
+		pre("top") + "-" + loffset + ")).left";	  
 	    }
 	    out.println("              " + pre("result") + " = new java_cup.runtime.Symbol(" + 
 			prod.lhs().the_symbol().index() + "/*" +
@@ -472,72 +476,32 @@ public class emit {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  /** Emit the production table. 
-   * @param out stream to produce output on.
+  /** Build the production table.  This has one {lhs symbol, rhs size} row
+   *  per production, in production index order.
    */
-  protected static void emit_production_table(PrintWriter out)
+  protected short[][] production_rows()
     {
-      production all_prods[];
       production prod;
 
-      long start_time = System.currentTimeMillis();
-
-      /* do the top of the table */
-      out.println();
-      out.println("  /** production table */");
-      out.println("  protected static final short _production_table[][] = {"); 
-
-      /* collect up the productions in order */
-      all_prods = new production[production.number()];
+      short[][] rows = new short[production.number()][];
       for (Enumeration p = production.all(); p.hasMoreElements(); )
 	{
 	  prod = (production)p.nextElement();
-	  all_prods[prod.index()] = prod;
+	  rows[prod.index()] = new short[] {
+	    (short)/* lhs symbol # */ prod.lhs().the_symbol().index(),
+	    (short)/* rhs size */     prod.rhs_length()};
 	}
-
-      /* do one entry per production */
-      out.print("    ");
-      for (int i = 0; i<production.number(); i++)
-	{
-	  prod = all_prods[i];
-
-	  /* make the table entry */
-	  out.print("    {");
-	  out.print(/* lhs symbol # */ prod.lhs().the_symbol().index() + ", ");
-	  out.print(/* rhs size */     prod.rhs_length() + "}");
-
-	  /* put in a comma if we aren't at the end */
-	  if (i < production.number()-1) out.print(", ");
-
-	  /* 5 entries per line */
-	  if ((i+1) % 5 == 0) 
-	    {
-	      out.println();
-	      out.print("    ");
-	    }
-	}
-
-      /* finish off the table initializer */
-      out.println("  };");
-
-      /* do the public accessor method */
-      out.println();
-      out.println("  /** access to production table */");
-      out.println("  public short[][] production_table() " + 
-						 "{return _production_table;}");
-
-      production_table_time = System.currentTimeMillis() - start_time;
+      return rows;
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  /** Emit the action table. 
-   * @param out             stream to produce output on.
+  /** Build the rows of the action table.  Each row is a list of
+   *  (terminal index, action) pairs ending in a (-1, default) pair.
    * @param act_tab         the internal representation of the action table.
    * @param compact_reduces do we use the most frequent reduce as default?
    */
-  protected static void do_action_table(
-    PrintWriter        out, 
+  protected short[][] action_rows(
     parse_action_table act_tab,
     boolean            compact_reduces)
     throws internal_error
@@ -545,12 +509,10 @@ public class emit {
       parse_action_row row;
       parse_action     act;
       int              red;
+      short[]          entries;
+      int              len;
 
-      long start_time = System.currentTimeMillis();
-
-      out.println();
-      out.println("  /** parse action table */");
-      out.println("  protected static final short[][] _action_table = {"); 
+      short[][] rows = new short[act_tab.num_states()][];
 
       /* do each state (row) of the action table */
       for (int i = 0; i < act_tab.num_states(); i++)
@@ -564,7 +526,8 @@ public class emit {
 	  else
 	    row.default_reduce = -1;
 
-	  out.print("    /*" + i + "*/{");
+	  entries = new short[row.size()*2 + 2];
+	  len = 0;
 
 	  /* do each column */
 	  for (int j = 0; j < row.size(); j++)
@@ -580,8 +543,9 @@ public class emit {
 		  /* shifts get positive entries of state number + 1 */
 		  if (act.kind() == parse_action.SHIFT)
 		    {
-		      out.print(j + "," + 
-				(((shift_action)act).shift_to().index() + 1) + ",");
+		      entries[len++] = (short)j;
+		      entries[len++] = 
+			(short)(((shift_action)act).shift_to().index() + 1);
 		    }
 
 		  /* reduce actions get negated entries of production# + 1 */
@@ -590,7 +554,10 @@ public class emit {
 		      /* if its the default entry let it get defaulted out */
 		      red = ((reduce_action)act).reduce_with().index();
 		      if (red != row.default_reduce)
-		        out.print(j + "," + (-(red+1)) + ",");
+			{
+			  entries[len++] = (short)j;
+			  entries[len++] = (short)(-(red+1));
+			}
 		    } else if (act.kind() == parse_action.NONASSOC)
 		      {
 			/* do nothing, since we just want a syntax error */
@@ -603,46 +570,38 @@ public class emit {
 	    }
 
 	  /* finish off the row with a default entry */
+	  entries[len++] = -1;
 	  if (row.default_reduce != -1)
-	    out.println("-1," + (-(row.default_reduce+1)) + "},");
+	    entries[len++] = (short)(-(row.default_reduce+1));
 	  else
-	    out.println("-1,0},");
-	}
+	    entries[len++] = 0;
 
-      /* finish off the init of the table */
-      out.println("  };");
-
-      /* do the public accessor method */
-      out.println();
-      out.println("  /** access to parse action table */");
-      out.println("  public short[][] action_table() {return _action_table;}");
+	  rows[i] = new short[len];
+	  System.arraycopy(entries, 0, rows[i], 0, len);
+	}
 
-      action_table_time = System.currentTimeMillis() - start_time;
+      return rows;
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  /** Emit the reduce-goto table. 
-   * @param out     stream to produce output on.
+  /** Build the rows of the reduce-goto table.  Each row is a list of
+   *  (non terminal index, state) pairs ending in a (-1, -1) pair.
    * @param red_tab the internal representation of the reduce-goto table.
    */
-  protected static void do_reduce_table(
-    PrintWriter out, 
-    parse_reduce_table red_tab)
+  protected short[][] reduce_rows(parse_reduce_table red_tab)
     {
-      lalr_state       goto_st;
-      parse_action     act;
+      lalr_state goto_st;
+      short[]    entries;
+      int        len;
 
-      long start_time = System.currentTimeMillis();
-
-      out.println();
-      out.println("  /** reduce_goto table */");
-      out.println("  protected static final short[][] _reduce_table = {"); 
+      short[][] rows = new short[red_tab.num_states()][];
 
       /* do each row of the reduce-goto table */
       for (int i=0; i<red_tab.num_states(); i++)
 	{
-	  out.print("    /*" + i + "*/{");
+	  entries = new short[red_tab.under_state[i].size()*2 + 2];
+	  len = 0;
 
 	  /* do each entry in the row */
 	  for (int j=0; j<red_tab.under_state[i].size(); j++)
@@ -654,12 +613,110 @@ public class emit {
 	      if (goto_st != null)
 		{
 		  /* make entries for the index and the value */
-		  out.print(j + "," + goto_st.index() + ",");
+		  entries[len++] = (short)j;
+		  entries[len++] = (short)goto_st.index();
 		}
 	    }
 
 	  /* end row with default value */
-	  out.println("-1,-1},");
+	  entries[len++] = -1;
+	  entries[len++] = -1;
+
+	  rows[i] = new short[len];
+	  System.arraycopy(entries, 0, rows[i], 0, len);
+	}
+
+      return rows;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit the production table. 
+   * @param out  stream to produce output on.
+   * @param rows the table, as built by production_rows().
+   */
+  protected void emit_production_table(PrintWriter out, short[][] rows)
+    {
+      /* do the top of the table */
+      out.println();
+      out.println("  /** production table */");
+      out.println("  protected static final short _production_table[][] = {"); 
+
+      /* do one entry per production */
+      out.print("    ");
+      for (int i = 0; i<rows.length; i++)
+	{
+	  /* make the table entry */
+	  out.print("    {");
+	  out.print(/* lhs symbol # */ rows[i][0] + ", ");
+	  out.print(/* rhs size */     rows[i][1] + "}");
+
+	  /* put in a comma if we aren't at the end */
+	  if (i < rows.length-1) out.print(", ");
+
+	  /* 5 entries per line */
+	  if ((i+1) % 5 == 0) 
+	    {
+	      out.println();
+	      out.print("    ");
+	    }
+	}
+
+      /* finish off the table initializer */
+      out.println("  };");
+
+      /* do the public accessor method */
+      out.println();
+      out.println("  /** access to production table */");
+      out.println("  public short[][] production_table() " + 
+						 "{return _production_table;}");
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit the action table. 
+   * @param out  stream to produce output on.
+   * @param rows the table, as built by action_rows().
+   */
+  protected void do_action_table(PrintWriter out, short[][] rows)
+    {
+      out.println();
+      out.println("  /** parse action table */");
+      out.println("  protected static final short[][] _action_table = {"); 
+
+      /* do each state (row) of the action table */
+      for (int i = 0; i < rows.length; i++)
+	{
+	  out.print("    /*" + i + "*/{");
+	  emit_row(out, rows[i]);
+	}
+
+      /* finish off the init of the table */
+      out.println("  };");
+
+      /* do the public accessor method */
+      out.println();
+      out.println("  /** access to parse action table */");
+      out.println("  public short[][] action_table() {return _action_table;}");
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit the reduce-goto table. 
+   * @param out  stream to produce output on.
+   * @param rows the table, as built by reduce_rows().
+   */
+  protected void do_reduce_table(PrintWriter out, short[][] rows)
+    {
+      out.println();
+      out.println("  /** reduce_goto table */");
+      out.println("  protected static final short[][] _reduce_table = {"); 
+
+      /* do each row of the reduce-goto table */
+      for (int i=0; i<rows.length; i++)
+	{
+	  out.print("    /*" + i + "*/{");
+	  emit_row(out, rows[i]);
 	}
 
       /* finish off the init of the table */
@@ -670,8 +727,136 @@ public class emit {
       out.println("  /** access to reduce_goto table */");
       out.println("  public short[][] reduce_table() {return _reduce_table;}");
       out.println();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit the entries of one action or reduce-goto row and close it off. */
+  protected void emit_row(PrintWriter out, short[] row)
+    {
+      for (int j = 0; j < row.length-1; j++)
+	out.print(row[j] + ",");
+      out.println(row[row.length-1] + "},");
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** How far back we look for an identical row when packing tables. */
+  protected static final int MAX_BACK_REF = 64;
+
+  /** Pack a set of tables into the format read by
+   *  java_cup.runtime.lr_parser.unpack_tables().
+   * @param tables the tables to pack.
+   * @return the packed data, one character per number, or null if a
+   *         table or row is too long for its length to fit in a character.
+   */
+  protected StringBuffer pack_tables(short[][][] tables)
+    {
+      StringBuffer packed = new StringBuffer();
+
+      /* every length is one character */
+      if (tables.length > Character.MAX_VALUE) return null;
+      for (int t = 0; t < tables.length; t++)
+	{
+	  if (tables[t].length > Character.MAX_VALUE) return null;
+	  for (int r = 0; r < tables[t].length; r++)
+	    if (tables[t][r].length > Character.MAX_VALUE) return null;
+	}
+
+      packed.append((char)(java_cup.runtime.lr_parser.PACKED_MAGIC >>> 16));
+      packed.append((char)java_cup.runtime.lr_parser.PACKED_MAGIC);
+      packed.append((char)java_cup.runtime.lr_parser.PACKED_VERSION);
+      packed.append((char)tables.length);
+      for (int t = 0; t < tables.length; t++)
+	{
+	  short[][] table = tables[t];
+	  packed.append((char)table.length);
+	  for (int r = 0; r < table.length; r++)
+	    {
+	      /* look for an identical row a short way back */
+	      int back = 0;
+	      for (int b = 1; b <= MAX_BACK_REF && b <= r; b++)
+		if (java.util.Arrays.equals(table[r], table[r - b]))
+		  {
+		    back = b;
+		    break;
+		  }
+	      packed.append((char)back);
+	      if (back != 0) continue;
+
+	      short[] row = table[r];
+	      packed.append((char)row.length);
+	      for (int i = 0; i < row.length; i++)
+		{
+		  /* 16 bit zig-zag of the difference from two entries back */
+		  short diff = (short)(row[i] - (i >= 2 ? row[i-2] : 0));
+		  packed.append((char)((diff << 1) ^ (diff >> 15)));
+		}
+	    }
+	}
+      return packed;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Emit accessors for tables that are packed into string constants
+   *  (in the format read by java_cup.runtime.lr_parser.unpack_tables())
+   *  rather than compiled as array initializers.  The strings live in a
+   *  nested holder class, so they are not unpacked until the parser first
+   *  asks for one of the tables.
+   * @param out    stream to produce output on.
+   * @param tables the production, action and reduce-goto tables.
+   * @return false, with nothing written, if the tables are too big to pack.
+   */
+  protected boolean emit_packed_tables(PrintWriter out, short[][][] tables)
+    {
+      StringBuffer packed = pack_tables(tables);
+      if (packed == null) return false;
+      String holder = pre("tables");
+
+      out.println();
+      out.println("  /** packed parse tables, unpacked on first use */");
+      out.println("  protected static class " + holder + " {");
+      out.println("    static final short[][][] all =");
+      out.println("      unpack_tables(new String[] {");
+
+      /* one string constant per chunk, several lines to each */
+      for (int i = 0; i < packed.length(); i += 16)
+	{
+	  if (i > 0)
+	    out.println(i % 16384 == 0 ? "\"," : "\" +");
+	  out.print("        \"");
+	  for (int j = i; j < i + 16 && j < packed.length(); j++)
+	    {
+	      char c = packed.charAt(j);
+
+	      /* octal escapes for the low control characters, since a \\u
+		 escape of a newline or quote would end the string */
+	      if (c >= ' ' && c < 0x7f && c != '"' && c != '\\')
+		out.print(c);
+	      else if (c < 0x100)
+		out.print("\\" + Integer.toOctalString(c + 01000).substring(1));
+	      else
+		out.print("\\u" + Integer.toHexString(c + 0x10000).substring(1));
+	    }
+	}
+      out.println("\"});");
+      out.println("  }");
 
-      goto_table_time = System.currentTimeMillis() - start_time;
+      out.println();
+      out.println("  /** access to production table */");
+      out.println("  public short[][] production_table() {return " +
+		  holder + ".all[0];}");
+      out.println();
+      out.println("  /** access to parse action table */");
+      out.println("  public short[][] action_table() {return " +
+		  holder + ".all[1];}");
+      out.println();
+      out.println("  /** access to reduce_goto table */");
+      out.println("  public short[][] reduce_table() {return " +
+		  holder + ".all[2];}");
+      out.println();
+      return true;
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -683,14 +868,19 @@ public class emit {
    * @param start_st        start state of the parse machine.
    * @param start_prod      start production of the grammar.
    * @param compact_reduces do we use most frequent reduce as default?
+   * @param compact_tables  do we pack the tables into strings rather than
+   *                        emit them as array initializers?  Tables too big
+   *                        to pack are emitted as initializers anyway, with
+   *                        a warning.
    */
-  public static void parser(
+  public void parser(
     PrintWriter        out, 
     parse_action_table action_table,
     parse_reduce_table reduce_table,
     int                start_st,
     production         start_prod,
-    boolean            compact_reduces)
+    boolean            compact_reduces,
+    boolean            compact_tables)
     throws internal_error
     {
       long start_time = System.currentTimeMillis();
@@ -719,10 +909,38 @@ public class emit {
       out.println("  /** constructor */");
       out.println("  public " + parser_class_name + "() {super();}");
 
-      /* emit the various tables */
-      emit_production_table(out);
-      do_action_table(out, action_table, compact_reduces);
-      do_reduce_table(out, reduce_table);
+      /* build the various tables */
+      long table_start = System.currentTimeMillis();
+      short[][] prod_rows = production_rows();
+      production_table_time = System.currentTimeMillis() - table_start;
+
+      table_start = System.currentTimeMillis();
+      short[][] act_rows = action_rows(action_table, compact_reduces);
+      action_table_time = System.currentTimeMillis() - table_start;
+
+      table_start = System.currentTimeMillis();
+      short[][] red_rows = reduce_rows(reduce_table);
+      goto_table_time = System.currentTimeMillis() - table_start;
+
+      /* emit them, either as initializers or packed */
+      if (compact_tables &&
+	  !emit_packed_tables(out, new short[][][] {prod_rows, act_rows, red_rows}))
+	{
+	  Generator gen = Generator.current();
+	  if (!nowarn)
+	    {
+	      gen.err.println("Warning: Tables too large for -compact_tables; " +
+			      "emitting them as array initializers");
+	      gen.scanner.warning_count++;
+	    }
+	  compact_tables = false;
+	}
+      if (!compact_tables)
+	{
+	  emit_production_table(out, prod_rows);
+	  do_action_table(out, act_rows);
+	  do_reduce_table(out, red_rows);
+	}
 
       /* instance of the action encapsulation class */
       out.println("  /** instance of action encapsulation class */");
@@ -765,11 +983,11 @@ public class emit {
 
       /* methods to indicate EOF and error symbol indexes */
       out.println("  /** EOF Symbol index */");
-      out.println("  public int EOF_sym() {return " + terminal.EOF.index() + 
+      out.println("  public int EOF_sym() {return " + terminal.EOF().index() + 
 					  ";}");
       out.println();
       out.println("  /** error Symbol index */");
-      out.println("  public int error_sym() {return " + terminal.error.index() +
+      out.println("  public int error_sym() {return " + terminal.error().index() +
 					  ";}");
       out.println();
 
@@ -11,12 +11,13 @@ public class internal_error extends Exception
       }
 
     /** Method called to do a forced error exit on an internal error
-	for cases when we can't actually throw the exception.  */
+	for cases when we can't actually throw the exception.  This ends 
+	the current run (see Generator.exit) rather than the whole JVM. */
     public void crash()
       {
 	System.err.println("JavaCUP Fatal Internal Error Detected");
 	System.err.println(getMessage());
 	printStackTrace();
-	System.exit(-1);
+	throw new Generator.exit(-1);
       }
   }
@@ -132,6 +132,7 @@ public class lalr_item extends lr_item_core {
 	{
           /* don't need to propagate again */
           needs_propagation = false;
+	  Generator.current().prof.propagation_steps++;
 
 	  /* propagate our lookahead into each item we are linked to */
 	  for (int i = 0; i < propagate_items().size(); i++)
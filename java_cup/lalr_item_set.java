@@ -245,8 +245,7 @@ public class lalr_item_set {
       Enumeration   p;
       production    prod;
       boolean       need_prop;
-
-
+      profiler      prof = Generator.current().prof;
 
       /* invalidate cached hashcode */
       hashcode_cache = null;
@@ -259,6 +258,7 @@ public class lalr_item_set {
 	{
 	  /* get one item to consider */
 	  itm = consider.get_one(); 
+	  prof.closure_iterations++;
 
 	  /* do we have a dot before a non terminal */
 	  nt = itm.dot_before_nt();
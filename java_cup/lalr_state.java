@@ -69,37 +69,31 @@ public class lalr_state {
 	 "Attempt to construct a duplicate LALR state");
 
      /* assign a unique index */
-      _index = next_index++;
+      _index = Generator.current().next_state_index++;
 
      /* store the items */
      _items = itms;
 
      /* add to the global collection, keyed with its item set */
-     _all.put(_items,this);
+     Generator.current().states.put(_items,this);
    }
 
   /*-----------------------------------------------------------*/
   /*--- (Access to) Static (Class) Variables ------------------*/
   /*-----------------------------------------------------------*/
 
-  /** Collection of all states. */
-  protected static Hashtable _all = new Hashtable();
+  /* The collection of all states and the table of states by kernel belong
+     to the current Generator.  The kernel table finds states by their 
+     kernels (i.e, the original, unclosed, set of items -- which uniquely 
+     define the state), using (a copy of) their kernel item sets as keys. */
 
   /** Collection of all states. */
-  public static Enumeration all() {return _all.elements();}
+  public static Enumeration all() {return Generator.current().states.elements();}
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Indicate total number of states there are. */
-  public static int number() {return _all.size();}
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Hash table to find states by their kernels (i.e, the original, 
-   *  unclosed, set of items -- which uniquely define the state).  This table 
-   *  stores state objects using (a copy of) their kernel item sets as keys. 
-   */
-  protected static Hashtable _all_kernels = new Hashtable();
+  public static int number() {return Generator.current().states.size();}
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
@@ -115,14 +109,9 @@ public class lalr_state {
       if (itms == null) 
   	return null;
       else
-  	return (lalr_state)_all.get(itms);
+  	return (lalr_state)Generator.current().states.get(itms);
     }
 
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Static counter for assigning unique state indexes. */
-  protected static int next_index = 0;
-
   /*-----------------------------------------------------------*/
   /*--- (Access to) Instance Variables ------------------------*/
   /*-----------------------------------------------------------*/
@@ -282,6 +271,7 @@ public class lalr_state {
       lalr_item     itm, new_itm, existing, fix_itm;
       symbol        sym, sym2;
       Enumeration   i, s, fix;
+      Hashtable     all_kernels = Generator.current().state_kernels;
 
       /* sanity check */
       if (start_prod == null)
@@ -292,7 +282,7 @@ public class lalr_state {
       start_items = new lalr_item_set();
 
       itm = new lalr_item(start_prod);
-      itm.lookahead().add(terminal.EOF);
+      itm.lookahead().add(terminal.EOF());
 
       start_items.add(itm);
 
@@ -307,7 +297,7 @@ public class lalr_state {
       work_stack.push(start_state);
 
       /* enter the state using the kernel as the key */
-      _all_kernels.put(kernel, start_state);
+      all_kernels.put(kernel, start_state);
 
       /* continue looking at new states until we have no more work to do */
       while (!work_stack.empty())
@@ -357,7 +347,7 @@ public class lalr_state {
 	      kernel = new lalr_item_set(new_items);
 
 	      /* have we seen this one already? */
-	      new_st = (lalr_state)_all_kernels.get(kernel);
+	      new_st = (lalr_state)all_kernels.get(kernel);
 
 	      /* if we haven't, build a new state out of the item set */
 	      if (new_st == null)
@@ -372,7 +362,7 @@ public class lalr_state {
 		  work_stack.push(new_st);
 
 		  /* put it in our kernel table */
-		  _all_kernels.put(kernel, new_st);
+		  all_kernels.put(kernel, new_st);
 		}
 	      /* otherwise relink propagation to items in existing state */
 	      else 
@@ -407,6 +397,7 @@ public class lalr_state {
       /* all done building states */
 
       /* propagate complete lookahead sets throughout the states */
+      Generator.current().prof.start("propagate_lookaheads");
       propagate_all_lookaheads();
 
       return start_state;
@@ -449,6 +440,33 @@ public class lalr_state {
    * @param reduce_table the reduce-goto table to put entries in.
    */
   public void build_table_entries(
+    parse_action_table act_table, 
+    parse_reduce_table reduce_table)
+    throws internal_error
+    {
+      terminal_set conflict_set;
+
+      conflict_set = compute_table_entries(act_table, reduce_table);
+
+      /* if we end up with conflict(s), report them */
+      if (!conflict_set.empty())
+        report_conflicts(conflict_set);
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Fill in the parse table entries for this state, as described for
+   *  build_table_entries(), but return the conflicts rather than reporting
+   *  them.  This only writes to this state's rows of the tables, so it can
+   *  be run for different states at the same time (see state_task); the
+   *  conflicts can then be reported, in state order, with
+   *  report_conflicts().
+   *
+   * @param act_table    the action table to put entries in.
+   * @param reduce_table the reduce-goto table to put entries in.
+   * @return the terminals this state has unresolved conflicts under.
+   */
+  public terminal_set compute_table_entries(
     parse_action_table act_table, 
     parse_reduce_table reduce_table)
     throws internal_error
@@ -554,9 +572,7 @@ public class lalr_state {
 	    }
 	}
 
-      /* if we end up with conflict(s), report them */
-      if (!conflict_set.empty())
-        report_conflicts(conflict_set);
+      return conflict_set;
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -695,7 +711,7 @@ public class lalr_state {
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Produce warning messages for all conflicts found in this state.  */
-  protected void report_conflicts(terminal_set conflict_set)
+  public void report_conflicts(terminal_set conflict_set)
     throws internal_error
     {
       lalr_item    itm, compare;
@@ -759,30 +775,30 @@ public class lalr_state {
     {
       boolean comma_flag = false;
 
-      System.err.println("*** Reduce/Reduce conflict found in state #"+index());
-      System.err.print  ("  between ");
-      System.err.println(itm1.to_simple_string());
-      System.err.print  ("  and     ");
-      System.err.println(itm2.to_simple_string());
-      System.err.print("  under symbols: {" );
+      Generator.current().err.println("*** Reduce/Reduce conflict found in state #"+index());
+      Generator.current().err.print  ("  between ");
+      Generator.current().err.println(itm1.to_simple_string());
+      Generator.current().err.print  ("  and     ");
+      Generator.current().err.println(itm2.to_simple_string());
+      Generator.current().err.print("  under symbols: {" );
       for (int t = 0; t < terminal.number(); t++)
 	{
 	  if (itm1.lookahead().contains(t) && itm2.lookahead().contains(t))
 	    {
-	      if (comma_flag) System.err.print(", "); else comma_flag = true;
-	      System.err.print(terminal.find(t).name());
+	      if (comma_flag) Generator.current().err.print(", "); else comma_flag = true;
+	      Generator.current().err.print(terminal.find(t).name());
 	    }
 	}
-      System.err.println("}");
-      System.err.print("  Resolved in favor of ");
+      Generator.current().err.println("}");
+      Generator.current().err.print("  Resolved in favor of ");
       if (itm1.the_production().index() < itm2.the_production().index())
-	System.err.println("the first production.\n");
+	Generator.current().err.println("the first production.\n");
       else
-	System.err.println("the second production.\n");
+	Generator.current().err.println("the second production.\n");
 
       /* count the conflict */
-      emit.num_conflicts++;
-      lexer.warning_count++;
+      Generator.current().emitter.num_conflicts++;
+      Generator.current().scanner.warning_count++;
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -801,9 +817,9 @@ public class lalr_state {
       symbol       shift_sym;
 
       /* emit top part of message including the reduce item */
-      System.err.println("*** Shift/Reduce conflict found in state #"+index());
-      System.err.print  ("  between ");
-      System.err.println(red_itm.to_simple_string());
+      Generator.current().err.println("*** Shift/Reduce conflict found in state #"+index());
+      Generator.current().err.print  ("  between ");
+      Generator.current().err.println(red_itm.to_simple_string());
 
       /* find and report on all items that shift under our conflict symbol */
       for (Enumeration itms = items().all(); itms.hasMoreElements(); )
@@ -818,16 +834,16 @@ public class lalr_state {
 	      if (!shift_sym.is_non_term() && shift_sym.index() == conflict_sym)
 	        {
 		  /* yes, report on it */
-                  System.err.println("  and     " + itm.to_simple_string());
+                  Generator.current().err.println("  and     " + itm.to_simple_string());
 		}
 	    }
 	}
-      System.err.println("  under symbol "+ terminal.find(conflict_sym).name());
-      System.err.println("  Resolved in favor of shifting.\n");
+      Generator.current().err.println("  under symbol "+ terminal.find(conflict_sym).name());
+      Generator.current().err.println("  Resolved in favor of shifting.\n");
 
       /* count the conflict */
-      emit.num_conflicts++;
-      lexer.warning_count++;
+      Generator.current().emitter.num_conflicts++;
+      Generator.current().scanner.warning_count++;
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -5,7 +5,7 @@ import java.util.Hashtable;
 
 /** This class implements a small scanner (aka lexical analyzer or lexer) for
  *  the JavaCup specification.  This scanner reads characters from standard 
- *  input (System.in) and returns integers corresponding to the terminal 
+ *  input (the input stream of its Generator) and returns integers corresponding to the terminal 
  *  number of the next Symbol. Once end of input is reached the EOF Symbol is 
  *  returned on every subsequent call.<p>
  *  Symbols currently returned include: <pre>
@@ -34,7 +34,8 @@ import java.util.Hashtable;
  *  warning routines and keeps a count of errors and warnings that is 
  *  publicly accessible.<p>
  *  
- *  This class is "static" (i.e., it has only static members and methods).
+ *  Each Generator owns one instance of this class (see Generator.scanner),
+ *  so several specifications can be scanned at the same time.
  *
  * @version last updated: 7/3/96
  * @author  Frank Flannery
@@ -45,24 +46,34 @@ public class lexer {
   /*--- Constructor(s) ----------------------------------------*/
   /*-----------------------------------------------------------*/
 
-  /** The only constructor is private, so no instances can be created. */
-  private lexer() { }
+  /** Constructor for the scanner of one generator.
+   * @param g the generator whose input is scanned.
+   */
+  public lexer(Generator g) 
+    {
+      gen = g;
+    }
 
   /*-----------------------------------------------------------*/
-  /*--- Static (Class) Variables ------------------------------*/
+  /*--- (Access to) Instance Variables ------------------------*/
   /*-----------------------------------------------------------*/
 
+  /** Generator we scan for; supplies the input and message streams. */
+  protected Generator gen;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
   /** First character of lookahead. */
-  protected static int next_char; 
+  protected int next_char; 
 
   /** Second character of lookahead. */
-  protected static int next_char2;
+  protected int next_char2;
 
   /** Second character of lookahead. */
-  protected static int next_char3;
+  protected int next_char3;
 
   /** Second character of lookahead. */
-  protected static int next_char4;
+  protected int next_char4;
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
@@ -76,7 +87,7 @@ public class lexer {
    *  they match one of the keywords.  The string of the name is the key here,
    *  which indexes Integer objects holding the symbol number. 
    */
-  protected static Hashtable keywords = new Hashtable(23);
+  protected static final Hashtable keywords = new Hashtable(23);
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
@@ -86,41 +97,13 @@ public class lexer {
    *  appropriate char (currently Character objects have a bug which precludes
    *  their use in tables).
    */
-  protected static Hashtable char_symbols = new Hashtable(11);
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Current line number for use in error messages. */
-  protected static int current_line = 1;
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Character position in current line. */
-  protected static int current_position = 1;
+  protected static final Hashtable char_symbols = new Hashtable(11);
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  /** Character position in current line. */
-  protected static int absolute_position = 1;
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Count of total errors detected so far. */
-  public static int error_count = 0;
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Count of warnings issued so far */
-  public static int warning_count = 0;
-
-  /*-----------------------------------------------------------*/
-  /*--- Static Methods ----------------------------------------*/
-  /*-----------------------------------------------------------*/
-
-  /** Initialize the scanner.  This sets up the keywords and char_symbols
-    * tables and reads the first two characters of lookahead.  
-    */
-  public static void init() throws java.io.IOException
+  /* the keyword and single character tables never change, so they are
+     shared by every scanner and filled in once */
+  static
     {
       /* set up the keyword table */
       keywords.put("package",    new Integer(sym.PACKAGE));
@@ -147,24 +130,59 @@ public class lexer {
       char_symbols.put(new Integer('|'), new Integer(sym.BAR));
       char_symbols.put(new Integer('['), new Integer(sym.LBRACK));
       char_symbols.put(new Integer(']'), new Integer(sym.RBRACK));
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Current line number for use in error messages. */
+  protected int current_line = 1;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Character position in current line. */
+  protected int current_position = 1;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Character position in current line. */
+  protected int absolute_position = 1;
 
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Count of total errors detected so far. */
+  public int error_count = 0;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Count of warnings issued so far */
+  public int warning_count = 0;
+
+  /*-----------------------------------------------------------*/
+  /*--- General Methods ---------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Initialize the scanner.  This reads the first characters of lookahead
+    * from the input stream of our generator.
+    */
+  public void init() throws java.io.IOException
+    {
       /* read two characters of lookahead */
-      next_char = System.in.read();
+      next_char = gen.input_file.read();
       if (next_char == EOF_CHAR) {
 	next_char2 = EOF_CHAR;
         next_char3 = EOF_CHAR;
         next_char4 = EOF_CHAR;
       } else {
-	next_char2 = System.in.read();
+	next_char2 = gen.input_file.read();
 	if (next_char2 == EOF_CHAR) {
 	  next_char3 = EOF_CHAR;
 	  next_char4 = EOF_CHAR;
 	} else {
-	  next_char3 = System.in.read();
+	  next_char3 = gen.input_file.read();
 	  if (next_char3 == EOF_CHAR) {
 	    next_char4 = EOF_CHAR;
 	  } else {
-	    next_char4 = System.in.read();
+	    next_char4 = gen.input_file.read();
 	  }
 	}
       }
@@ -175,7 +193,7 @@ public class lexer {
   /** Advance the scanner one character in the input stream.  This moves
    * next_char2 to next_char and then reads a new next_char2.  
    */
-  protected static void advance() throws java.io.IOException
+  protected void advance() throws java.io.IOException
     {
       int old_char;
 
@@ -195,7 +213,7 @@ public class lexer {
 	  if (next_char3 == EOF_CHAR) {
 	    next_char4 = EOF_CHAR;
 	  } else {
-	    next_char4 = System.in.read();
+	    next_char4 = gen.input_file.read();
 	  }
 	}
       }
@@ -217,9 +235,9 @@ public class lexer {
    *  are printed on standard error (System.err).
    * @param message the message to print.
    */
-  public static void emit_error(String message)
+  public void emit_error(String message)
     {
-      System.err.println("Error at " + current_line + "(" + current_position +
+      gen.err.println("Error at " + current_line + "(" + current_position +
 			 "): " + message);
       error_count++;
     }
@@ -231,9 +249,9 @@ public class lexer {
    *  printed on standard error (System.err).
    * @param message the message to print.
    */
-  public static void emit_warn(String message)
+  public void emit_warn(String message)
     {
-      System.err.println("Warning at " + current_line + "(" + current_position +
+      gen.err.println("Warning at " + current_line + "(" + current_position +
 			 "): " + message);
       warning_count++;
     }
@@ -269,7 +287,7 @@ public class lexer {
   /** Try to look up a single character symbol, returns -1 for not found. 
    * @param ch the character in question.
    */
-  protected static int find_single_char(int ch)
+  protected int find_single_char(int ch)
     {
       Integer result;
 
@@ -285,7 +303,7 @@ public class lexer {
   /** Handle swallowing up a comment.  Both old style C and new style C++
    *  comments are handled.
    */
-  protected static void swallow_comment() throws java.io.IOException
+  protected void swallow_comment() throws java.io.IOException
     {
       /* next_char == '/' at this point */
 
@@ -344,7 +362,7 @@ public class lexer {
       include ":}" inside a code string).  The routine returns a String
       object suitable for return by the scanner.
    */
-  protected static Symbol do_code_string() throws java.io.IOException
+  protected Symbol do_code_string() throws java.io.IOException
     {
       StringBuffer result = new StringBuffer();
 
@@ -378,7 +396,7 @@ public class lexer {
    *  underscores or dollar signs.  This routine returns a String suitable
    *  for return by the scanner.
    */
-  protected static Symbol do_id() throws java.io.IOException
+  protected Symbol do_id() throws java.io.IOException
     {
       StringBuffer result = new StringBuffer();
       String       result_str;
@@ -419,7 +437,7 @@ public class lexer {
    *  parser, this can be changed to call debug_next_token() which prints
    *  a debugging message before returning the Symbol.
    */
-  public static Symbol next_token() throws java.io.IOException
+  public Symbol next_token() throws java.io.IOException
     {
       return real_next_token();
     }
@@ -430,7 +448,7 @@ public class lexer {
    *  routine, prints a message on System.out indicating what the Symbol is,
    *  then returns it.
    */
-  public static Symbol debug_next_token() throws java.io.IOException
+  public Symbol debug_next_token() throws java.io.IOException
     {
       Symbol result = real_next_token();
       System.out.println("# next_Symbol() => " + result.sym);
@@ -443,7 +461,7 @@ public class lexer {
    *  next_token(), but for debugging purposes can be called indirectly from
    *  debug_next_token(). 
    */
-  protected static Symbol real_next_token() throws java.io.IOException
+  protected Symbol real_next_token() throws java.io.IOException
     {
       int sym_num;
 
@@ -27,8 +27,10 @@ public class non_terminal extends symbol {
       /* super class does most of the work */
       super(nm, tp);
 
+      Generator gen = Generator.current();
+
       /* add to set of all non terminals and check for duplicates */
-      Object conflict = _all.put(nm,this);
+      Object conflict = gen.non_terminals.put(nm,this);
       if (conflict != null)
 	// can't throw an exception here because these are used in static
 	// initializers, so we crash instead
@@ -37,7 +39,7 @@ public class non_terminal extends symbol {
 	(new internal_error("Duplicate non-terminal ("+nm+") created")).crash();
 
       /* assign a unique index */
-      _index = next_index++;
+      _index = gen.next_non_terminal_index++;
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -54,13 +56,13 @@ public class non_terminal extends symbol {
   /*--- (Access to) Static (Class) Variables ------------------*/
   /*-----------------------------------------------------------*/
 
-  /** Table of all non-terminals -- elements are stored using name strings 
-   *  as the key 
-   */
-  protected static Hashtable _all = new Hashtable();
+  /* The tables themselves belong to the current Generator. */
 
   /** Access to all non-terminals. */
-  public static Enumeration all() {return _all.elements();}
+  public static Enumeration all() 
+    {
+      return Generator.current().non_terminals.elements();
+    }
 
   /** lookup a non terminal by name string */ 
   public static non_terminal find(String with_name)
@@ -68,28 +70,18 @@ public class non_terminal extends symbol {
       if (with_name == null)
         return null;
       else 
-        return (non_terminal)_all.get(with_name);
+        return (non_terminal)Generator.current().non_terminals.get(with_name);
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Total number of non-terminals. */
-  public static int number() {return _all.size();}
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Static counter to assign unique indexes. */
-  protected static int next_index = 0;
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Static counter for creating unique non-terminal names */
-  static protected int next_nt = 0;
+  public static int number() {return Generator.current().non_terminals.size();}
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** special non-terminal for start symbol */
-  public static final non_terminal START_nt = new non_terminal("$START");
+  public static non_terminal START_nt() {return Generator.current().START_nt;}
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
@@ -107,7 +99,7 @@ public class non_terminal extends symbol {
   static non_terminal create_new(String prefix) throws internal_error
     {
       if (prefix == null) prefix = "NT$";
-      return new non_terminal(prefix + next_nt++);
+      return new non_terminal(prefix + Generator.current().next_nt++);
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -15,14 +15,16 @@ public class parse_action_row {
    */
   public parse_action_row()
     {
+      Generator gen = Generator.current();
+
       /* make sure the size is set */
-      if (_size <= 0 )  _size = terminal.number();
+      if (gen.action_row_size <= 0 )  gen.action_row_size = terminal.number();
 
       /* allocate the array */
       under_term = new parse_action[size()];
 
       /* set each element to an error action */
-      for (int i=0; i<_size; i++)
+      for (int i=0; i<size(); i++)
 	under_term[i] = new parse_action();
     }
 
@@ -30,16 +32,11 @@ public class parse_action_row {
   /*--- (Access to) Static (Class) Variables ------------------*/
   /*-----------------------------------------------------------*/
 
-  /** Number of columns (terminals) in every row. */
-  protected static int _size = 0;
+  /* The row size and the table of reduction counts reused by 
+     compute_default() belong to the current Generator. */
 
   /** Number of columns (terminals) in every row. */
-  public static int size() {return _size;}
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
-
-  /** Table of reduction counts (reused by compute_default()). */
-  protected static int reduction_count[] = null;
+  public static int size() {return Generator.current().action_row_size;}
 
   /*-----------------------------------------------------------*/
   /*--- (Access to) Instance Variables ------------------------*/
@@ -70,10 +67,12 @@ public class parse_action_row {
   public void compute_default()
     {
       int i, prod, max_prod, max_red;
+      Generator gen = Generator.current();
 
       /* if we haven't allocated the count table, do so now */
-      if (reduction_count == null) 
-	reduction_count = new int[production.number()];
+      if (gen.reduction_count == null) 
+	gen.reduction_count = new int[production.number()];
+      int reduction_count[] = gen.reduction_count;
 
       /* clear the reduction count table and maximums */
       for (i = 0; i < production.number(); i++)
@@ -60,22 +60,35 @@ public class parse_action_table {
   public void check_reductions()
     throws internal_error
     {
-      parse_action act;
       production   prod;
-
-      /* tabulate reductions -- look at every table entry */
-      for (int row = 0; row < num_states(); row++)
+      Generator    gen = Generator.current();
+
+      /* tabulate reductions -- look at every table entry.  The rows are
+	 split across worker threads, each counting uses of each production
+	 separately; the counts are added up afterwards */
+      final int[][] uses = new int[state_task.workers(num_states(), 
+				     gen.num_threads)][production.number()];
+      new state_task() {
+	public void run(int row, int worker)
+	  {
+	    parse_action act;
+
+	    for (int col = 0; col < under_state[row].size(); col++)
+	      {
+		/* look at the action entry to see if its a reduce */
+		act = under_state[row].under_term[col];
+		if (act != null && act.kind() == parse_action.REDUCE)
+		  uses[worker][((reduce_action)act).reduce_with().index()]++;
+	      }
+	  }
+      }.run_all(gen, num_states(), gen.num_threads);
+
+      /* tell each production how often we used it */
+      for (Enumeration p = production.all(); p.hasMoreElements(); )
 	{
-	  for (int col = 0; col < under_state[row].size(); col++)
-	    {
-	      /* look at the action entry to see if its a reduce */
-	      act = under_state[row].under_term[col];
-	      if (act != null && act.kind() == parse_action.REDUCE)
-		{
-		  /* tell production that we used it */
-		  ((reduce_action)act).reduce_with().note_reduction_use();
-		}
-	    }
+	  prod = (production)p.nextElement();
+	  for (int w = 0; w < uses.length; w++)
+	    prod.note_reduction_uses(uses[w][prod.index()]);
 	}
 
       /* now go across every production and make sure we hit it */
@@ -87,14 +100,14 @@ public class parse_action_table {
 	  if (prod.num_reductions() == 0)
 	    {
 	      /* count it *
-	      emit.not_reduced++;
+	      gen.emitter.not_reduced++;
 
 	      /* give a warning if they haven't been turned off */
-	      if (!emit.nowarn)
+	      if (!gen.emitter.nowarn)
 		{
-		  System.err.println("*** Production \"" + 
+		  gen.err.println("*** Production \"" + 
 				  prod.to_simple_string() + "\" never reduced");
-		  lexer.warning_count++;
+		  gen.scanner.warning_count++;
 		}
 	    }
 	}
@@ -14,8 +14,10 @@ public class parse_reduce_row {
    */
   public parse_reduce_row()
     {
+      Generator gen = Generator.current();
+
       /* make sure the size is set */
-      if (_size <= 0 )  _size = non_terminal.number();
+      if (gen.reduce_row_size <= 0 )  gen.reduce_row_size = non_terminal.number();
 
       /* allocate the array */
       under_non_term = new lalr_state[size()];
@@ -25,11 +27,10 @@ public class parse_reduce_row {
   /*--- (Access to) Static (Class) Variables ------------------*/
   /*-----------------------------------------------------------*/
 
-  /** Number of columns (non terminals) in every row. */
-  protected static int _size = 0;
+  /* The row size belongs to the current Generator. */
 
   /** Number of columns (non terminals) in every row. */
-  public static int size() {return _size;}
+  public static int size() {return Generator.current().reduce_row_size;}
    
   /*-----------------------------------------------------------*/
   /*--- (Access to) Instance Variables ------------------------*/
@@ -385,18 +385,21 @@ public class parser extends java_cup.runtime.lr_parser {
   /** user initialization */
   public void user_init() throws java.lang.Exception
     {
- lexer.init(); 
+ scanner.init(); 
     }
 
   /** scan to get the next Symbol */
   public java_cup.runtime.Symbol scan()
     throws java.lang.Exception
     {
- return lexer.next_token(); 
+ return scanner.next_token(); 
     }
 
 
 
+  /** scanner of the generator this parser was created for */
+  protected lexer scanner = Generator.current().scanner;
+
   /* override error routines */
 
   public void report_fatal_error(
@@ -404,14 +407,15 @@ public class parser extends java_cup.runtime.lr_parser {
     Object   info)
     {
       done_parsing();
-      lexer.emit_error(message);
-      System.err.println("Can't recover from previous error(s), giving up.");
-      System.exit(1);
+      scanner.emit_error(message);
+      Generator.current().err.println(
+	"Can't recover from previous error(s), giving up.");
+      throw new Generator.exit(1);
     }
 
     public void report_error(String message, Object info)
     {
-      lexer.emit_error(message);
+      scanner.emit_error(message);
     }
 
 }
@@ -480,6 +484,9 @@ class CUP$parser$actions {
   /** left hand side non terminal of the current production */
   protected non_terminal lhs_nt;
 
+  /** generator the specification is being read into */
+  protected Generator gen = Generator.current();
+
   /** Current precedence number */
   int _cur_prec = 0;
 
@@ -494,16 +501,16 @@ class CUP$parser$actions {
   /** add relevant data to terminals */ 
   protected void add_precedence(String term) {
     if (term == null) {
-      System.err.println("Unable to add precedence to nonexistent terminal");
+      gen.err.println("Unable to add precedence to nonexistent terminal");
     } else {
       symbol_part sp = (symbol_part)symbols.get(term);
       if (sp == null) {
-	System.err.println("Could find terminal " + term + " while declaring precedence");
+	gen.err.println("Could find terminal " + term + " while declaring precedence");
       } else {
 	java_cup.symbol sym = sp.the_symbol();
 	if (sym instanceof terminal) 
 	  ((terminal)sym).set_precedence(_cur_side, _cur_prec);
-	else System.err.println("Precedence declaration: Can't find terminal " + term);
+	else gen.err.println("Precedence declaration: Can't find terminal " + term);
       }
     }
   }
@@ -583,7 +590,7 @@ class CUP$parser$actions {
 	  if (symbols.get(non_term_id) != null)
 	    {
 	      /* issue a message */
-	      lexer.emit_error( "java_cup.runtime.Symbol \"" + non_term_id + 
+	      gen.scanner.emit_error( "java_cup.runtime.Symbol \"" + non_term_id + 
 			                      "\" has already been declared");
 	    }
 	  else
@@ -618,7 +625,7 @@ class CUP$parser$actions {
 	  if (symbols.get(term_id) != null)
 	    {
 	      /* issue a message */
-	      lexer.emit_error("java_cup.runtime.Symbol \"" + term_id + 
+	      gen.scanner.emit_error("java_cup.runtime.Symbol \"" + term_id + 
 			   "\" has already been declared");
 	    }
 	  else
@@ -749,8 +756,8 @@ class CUP$parser$actions {
 	  /* if that fails, symbol is undeclared */
 	  if (symb == null)
 	    {
-	      if (lexer.error_count == 0)
-	        lexer.emit_error("java_cup.runtime.Symbol \"" + symid + 
+	      if (gen.scanner.error_count == 0)
+	        gen.scanner.emit_error("java_cup.runtime.Symbol \"" + symid + 
 			       "\" has not been declared");
 	    }
 	  else
@@ -801,10 +808,10 @@ class CUP$parser$actions {
 	          /* build a special start production */
 	          new_rhs();
 	          add_rhs_part(add_lab(new symbol_part(start_nt),"start_val"));
-	          add_rhs_part(new symbol_part(terminal.EOF));
+	          add_rhs_part(new symbol_part(terminal.EOF()));
 		  add_rhs_part(new action_part("RESULT = start_val;"));
-	          emit.start_production = 
-		     new production(non_terminal.START_nt, rhs_parts, rhs_pos);
+	          gen.emitter.start_production = 
+		     new production(non_terminal.START_nt(), rhs_parts, rhs_pos);
 
 	          new_rhs();
 		}
@@ -830,7 +837,7 @@ class CUP$parser$actions {
 	    {
 	      /* Find the precedence symbol */
 	      if (term_name == null) {
-		System.err.println("No terminal for contextual precedence");
+		gen.err.println("No terminal for contextual precedence");
 		sym = null;
 	      } else {
 		sym = ((symbol_part)symbols.get(term_name)).the_symbol();
@@ -843,7 +850,7 @@ class CUP$parser$actions {
 				   ((terminal)sym).precedence_side());
 		((symbol_part)symbols.get(term_name)).the_symbol().note_use();
 	      } else {
-		System.err.println("Invalid terminal " + term_name + 
+		gen.err.println("Invalid terminal " + term_name + 
 				   " for contextual precedence assignment");
 		p = new production(lhs_nt, rhs_parts, rhs_pos);
 	      }
@@ -858,16 +865,16 @@ class CUP$parser$actions {
 	          /* build a special start production */
 	          new_rhs();
 	          add_rhs_part(add_lab(new symbol_part(start_nt),"start_val"));
-	          add_rhs_part(new symbol_part(terminal.EOF));
+	          add_rhs_part(new symbol_part(terminal.EOF()));
 		  add_rhs_part(new action_part("RESULT = start_val;"));
 		  if ((sym!=null) && (sym instanceof terminal)) {
-		    emit.start_production = 
-		      new production(non_terminal.START_nt, rhs_parts, 
+		    gen.emitter.start_production = 
+		      new production(non_terminal.START_nt(), rhs_parts, 
 				     rhs_pos, ((terminal)sym).precedence_num(),
 				     ((terminal)sym).precedence_side());
 		  } else {
-		    emit.start_production = 
-		      new production(non_terminal.START_nt, rhs_parts, rhs_pos);
+		    gen.emitter.start_production = 
+		      new production(non_terminal.START_nt(), rhs_parts, rhs_pos);
 		  }
 	          new_rhs();
 		}
@@ -914,7 +921,7 @@ class CUP$parser$actions {
           case 60: // NT$13 ::= 
             {
               Object RESULT = null;
- lexer.emit_error("Syntax Error"); 
+ gen.scanner.emit_error("Syntax Error"); 
               CUP$parser$result = new java_cup.runtime.Symbol(52/*NT$13*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
           return CUP$parser$result;
@@ -963,8 +970,8 @@ class CUP$parser$actions {
           /* if it wasn't declared, emit a message */
 	  if (lhs_nt == null)
 	    {
-	      if (lexer.error_count == 0)
-	        lexer.emit_error("LHS non terminal \"" + lhs_id + 
+	      if (gen.scanner.error_count == 0)
+	        gen.scanner.emit_error("LHS non terminal \"" + lhs_id + 
 			       "\" has not been declared");
 	    }
 
@@ -1029,7 +1036,7 @@ class CUP$parser$actions {
 	  non_terminal nt = (non_terminal)non_terms.get(start_name);
 	  if (nt == null)
 	    {
-	      lexer.emit_error( "Start non terminal \"" + start_name + 
+	      gen.scanner.emit_error( "Start non terminal \"" + start_name + 
 	  		         "\" has not been declared");
 	    }
           else
@@ -1040,10 +1047,10 @@ class CUP$parser$actions {
 	      /* build a special start production */
 	      new_rhs();
 	      add_rhs_part(add_lab(new symbol_part(start_nt), "start_val"));
-	      add_rhs_part(new symbol_part(terminal.EOF));
+	      add_rhs_part(new symbol_part(terminal.EOF()));
 	      add_rhs_part(new action_part("RESULT = start_val;"));
-	      emit.start_production = 
-		     new production(non_terminal.START_nt, rhs_parts, rhs_pos);
+	      gen.emitter.start_production = 
+		     new production(non_terminal.START_nt(), rhs_parts, rhs_pos);
 	      new_rhs();
 	    }
 	
@@ -1063,7 +1070,7 @@ class CUP$parser$actions {
 	  if (symbols.get(sym) == null)
 	    {
 	      /* issue a message */
-	      lexer.emit_error("Terminal \"" + sym + 
+	      gen.scanner.emit_error("Terminal \"" + sym + 
 			   "\" has not been declared");
 	    }
           RESULT = sym;
@@ -1414,7 +1421,7 @@ class CUP$parser$actions {
 		String user_code = (String)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
 		 
 	  /* save the user code */
-	  emit.scan_code = user_code;
+	  gen.emitter.scan_code = user_code;
 	
               CUP$parser$result = new java_cup.runtime.Symbol(14/*scan_code*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
@@ -1438,7 +1445,7 @@ class CUP$parser$actions {
 		String user_code = (String)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
 		 
 	  /* save the user code */
-	  emit.init_code = user_code;
+	  gen.emitter.init_code = user_code;
 	
               CUP$parser$result = new java_cup.runtime.Symbol(13/*init_code*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
@@ -1462,7 +1469,7 @@ class CUP$parser$actions {
 		String user_code = (String)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
 		
 	  /* save the user included code string */
-	  emit.parser_code = user_code;
+	  gen.emitter.parser_code = user_code;
 	
               CUP$parser$result = new java_cup.runtime.Symbol(6/*parser_code_part*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
@@ -1486,7 +1493,7 @@ class CUP$parser$actions {
 		String user_code = (String)((java_cup.runtime.Symbol) CUP$parser$stack.elementAt(CUP$parser$top-1)).value;
 		
 	  /* save the user included code string */
-	  emit.action_code = user_code;
+	  gen.emitter.action_code = user_code;
 	
               CUP$parser$result = new java_cup.runtime.Symbol(5/*action_code_part*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-3)).left, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
@@ -1519,7 +1526,7 @@ class CUP$parser$actions {
               Object RESULT = null;
  
 	  /* save this import on the imports list */
-	  emit.import_list.push(multipart_name);
+	  gen.emitter.import_list.push(multipart_name);
 
 	  /* reset the accumulated multipart name */
 	  multipart_name = new String();
@@ -1573,7 +1580,7 @@ class CUP$parser$actions {
               Object RESULT = null;
 
 	  /* save the package name */
-	  emit.package_name = multipart_name;
+	  gen.emitter.package_name = multipart_name;
 
 	  /* reset the accumulated multipart name */
 	  multipart_name = new String();
@@ -1609,10 +1616,10 @@ class CUP$parser$actions {
               Object RESULT = null;
 
           /* declare "error" as a terminal */
-          symbols.put("error", new symbol_part(terminal.error));
+          symbols.put("error", new symbol_part(terminal.error()));
 
           /* declare start non terminal */
-          non_terms.put("$START", non_terminal.START_nt);
+          non_terms.put("$START", non_terminal.START_nt());
 	
               CUP$parser$result = new java_cup.runtime.Symbol(39/*NT$0*/, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, ((java_cup.runtime.Symbol)CUP$parser$stack.elementAt(CUP$parser$top-0)).right, RESULT);
             }
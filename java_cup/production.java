@@ -1,7 +1,6 @@
 
 package java_cup;
 
-import java.util.Hashtable;
 import java.util.Enumeration;
 
 /** This class represents a production in the grammar.  It contains
@@ -151,10 +150,11 @@ public class production {
       remove_embedded_actions();
 
       /* assign an index */
-      _index = next_index++;
+      Generator gen = Generator.current();
+      _index = gen.next_production_index++;
 
       /* put us in the global collection of productions */
-      _all.put(new Integer(_index),this);
+      gen.productions.put(new Integer(_index),this);
 
       /* put us in the production list of the lhs non terminal */
       lhs_sym.add_production(this);
@@ -217,21 +217,19 @@ public class production {
   /*-----------------------------------------------------------*/
  
     
-  /** Table of all productions.  Elements are stored using their index as 
-   *  the key.
-   */
-  protected static Hashtable _all = new Hashtable();
- 
+  /* The table of all productions (keyed by index) belongs to the current
+     Generator. */
+
   /** Access to all productions. */
-  public static Enumeration all() {return _all.elements();}
+  public static Enumeration all() 
+    {
+      return Generator.current().productions.elements();
+    }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
  
   /** Total number of productions. */
-  public static int number() {return _all.size();}
-
-  /** Static counter for assigning unique index numbers. */
-  protected static int next_index;
+  public static int number() {return Generator.current().productions.size();}
 
   /*-----------------------------------------------------------*/
   /*--- (Access to) Instance Variables ------------------------*/
@@ -314,6 +312,9 @@ public class production {
   /** Increment the count of reductions with this non-terminal */
   public void note_reduction_use() {_num_reductions++;}
 
+  /** Increment the count of reductions by a number of uses at once. */
+  public void note_reduction_uses(int count) {_num_reductions += count;}
+
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Is the nullability of the production known or unknown? */
@@ -382,20 +383,21 @@ public class production {
 				    int     offset)
     {
       String ret;
+      emit em = Generator.current().emitter;
 
       /* Put in the left/right value labels */
-      if (emit.lr_values())
+      if (em.lr_values())
         ret = "\t\tint " + labelname + "left = ((java_cup.runtime.Symbol)" + 
-	  emit.pre("stack") + ".elementAt(" + emit.pre("top") + 
+	  em.pre("stack") + ".elementAt(" + em.pre("top") + 
 	  "-" + offset + ")).left;\n" +
 	  "\t\tint " + labelname + "right = ((java_cup.runtime.Symbol)" + 
-	  emit.pre("stack") + ".elementAt(" + emit.pre("top") +
+	  em.pre("stack") + ".elementAt(" + em.pre("top") +
 	  "-" + offset + ")).right;\n";
       else ret = "";
 
       /* otherwise, just declare label. */
 	return ret + "\t\t" + stack_type + " " + labelname + " = (" + stack_type + 
-	  ")((" + "java_cup.runtime.Symbol) " + emit.pre("stack") + ".elementAt(" + emit.pre("top") 
+	  ")((" + "java_cup.runtime.Symbol) " + em.pre("stack") + ".elementAt(" + em.pre("top") 
 	  + "-" + offset + ")).value;\n";
 
     }
@@ -0,0 +1,229 @@
+package java_cup;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.Vector;
+
+/** This class collects a machine readable profile of one run of the
+ *  system: nanosecond timings, allocated bytes and peak heap use for each
+ *  phase, plus counters for the main pieces of work done while building
+ *  the machine.  It is written out as JSON (see write()) when the -profile
+ *  option of java_cup.Main is given, so that generator performance on
+ *  large grammars can be tracked over time.<p>
+ *
+ *  Phases follow one another: start() ends the phase that is running (if
+ *  any) and begins the next.  The phases of a normal run are parse_spec,
+ *  check_spec, nullability, first_sets, build_machine,
+ *  propagate_lookaheads, build_tables, check_reductions and emit.<p>
+ *
+ *  Allocated bytes come from the HotSpot specific
+ *  com.sun.management.ThreadMXBean and only count the thread running the
+ *  generator; they are -1 where that is not available.  Peak heap is the
+ *  sum over the heap memory pools of each pool's peak use during the phase
+ *  (the peaks are reset when a phase starts), so it is an upper bound on
+ *  the real peak.  The counters are always kept since they cost next to
+ *  nothing; the timing and memory probes only run when enabled.
+ *
+ * @see java_cup.Generator
+ */
+public class profiler {
+
+  /*-----------------------------------------------------------*/
+  /*--- Constructor(s) ----------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Constructor for a disabled profiler; see enable(). */
+  public profiler() { }
+
+  /*-----------------------------------------------------------*/
+  /*--- (Access to) Instance Variables ------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Are we recording phases? */
+  protected boolean _enabled = false;
+
+  /** Are we recording phases? */
+  public boolean enabled() {return _enabled;}
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Counter -- items considered by lalr_item_set.compute_closure(). */
+  public long closure_iterations = 0;
+
+  /** Counter -- items that passed their lookahead on to the items they
+   *  have propagate links to (see lalr_item.propagate_lookaheads()). */
+  public long propagation_steps = 0;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Completed phases, as {name, nanos, allocated, peak heap} arrays. */
+  protected Vector<Object[]> _phases = new Vector<Object[]>();
+
+  /** Name of the running phase, or null if there is none. */
+  protected String _phase_name;
+
+  /** When the running phase started. */
+  protected long _phase_start;
+
+  /** Bytes allocated by our thread when the running phase started. */
+  protected long _phase_alloc;
+
+  /** When the profiler was enabled. */
+  protected long _start_time;
+
+  /** The thread doing the work. */
+  protected Thread _thread;
+
+  /** Source of the thread allocation counts, or null. */
+  protected com.sun.management.ThreadMXBean _threads;
+
+  /*-----------------------------------------------------------*/
+  /*--- General Methods ---------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Start recording phases, on behalf of the calling thread. */
+  public void enable()
+    {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+      if (threads instanceof com.sun.management.ThreadMXBean &&
+	  ((com.sun.management.ThreadMXBean)threads)
+				.isThreadAllocatedMemorySupported())
+	{
+	  _threads = (com.sun.management.ThreadMXBean)threads;
+	  if (!_threads.isThreadAllocatedMemoryEnabled())
+	    _threads.setThreadAllocatedMemoryEnabled(true);
+	}
+
+      _thread = Thread.currentThread();
+      _start_time = System.nanoTime();
+      _enabled = true;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** End the running phase (if any) and start a new one.
+   * @param name name of the new phase.
+   */
+  public void start(String name)
+    {
+      if (!_enabled) return;
+
+      stop();
+
+      /* reset the pool peaks so we see just this phase */
+      for (int i = 0; i < heap_pools().length; i++)
+	heap_pools()[i].resetPeakUsage();
+
+      _phase_name  = name;
+      _phase_alloc = allocated();
+      _phase_start = System.nanoTime();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** End the running phase (if any). */
+  public void stop()
+    {
+      if (!_enabled || _phase_name == null) return;
+
+      long end   = System.nanoTime();
+      long alloc = allocated();
+      long peak  = 0;
+
+      for (int i = 0; i < heap_pools().length; i++)
+	peak += heap_pools()[i].getPeakUsage().getUsed();
+
+      _phases.addElement(new Object[] {
+	_phase_name,
+	Long.valueOf(end - _phase_start),
+	Long.valueOf(alloc < 0 ? -1 : alloc - _phase_alloc),
+	Long.valueOf(peak)});
+      _phase_name = null;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Bytes allocated so far by the generator thread, or -1 if unknown. */
+  protected long allocated()
+    {
+      if (_threads == null) return -1;
+      return _threads.getThreadAllocatedBytes(_thread.getId());
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Cached list of the heap memory pools. */
+  protected MemoryPoolMXBean[] _heap_pools;
+
+  /** The heap memory pools (eden, survivor, old generation, ...). */
+  protected MemoryPoolMXBean[] heap_pools()
+    {
+      if (_heap_pools == null)
+	{
+	  Vector<MemoryPoolMXBean> heap = new Vector<MemoryPoolMXBean>();
+	  java.util.List<MemoryPoolMXBean> all = ManagementFactory.getMemoryPoolMXBeans();
+	  for (int i = 0; i < all.size(); i++)
+	    {
+	      MemoryPoolMXBean pool = all.get(i);
+	      if (pool.getType() == MemoryType.HEAP && pool.isValid())
+		heap.addElement(pool);
+	    }
+	  _heap_pools = new MemoryPoolMXBean[heap.size()];
+	  heap.copyInto(_heap_pools);
+	}
+      return _heap_pools;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Write the profile as a JSON object.  This must be called while the
+   *  generator is current, since the remaining counters (states, items,
+   *  conflicts, ...) are taken from its tables.
+   * @param out stream to write on.
+   */
+  public void write(PrintWriter out)
+    {
+      Generator gen = Generator.current();
+      long items = 0;
+
+      stop();
+
+      for (java.util.Enumeration<?> st = lalr_state.all(); st.hasMoreElements(); )
+	items += ((lalr_state)st.nextElement()).items().size();
+
+      out.println("{");
+      out.println("  \"version\": \"" + version.title_str + "\",");
+      out.println("  \"total_ns\": " + (System.nanoTime() - _start_time) + ",");
+      out.println("  \"phases\": [");
+      for (int i = 0; i < _phases.size(); i++)
+	{
+	  Object[] ph = _phases.elementAt(i);
+	  out.print("    {\"name\": \"" + ph[0] + "\", \"ns\": " + ph[1] +
+		    ", \"allocated_bytes\": " + ph[2] +
+		    ", \"peak_heap_bytes\": " + ph[3] + "}");
+	  out.println(i < _phases.size()-1 ? "," : "");
+	}
+      out.println("  ],");
+      out.println("  \"counters\": {");
+      out.println("    \"terminals\": " + terminal.number() + ",");
+      out.println("    \"non_terminals\": " + non_terminal.number() + ",");
+      out.println("    \"productions\": " + production.number() + ",");
+      out.println("    \"states\": " + lalr_state.number() + ",");
+      out.println("    \"items\": " + items + ",");
+      out.println("    \"closure_iterations\": " + closure_iterations + ",");
+      out.println("    \"propagation_steps\": " + propagation_steps + ",");
+      out.println("    \"conflicts\": " + gen.emitter.num_conflicts + ",");
+      out.println("    \"errors\": " + gen.scanner.error_count + ",");
+      out.println("    \"warnings\": " + gen.scanner.warning_count);
+      out.println("  }");
+      out.println("}");
+      out.flush();
+    }
+
+  /*-----------------------------------------------------------*/
+
+}
@@ -137,6 +137,14 @@ public abstract class lr_parser {
    */
   protected int error_sync_size() {return _error_sync_size; }
 
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Marks the start of packed parse tables ("CUPT"), see unpack_tables(). */
+  public final static int PACKED_MAGIC = 0x43555054;
+
+  /** Version of the packed parse table format read by unpack_tables(). */
+  public final static int PACKED_VERSION = 1;
+
   /*-----------------------------------------------------------*/
   /*--- (Access to) Instance Variables ------------------------*/
   /*-----------------------------------------------------------*/
@@ -1136,6 +1144,77 @@ public abstract class lr_parser {
 	
     }
 
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Unpack a set of parse tables that the generator has packed into
+   *  strings (see the -compact_tables option of java_cup.Main).  Every
+   *  number in the packed form takes one character.  There is a small
+   *  header (the two halves of PACKED_MAGIC, then PACKED_VERSION) followed
+   *  by the number of tables and then each table.  Each table is a row
+   *  count followed by its rows.  Each row starts with a back reference: 0
+   *  means the row follows literally, n &gt; 0 means the row is identical to
+   *  the row n places before it (and the same array is shared).  A literal
+   *  row is its length followed by its entries, each stored as the 16 bit
+   *  zig-zag encoded difference from the entry two places before it (so
+   *  the ascending symbol indexes of the (symbol, action) pairs become
+   *  small numbers, which are also the cheapest characters in a class
+   *  file).  The data is split over several strings since a single string
+   *  constant is limited to 64K.
+   * @param chunks the packed data, as emitted by the generator.
+   * @return the tables, in the order they were packed.
+   */
+  protected static short[][][] unpack_tables(String[] chunks)
+    {
+      int len = 0;
+      for (int i = 0; i < chunks.length; i++)
+	len += chunks[i].length();
+
+      char[] data = new char[len];
+      len = 0;
+      for (int i = 0; i < chunks.length; i++)
+	{
+	  chunks[i].getChars(0, chunks[i].length(), data, len);
+	  len += chunks[i].length();
+	}
+
+      try {
+	int pos = 0;
+	if (((data[pos++] << 16) | data[pos++]) != PACKED_MAGIC)
+	  throw new Error("Packed parse tables are corrupt");
+	if (data[pos++] != PACKED_VERSION)
+	  throw new Error("Unsupported packed parse table version");
+
+	short[][][] result = new short[data[pos++]][][];
+	for (int t = 0; t < result.length; t++)
+	  {
+	    short[][] table = new short[data[pos++]][];
+	    for (int r = 0; r < table.length; r++)
+	      {
+		int back = data[pos++];
+		if (back != 0)
+		  {
+		    /* share the earlier, identical row */
+		    table[r] = table[r - back];
+		    continue;
+		  }
+
+		short[] row = new short[data[pos++]];
+		for (int i = 0; i < row.length; i++)
+		  {
+		    int val = data[pos++];
+		    val = (val >>> 1) ^ -(val & 1);
+		    row[i] = (short)(i >= 2 ? val + row[i-2] : val);
+		  }
+		table[r] = row;
+	      }
+	    result[t] = table;
+	  }
+	return result;
+      } catch (ArrayIndexOutOfBoundsException e) {
+	throw new Error("Packed parse tables are truncated");
+      }
+    }
+
   /*-----------------------------------------------------------*/
 
 }
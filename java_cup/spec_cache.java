@@ -0,0 +1,281 @@
+package java_cup;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** This class implements a cache of generated parsers, so that running the
+ *  system again on a specification it has already processed (with the same
+ *  options) can simply copy the previous output rather than rebuilding the
+ *  whole LALR machine.  It is enabled with the -cache option of
+ *  java_cup.Main.<p>
+ *
+ *  Entries are keyed by a SHA-256 hash of the version of the system, the
+ *  options that affect the generated code or messages, and the text of
+ *  the specification.  Before hashing, the specification is normalised:
+ *  line ends are made uniform and trailing white space is dropped, since
+ *  neither changes the tokens the lexer sees.  Each entry is a directory
+ *  named by the hash under the cache directory, holding the generated
+ *  source files and a "messages" file with everything the run printed to
+ *  the message stream (warnings, the summary, etc.), which is replayed on a
+ *  hit.  Only runs that produced code without errors are stored.  Entries
+ *  are written under a temporary name and then renamed into place, so a
+ *  build running several generators against one cache never sees a half
+ *  written entry.
+ *
+ * @see java_cup.Generator
+ */
+public class spec_cache {
+
+  /*-----------------------------------------------------------*/
+  /*--- Constructor(s) ----------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Full constructor.
+   * @param dir     the cache directory (created if needed).
+   * @param spec    the raw text of the specification.
+   * @param options description of the options in effect.
+   */
+  public spec_cache(File dir, byte[] spec, String options)
+    {
+      _dir = dir;
+      _key = compute_key(spec, options);
+    }
+
+  /*-----------------------------------------------------------*/
+  /*--- (Access to) Static (Class) Variables ------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Revision of the cache layout (and of the generator output), part of
+   *  every key so that old entries are simply not found. */
+  protected static final String CACHE_REVISION = "1";
+
+  /** Name of the file holding the saved messages in each entry. */
+  protected static final String MESSAGES = "messages";
+
+  /*-----------------------------------------------------------*/
+  /*--- (Access to) Instance Variables ------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** The cache directory. */
+  protected File _dir;
+
+  /** The cache directory. */
+  public File dir() {return _dir;}
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Hex digest identifying the specification and options. */
+  protected String _key;
+
+  /** Hex digest identifying the specification and options. */
+  public String key() {return _key;}
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Directory of the entry for our key. */
+  public File entry() {return new File(_dir, _key);}
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Copy of everything printed on the stream returned by record(). */
+  protected ByteArrayOutputStream _messages = new ByteArrayOutputStream();
+
+  /*-----------------------------------------------------------*/
+  /*--- General Methods ---------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Compute the key for a specification and set of options. */
+  protected static String compute_key(byte[] spec, String options)
+    {
+      MessageDigest md;
+
+      try {
+	md = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+	throw new Error("SHA-256 is not available: " + e.getMessage());
+      }
+
+      /* everything but the specification text */
+      try {
+	md.update((version.title_str + "\n" + CACHE_REVISION + "\n" +
+		   options + "\n").getBytes("UTF-8"));
+      } catch (UnsupportedEncodingException e) {
+	throw new Error("UTF-8 is not supported");
+      }
+
+      /* the specification, one normalised line at a time */
+      int start = 0;
+      for (int i = 0; i <= spec.length; i++)
+	{
+	  if (i < spec.length && spec[i] != '\n' && spec[i] != '\r') continue;
+
+	  /* a \r\n pair ends just one line */
+	  int end = i;
+	  while (end > start &&
+		 (spec[end-1] == ' ' || spec[end-1] == '\t' ||
+		  spec[end-1] == '\f'))
+	    end--;
+	  md.update(spec, start, end - start);
+	  md.update((byte)'\n');
+
+	  if (i + 1 < spec.length && spec[i] == '\r' && spec[i+1] == '\n') i++;
+	  start = i + 1;
+	}
+
+      byte[] digest = md.digest();
+      StringBuffer result = new StringBuffer();
+      for (int i = 0; i < digest.length; i++)
+	result.append(Integer.toHexString((digest[i] & 0xff) | 0x100)
+			.substring(1));
+      return result.toString();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Replay a cached entry, if there is one.  This copies the named files
+   *  into the output directory and prints the saved messages.
+   * @param  out_dir directory the generated files go into (null for the
+   *                 current directory).
+   * @param  names   names of the generated files.
+   * @param  err     stream the saved messages are printed on.
+   * @return true if the entry was found and replayed.
+   */
+  public boolean replay(File out_dir, String[] names, PrintStream err)
+    throws IOException
+    {
+      File ent = entry();
+
+      /* all of the files must be there, or it's a miss */
+      if (!new File(ent, MESSAGES).isFile()) return false;
+      for (int i = 0; i < names.length; i++)
+	if (!new File(ent, names[i]).isFile()) return false;
+
+      for (int i = 0; i < names.length; i++)
+	copy(new File(ent, names[i]), new File(out_dir, names[i]));
+
+      err.write(read_all(new File(ent, MESSAGES)));
+      err.flush();
+      return true;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Wrap the message stream of a run so that what is printed on it is
+   *  also kept, to be saved by store().
+   * @param  err the message stream.
+   * @return a stream that prints on err and records what it prints.
+   */
+  public PrintStream record(final PrintStream err)
+    {
+      return new PrintStream(new OutputStream() {
+	public void write(int b)
+	  {
+	    err.write(b);
+	    _messages.write(b);
+	  }
+	public void write(byte[] b, int off, int len)
+	  {
+	    err.write(b, off, len);
+	    _messages.write(b, off, len);
+	  }
+	public void flush()
+	  {
+	    err.flush();
+	  }
+      }, true);
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Store the output of a successful run as the entry for our key, along
+   *  with the messages recorded by record().
+   * @param out_dir  directory the generated files were written to.
+   * @param names    names of the generated files.
+   */
+  public void store(File out_dir, String[] names)
+    throws IOException
+    {
+      File ent = entry();
+      if (ent.exists()) return;
+
+      _dir.mkdirs();
+      File tmp = new File(_dir, _key + ".tmp" +
+			  Long.toHexString(System.nanoTime()));
+      if (!tmp.mkdir())
+	throw new IOException("Can't create cache entry \"" + tmp + "\"");
+
+      try {
+	for (int i = 0; i < names.length; i++)
+	  copy(new File(out_dir, names[i]), new File(tmp, names[i]));
+
+	OutputStream out = new FileOutputStream(new File(tmp, MESSAGES));
+	try {
+	  _messages.writeTo(out);
+	} finally {
+	  out.close();
+	}
+
+	/* if someone else got there first, theirs is just as good */
+	if (tmp.renameTo(ent)) tmp = null;
+      } finally {
+	if (tmp != null) delete_tree(tmp);
+      }
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Copy one file. */
+  protected static void copy(File from, File to) throws IOException
+    {
+      byte[] contents = read_all(from);
+      OutputStream out = new FileOutputStream(to);
+      try {
+	out.write(contents);
+      } finally {
+	out.close();
+      }
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Read the whole of a file. */
+  protected static byte[] read_all(File fil) throws IOException
+    {
+      InputStream in = new FileInputStream(fil);
+      try {
+	return read_all(in);
+      } finally {
+	in.close();
+      }
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Read the rest of a stream (such as the specification). */
+  public static byte[] read_all(InputStream in) throws IOException
+    {
+      ByteArrayOutputStream result = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int n;
+
+      while ((n = in.read(buf)) > 0)
+	result.write(buf, 0, n);
+      return result.toByteArray();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Remove a partly written entry. */
+  protected static void delete_tree(File fil)
+    {
+      File[] contents = fil.listFiles();
+      if (contents != null)
+	for (int i = 0; i < contents.length; i++)
+	  contents[i].delete();
+      fil.delete();
+    }
+
+  /*-----------------------------------------------------------*/
+
+}
@@ -0,0 +1,126 @@
+package java_cup;
+
+/** This class represents a piece of work done separately for each state of
+ *  the machine (or row of the parse tables), which can therefore be spread
+ *  across several threads.  Subclasses supply run() for a single state;
+ *  run_all() then calls it for every state.<p>
+ *
+ *  The states are dealt out round robin: with n threads, worker w handles
+ *  states w, w+n, w+2n, ...  That keeps the split deterministic and evens
+ *  out the cost of big and small states without any shared work queue.
+ *  Every worker thread is bound to the generator (see Generator.current())
+ *  so the usual static access methods work inside run().  The work for
+ *  different states must only write to data belonging to that state (or
+ *  to that worker); anything that has to be combined, such as conflict
+ *  reports, is left for the caller to merge in state order afterwards.
+ *
+ * @see java_cup.Generator
+ */
+public abstract class state_task {
+
+  /*-----------------------------------------------------------*/
+  /*--- (Access to) Static (Class) Variables ------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Fewest states worth giving a thread of its own. */
+  protected static final int MIN_STATES_PER_THREAD = 64;
+
+  /*-----------------------------------------------------------*/
+  /*--- General Methods ---------------------------------------*/
+  /*-----------------------------------------------------------*/
+
+  /** Do the work for one state.
+   * @param state  index of the state (or table row).
+   * @param worker index of the worker doing it, from 0 up to (but not
+   *               including) the number of workers returned by run_all().
+   */
+  public abstract void run(int state, int worker) throws internal_error;
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Number of workers run_all() will use.
+   * @param count    number of states.
+   * @param nthreads most threads to use.
+   */
+  public static int workers(int count, int nthreads)
+    {
+      int result = Math.min(nthreads, count / MIN_STATES_PER_THREAD);
+      return result < 1 ? 1 : result;
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Call run() for every state from 0 up to count-1, using up to nthreads
+   *  threads.  With a single worker everything is done on the calling
+   *  thread.  If any call fails, the first failure (in worker order) is
+   *  thrown once all of the workers have finished.
+   * @param gen      the generator the work is for.
+   * @param count    number of states.
+   * @param nthreads most threads to use.
+   */
+  public void run_all(final Generator gen, final int count, int nthreads)
+    throws internal_error
+    {
+      final int n = workers(count, nthreads);
+
+      /* not worth starting threads for */
+      if (n == 1)
+	{
+	  for (int st = 0; st < count; st++)
+	    run(st, 0);
+	  return;
+	}
+
+      final Throwable[] failed = new Throwable[n];
+      Thread[] threads = new Thread[n];
+
+      for (int w = 0; w < n; w++)
+	{
+	  final int worker = w;
+	  threads[w] = new Thread("java_cup worker " + w) {
+	    public void run()
+	      {
+		Generator prev = Generator.bind(gen);
+		try {
+		  for (int st = worker; st < count; st += n)
+		    state_task.this.run(st, worker);
+		} catch (Throwable e) {
+		  failed[worker] = e;
+		} finally {
+		  Generator.bind(prev);
+		}
+	      }
+	  };
+	  threads[w].start();
+	}
+
+      /* wait for all of them, even if one has already failed */
+      boolean interrupted = false;
+      for (int w = 0; w < n; w++)
+	{
+	  try {
+	    threads[w].join();
+	  } catch (InterruptedException e) {
+	    /* the rows aren't done yet, so keep waiting */
+	    interrupted = true;
+	    w--;
+	  }
+	}
+      if (interrupted) Thread.currentThread().interrupt();
+
+      for (int w = 0; w < n; w++)
+	{
+	  if (failed[w] instanceof internal_error)
+	    throw (internal_error)failed[w];
+	  if (failed[w] instanceof RuntimeException)
+	    throw (RuntimeException)failed[w];
+	  if (failed[w] instanceof Error)
+	    throw (Error)failed[w];
+	  if (failed[w] != null)
+	    throw new internal_error("Worker failed: " + failed[w]);
+	}
+    }
+
+  /*-----------------------------------------------------------*/
+
+}
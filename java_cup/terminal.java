@@ -1,7 +1,6 @@
 package java_cup;
 
 import java_cup.assoc;
-import java.util.Hashtable;
 import java.util.Enumeration;
 
 /** This class represents a terminal symbol in the grammar.  Each terminal 
@@ -28,8 +27,10 @@ public class terminal extends symbol {
       /* superclass does most of the work */
       super(nm, tp);
 
+      Generator gen = Generator.current();
+
       /* add to set of all terminals and check for duplicates */
-      Object conflict = _all.put(nm,this);
+      Object conflict = gen.terminals.put(nm,this);
       if (conflict != null)
 	// can't throw an execption here because this is used in static 
 	// initializers, so we do a crash instead
@@ -38,14 +39,14 @@ public class terminal extends symbol {
 	(new internal_error("Duplicate terminal (" + nm + ") created")).crash();
 
       /* assign a unique index */
-      _index = next_index++;
+      _index = gen.next_terminal_index++;
 
       /* set the precedence */
       _precedence_num = precedence_num;
       _precedence_side = precedence_side;
 
       /* add to by_index set */
-      _all_by_index.put(new Integer(_index), this);
+      gen.terminals_by_index.put(new Integer(_index), this);
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -79,13 +80,10 @@ public class terminal extends symbol {
   /*--- (Access to) Static (Class) Variables ------------------*/
   /*-----------------------------------------------------------*/
 
-  /** Table of all terminals.  Elements are stored using name strings as 
-   *  the key 
-   */
-  protected static Hashtable _all = new Hashtable();
+  /* The tables themselves belong to the current Generator. */
 
   /** Access to all terminals. */
-  public static Enumeration all() {return _all.elements();}
+  public static Enumeration all() {return Generator.current().terminals.elements();}
 
   /** Lookup a terminal by name string. */ 
   public static terminal find(String with_name)
@@ -93,42 +91,34 @@ public class terminal extends symbol {
       if (with_name == null)
 	return null;
       else 
-	return (terminal)_all.get(with_name);
+	return (terminal)Generator.current().terminals.get(with_name);
     }
 
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
-  /** Table of all terminals indexed by their index number. */
-  protected static Hashtable _all_by_index = new Hashtable();
-
   /** Lookup a terminal by index. */
   public static terminal find(int indx)
     {
       Integer the_indx = new Integer(indx);
 
-      return (terminal)_all_by_index.get(the_indx);
+      return (terminal)Generator.current().terminals_by_index.get(the_indx);
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Total number of terminals. */
-  public static int number() {return _all.size();}
-
-  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
- 
-  /** Static counter to assign unique index. */
-  protected static int next_index = 0;
+  public static int number() {return Generator.current().terminals.size();}
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** Special terminal for end of input. */
-  public static final terminal EOF = new terminal("EOF");
+  public static terminal EOF() {return Generator.current().EOF;}
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
   /** special terminal used for error recovery */
-  public static final terminal error = new terminal("error");
+  public static terminal error() {return Generator.current().error;}
 
   /*-----------------------------------------------------------*/
   /*--- General Methods ---------------------------------------*/
@@ -0,0 +1,73 @@
+package Semant;
+import java.io.*;
+import java.util.concurrent.Executors;
+
+// Checks many small programs through one Server on a pool of threads, as
+// make check does with the testcases, but with every program of a round
+// declaring and using the same names, new to the run, so the threads
+// lexing them at once all make those names' Symbols together.  If two of
+// them got different Symbols for one name, a program would find its own
+// declaration missing; every program here is correct, so any error at all
+// fails the run.  From the top:
+//   make race
+//   java -cp .:test Semant.ServerRace [rounds]
+public class ServerRace {
+  static final int FILES = 16;			// programs a round
+  static final int THREADS = Math.max(16, Runtime.getRuntime().availableProcessors());
+
+  public static void main(String argv[]) throws IOException {
+    int rounds = argv.length > 0 ? Integer.parseInt(argv[0]) : 500;
+    //each run picks its own names, in case the JVM has seen some before
+    String run = Long.toString(System.nanoTime(), 36);
+    ByteArrayOutputStream requests = new ByteArrayOutputStream();
+    for (int r = 0; r < rounds; r++)
+      for (int i = 0; i < FILES; i++) {
+	byte[] text = program(run + "_" + r, i).getBytes("US-ASCII");
+	String id = r + "." + i;
+	requests.write(("source " + id + " " + id + ".tig " + text.length + "\n")
+		       .getBytes("US-ASCII"));
+	requests.write(text);
+      }
+    ByteArrayOutputStream replies = new ByteArrayOutputStream();
+    Server.pool = Executors.newFixedThreadPool(THREADS);
+    new Server(new ByteArrayInputStream(requests.toByteArray()), replies).serve();
+    Server.pool.shutdown();
+
+    int done = 0, failed = 0;
+    BufferedReader in = new BufferedReader(new StringReader(replies.toString()));
+    for (String line; (line = in.readLine()) != null; ) {
+      String[] words = line.split(" ");
+      if (words[1].equals("done")) {
+	done++;
+	if (!words[2].equals("0"))
+	  failed++;
+      } else if (failed < 10)
+	System.out.println(line);
+    }
+    System.out.println(done + " programs on " + THREADS + " threads, "
+		       + failed + " with errors");
+    if (done != rounds * FILES || failed > 0)
+      System.exit(1);
+  }
+
+  // program i of a round; every name in it ends in s, and the chain of
+  // NAMES variables gives the lexers many new names to make at once
+  static final int NAMES = 64;
+
+  static String program(String s, int i) {
+    StringBuilder p = new StringBuilder("let\n");
+    p.append("  type rec_" + s + " = {field_" + s + ": int}\n");
+    p.append("  type list_" + s + " = array of rec_" + s + "\n");
+    p.append("  var v0_" + s + " := rec_" + s + "{field_" + s + " = " + i + "}\n");
+    for (int k = 1; k < NAMES; k++)
+      p.append("  var v" + k + "_" + s + " := v" + (k - 1) + "_" + s + "\n");
+    p.append("  var all_" + s + " := list_" + s + "[" + (i + 1) + "] of v"
+	     + (NAMES - 1) + "_" + s + "\n");
+    p.append("  function fun_" + s + "(arg_" + s + ": rec_" + s + ") : int =\n");
+    p.append("    arg_" + s + ".field_" + s + " + " + i + "\n");
+    p.append("in\n");
+    p.append("  fun_" + s + "(all_" + s + "[0])\n");
+    p.append("end\n");
+    return p.toString();
+  }
+}